@@ -29,6 +29,8 @@ import de.ellpeck.rockbottom.api.construction.compendium.ICompendiumRecipe;
 import de.ellpeck.rockbottom.api.construction.compendium.PlayerCompendiumRecipe;
 import de.ellpeck.rockbottom.api.construction.resource.IUseInfo;
 import de.ellpeck.rockbottom.api.data.set.AbstractDataSet;
+import de.ellpeck.rockbottom.api.data.set.DataSetReader;
+import de.ellpeck.rockbottom.api.data.set.DataSetWriter;
 import de.ellpeck.rockbottom.api.data.set.part.DataPart;
 import de.ellpeck.rockbottom.api.data.settings.Settings;
 import de.ellpeck.rockbottom.api.entity.MovableWorldObject;
@@ -92,6 +94,7 @@ public interface IApiHandler {
      * @param stream The output to write to
      * @param set    The set to write to the output
      * @throws Exception if writing fails for some reason
+     * @see DataSetWriter
      */
     void writeDataSet(DataOutput stream, AbstractDataSet set) throws Exception;
 
@@ -102,6 +105,7 @@ public interface IApiHandler {
      * @param stream The input to read from
      * @param set    The set to save the input in
      * @throws Exception if reading fails for some reason
+     * @see DataSetReader
      */
     void readDataSet(DataInput stream, AbstractDataSet set) throws Exception;
 
@@ -130,7 +134,9 @@ public interface IApiHandler {
     /**
      * Interpolates the light at a position in the world. The four integers in
      * the returned array specify the light at each four corners of the tile at
-     * the position.
+     * the position. Since this creates a new array every time, renderers
+     * should use the chunk's {@link de.ellpeck.rockbottom.api.world.IChunk#getLightCache()}
+     * instead.
      *
      * @param world The world
      * @param x     The x coordinate
@@ -225,8 +231,11 @@ public interface IApiHandler {
 
     /**
      * Returns a new {@link INoiseGen} of the Simplex Noise kind based on the
-     * specified seed.
+     * specified seed. The returned generator supports bulk sampling through
+     * {@link INoiseGen#fill2dNoise(double, double, double, double, int, int,
+     * double[])}, which should be preferred when filling a whole chunk.
      *
+     * @see de.ellpeck.rockbottom.api.world.gen.SimplexNoise
      * @param seed The seed
      * @return The noise generator
      */
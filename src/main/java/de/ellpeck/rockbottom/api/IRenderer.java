@@ -28,6 +28,8 @@ import de.ellpeck.rockbottom.api.data.settings.Settings;
 import de.ellpeck.rockbottom.api.event.impl.TooltipEvent;
 import de.ellpeck.rockbottom.api.gui.container.ItemContainer;
 import de.ellpeck.rockbottom.api.item.ItemInstance;
+import de.ellpeck.rockbottom.api.render.ChunkMesh;
+import de.ellpeck.rockbottom.api.render.ChunkMeshBuilder;
 import de.ellpeck.rockbottom.api.render.engine.*;
 import de.ellpeck.rockbottom.api.util.ApiInternal;
 import de.ellpeck.rockbottom.api.util.Util;
@@ -133,6 +135,20 @@ public interface IRenderer extends IDisposable {
      */
     void addVertex(float x, float y, int color, float u, float v);
 
+    /**
+     * Adds vertices that have already been processed, like the ones recorded
+     * into a {@link MeshBuffer}, to this renderer using its current texture
+     * and shader program, flushing whenever the streaming buffer is full.
+     * This is used by {@link SpriteBatch} to draw its sorted sections.
+     *
+     * @param buffer      The buffer to copy the vertices from, which needs to
+     *                    have the same amount of components per vertex as the
+     *                    current shader program
+     * @param firstVertex The index of the first vertex to add
+     * @param amount      The amount of vertices to add
+     */
+    void addVertices(MeshBuffer buffer, int firstVertex, int amount);
+
     /**
      * Begins rendering with this renderer. This method is internal and there
      * should not be any reasons for a mod to call it.
@@ -683,6 +699,7 @@ public interface IRenderer extends IDisposable {
      * @return The amount of flushes that this renderer has done since the last
      * render frame.
      * @see #flush()
+     * @see SpriteBatch
      */
     int getFlushes();
 
@@ -707,6 +724,39 @@ public interface IRenderer extends IDisposable {
      */
     int getVertexAmount();
 
+    /**
+     * Sets a {@link MeshBuffer} that all vertices added to this renderer on the
+     * calling thread are written into instead of the streaming buffer. While a
+     * capture is set, {@link #put(float)} doesn't cause any flushes, and {@link
+     * #setTexture(ITexture)} and {@link #setProgram(IShaderProgram)} only
+     * change the texture and program of the capture, so that tile renderers
+     * can be baked into a static mesh or recorded into a {@link SpriteBatch}
+     * by calling them as usual. Likewise, changing the rotation, rotation
+     * center, translation, scale or mirroring only changes the capture's
+     * {@link MeshBuffer#setTransform(RenderTransform)}, starting from {@link
+     * RenderTransform#IDENTITY} if the capture doesn't have one yet. While
+     * capturing, the getters for the texture, program and transformation
+     * return the capture's, so that the renderer's own state is never read
+     * from other threads.
+     * The capture is local to the thread that set it, and adding vertices
+     * while capturing doesn't touch any state that is shared between threads,
+     * so that several {@link ChunkMeshBuilder} workers can capture at the same
+     * time. This is used by {@link ChunkMesh} and should not be called by
+     * mods.
+     *
+     * @param capture The buffer to capture into, or null to stop capturing
+     */
+    @ApiInternal
+    void setCapture(MeshBuffer capture);
+
+    /**
+     * @return The buffer that vertices are currently captured into on the
+     * calling thread, or null if there is none
+     * @see #setCapture(MeshBuffer)
+     */
+    @ApiInternal
+    MeshBuffer getCapture();
+
     double getCameraX();
 
     double getCameraY();
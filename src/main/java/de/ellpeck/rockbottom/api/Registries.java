@@ -50,8 +50,10 @@ import de.ellpeck.rockbottom.api.gui.ISpecialCursor;
 import de.ellpeck.rockbottom.api.item.Item;
 import de.ellpeck.rockbottom.api.item.ToolProperty;
 import de.ellpeck.rockbottom.api.mod.IMod;
+import de.ellpeck.rockbottom.api.mod.IModLoader;
 import de.ellpeck.rockbottom.api.net.chat.Command;
 import de.ellpeck.rockbottom.api.net.chat.component.ChatComponent;
+import de.ellpeck.rockbottom.api.net.packet.ChunkDeltaPacket;
 import de.ellpeck.rockbottom.api.net.packet.IPacket;
 import de.ellpeck.rockbottom.api.tile.Tile;
 import de.ellpeck.rockbottom.api.tile.state.TileState;
@@ -117,7 +119,9 @@ public final class Registries {
      * The registry for all {@link IPacket} types. To register into this
      * registry, you can use {@link IndexRegistry#getNextFreeId()} to determine
      * an id for the packet, or directly register it using {@link
-     * DoubleRegistry#registerNextFree(ResourceName, Object)} )}.
+     * DoubleRegistry#registerNextFree(ResourceName, Object)} )}. Packets that
+     * are part of the API, like {@link ChunkDeltaPacket}, are registered by
+     * the game after its own packets.
      */
     //public static final IndexRegistry<Class<? extends IPacket>> PACKET_REGISTRY = new IndexRegistry<>(ResourceName.intern("packet_registry"), Byte.MAX_VALUE, false).register();
     public static final DoubleRegistry<IPacket.IFactory> PACKET_REGISTRY = new DoubleRegistry<>(ResourceName.intern("packet_registry"), Byte.MAX_VALUE, false).register();
@@ -341,6 +345,22 @@ public final class Registries {
     @ApiInternal
     public static final NameRegistry<CompendiumCategory> COMPENDIUM_CATEGORY_REGISTRY = new NameRegistry<>(ResourceName.intern("compendium_category_registry"), true).register();
 
+    /**
+     * {@link NameRegistry#freeze()}s every {@link NameRegistry} in {@link
+     * #REGISTRIES} that can't be unregistered from, so that their entries can
+     * be accessed by their dense ids. This is called by the game once {@link
+     * IModLoader#postPostInit()} is done, so registering into any of those
+     * registries afterwards isn't possible.
+     */
+    @ApiInternal
+    public static void freezeAll() {
+        for (IRegistry registry : REGISTRIES.values()) {
+            if (registry instanceof NameRegistry && !((NameRegistry) registry).canUnregister()) {
+                ((NameRegistry) registry).freeze();
+            }
+        }
+    }
+
     public static <T extends IRegistry> T get(ResourceName name, Class<T> type) {
         IRegistry reg = get(name);
         if (reg != null && type.isAssignableFrom(reg.getClass())) {
@@ -0,0 +1,267 @@
+/*
+ * This file ("AssetLoadScheduler.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/RockBottomGame/>.
+ * View information on the project at <https://rockbottom.ellpeck.de/>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * © 2018 Ellpeck
+ */
+
+package de.ellpeck.rockbottom.api.assets;
+
+import com.google.gson.JsonElement;
+import de.ellpeck.rockbottom.api.RockBottomAPI;
+import de.ellpeck.rockbottom.api.content.pack.ContentPack;
+import de.ellpeck.rockbottom.api.mod.IMod;
+import de.ellpeck.rockbottom.api.util.ApiInternal;
+import de.ellpeck.rockbottom.api.util.reg.ResourceName;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Loads assets in two steps so that the expensive part can happen on several
+ * threads. The {@link IAssetManager} {@link #submit(IAssetLoader,
+ * ResourceName, String, JsonElement, String, IMod, ContentPack)}s every asset
+ * it finds in the order it finds them. Assets whose loader {@link
+ * IAssetLoader#isDecodeThreadSafe()} are decoded on a {@link ForkJoinPool}
+ * right away, while all others are decoded on the main thread once it gets to
+ * them. {@link #commitAll()} then runs the {@link IAssetCommit} of every asset
+ * on the main thread in the order in which the assets were submitted,
+ * waiting for each decode to finish, so the result doesn't depend on how the
+ * decoding was scheduled.
+ * <p>
+ * The time spent decoding and committing is recorded for every loader and
+ * can be logged using {@link #logTimings(Logger)}.
+ */
+@ApiInternal
+public final class AssetLoadScheduler {
+
+    private final IAssetManager manager;
+    private final ForkJoinPool pool;
+    private final List<Task> tasks = new ArrayList<>();
+    private final Map<ResourceName, LoaderTiming> timings = new LinkedHashMap<>();
+
+    /**
+     * Creates a new scheduler
+     *
+     * @param manager The asset manager that the assets are loaded for
+     * @param pool    The pool to decode thread-safe assets on
+     */
+    public AssetLoadScheduler(IAssetManager manager, ForkJoinPool pool) {
+        this.manager = manager;
+        this.pool = pool;
+    }
+
+    /**
+     * Schedules an asset to be loaded. If its loader's decoding is
+     * thread-safe, decoding starts right away on the pool. This has to be
+     * called on the main thread.
+     *
+     * @param loader       The loader
+     * @param resourceName The name of the asset
+     * @param path         The path of the asset's file
+     * @param element      The asset's json element
+     * @param elementName  The name of the json element
+     * @param loadingMod   The mod that is loading the asset
+     * @param pack         The content pack that the asset is from
+     */
+    public void submit(IAssetLoader<?> loader, ResourceName resourceName, String path, JsonElement element, String elementName, IMod loadingMod, ContentPack pack) {
+        LoaderTiming timing = this.timings.computeIfAbsent(loader.getAssetIdentifier(), LoaderTiming::new);
+        Task task = new Task(loader, timing, resourceName, path, element, elementName, loadingMod, pack);
+        this.tasks.add(task);
+
+        if (loader.isDecodeThreadSafe()) {
+            timing.parallel = true;
+            task.decoding = CompletableFuture.runAsync(task::decode, this.pool);
+        }
+    }
+
+    /**
+     * Commits all of the submitted assets in the order they were submitted,
+     * decoding the ones that aren't thread-safe along the way. Assets that
+     * fail to load are logged and skipped, and assets whose decoding on the
+     * pool failed abnormally are decoded again on the main thread. This has to
+     * be called on the main thread.
+     *
+     * @return The amount of assets that were loaded successfully
+     */
+    public int commitAll() {
+        int loaded = 0;
+        try {
+            for (Task task : this.tasks) {
+                if (task.decoding != null) {
+                    try {
+                        task.decoding.join();
+                    } catch (RuntimeException e) {
+                        RockBottomAPI.logger().log(Level.WARNING, "Decoding " + task.loader.getAssetIdentifier() + " asset " + task.resourceName + " on the pool failed, decoding it on the main thread instead", e);
+                        task.commit = null;
+                        task.error = null;
+                        task.decode();
+                    }
+                } else {
+                    task.decode();
+                }
+
+                if (task.error == null) {
+                    long start = System.nanoTime();
+                    try {
+                        task.commit.commit();
+                    } catch (Exception e) {
+                        task.error = e;
+                    }
+                    task.timing.commitNanos.addAndGet(System.nanoTime() - start);
+                }
+
+                if (task.error != null) {
+                    task.timing.failed.incrementAndGet();
+                    RockBottomAPI.logger().log(Level.WARNING, "Couldn't load " + task.loader.getAssetIdentifier() + " asset " + task.resourceName + " from " + task.path, task.error);
+                } else {
+                    loaded++;
+                }
+            }
+        } finally {
+            this.tasks.clear();
+        }
+        return loaded;
+    }
+
+    public int getPendingAmount() {
+        return this.tasks.size();
+    }
+
+    /**
+     * @return The timings of all loaders that assets have been submitted for,
+     * by their {@link IAssetLoader#getAssetIdentifier()}
+     */
+    public Map<ResourceName, LoaderTiming> getTimings() {
+        return Collections.unmodifiableMap(this.timings);
+    }
+
+    /**
+     * Logs how many assets every loader loaded and how much time it spent
+     * decoding and committing them, with the slowest loaders first
+     *
+     * @param logger The logger to log to
+     */
+    public void logTimings(Logger logger) {
+        List<LoaderTiming> sorted = new ArrayList<>(this.timings.values());
+        sorted.sort((a, b) -> Long.compare(b.getTotalNanos(), a.getTotalNanos()));
+        for (LoaderTiming timing : sorted) {
+            logger.info(String.format(Locale.ROOT, "Asset loader %s loaded %d assets (%d failed) in %.1fms decoding%s and %.1fms committing", timing.getLoader(), timing.getAmount(), timing.getFailedAmount(), timing.getDecodeNanos() / 1000000D, timing.isParallel() ? " in parallel" : "", timing.getCommitNanos() / 1000000D));
+        }
+    }
+
+    /**
+     * The time that a single loader spent loading its assets. The decoding
+     * time is the sum over all threads, so for parallel loaders, it can be
+     * longer than the time that actually passed.
+     */
+    public static final class LoaderTiming {
+
+        private final ResourceName loader;
+        private final AtomicInteger amount = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final AtomicLong decodeNanos = new AtomicLong();
+        private final AtomicLong commitNanos = new AtomicLong();
+        private boolean parallel;
+
+        private LoaderTiming(ResourceName loader) {
+            this.loader = loader;
+        }
+
+        public ResourceName getLoader() {
+            return this.loader;
+        }
+
+        public int getAmount() {
+            return this.amount.get();
+        }
+
+        public int getFailedAmount() {
+            return this.failed.get();
+        }
+
+        public long getDecodeNanos() {
+            return this.decodeNanos.get();
+        }
+
+        public long getCommitNanos() {
+            return this.commitNanos.get();
+        }
+
+        public long getTotalNanos() {
+            return this.getDecodeNanos() + this.getCommitNanos();
+        }
+
+        /**
+         * @return If this loader's assets were decoded on the pool
+         */
+        public boolean isParallel() {
+            return this.parallel;
+        }
+    }
+
+    private final class Task {
+
+        private final IAssetLoader<?> loader;
+        private final LoaderTiming timing;
+        private final ResourceName resourceName;
+        private final String path;
+        private final JsonElement element;
+        private final String elementName;
+        private final IMod loadingMod;
+        private final ContentPack pack;
+
+        private CompletableFuture<Void> decoding;
+        private IAssetCommit commit;
+        private Exception error;
+
+        private Task(IAssetLoader<?> loader, LoaderTiming timing, ResourceName resourceName, String path, JsonElement element, String elementName, IMod loadingMod, ContentPack pack) {
+            this.loader = loader;
+            this.timing = timing;
+            this.resourceName = resourceName;
+            this.path = path;
+            this.element = element;
+            this.elementName = elementName;
+            this.loadingMod = loadingMod;
+            this.pack = pack;
+        }
+
+        private void decode() {
+            long start = System.nanoTime();
+            try {
+                this.commit = this.loader.decodeAsset(AssetLoadScheduler.this.manager, this.resourceName, this.path, this.element, this.elementName, this.loadingMod, this.pack);
+                if (this.commit == null) {
+                    throw new NullPointerException("Loader " + this.loader.getAssetIdentifier() + " returned no commit for asset " + this.resourceName);
+                }
+            } catch (Exception e) {
+                this.error = e;
+            }
+            this.timing.decodeNanos.addAndGet(System.nanoTime() - start);
+            this.timing.amount.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * This file ("IAssetCommit.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/RockBottomGame/>.
+ * View information on the project at <https://rockbottom.ellpeck.de/>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * © 2018 Ellpeck
+ */
+
+package de.ellpeck.rockbottom.api.assets;
+
+import com.google.gson.JsonElement;
+import de.ellpeck.rockbottom.api.content.pack.ContentPack;
+import de.ellpeck.rockbottom.api.mod.IMod;
+import de.ellpeck.rockbottom.api.util.reg.ResourceName;
+
+/**
+ * The part of loading an asset that has to happen on the main thread, like
+ * uploading a decoded image to the graphics card and calling {@link
+ * IAssetManager#addAsset(IAssetLoader, ResourceName, IAsset)}.
+ *
+ * @see IAssetLoader#decodeAsset(IAssetManager, ResourceName, String,
+ * JsonElement, String, IMod, ContentPack)
+ */
+@FunctionalInterface
+public interface IAssetCommit {
+
+    void commit() throws Exception;
+}
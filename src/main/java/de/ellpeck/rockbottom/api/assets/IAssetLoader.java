@@ -39,6 +39,45 @@ public interface IAssetLoader<T extends IAsset> {
 
     void disableAsset(IAssetManager manager, ResourceName resourceName);
 
+    /**
+     * Returns if {@link #decodeAsset(IAssetManager, ResourceName, String,
+     * JsonElement, String, IMod, ContentPack)} can be called on a worker
+     * thread, at the same time as other assets are decoded. If this returns
+     * true, the {@link AssetLoadScheduler} decodes this loader's assets on a
+     * fork-join pool, and only their {@link IAssetCommit} runs on the main
+     * thread.
+     *
+     * @return If decoding is thread-safe
+     */
+    default boolean isDecodeThreadSafe() {
+        return false;
+    }
+
+    /**
+     * Does the part of loading an asset that doesn't need the main thread,
+     * like reading and decoding its file, and returns the part that does.
+     * Commits are run in the same order in which the assets were found, so
+     * an asset can always rely on the ones before it having been added. By
+     * default, nothing is decoded ahead of time and the commit calls {@link
+     * #loadAsset(IAssetManager, ResourceName, String, JsonElement, String,
+     * IMod, ContentPack)}, so loaders that don't override this keep loading
+     * like before.
+     *
+     * @param manager      The asset manager
+     * @param resourceName The name of the asset
+     * @param path         The path of the asset's file
+     * @param element      The asset's json element
+     * @param elementName  The name of the json element
+     * @param loadingMod   The mod that is loading the asset
+     * @param pack         The content pack that the asset is from
+     * @return The commit that finishes loading on the main thread
+     * @throws Exception if decoding fails
+     * @see #isDecodeThreadSafe()
+     */
+    default IAssetCommit decodeAsset(IAssetManager manager, ResourceName resourceName, String path, JsonElement element, String elementName, IMod loadingMod, ContentPack pack) throws Exception {
+        return () -> this.loadAsset(manager, resourceName, path, element, elementName, loadingMod, pack);
+    }
+
     default boolean dealWithSpecialCases(IAssetManager manager, String resourceName, String path, JsonElement element, String elementName, IMod loadingMod, ContentPack pack) throws Exception {
         return false;
     }
@@ -35,6 +35,14 @@ import java.util.Map;
 
 public interface IAssetManager {
 
+    /**
+     * Loads all of the assets of the game, the mods and the content packs.
+     * Every asset that is found is submitted to an {@link AssetLoadScheduler},
+     * which decodes the assets of loaders that are {@link
+     * IAssetLoader#isDecodeThreadSafe()} in parallel and commits all of them
+     * on the main thread in the order they were found, after which the time
+     * every loader took is logged.
+     */
     @ApiInternal
     void load();
 
@@ -23,6 +23,8 @@ package de.ellpeck.rockbottom.api.assets.texture;
 
 import com.google.gson.JsonElement;
 import de.ellpeck.rockbottom.api.assets.IAsset;
+import de.ellpeck.rockbottom.api.assets.texture.stitcher.AtlasRegion;
+import de.ellpeck.rockbottom.api.assets.texture.stitcher.ITextureStitcher;
 import de.ellpeck.rockbottom.api.render.engine.TextureBank;
 import de.ellpeck.rockbottom.api.util.ApiInternal;
 import de.ellpeck.rockbottom.api.util.reg.ResourceName;
@@ -105,4 +107,15 @@ public interface ITexture extends IAsset {
     int getRenderOffsetX();
 
     int getRenderOffsetY();
+
+    /**
+     * Returns the region of the {@link ITextureStitcher#getAtlas()} that this
+     * texture is drawn from. Sub-textures return a {@link
+     * AtlasRegion#getSubRegion(int, int, int, int)} of their parent's region.
+     *
+     * @return The region, or null if this texture isn't part of the atlas
+     */
+    default AtlasRegion getAtlasRegion() {
+        return null;
+    }
 }
@@ -21,6 +21,7 @@
 
 package de.ellpeck.rockbottom.api.assets.texture;
 
+import de.ellpeck.rockbottom.api.util.Colors;
 import org.lwjgl.BufferUtils;
 
 import java.nio.Buffer;
@@ -55,6 +56,51 @@ public final class ImageBuffer {
         return this.height;
     }
 
+    /**
+     * Returns the color of the given pixel in the format used by {@link
+     * Colors}
+     *
+     * @param x The x coordinate
+     * @param y The y coordinate
+     * @return The color
+     */
+    public int getPixel(int x, int y) {
+        int offset = ((x + (y * this.width)) * 4);
+
+        if (ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN) {
+            return Colors.rgb(this.rawData[offset + 2], this.rawData[offset + 1], this.rawData[offset], this.rawData[offset + 3]);
+        } else {
+            return Colors.rgb(this.rawData[offset], this.rawData[offset + 1], this.rawData[offset + 2], this.rawData[offset + 3]);
+        }
+    }
+
+    /**
+     * Copies a single pixel from another buffer into this one
+     *
+     * @param source  The buffer to copy from
+     * @param sourceX The x coordinate in the other buffer
+     * @param sourceY The y coordinate in the other buffer
+     * @param x       The x coordinate in this buffer
+     * @param y       The y coordinate in this buffer
+     */
+    public void copyPixel(ImageBuffer source, int sourceX, int sourceY, int x, int y) {
+        System.arraycopy(source.rawData, (sourceX + (sourceY * source.width)) * 4, this.rawData, (x + (y * this.width)) * 4, 4);
+    }
+
+    /**
+     * Copies a whole row of pixels from another buffer into this one
+     *
+     * @param source  The buffer to copy from
+     * @param sourceX The x coordinate of the first pixel in the other buffer
+     * @param sourceY The y coordinate of the row in the other buffer
+     * @param x       The x coordinate of the first pixel in this buffer
+     * @param y       The y coordinate of the row in this buffer
+     * @param length  The amount of pixels to copy
+     */
+    public void copyRow(ImageBuffer source, int sourceX, int sourceY, int x, int y, int length) {
+        System.arraycopy(source.rawData, (sourceX + (sourceY * source.width)) * 4, this.rawData, (x + (y * this.width)) * 4, length * 4);
+    }
+
     public void setRGBA(int x, int y, int r, int g, int b, int a) {
         int offset = ((x + (y * this.width)) * 4);
 
@@ -0,0 +1,142 @@
+/*
+ * This file ("AtlasRegion.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/RockBottomGame/>.
+ * View information on the project at <https://rockbottom.ellpeck.de/>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * © 2018 Ellpeck
+ */
+
+package de.ellpeck.rockbottom.api.assets.texture.stitcher;
+
+import com.google.common.base.Preconditions;
+import de.ellpeck.rockbottom.api.assets.IAnimation;
+import de.ellpeck.rockbottom.api.assets.texture.ITexture;
+
+/**
+ * The area that a texture takes up on a page of a {@link TextureAtlas}, which
+ * maps pixel coordinates inside of the texture to texture coordinates on the
+ * page. Sub-textures created using {@link ITexture#getSubTexture(int, int,
+ * int, int)} and the frames of an {@link IAnimation} map to a {@link
+ * #getSubRegion(int, int, int, int)} of their texture's region, while every
+ * variation of a texture is stitched on its own and has its own region.
+ */
+public final class AtlasRegion {
+
+    private final int page;
+    private final int x;
+    private final int y;
+    private final int width;
+    private final int height;
+    private final int pageWidth;
+    private final int pageHeight;
+
+    public AtlasRegion(int page, int x, int y, int width, int height, int pageWidth, int pageHeight) {
+        this.page = page;
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
+        this.pageWidth = pageWidth;
+        this.pageHeight = pageHeight;
+    }
+
+    /**
+     * Maps an x coordinate inside of this region to a texture coordinate on
+     * its page
+     *
+     * @param srcX The x coordinate, in pixels, relative to this region
+     * @return The texture coordinate between 0 and 1
+     */
+    public float getU(float srcX) {
+        return (this.x + srcX) / this.pageWidth;
+    }
+
+    /**
+     * Maps a y coordinate inside of this region to a texture coordinate on
+     * its page
+     *
+     * @param srcY The y coordinate, in pixels, relative to this region
+     * @return The texture coordinate between 0 and 1
+     */
+    public float getV(float srcY) {
+        return (this.y + srcY) / this.pageHeight;
+    }
+
+    /**
+     * Returns the region of a part of this region, like the one of a {@link
+     * ITexture#getSubTexture(int, int, int, int)}
+     *
+     * @param x      The x coordinate relative to this region
+     * @param y      The y coordinate relative to this region
+     * @param width  The width
+     * @param height The height
+     * @return The sub-region
+     */
+    public AtlasRegion getSubRegion(int x, int y, int width, int height) {
+        Preconditions.checkArgument(x >= 0 && y >= 0 && width >= 0 && height >= 0 && x + width <= this.width && y + height <= this.height, "Area at %s, %s of size %sx%s is outside of region of size %sx%s", x, y, width, height, this.width, this.height);
+        return new AtlasRegion(this.page, this.x + x, this.y + y, width, height, this.pageWidth, this.pageHeight);
+    }
+
+    /**
+     * Returns the region of a single frame of an {@link IAnimation} whose
+     * texture has this region
+     *
+     * @param row         The row
+     * @param frame       The frame in the row
+     * @param frameWidth  The {@link IAnimation#getFrameWidth()}
+     * @param frameHeight The {@link IAnimation#getFrameHeight()}
+     * @return The frame's region
+     */
+    public AtlasRegion getFrame(int row, int frame, int frameWidth, int frameHeight) {
+        return this.getSubRegion(frame * frameWidth, row * frameHeight, frameWidth, frameHeight);
+    }
+
+    /**
+     * @return The index of the page in {@link TextureAtlas#getPages()}
+     */
+    public int getPage() {
+        return this.page;
+    }
+
+    public int getX() {
+        return this.x;
+    }
+
+    public int getY() {
+        return this.y;
+    }
+
+    public int getWidth() {
+        return this.width;
+    }
+
+    public int getHeight() {
+        return this.height;
+    }
+
+    public int getPageWidth() {
+        return this.pageWidth;
+    }
+
+    public int getPageHeight() {
+        return this.pageHeight;
+    }
+
+    @Override
+    public String toString() {
+        return "AtlasRegion{page=" + this.page + ", x=" + this.x + ", y=" + this.y + ", width=" + this.width + ", height=" + this.height + '}';
+    }
+}
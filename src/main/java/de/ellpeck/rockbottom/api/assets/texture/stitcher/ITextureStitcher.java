@@ -21,13 +21,29 @@
 
 package de.ellpeck.rockbottom.api.assets.texture.stitcher;
 
+import de.ellpeck.rockbottom.api.assets.IAnimation;
+import de.ellpeck.rockbottom.api.assets.IAssetManager;
 import de.ellpeck.rockbottom.api.assets.texture.ImageBuffer;
+import de.ellpeck.rockbottom.api.data.settings.Settings;
 
 import java.io.InputStream;
+import java.util.logging.Logger;
 
 public interface ITextureStitcher {
 
     void loadTexture(String refName, InputStream stream, IStitchCallback callback);
 
     void loadTexture(String refName, ImageBuffer data, IStitchCallback callback);
+
+    /**
+     * Returns the atlas that all textures loaded through this stitcher and
+     * the {@link IAssetManager}, including their variations and the textures
+     * of {@link IAnimation}s, are packed into. The atlas is built once all
+     * assets are loaded, which also logs its {@link
+     * TextureAtlas#logStatistics(Logger)}. The padding and bleed it uses are
+     * {@link Settings#atlasPadding} and {@link Settings#atlasBleed}.
+     *
+     * @return The atlas, or null if it hasn't been built yet
+     */
+    TextureAtlas getAtlas();
 }
@@ -0,0 +1,243 @@
+/*
+ * This file ("SkylinePacker.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/RockBottomGame/>.
+ * View information on the project at <https://rockbottom.ellpeck.de/>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * © 2018 Ellpeck
+ */
+
+package de.ellpeck.rockbottom.api.assets.texture.stitcher;
+
+import com.google.common.base.Preconditions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Packs rectangles into pages of a fixed maximum size using the skyline
+ * bottom-left heuristic. Every page keeps track of its skyline, the outline
+ * of the highest used position of every column, as a list of horizontal
+ * segments, and a new rectangle is placed at the position that keeps its top
+ * edge as low as possible. If a rectangle doesn't fit into any of the
+ * existing pages, a new page is started.
+ * <p>
+ * Packing works best if rectangles are inserted from tallest to shortest, as
+ * done by {@link TextureAtlas}. This class doesn't depend on any graphics
+ * context.
+ */
+public final class SkylinePacker {
+
+    private final int pageWidth;
+    private final int pageHeight;
+    private final List<Page> pages = new ArrayList<>();
+    private long usedArea;
+
+    public SkylinePacker(int pageWidth, int pageHeight) {
+        Preconditions.checkArgument(pageWidth > 0 && pageHeight > 0, "Page size needs to be positive");
+        this.pageWidth = pageWidth;
+        this.pageHeight = pageHeight;
+    }
+
+    /**
+     * Places a rectangle of the given size into the first page that it fits
+     * into, starting a new page if none of them have space left
+     *
+     * @param width  The width
+     * @param height The height
+     * @param out    An array of at least length three that the page index and
+     *               the x and y coordinates of the rectangle's top left corner
+     *               are written into
+     * @return The given array
+     */
+    public int[] insert(int width, int height, int[] out) {
+        Preconditions.checkArgument(width > 0 && height > 0, "Cannot pack a rectangle of size %sx%s", width, height);
+        Preconditions.checkArgument(width <= this.pageWidth && height <= this.pageHeight, "A rectangle of size %sx%s doesn't fit into a page of size %sx%s", width, height, this.pageWidth, this.pageHeight);
+
+        for (int i = 0; i < this.pages.size(); i++) {
+            if (this.pages.get(i).insert(width, height, out)) {
+                out[0] = i;
+                this.usedArea += (long) width * height;
+                return out;
+            }
+        }
+
+        Page page = new Page();
+        this.pages.add(page);
+        page.insert(width, height, out);
+        out[0] = this.pages.size() - 1;
+        this.usedArea += (long) width * height;
+        return out;
+    }
+
+    public int getPageAmount() {
+        return this.pages.size();
+    }
+
+    public int getPageWidth() {
+        return this.pageWidth;
+    }
+
+    /**
+     * @return The maximum height of a page
+     */
+    public int getPageHeight() {
+        return this.pageHeight;
+    }
+
+    /**
+     * Returns the height of the highest point of the given page's skyline,
+     * which is the height that the page can be cropped to
+     *
+     * @param page The page
+     * @return The used height
+     */
+    public int getUsedHeight(int page) {
+        return this.pages.get(page).getMaxY();
+    }
+
+    /**
+     * @return The total area of all of the inserted rectangles
+     */
+    public long getUsedArea() {
+        return this.usedArea;
+    }
+
+    private final class Page {
+
+        private int[] x = new int[16];
+        private int[] y = new int[16];
+        private int[] width = new int[16];
+        private int segments;
+
+        private Page() {
+            this.width[0] = SkylinePacker.this.pageWidth;
+            this.segments = 1;
+        }
+
+        private boolean insert(int rectWidth, int rectHeight, int[] out) {
+            int bestIndex = -1;
+            int bestTop = Integer.MAX_VALUE;
+            int bestWidth = Integer.MAX_VALUE;
+            int bestY = 0;
+
+            for (int i = 0; i < this.segments; i++) {
+                int y = this.fit(i, rectWidth, rectHeight);
+                if (y >= 0) {
+                    int top = y + rectHeight;
+                    if (top < bestTop || (top == bestTop && this.width[i] < bestWidth)) {
+                        bestIndex = i;
+                        bestTop = top;
+                        bestWidth = this.width[i];
+                        bestY = y;
+                    }
+                }
+            }
+
+            if (bestIndex < 0) {
+                return false;
+            }
+
+            out[1] = this.x[bestIndex];
+            out[2] = bestY;
+            this.place(bestIndex, rectWidth, bestY + rectHeight);
+            return true;
+        }
+
+        /**
+         * Returns the y coordinate that a rectangle starting at the given
+         * segment would be placed at, or -1 if it doesn't fit there
+         */
+        private int fit(int index, int rectWidth, int rectHeight) {
+            int x = this.x[index];
+            if (x + rectWidth > SkylinePacker.this.pageWidth) {
+                return -1;
+            }
+
+            int remaining = rectWidth;
+            int y = 0;
+            for (int i = index; remaining > 0; i++) {
+                y = Math.max(y, this.y[i]);
+                if (y + rectHeight > SkylinePacker.this.pageHeight) {
+                    return -1;
+                }
+                remaining -= this.width[i];
+            }
+            return y;
+        }
+
+        private void place(int index, int rectWidth, int top) {
+            this.ensureCapacity(this.segments + 1);
+            int x = this.x[index];
+
+            System.arraycopy(this.x, index, this.x, index + 1, this.segments - index);
+            System.arraycopy(this.y, index, this.y, index + 1, this.segments - index);
+            System.arraycopy(this.width, index, this.width, index + 1, this.segments - index);
+            this.x[index] = x;
+            this.y[index] = top;
+            this.width[index] = rectWidth;
+            this.segments++;
+
+            // shrink or remove the segments that are now covered by the new one
+            int end = x + rectWidth;
+            int i = index + 1;
+            while (i < this.segments && this.x[i] < end) {
+                int segmentEnd = this.x[i] + this.width[i];
+                if (segmentEnd <= end) {
+                    this.remove(i);
+                } else {
+                    this.width[i] = segmentEnd - end;
+                    this.x[i] = end;
+                    break;
+                }
+            }
+
+            // merge neighboring segments of the same height
+            for (int j = 0; j < this.segments - 1; ) {
+                if (this.y[j] == this.y[j + 1]) {
+                    this.width[j] += this.width[j + 1];
+                    this.remove(j + 1);
+                } else {
+                    j++;
+                }
+            }
+        }
+
+        private void remove(int index) {
+            System.arraycopy(this.x, index + 1, this.x, index, this.segments - index - 1);
+            System.arraycopy(this.y, index + 1, this.y, index, this.segments - index - 1);
+            System.arraycopy(this.width, index + 1, this.width, index, this.segments - index - 1);
+            this.segments--;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > this.x.length) {
+                int length = Math.max(capacity, this.x.length * 2);
+                this.x = Arrays.copyOf(this.x, length);
+                this.y = Arrays.copyOf(this.y, length);
+                this.width = Arrays.copyOf(this.width, length);
+            }
+        }
+
+        private int getMaxY() {
+            int max = 0;
+            for (int i = 0; i < this.segments; i++) {
+                max = Math.max(max, this.y[i]);
+            }
+            return max;
+        }
+    }
+}
@@ -0,0 +1,252 @@
+/*
+ * This file ("TextureAtlas.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/RockBottomGame/>.
+ * View information on the project at <https://rockbottom.ellpeck.de/>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * © 2018 Ellpeck
+ */
+
+package de.ellpeck.rockbottom.api.assets.texture.stitcher;
+
+import com.google.common.base.Preconditions;
+import de.ellpeck.rockbottom.api.assets.texture.ImageBuffer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Packs a set of images into as few pages as possible using a {@link
+ * SkylinePacker}, so that textures that are drawn one after another don't
+ * need different textures to be bound. Every image is surrounded by a border
+ * of the given padding, which is filled with the image's edge pixels if bleed
+ * is enabled, so that filtering and rounding at the edge of a region never
+ * pick up pixels of a neighboring image. Each page is cropped to the smallest
+ * power of two that fits its content.
+ * <p>
+ * Building the atlas only works on {@link ImageBuffer}s, so it doesn't depend
+ * on any graphics context. The game uploads the {@link #getPages()} and uses
+ * the {@link AtlasRegion}s to map texture coordinates.
+ *
+ * @see ITextureStitcher#getAtlas()
+ */
+public final class TextureAtlas {
+
+    private final int maxPageSize;
+    private final int padding;
+    private final boolean bleed;
+    private final Map<String, ImageBuffer> images = new LinkedHashMap<>();
+    private final Map<String, AtlasRegion> regions = new HashMap<>();
+    private final List<ImageBuffer> pages = new ArrayList<>();
+    private final List<String> oversized = new ArrayList<>();
+    private boolean built;
+    private long imageArea;
+    private long pageArea;
+
+    /**
+     * Creates a new atlas
+     *
+     * @param maxPageSize The maximum width and height of a page, which should
+     *                    not exceed the maximum texture size of the graphics
+     *                    card
+     * @param padding     The amount of pixels to leave around every image
+     * @param bleed       If the padding should be filled with the edge pixels
+     *                    of the image instead of being left transparent
+     */
+    public TextureAtlas(int maxPageSize, int padding, boolean bleed) {
+        Preconditions.checkArgument(maxPageSize > 0, "Max page size needs to be positive");
+        Preconditions.checkArgument(padding >= 0, "Padding can't be negative");
+        this.maxPageSize = maxPageSize;
+        this.padding = padding;
+        this.bleed = bleed;
+    }
+
+    /**
+     * Adds an image to this atlas
+     *
+     * @param name  The name to get the image's region with
+     * @param image The image
+     */
+    public void add(String name, ImageBuffer image) {
+        Preconditions.checkState(!this.built, "Cannot add to an atlas that has already been built");
+        Preconditions.checkArgument(!this.images.containsKey(name), "An image with name %s has already been added", name);
+        this.images.put(name, image);
+    }
+
+    /**
+     * Packs all of the added images and draws them onto the pages. Images are
+     * packed tallest first, and widest first among the same height, which
+     * keeps the skyline flat. Images that don't fit on a page including their
+     * padding are left out and get no region, see {@link #getOversized()}.
+     */
+    public void build() {
+        Preconditions.checkState(!this.built, "Atlas has already been built");
+        this.built = true;
+
+        List<String> names = new ArrayList<>(this.images.keySet());
+        names.sort((a, b) -> {
+            ImageBuffer first = this.images.get(a);
+            ImageBuffer second = this.images.get(b);
+            int compare = Integer.compare(second.getHeight(), first.getHeight());
+            return compare != 0 ? compare : Integer.compare(second.getWidth(), first.getWidth());
+        });
+
+        SkylinePacker packer = new SkylinePacker(this.maxPageSize, this.maxPageSize);
+        int border = this.padding * 2;
+        Map<String, int[]> placements = new HashMap<>();
+        List<int[]> pageBounds = new ArrayList<>();
+        for (String name : names) {
+            ImageBuffer image = this.images.get(name);
+            if (image.getWidth() + border > this.maxPageSize || image.getHeight() + border > this.maxPageSize) {
+                this.oversized.add(name);
+                continue;
+            }
+
+            int[] placement = packer.insert(image.getWidth() + border, image.getHeight() + border, new int[3]);
+            placements.put(name, placement);
+
+            while (pageBounds.size() <= placement[0]) {
+                pageBounds.add(new int[2]);
+            }
+            int[] bounds = pageBounds.get(placement[0]);
+            bounds[0] = Math.max(bounds[0], placement[1] + image.getWidth() + border);
+            bounds[1] = Math.max(bounds[1], placement[2] + image.getHeight() + border);
+        }
+
+        for (int[] bounds : pageBounds) {
+            int width = Math.min(this.maxPageSize, nextPowerOfTwo(bounds[0]));
+            int height = Math.min(this.maxPageSize, nextPowerOfTwo(bounds[1]));
+            this.pages.add(new ImageBuffer(width, height));
+            this.pageArea += (long) width * height;
+        }
+
+        for (String name : names) {
+            int[] placement = placements.get(name);
+            if (placement == null) {
+                continue;
+            }
+
+            ImageBuffer image = this.images.get(name);
+            ImageBuffer page = this.pages.get(placement[0]);
+            int x = placement[1] + this.padding;
+            int y = placement[2] + this.padding;
+
+            this.draw(page, image, x, y);
+            this.regions.put(name, new AtlasRegion(placement[0], x, y, image.getWidth(), image.getHeight(), page.getWidth(), page.getHeight()));
+            this.imageArea += (long) image.getWidth() * image.getHeight();
+        }
+
+        this.images.clear();
+    }
+
+    /**
+     * @param name The name of the image
+     * @return The region of the image, or null if there is no image with the
+     * given name or it was too large to fit on a page
+     */
+    public AtlasRegion getRegion(String name) {
+        Preconditions.checkState(this.built, "Atlas hasn't been built yet");
+        return this.regions.get(name);
+    }
+
+    public List<ImageBuffer> getPages() {
+        return Collections.unmodifiableList(this.pages);
+    }
+
+    public int getPageAmount() {
+        return this.pages.size();
+    }
+
+    public int getRegionAmount() {
+        return this.regions.size();
+    }
+
+    /**
+     * @return The names of the images that were left out of the atlas because
+     * they are larger than a page, which need to be drawn on their own
+     */
+    public List<String> getOversized() {
+        return Collections.unmodifiableList(this.oversized);
+    }
+
+    /**
+     * @return The fraction of the area of all pages that is taken up by
+     * images, not counting their padding
+     */
+    public float getEfficiency() {
+        return this.pageArea > 0 ? (float) ((double) this.imageArea / this.pageArea) : 0F;
+    }
+
+    public int getPadding() {
+        return this.padding;
+    }
+
+    public boolean isBleeding() {
+        return this.bleed;
+    }
+
+    /**
+     * Logs the amount of pages and how efficiently they are used
+     *
+     * @param logger The logger to log to
+     */
+    public void logStatistics(Logger logger) {
+        StringBuilder sizes = new StringBuilder();
+        for (ImageBuffer page : this.pages) {
+            if (sizes.length() > 0) {
+                sizes.append(", ");
+            }
+            sizes.append(page.getWidth()).append('x').append(page.getHeight());
+        }
+        logger.info("Stitched " + this.regions.size() + " textures into " + this.pages.size() + " atlas pages (" + sizes + ") with a packing efficiency of " + String.format(Locale.ROOT, "%.1f", this.getEfficiency() * 100F) + '%');
+        if (!this.oversized.isEmpty()) {
+            logger.warning("Left " + this.oversized.size() + " textures out of the atlas because they are larger than " + this.maxPageSize + "x" + this.maxPageSize + ": " + this.oversized);
+        }
+    }
+
+    private void draw(ImageBuffer page, ImageBuffer image, int x, int y) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        for (int row = 0; row < height; row++) {
+            page.copyRow(image, 0, row, x, y + row, width);
+        }
+
+        if (this.bleed && this.padding > 0) {
+            for (int row = 0; row < height; row++) {
+                for (int i = 1; i <= this.padding; i++) {
+                    page.copyPixel(page, x, y + row, x - i, y + row);
+                    page.copyPixel(page, x + width - 1, y + row, x + width - 1 + i, y + row);
+                }
+            }
+
+            int rowX = x - this.padding;
+            int rowLength = width + this.padding * 2;
+            for (int i = 1; i <= this.padding; i++) {
+                page.copyRow(page, rowX, y, rowX, y - i, rowLength);
+                page.copyRow(page, rowX, y + height - 1, rowX, y + height - 1 + i, rowLength);
+            }
+        }
+    }
+
+    private static int nextPowerOfTwo(int value) {
+        return value <= 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+    }
+}
@@ -55,4 +55,13 @@ public interface IResourceRegistry {
     Set<ResInfo> getAllResources();
 
     Set<String> getAllResourceNames();
+
+    /**
+     * Returns a number that changes every time resources are added using any
+     * of the {@code addResources} methods. This is used by {@link
+     * UseInfoIndex} to notice that its index is out of date.
+     *
+     * @return The modification count
+     */
+    int getModificationCount();
 }
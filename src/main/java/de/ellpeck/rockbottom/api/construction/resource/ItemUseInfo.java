@@ -78,7 +78,7 @@ public final class ItemUseInfo implements IUseInfo {
 
     @Override
     public boolean containsItem(ItemInstance instance) {
-        return this.instance.isEffectivelyEqual(instance.copy());
+        return this.instance.isEffectivelyEqual(instance);
     }
 
     @Override
@@ -71,8 +71,14 @@ public final class ResUseInfo implements IUseInfo {
 
     @Override
     public boolean containsItem(ItemInstance instance) {
-        List<String> names = RockBottomAPI.getResourceRegistry().getNames(instance);
-        return names.contains(this.name);
+        List<ResInfo> resources = RockBottomAPI.getResourceRegistry().getResources(this.name);
+        for (int i = 0; i < resources.size(); i++) {
+            ResInfo resource = resources.get(i);
+            if (resource.getMeta() == instance.getMeta() && resource.getItem().equals(instance.getItem())) {
+                return true;
+            }
+        }
+        return false;
     }
 
     @Override
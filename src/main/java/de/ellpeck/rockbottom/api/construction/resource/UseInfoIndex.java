@@ -0,0 +1,184 @@
+/*
+ * This file ("UseInfoIndex.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/RockBottomGame/>.
+ * View information on the project at <https://rockbottom.ellpeck.de/>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * © 2018 Ellpeck
+ */
+
+package de.ellpeck.rockbottom.api.construction.resource;
+
+import de.ellpeck.rockbottom.api.RockBottomAPI;
+import de.ellpeck.rockbottom.api.item.Item;
+import de.ellpeck.rockbottom.api.item.ItemInstance;
+import de.ellpeck.rockbottom.api.util.reg.NameRegistry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A reverse index from items to the registered values whose {@link IUseInfo}
+ * inputs could accept them, like smelting recipes or fuels. The index maps
+ * every item and meta combination that an {@link ItemUseInfo} or a {@link
+ * ResUseInfo} accepts to the values that use it, so finding the values that
+ * accept an item doesn't need to look at every registered value. Values that
+ * use other kinds of {@link IUseInfo} are candidates for every item.
+ * <p>
+ * Candidates are returned in the registry's iteration order, so checking them
+ * with {@link IUseInfo#containsItem(ItemInstance)} in order finds the same
+ * value as scanning the whole registry would. The index is rebuilt lazily
+ * when the registry or the {@link IResourceRegistry} changes, which is
+ * noticed through their modification counts.
+ *
+ * @param <T> The type of the indexed values
+ */
+public final class UseInfoIndex<T> {
+
+    private final NameRegistry<T> registry;
+    private final Function<T, List<IUseInfo>> inputs;
+    private volatile Snapshot<T> snapshot;
+
+    /**
+     * Creates a new index
+     *
+     * @param registry The registry to index
+     * @param inputs   A function that returns the inputs of a value
+     */
+    public UseInfoIndex(NameRegistry<T> registry, Function<T, List<IUseInfo>> inputs) {
+        this.registry = registry;
+        this.inputs = inputs;
+    }
+
+    /**
+     * Returns all of the values that might accept the given item, in the
+     * order of the registry. Each of them still needs to be checked using
+     * {@link IUseInfo#containsItem(ItemInstance)}.
+     *
+     * @param instance The item
+     * @return The candidate values, which may not be modified
+     */
+    public List<T> getCandidates(ItemInstance instance) {
+        Snapshot<T> snapshot = this.snapshot;
+        if (snapshot == null || snapshot.modificationCount != this.registry.getModificationCount() || snapshot.resourceVersion != RockBottomAPI.getResourceRegistry().getModificationCount()) {
+            snapshot = this.rebuild();
+        }
+
+        Map<Integer, List<T>> metas = snapshot.byItem.get(instance.getItem());
+        if (metas != null) {
+            List<T> candidates = metas.get(instance.getMeta());
+            if (candidates != null) {
+                return candidates;
+            }
+        }
+        return snapshot.fallback;
+    }
+
+    private synchronized Snapshot<T> rebuild() {
+        IResourceRegistry resources = RockBottomAPI.getResourceRegistry();
+        int modificationCount = this.registry.getModificationCount();
+        int version = resources.getModificationCount();
+        Snapshot<T> existing = this.snapshot;
+        if (existing != null && existing.modificationCount == modificationCount && existing.resourceVersion == version) {
+            return existing;
+        }
+
+        Map<Item, Map<Integer, List<T>>> byItem = new IdentityHashMap<>();
+        List<T> fallback = new ArrayList<>();
+
+        for (T value : this.registry.values()) {
+            for (IUseInfo info : this.inputs.apply(value)) {
+                if (info instanceof ItemUseInfo) {
+                    ItemInstance item = info.getItems().get(0);
+                    getOrCreate(byItem, item.getItem(), item.getMeta());
+                } else if (info instanceof ResUseInfo) {
+                    for (ResInfo res : resources.getResources(((ResUseInfo) info).getName())) {
+                        getOrCreate(byItem, res.getItem(), res.getMeta());
+                    }
+                }
+            }
+        }
+
+        for (T value : this.registry.values()) {
+            List<IUseInfo> infos = this.inputs.apply(value);
+            if (isIndexable(infos)) {
+                for (IUseInfo info : infos) {
+                    if (info instanceof ItemUseInfo) {
+                        ItemInstance item = info.getItems().get(0);
+                        addOnce(byItem.get(item.getItem()).get(item.getMeta()), value);
+                    } else {
+                        for (ResInfo res : resources.getResources(((ResUseInfo) info).getName())) {
+                            addOnce(byItem.get(res.getItem()).get(res.getMeta()), value);
+                        }
+                    }
+                }
+            } else {
+                fallback.add(value);
+                for (Map<Integer, List<T>> metas : byItem.values()) {
+                    for (List<T> list : metas.values()) {
+                        list.add(value);
+                    }
+                }
+            }
+        }
+
+        for (Map<Integer, List<T>> metas : byItem.values()) {
+            metas.replaceAll((meta, list) -> Collections.unmodifiableList(list));
+        }
+
+        Snapshot<T> snapshot = new Snapshot<>(byItem, Collections.unmodifiableList(fallback), modificationCount, version);
+        this.snapshot = snapshot;
+        return snapshot;
+    }
+
+    private static boolean isIndexable(List<IUseInfo> infos) {
+        for (IUseInfo info : infos) {
+            if (!(info instanceof ItemUseInfo) && !(info instanceof ResUseInfo)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static <T> void getOrCreate(Map<Item, Map<Integer, List<T>>> byItem, Item item, int meta) {
+        byItem.computeIfAbsent(item, i -> new HashMap<>()).computeIfAbsent(meta, m -> new ArrayList<>());
+    }
+
+    private static <T> void addOnce(List<T> list, T value) {
+        if (list.isEmpty() || list.get(list.size() - 1) != value) {
+            list.add(value);
+        }
+    }
+
+    private static final class Snapshot<T> {
+
+        private final Map<Item, Map<Integer, List<T>>> byItem;
+        private final List<T> fallback;
+        private final int modificationCount;
+        private final int resourceVersion;
+
+        private Snapshot(Map<Item, Map<Integer, List<T>>> byItem, List<T> fallback, int modificationCount, int resourceVersion) {
+            this.byItem = byItem;
+            this.fallback = fallback;
+            this.modificationCount = modificationCount;
+            this.resourceVersion = resourceVersion;
+        }
+    }
+}
@@ -24,6 +24,7 @@ package de.ellpeck.rockbottom.api.construction.smelting;
 import de.ellpeck.rockbottom.api.Registries;
 import de.ellpeck.rockbottom.api.construction.compendium.BasicCompendiumRecipe;
 import de.ellpeck.rockbottom.api.construction.resource.IUseInfo;
+import de.ellpeck.rockbottom.api.construction.resource.UseInfoIndex;
 import de.ellpeck.rockbottom.api.entity.player.AbstractPlayerEntity;
 import de.ellpeck.rockbottom.api.item.ItemInstance;
 import de.ellpeck.rockbottom.api.util.reg.ResourceName;
@@ -35,6 +36,7 @@ import java.util.List;
 public class CombinerRecipe extends BasicCompendiumRecipe {
 
     public static final ResourceName ID = ResourceName.intern("combiner");
+    private static final UseInfoIndex<CombinerRecipe> INDEX = new UseInfoIndex<>(Registries.COMBINER_REGISTRY, CombinerRecipe::getInputs);
 
     private final IUseInfo input1;
     private final IUseInfo input2;
@@ -58,7 +60,7 @@ public class CombinerRecipe extends BasicCompendiumRecipe {
 	}
 
     public static CombinerRecipe forInput(ItemInstance input) {
-        for (CombinerRecipe recipe : Registries.COMBINER_REGISTRY.values()) {
+        for (CombinerRecipe recipe : INDEX.getCandidates(input)) {
             if (recipe.getInput1().containsItem(input) || recipe.getInput2().containsItem(input)) {
                 return recipe;
             }
@@ -67,7 +69,7 @@ public class CombinerRecipe extends BasicCompendiumRecipe {
     }
 
     public static CombinerRecipe forInputs(ItemInstance input1, ItemInstance input2) {
-        for (CombinerRecipe recipe : Registries.COMBINER_REGISTRY.values()) {
+        for (CombinerRecipe recipe : INDEX.getCandidates(input1)) {
             IUseInfo i1 = recipe.getInput1();
             IUseInfo i2 = recipe.getInput2();
             if (i1.containsItem(input1) && i2.containsItem(input2) ||
@@ -23,11 +23,16 @@ package de.ellpeck.rockbottom.api.construction.smelting;
 
 import de.ellpeck.rockbottom.api.Registries;
 import de.ellpeck.rockbottom.api.construction.resource.IUseInfo;
+import de.ellpeck.rockbottom.api.construction.resource.UseInfoIndex;
 import de.ellpeck.rockbottom.api.item.ItemInstance;
 import de.ellpeck.rockbottom.api.util.reg.ResourceName;
 
+import java.util.Collections;
+
 public class FuelInput {
 
+    private static final UseInfoIndex<FuelInput> INDEX = new UseInfoIndex<>(Registries.FUEL_REGISTRY, input -> Collections.singletonList(input.getFuel()));
+
     private final ResourceName name;
     private final IUseInfo fuel;
     private final int fuelTime;
@@ -43,7 +48,7 @@ public class FuelInput {
     }
 
     public static int getFuelTime(ItemInstance instance) {
-        for (FuelInput input : Registries.FUEL_REGISTRY.values()) {
+        for (FuelInput input : INDEX.getCandidates(instance)) {
             if (input.getFuel().containsItem(instance)) {
                 return input.fuelTime;
             }
@@ -24,6 +24,7 @@ package de.ellpeck.rockbottom.api.construction.smelting;
 import de.ellpeck.rockbottom.api.Registries;
 import de.ellpeck.rockbottom.api.construction.compendium.BasicCompendiumRecipe;
 import de.ellpeck.rockbottom.api.construction.resource.IUseInfo;
+import de.ellpeck.rockbottom.api.construction.resource.UseInfoIndex;
 import de.ellpeck.rockbottom.api.entity.player.AbstractPlayerEntity;
 import de.ellpeck.rockbottom.api.inventory.IInventory;
 import de.ellpeck.rockbottom.api.item.ItemInstance;
@@ -35,6 +36,7 @@ import java.util.List;
 public class SmeltingRecipe extends BasicCompendiumRecipe {
 
     public static final ResourceName ID = ResourceName.intern("smelting");
+    private static final UseInfoIndex<SmeltingRecipe> INDEX = new UseInfoIndex<>(Registries.SMELTING_REGISTRY, SmeltingRecipe::getInputs);
 
     private final IUseInfo input;
     private final ItemInstance output;
@@ -56,7 +58,7 @@ public class SmeltingRecipe extends BasicCompendiumRecipe {
 	}
 
     public static SmeltingRecipe forInput(ItemInstance input) {
-        for (SmeltingRecipe recipe : Registries.SMELTING_REGISTRY.values()) {
+        for (SmeltingRecipe recipe : INDEX.getCandidates(input)) {
             if (recipe.getInput().containsItem(input)) {
                 return recipe;
             }
@@ -23,39 +23,93 @@ package de.ellpeck.rockbottom.api.data.set;
 
 import de.ellpeck.rockbottom.api.RockBottomAPI;
 import de.ellpeck.rockbottom.api.data.set.part.DataPart;
+import de.ellpeck.rockbottom.api.data.set.part.PartBoolean;
+import de.ellpeck.rockbottom.api.data.set.part.num.*;
 
 import java.io.File;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 
+/**
+ * The base class for {@link DataSet} and {@link ModBasedDataSet}.
+ * <p>
+ * To avoid allocating a {@link DataPart} for every number or boolean that is
+ * added, a small amount of primitive values are stored inline in a table of
+ * keys and raw values. Keys are compared by identity first, so using constant
+ * keys makes lookups very cheap. Each key is either stored in the primitive
+ * table or in the part map, never in both. The primitive values are only
+ * turned into {@link DataPart} objects when the whole set needs to be looked
+ * at, like when calling {@link #getData()}, {@link #iterator()} or {@link
+ * #equals(Object)}, and {@link DataSetWriter} and {@link DataSetReader} can
+ * read and write them directly.
+ */
 public abstract class AbstractDataSet implements Iterable<Map.Entry<String, DataPart>> {
 
+    protected static final byte TYPE_BYTE = 0;
+    protected static final byte TYPE_SHORT = 1;
+    protected static final byte TYPE_INT = 2;
+    protected static final byte TYPE_LONG = 3;
+    protected static final byte TYPE_FLOAT = 4;
+    protected static final byte TYPE_DOUBLE = 5;
+    protected static final byte TYPE_BOOLEAN = 6;
+
+    private static final Class<?>[] PART_CLASSES = {PartByte.class, PartShort.class, PartInt.class, PartLong.class, PartFloat.class, PartDouble.class, PartBoolean.class};
+    private static final int MAX_PRIMITIVE_AMOUNT = 16;
+
     protected final Map<String, DataPart> data = new HashMap<>();
     protected final Map<String, DataPart> dataUnmodifiable = Collections.unmodifiableMap(this.data);
 
+    private String[] primitiveKeys;
+    private byte[] primitiveTypes;
+    private long[] primitiveValues;
+    private int primitiveAmount;
+
     public void addPart(String name, DataPart part) {
+        if (this.primitiveAmount > 0) {
+            this.removePrimitive(name);
+        }
         this.data.put(name, part);
     }
 
     public boolean hasKey(String key) {
-        return this.data.containsKey(key);
+        return this.findPrimitive(key) >= 0 || this.data.containsKey(key);
     }
 
     public DataPart remove(String key) {
+        int index = this.findPrimitive(key);
+        if (index >= 0) {
+            DataPart part = createPart(this.primitiveTypes[index], this.primitiveValues[index]);
+            this.removePrimitiveAt(index);
+            return part;
+        }
         return this.data.remove(key);
     }
 
     public void clear() {
+        if (this.primitiveAmount > 0) {
+            Arrays.fill(this.primitiveKeys, 0, this.primitiveAmount, null);
+            this.primitiveAmount = 0;
+        }
         this.data.clear();
     }
 
     public int size() {
-        return this.data.size();
+        return this.primitiveAmount + this.data.size();
     }
 
     public <T> T getPartContent(String key, Class<? extends DataPart<T>> typeClass, T defaultValue) {
+        int index = this.findPrimitive(key);
+        if (index >= 0) {
+            byte type = this.primitiveTypes[index];
+            if (PART_CLASSES[type] == typeClass) {
+                return (T) box(type, this.primitiveValues[index]);
+            }
+            return defaultValue;
+        }
+
         DataPart part = this.data.get(key);
 
         if (part != null && part.getClass() == typeClass) {
@@ -68,21 +122,223 @@ public abstract class AbstractDataSet implements Iterable<Map.Entry<String, Data
         return defaultValue;
     }
 
+    /**
+     * Stores a primitive value in this data set without creating a {@link
+     * DataPart} for it, if there is still space in the primitive table.
+     *
+     * @param key   The key
+     * @param type  The type, one of the {@code TYPE_} constants
+     * @param value The raw value, where floating point numbers are stored as
+     *              their raw bits
+     */
+    protected void addPrimitive(String key, byte type, long value) {
+        if (!this.data.isEmpty()) {
+            this.data.remove(key);
+        }
+
+        int index = this.findPrimitive(key);
+        if (index >= 0) {
+            this.primitiveTypes[index] = type;
+            this.primitiveValues[index] = value;
+        } else if (this.primitiveAmount < MAX_PRIMITIVE_AMOUNT) {
+            if (this.primitiveKeys == null) {
+                this.primitiveKeys = new String[4];
+                this.primitiveTypes = new byte[4];
+                this.primitiveValues = new long[4];
+            } else if (this.primitiveAmount >= this.primitiveKeys.length) {
+                int length = this.primitiveKeys.length * 2;
+                this.primitiveKeys = Arrays.copyOf(this.primitiveKeys, length);
+                this.primitiveTypes = Arrays.copyOf(this.primitiveTypes, length);
+                this.primitiveValues = Arrays.copyOf(this.primitiveValues, length);
+            }
+
+            this.primitiveKeys[this.primitiveAmount] = key;
+            this.primitiveTypes[this.primitiveAmount] = type;
+            this.primitiveValues[this.primitiveAmount] = value;
+            this.primitiveAmount++;
+        } else {
+            this.data.put(key, createPart(type, value));
+        }
+    }
+
+    /**
+     * Returns a primitive value that was stored in this data set, either using
+     * {@link #addPrimitive(String, byte, long)} or as a {@link DataPart} of the
+     * matching type.
+     *
+     * @param key          The key
+     * @param type         The type, one of the {@code TYPE_} constants
+     * @param defaultValue The raw value to return if there is no value of the
+     *                     given type stored for the key
+     * @return The raw value
+     */
+    protected long getPrimitive(String key, byte type, long defaultValue) {
+        int index = this.findPrimitive(key);
+        if (index >= 0) {
+            return this.primitiveTypes[index] == type ? this.primitiveValues[index] : defaultValue;
+        }
+
+        if (!this.data.isEmpty()) {
+            DataPart part = this.data.get(key);
+            if (part != null && part.getClass() == PART_CLASSES[type]) {
+                Object value = part.get();
+                if (value != null) {
+                    return unbox(type, value);
+                }
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Turns all of the values in the primitive table into {@link DataPart}
+     * objects and moves them into {@link #data}.
+     */
+    protected void materialize() {
+        if (this.primitiveAmount > 0) {
+            for (int i = 0; i < this.primitiveAmount; i++) {
+                this.data.put(this.primitiveKeys[i], createPart(this.primitiveTypes[i], this.primitiveValues[i]));
+                this.primitiveKeys[i] = null;
+            }
+            this.primitiveAmount = 0;
+        }
+    }
+
+    /**
+     * Copies all of the data of this set into the given set. As data parts are
+     * immutable, they are shared between both sets.
+     *
+     * @param set The set to copy into
+     */
+    protected void copyInto(AbstractDataSet set) {
+        set.data.putAll(this.data);
+
+        if (this.primitiveAmount > 0) {
+            set.primitiveKeys = Arrays.copyOf(this.primitiveKeys, this.primitiveKeys.length);
+            set.primitiveTypes = Arrays.copyOf(this.primitiveTypes, this.primitiveTypes.length);
+            set.primitiveValues = Arrays.copyOf(this.primitiveValues, this.primitiveValues.length);
+            set.primitiveAmount = this.primitiveAmount;
+        }
+    }
+
+    /**
+     * Writes all of the entries of this set to the given writer without
+     * materializing the primitive values.
+     *
+     * @param writer The writer
+     * @throws Exception if writing fails
+     */
+    void writeEntries(DataSetWriter writer) throws Exception {
+        for (int i = 0; i < this.primitiveAmount; i++) {
+            writer.writePrimitive(this.primitiveKeys[i], this.primitiveTypes[i], this.primitiveValues[i]);
+        }
+        for (Map.Entry<String, DataPart> entry : this.data.entrySet()) {
+            writer.writePart(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private int findPrimitive(String key) {
+        for (int i = 0; i < this.primitiveAmount; i++) {
+            String other = this.primitiveKeys[i];
+            if (other == key || other.hashCode() == key.hashCode() && other.equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void removePrimitive(String key) {
+        int index = this.findPrimitive(key);
+        if (index >= 0) {
+            this.removePrimitiveAt(index);
+        }
+    }
+
+    private void removePrimitiveAt(int index) {
+        int last = this.primitiveAmount - 1;
+        this.primitiveKeys[index] = this.primitiveKeys[last];
+        this.primitiveTypes[index] = this.primitiveTypes[last];
+        this.primitiveValues[index] = this.primitiveValues[last];
+        this.primitiveKeys[last] = null;
+        this.primitiveAmount = last;
+    }
+
+    private static DataPart createPart(byte type, long value) {
+        switch (type) {
+            case TYPE_BYTE:
+                return new PartByte((byte) value);
+            case TYPE_SHORT:
+                return new PartShort((short) value);
+            case TYPE_INT:
+                return new PartInt((int) value);
+            case TYPE_LONG:
+                return new PartLong(value);
+            case TYPE_FLOAT:
+                return new PartFloat(Float.intBitsToFloat((int) value));
+            case TYPE_DOUBLE:
+                return new PartDouble(Double.longBitsToDouble(value));
+            default:
+                return new PartBoolean(value != 0);
+        }
+    }
+
+    private static Object box(byte type, long value) {
+        switch (type) {
+            case TYPE_BYTE:
+                return (byte) value;
+            case TYPE_SHORT:
+                return (short) value;
+            case TYPE_INT:
+                return (int) value;
+            case TYPE_LONG:
+                return value;
+            case TYPE_FLOAT:
+                return Float.intBitsToFloat((int) value);
+            case TYPE_DOUBLE:
+                return Double.longBitsToDouble(value);
+            default:
+                return value != 0;
+        }
+    }
+
+    private static long unbox(byte type, Object value) {
+        switch (type) {
+            case TYPE_FLOAT:
+                return Float.floatToRawIntBits((Float) value);
+            case TYPE_DOUBLE:
+                return Double.doubleToRawLongBits((Double) value);
+            case TYPE_BOOLEAN:
+                return (Boolean) value ? 1 : 0;
+            default:
+                return ((Number) value).longValue();
+        }
+    }
+
     @Override
     public String toString() {
+        this.materialize();
         return this.data.toString();
     }
 
+    /**
+     * Returns an unmodifiable view of all of the data in this set. Note that
+     * primitive values that are added after this method is called will only
+     * show up in the view once this method is called again.
+     *
+     * @return The data
+     */
     public Map<String, DataPart> getData() {
+        this.materialize();
         return this.dataUnmodifiable;
     }
 
     public boolean isEmpty() {
-        return this.data.isEmpty();
+        return this.primitiveAmount <= 0 && this.data.isEmpty();
     }
 
     @Override
     public Iterator<Map.Entry<String, DataPart>> iterator() {
+        this.materialize();
         return this.dataUnmodifiable.entrySet().iterator();
     }
 
@@ -96,11 +352,14 @@ public abstract class AbstractDataSet implements Iterable<Map.Entry<String, Data
         }
 
         AbstractDataSet dataSet = (AbstractDataSet) o;
+        this.materialize();
+        dataSet.materialize();
         return this.data.equals(dataSet.data);
     }
 
     @Override
     public int hashCode() {
+        this.materialize();
         return this.data.hashCode();
     }
 
@@ -31,35 +31,35 @@ import java.util.UUID;
 public final class DataSet extends AbstractDataSet {
 
     public int getInt(String key) {
-        return this.getPartContent(key, PartInt.class, 0);
+        return (int) this.getPrimitive(key, TYPE_INT, 0);
     }
 
     public void addInt(String key, int i) {
-        this.addPart(key, new PartInt(i));
+        this.addPrimitive(key, TYPE_INT, i);
     }
 
     public long getLong(String key) {
-        return this.getPartContent(key, PartLong.class, 0L);
+        return this.getPrimitive(key, TYPE_LONG, 0L);
     }
 
     public void addLong(String key, long l) {
-        this.addPart(key, new PartLong(l));
+        this.addPrimitive(key, TYPE_LONG, l);
     }
 
     public float getFloat(String key) {
-        return this.getPartContent(key, PartFloat.class, 0F);
+        return Float.intBitsToFloat((int) this.getPrimitive(key, TYPE_FLOAT, 0));
     }
 
     public void addFloat(String key, float f) {
-        this.addPart(key, new PartFloat(f));
+        this.addPrimitive(key, TYPE_FLOAT, Float.floatToRawIntBits(f));
     }
 
     public double getDouble(String key) {
-        return this.getPartContent(key, PartDouble.class, 0D);
+        return Double.longBitsToDouble(this.getPrimitive(key, TYPE_DOUBLE, 0L));
     }
 
     public void addDouble(String key, double d) {
-        this.addPart(key, new PartDouble(d));
+        this.addPrimitive(key, TYPE_DOUBLE, Double.doubleToRawLongBits(d));
     }
 
     public DataSet getDataSet(String key) {
@@ -87,27 +87,27 @@ public final class DataSet extends AbstractDataSet {
     }
 
     public byte getByte(String key) {
-        return this.getPartContent(key, PartByte.class, (byte) 0);
+        return (byte) this.getPrimitive(key, TYPE_BYTE, 0);
     }
 
     public void addByte(String key, byte b) {
-        this.addPart(key, new PartByte(b));
+        this.addPrimitive(key, TYPE_BYTE, b);
     }
 
     public short getShort(String key) {
-        return this.getPartContent(key, PartShort.class, (short) 0);
+        return (short) this.getPrimitive(key, TYPE_SHORT, 0);
     }
 
     public void addShort(String key, short s) {
-        this.addPart(key, new PartShort(s));
+        this.addPrimitive(key, TYPE_SHORT, s);
     }
 
     public boolean getBoolean(String key) {
-        return this.getPartContent(key, PartBoolean.class, false);
+        return this.getPrimitive(key, TYPE_BOOLEAN, 0) != 0;
     }
 
     public void addBoolean(String key, boolean s) {
-        this.addPart(key, new PartBoolean(s));
+        this.addPrimitive(key, TYPE_BOOLEAN, s ? 1 : 0);
     }
 
     public String getString(String key) {
@@ -143,7 +143,7 @@ public final class DataSet extends AbstractDataSet {
 
     public DataSet copy() {
         DataSet set = new DataSet();
-        set.data.putAll(this.data);
+        this.copyInto(set);
         return set;
     }
 }
@@ -0,0 +1,401 @@
+/*
+ * This file ("DataSetReader.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/RockBottomGame/>.
+ * View information on the project at <https://rockbottom.ellpeck.de/>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * © 2018 Ellpeck
+ */
+
+package de.ellpeck.rockbottom.api.data.set;
+
+import com.google.common.base.Preconditions;
+import de.ellpeck.rockbottom.api.IApiHandler;
+import de.ellpeck.rockbottom.api.Registries;
+import de.ellpeck.rockbottom.api.data.set.part.DataPart;
+import de.ellpeck.rockbottom.api.data.set.part.IPartFactory;
+import de.ellpeck.rockbottom.api.data.set.part.PartDataSet;
+import de.ellpeck.rockbottom.api.data.set.part.PartModBasedDataSet;
+
+import java.io.DataInput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * A cursor that reads a data set from the binary format written by {@link
+ * IApiHandler#writeDataSet(java.io.DataOutput, AbstractDataSet)} one entry at
+ * a time, without building the whole tree of {@link DataPart} objects in
+ * memory. Nested data sets and lists can either be entered or skipped without
+ * parsing their contents.
+ * <p>
+ * A reader is used like this:
+ * <pre>{@code
+ * DataSetReader reader = new DataSetReader(stream);
+ * while (reader.next()) {
+ *     if ("health".equals(reader.getKey())) {
+ *         int health = reader.readInt();
+ *     } else if ("inventory".equals(reader.getKey())) {
+ *         reader.enter();
+ *         while (reader.next()) {
+ *             ...
+ *         }
+ *         reader.exit();
+ *     }
+ * }
+ * }</pre>
+ * Entries that are neither read, entered nor skipped are automatically skipped
+ * once {@link #next()} is called. Numbers and strings are skipped by reading
+ * them rather than by their size in bytes, so that this also works on inputs
+ * that encode them with a variable length, like {@link
+ * de.ellpeck.rockbottom.api.net.CompactDataInput}.
+ *
+ * @see DataSetWriter
+ */
+public final class DataSetReader {
+
+    private final DataInput stream;
+
+    private int[] remaining = new int[8];
+    private IPartFactory<?>[] listFactories = new IPartFactory<?>[8];
+    private int depth;
+
+    private String key;
+    private IPartFactory<?> factory;
+    private PartType type;
+    private boolean pending;
+
+    /**
+     * Creates a new reader and reads the header of the top-level data set
+     *
+     * @param stream The input to read from
+     * @throws IOException if reading fails
+     */
+    public DataSetReader(DataInput stream) throws IOException {
+        this.stream = stream;
+        this.remaining[0] = stream.readInt();
+    }
+
+    /**
+     * Reads a data set from the given input the same way {@link
+     * IApiHandler#readDataSet(DataInput, AbstractDataSet)} does, but stores
+     * primitive values without creating data parts for them.
+     *
+     * @param stream The input to read from
+     * @param set    The set to read into
+     * @throws Exception if reading fails
+     */
+    public static void read(DataInput stream, AbstractDataSet set) throws Exception {
+        DataSetReader reader = new DataSetReader(stream);
+        while (reader.next()) {
+            reader.readEntry(set);
+        }
+    }
+
+    /**
+     * Moves on to the next entry of the data set or list that is currently
+     * being read, skipping the current entry if it hasn't been read yet.
+     *
+     * @return If there was another entry, or false if the end of the current
+     * data set or list has been reached
+     * @throws Exception if reading fails
+     */
+    public boolean next() throws Exception {
+        if (this.pending) {
+            this.skip();
+        }
+
+        if (this.remaining[this.depth] <= 0) {
+            this.key = null;
+            this.factory = null;
+            this.type = null;
+            return false;
+        }
+        this.remaining[this.depth]--;
+
+        IPartFactory<?> listFactory = this.listFactories[this.depth];
+        if (listFactory != null) {
+            this.key = null;
+            this.factory = listFactory;
+        } else {
+            this.factory = this.readFactory();
+            this.key = this.stream.readUTF();
+        }
+        this.type = PartType.of(this.factory);
+        this.pending = true;
+        return true;
+    }
+
+    /**
+     * Returns the key of the current entry, or null if the current entry is
+     * part of a list
+     *
+     * @return The key
+     */
+    public String getKey() {
+        return this.key;
+    }
+
+    public PartType getType() {
+        return this.type;
+    }
+
+    public IPartFactory<?> getFactory() {
+        return this.factory;
+    }
+
+    /**
+     * Returns how deeply nested the current entry is, where 0 means that it is
+     * part of the top-level data set
+     *
+     * @return The depth
+     */
+    public int getDepth() {
+        return this.depth;
+    }
+
+    public byte readByte() throws IOException {
+        this.consume(PartType.BYTE);
+        return this.stream.readByte();
+    }
+
+    public short readShort() throws IOException {
+        this.consume(PartType.SHORT);
+        return this.stream.readShort();
+    }
+
+    public int readInt() throws IOException {
+        this.consume(PartType.INT);
+        return this.stream.readInt();
+    }
+
+    public long readLong() throws IOException {
+        this.consume(PartType.LONG);
+        return this.stream.readLong();
+    }
+
+    public float readFloat() throws IOException {
+        this.consume(PartType.FLOAT);
+        return this.stream.readFloat();
+    }
+
+    public double readDouble() throws IOException {
+        this.consume(PartType.DOUBLE);
+        return this.stream.readDouble();
+    }
+
+    public boolean readBoolean() throws IOException {
+        this.consume(PartType.BOOLEAN);
+        return this.stream.readBoolean();
+    }
+
+    public String readString() throws IOException {
+        this.consume(PartType.STRING);
+        char[] chars = new char[this.stream.readInt()];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = this.stream.readChar();
+        }
+        return new String(chars);
+    }
+
+    public UUID readUniqueId() throws IOException {
+        this.consume(PartType.UNIQUE_ID);
+        return new UUID(this.stream.readLong(), this.stream.readLong());
+    }
+
+    /**
+     * Reads the current entry, no matter its type, as a {@link DataPart}. For
+     * nested data sets and lists, this reads their entire contents.
+     *
+     * @return The data part
+     * @throws Exception if reading fails
+     */
+    public DataPart readPart() throws Exception {
+        Preconditions.checkState(this.pending, "There is no entry to read");
+        if (this.type == PartType.DATA_SET) {
+            DataSet set = new DataSet();
+            this.readDataSet(set);
+            return new PartDataSet(set);
+        } else if (this.type == PartType.MOD_BASED_DATA_SET) {
+            ModBasedDataSet set = new ModBasedDataSet();
+            this.readDataSet(set);
+            return new PartModBasedDataSet(set);
+        } else {
+            this.pending = false;
+            return this.factory.parse(this.stream);
+        }
+    }
+
+    /**
+     * Reads the current entry, which has to be a data set or mod based data
+     * set, into the given set.
+     *
+     * @param set The set to read into
+     * @throws Exception if reading fails
+     */
+    public void readDataSet(AbstractDataSet set) throws Exception {
+        Preconditions.checkState(this.pending && (this.type == PartType.DATA_SET || this.type == PartType.MOD_BASED_DATA_SET), "The current entry %s is not a data set", this.key);
+        this.enter();
+        while (this.next()) {
+            this.readEntry(set);
+        }
+        this.exit();
+    }
+
+    /**
+     * Enters the current entry, which has to be a data set, mod based data set
+     * or list. Following calls to {@link #next()} will move through its
+     * entries until {@link #exit()} is called.
+     *
+     * @throws IOException if reading fails
+     */
+    public void enter() throws IOException {
+        Preconditions.checkState(this.pending && this.type.isContainer(), "The current entry %s cannot be entered", this.key);
+        this.pending = false;
+
+        this.depth++;
+        if (this.depth >= this.remaining.length) {
+            this.remaining = Arrays.copyOf(this.remaining, this.depth * 2);
+            this.listFactories = Arrays.copyOf(this.listFactories, this.depth * 2);
+        }
+
+        int size = this.stream.readInt();
+        this.remaining[this.depth] = size;
+        this.listFactories[this.depth] = this.type == PartType.LIST && size > 0 ? this.readFactory() : null;
+    }
+
+    /**
+     * Skips all of the remaining entries of the data set or list that is
+     * currently being read and moves back to the data set or list that
+     * contains it.
+     *
+     * @throws Exception if reading fails
+     */
+    public void exit() throws Exception {
+        Preconditions.checkState(this.depth > 0, "Cannot exit the top-level data set");
+        while (this.next()) {
+            this.skip();
+        }
+        this.listFactories[this.depth] = null;
+        this.depth--;
+    }
+
+    /**
+     * Skips the current entry without parsing it. For all built-in types, this
+     * doesn't create any objects.
+     *
+     * @throws Exception if reading fails
+     */
+    public void skip() throws Exception {
+        Preconditions.checkState(this.pending, "There is no entry to skip");
+        this.pending = false;
+        this.skipValue(this.type, this.factory);
+    }
+
+    private void readEntry(AbstractDataSet set) throws Exception {
+        switch (this.type) {
+            case BYTE:
+                set.addPrimitive(this.key, AbstractDataSet.TYPE_BYTE, this.readByte());
+                break;
+            case SHORT:
+                set.addPrimitive(this.key, AbstractDataSet.TYPE_SHORT, this.readShort());
+                break;
+            case INT:
+                set.addPrimitive(this.key, AbstractDataSet.TYPE_INT, this.readInt());
+                break;
+            case LONG:
+                set.addPrimitive(this.key, AbstractDataSet.TYPE_LONG, this.readLong());
+                break;
+            case FLOAT:
+                set.addPrimitive(this.key, AbstractDataSet.TYPE_FLOAT, Float.floatToRawIntBits(this.readFloat()));
+                break;
+            case DOUBLE:
+                set.addPrimitive(this.key, AbstractDataSet.TYPE_DOUBLE, Double.doubleToRawLongBits(this.readDouble()));
+                break;
+            case BOOLEAN:
+                set.addPrimitive(this.key, AbstractDataSet.TYPE_BOOLEAN, this.readBoolean() ? 1 : 0);
+                break;
+            default:
+                String key = this.key;
+                set.addPart(key, this.readPart());
+                break;
+        }
+    }
+
+    private void consume(PartType type) {
+        Preconditions.checkState(this.pending && this.type == type, "The current entry %s is of type %s, not %s", this.key, this.type, type);
+        this.pending = false;
+    }
+
+    private IPartFactory<?> readFactory() throws IOException {
+        int id = this.stream.readByte();
+        IPartFactory<?> factory = Registries.PART_REGISTRY.get(id);
+        if (factory == null) {
+            throw new IOException("Found unknown data part id " + id + " while reading data set");
+        }
+        return factory;
+    }
+
+    private void skipValue(PartType type, IPartFactory<?> factory) throws Exception {
+        if (type == PartType.INT) {
+            this.stream.readInt();
+        } else if (type == PartType.LONG) {
+            this.stream.readLong();
+        } else if (type == PartType.UNIQUE_ID) {
+            this.stream.readLong();
+            this.stream.readLong();
+        } else if (type.getFixedSize() >= 0) {
+            this.skipBytes(type.getFixedSize());
+        } else if (type == PartType.STRING) {
+            int length = this.stream.readInt();
+            for (int i = 0; i < length; i++) {
+                this.stream.readChar();
+            }
+        } else if (type == PartType.DATA_SET || type == PartType.MOD_BASED_DATA_SET) {
+            int amount = this.stream.readInt();
+            for (int i = 0; i < amount; i++) {
+                IPartFactory<?> entryFactory = this.readFactory();
+                this.skipBytes(this.stream.readUnsignedShort());
+                this.skipValue(PartType.of(entryFactory), entryFactory);
+            }
+        } else if (type == PartType.LIST) {
+            int size = this.stream.readInt();
+            if (size > 0) {
+                IPartFactory<?> entryFactory = this.readFactory();
+                PartType entryType = PartType.of(entryFactory);
+                if (entryType.getFixedSize() >= 0 && entryType != PartType.INT && entryType != PartType.LONG && entryType != PartType.UNIQUE_ID) {
+                    this.skipBytes((long) size * entryType.getFixedSize());
+                } else {
+                    for (int i = 0; i < size; i++) {
+                        this.skipValue(entryType, entryFactory);
+                    }
+                }
+            }
+        } else {
+            factory.parse(this.stream);
+        }
+    }
+
+    private void skipBytes(long amount) throws IOException {
+        while (amount > 0) {
+            int skipped = this.stream.skipBytes((int) Math.min(amount, Integer.MAX_VALUE));
+            if (skipped <= 0) {
+                this.stream.readByte();
+                skipped = 1;
+            }
+            amount -= skipped;
+        }
+    }
+}
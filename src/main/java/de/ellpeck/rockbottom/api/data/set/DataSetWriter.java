@@ -0,0 +1,278 @@
+/*
+ * This file ("DataSetWriter.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/RockBottomGame/>.
+ * View information on the project at <https://rockbottom.ellpeck.de/>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * © 2018 Ellpeck
+ */
+
+package de.ellpeck.rockbottom.api.data.set;
+
+import com.google.common.base.Preconditions;
+import de.ellpeck.rockbottom.api.IApiHandler;
+import de.ellpeck.rockbottom.api.Registries;
+import de.ellpeck.rockbottom.api.data.set.part.*;
+import de.ellpeck.rockbottom.api.data.set.part.num.*;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * A writer that pushes the entries of a data set into the binary format that
+ * is read by {@link IApiHandler#readDataSet(java.io.DataInput,
+ * AbstractDataSet)} one at a time, without needing to build the whole tree of
+ * {@link DataPart} objects first. As the format stores the amount of entries of
+ * every data set and list in front of them, these amounts have to be known
+ * when starting to write them, and they are checked when calling {@link
+ * #end()} and {@link #finish()}.
+ * <p>
+ * Entries of a data set need a key, while entries of a list are written with a
+ * null key and all need to be of the same type.
+ *
+ * @see DataSetReader
+ */
+public final class DataSetWriter {
+
+    private final DataOutput stream;
+
+    private int[] remaining = new int[8];
+    private boolean[] isList = new boolean[8];
+    private IPartFactory<?>[] listFactories = new IPartFactory<?>[8];
+    private int depth;
+
+    /**
+     * Creates a new writer and writes the header of the top-level data set
+     *
+     * @param stream The output to write to
+     * @param size   The amount of entries that the top-level data set will
+     *               have
+     * @throws IOException if writing fails
+     */
+    public DataSetWriter(DataOutput stream, int size) throws IOException {
+        this.stream = stream;
+        this.remaining[0] = size;
+        stream.writeInt(size);
+    }
+
+    /**
+     * Writes a data set to the given output in the same format as {@link
+     * IApiHandler#writeDataSet(DataOutput, AbstractDataSet)}, but without
+     * creating data parts for the primitive values stored in it or any of the
+     * data sets it contains.
+     *
+     * @param stream The output to write to
+     * @param set    The set to write
+     * @throws Exception if writing fails
+     */
+    public static void write(DataOutput stream, AbstractDataSet set) throws Exception {
+        DataSetWriter writer = new DataSetWriter(stream, set.size());
+        set.writeEntries(writer);
+        writer.finish();
+    }
+
+    public void writeByte(String key, byte b) throws IOException {
+        this.writeHeader(key, PartByte.FACTORY);
+        this.stream.writeByte(b);
+    }
+
+    public void writeShort(String key, short s) throws IOException {
+        this.writeHeader(key, PartShort.FACTORY);
+        this.stream.writeShort(s);
+    }
+
+    public void writeInt(String key, int i) throws IOException {
+        this.writeHeader(key, PartInt.FACTORY);
+        this.stream.writeInt(i);
+    }
+
+    public void writeLong(String key, long l) throws IOException {
+        this.writeHeader(key, PartLong.FACTORY);
+        this.stream.writeLong(l);
+    }
+
+    public void writeFloat(String key, float f) throws IOException {
+        this.writeHeader(key, PartFloat.FACTORY);
+        this.stream.writeFloat(f);
+    }
+
+    public void writeDouble(String key, double d) throws IOException {
+        this.writeHeader(key, PartDouble.FACTORY);
+        this.stream.writeDouble(d);
+    }
+
+    public void writeBoolean(String key, boolean b) throws IOException {
+        this.writeHeader(key, PartBoolean.FACTORY);
+        this.stream.writeBoolean(b);
+    }
+
+    public void writeString(String key, String s) throws IOException {
+        this.writeHeader(key, PartString.FACTORY);
+        this.stream.writeInt(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            this.stream.writeChar(s.charAt(i));
+        }
+    }
+
+    public void writeUniqueId(String key, UUID id) throws IOException {
+        this.writeHeader(key, PartUniqueId.FACTORY);
+        this.stream.writeLong(id.getMostSignificantBits());
+        this.stream.writeLong(id.getLeastSignificantBits());
+    }
+
+    /**
+     * Writes any data part. Data sets are written through {@link
+     * #writeDataSet(String, AbstractDataSet)}, all other parts are written
+     * using their own {@link DataPart#write(DataOutput)} method.
+     *
+     * @param key  The key, or null if a list is being written
+     * @param part The part
+     * @throws Exception if writing fails
+     */
+    public void writePart(String key, DataPart part) throws Exception {
+        if (part instanceof PartDataSet) {
+            this.writeDataSet(key, ((PartDataSet) part).get());
+        } else if (part instanceof PartModBasedDataSet) {
+            this.writeDataSet(key, ((PartModBasedDataSet) part).get());
+        } else {
+            this.writeHeader(key, part.getFactory());
+            part.write(this.stream);
+        }
+    }
+
+    /**
+     * Writes a complete data set or mod based data set
+     *
+     * @param key The key, or null if a list is being written
+     * @param set The set
+     * @throws Exception if writing fails
+     */
+    public void writeDataSet(String key, AbstractDataSet set) throws Exception {
+        this.begin(key, set instanceof ModBasedDataSet ? PartModBasedDataSet.FACTORY : PartDataSet.FACTORY, set.size(), false);
+        set.writeEntries(this);
+        this.end();
+    }
+
+    /**
+     * Starts writing a data set. The given amount of entries have to be
+     * written before calling {@link #end()}.
+     *
+     * @param key  The key, or null if a list is being written
+     * @param size The amount of entries
+     * @throws IOException if writing fails
+     */
+    public void beginDataSet(String key, int size) throws IOException {
+        this.begin(key, PartDataSet.FACTORY, size, false);
+    }
+
+    public void beginModBasedDataSet(String key, int size) throws IOException {
+        this.begin(key, PartModBasedDataSet.FACTORY, size, false);
+    }
+
+    /**
+     * Starts writing a list. The given amount of entries, which all need to be
+     * of the same type and have a null key, have to be written before calling
+     * {@link #end()}.
+     *
+     * @param key  The key, or null if a list is being written
+     * @param size The amount of entries
+     * @throws IOException if writing fails
+     */
+    public void beginList(String key, int size) throws IOException {
+        this.begin(key, PartList.FACTORY, size, true);
+    }
+
+    /**
+     * Finishes writing the data set or list that was last started.
+     */
+    public void end() {
+        Preconditions.checkState(this.depth > 0, "There is no data set or list to end");
+        Preconditions.checkState(this.remaining[this.depth] == 0, "Tried ending a data set or list that is still missing %s entries", this.remaining[this.depth]);
+        this.listFactories[this.depth] = null;
+        this.depth--;
+    }
+
+    /**
+     * Makes sure that the top-level data set was written completely.
+     */
+    public void finish() {
+        Preconditions.checkState(this.depth == 0, "There are still %s data sets or lists that haven't been ended", this.depth);
+        Preconditions.checkState(this.remaining[0] == 0, "The data set is still missing %s entries", this.remaining[0]);
+    }
+
+    void writePrimitive(String key, byte type, long value) throws IOException {
+        switch (type) {
+            case AbstractDataSet.TYPE_BYTE:
+                this.writeByte(key, (byte) value);
+                break;
+            case AbstractDataSet.TYPE_SHORT:
+                this.writeShort(key, (short) value);
+                break;
+            case AbstractDataSet.TYPE_INT:
+                this.writeInt(key, (int) value);
+                break;
+            case AbstractDataSet.TYPE_LONG:
+                this.writeLong(key, value);
+                break;
+            case AbstractDataSet.TYPE_FLOAT:
+                this.writeFloat(key, Float.intBitsToFloat((int) value));
+                break;
+            case AbstractDataSet.TYPE_DOUBLE:
+                this.writeDouble(key, Double.longBitsToDouble(value));
+                break;
+            default:
+                this.writeBoolean(key, value != 0);
+                break;
+        }
+    }
+
+    private void begin(String key, IPartFactory<?> factory, int size, boolean list) throws IOException {
+        Preconditions.checkArgument(size >= 0, "Cannot write a data set or list with negative size %s", size);
+        this.writeHeader(key, factory);
+        this.stream.writeInt(size);
+
+        this.depth++;
+        if (this.depth >= this.remaining.length) {
+            this.remaining = Arrays.copyOf(this.remaining, this.depth * 2);
+            this.isList = Arrays.copyOf(this.isList, this.depth * 2);
+            this.listFactories = Arrays.copyOf(this.listFactories, this.depth * 2);
+        }
+        this.remaining[this.depth] = size;
+        this.isList[this.depth] = list;
+    }
+
+    private void writeHeader(String key, IPartFactory<?> factory) throws IOException {
+        Preconditions.checkState(this.remaining[this.depth] > 0, "Tried writing more entries than were announced");
+        this.remaining[this.depth]--;
+
+        if (this.isList[this.depth]) {
+            Preconditions.checkArgument(key == null, "Entries of a list cannot have a key, but got %s", key);
+
+            IPartFactory<?> listFactory = this.listFactories[this.depth];
+            if (listFactory == null) {
+                this.listFactories[this.depth] = factory;
+                this.stream.writeByte(Registries.PART_REGISTRY.getId(factory));
+            } else {
+                Preconditions.checkArgument(listFactory == factory, "All entries of a list need to be of the same type");
+            }
+        } else {
+            Preconditions.checkNotNull(key, "Entries of a data set need a key");
+            this.stream.writeByte(Registries.PART_REGISTRY.getId(factory));
+            this.stream.writeUTF(key);
+        }
+    }
+}
@@ -39,35 +39,35 @@ public final class ModBasedDataSet extends AbstractDataSet {
     }
 
     public int getInt(ResourceName key) {
-        return this.getPartContent(key.toString(), PartInt.class, 0);
+        return (int) this.getPrimitive(key.toString(), TYPE_INT, 0);
     }
 
     public void addInt(ResourceName key, int i) {
-        this.addPart(key.toString(), new PartInt(i));
+        this.addPrimitive(key.toString(), TYPE_INT, i);
     }
 
     public long getLong(ResourceName key) {
-        return this.getPartContent(key.toString(), PartLong.class, 0L);
+        return this.getPrimitive(key.toString(), TYPE_LONG, 0L);
     }
 
     public void addLong(ResourceName key, long l) {
-        this.addPart(key.toString(), new PartLong(l));
+        this.addPrimitive(key.toString(), TYPE_LONG, l);
     }
 
     public float getFloat(ResourceName key) {
-        return this.getPartContent(key.toString(), PartFloat.class, 0F);
+        return Float.intBitsToFloat((int) this.getPrimitive(key.toString(), TYPE_FLOAT, 0));
     }
 
     public void addFloat(ResourceName key, float f) {
-        this.addPart(key.toString(), new PartFloat(f));
+        this.addPrimitive(key.toString(), TYPE_FLOAT, Float.floatToRawIntBits(f));
     }
 
     public double getDouble(ResourceName key) {
-        return this.getPartContent(key.toString(), PartDouble.class, 0D);
+        return Double.longBitsToDouble(this.getPrimitive(key.toString(), TYPE_DOUBLE, 0L));
     }
 
     public void addDouble(ResourceName key, double d) {
-        this.addPart(key.toString(), new PartDouble(d));
+        this.addPrimitive(key.toString(), TYPE_DOUBLE, Double.doubleToRawLongBits(d));
     }
 
     public DataSet getDataSet(ResourceName key) {
@@ -95,27 +95,27 @@ public final class ModBasedDataSet extends AbstractDataSet {
     }
 
     public byte getByte(ResourceName key) {
-        return this.getPartContent(key.toString(), PartByte.class, (byte) 0);
+        return (byte) this.getPrimitive(key.toString(), TYPE_BYTE, 0);
     }
 
     public void addByte(ResourceName key, byte b) {
-        this.addPart(key.toString(), new PartByte(b));
+        this.addPrimitive(key.toString(), TYPE_BYTE, b);
     }
 
     public short getShort(ResourceName key) {
-        return this.getPartContent(key.toString(), PartShort.class, (short) 0);
+        return (short) this.getPrimitive(key.toString(), TYPE_SHORT, 0);
     }
 
     public void addShort(ResourceName key, short s) {
-        this.addPart(key.toString(), new PartShort(s));
+        this.addPrimitive(key.toString(), TYPE_SHORT, s);
     }
 
     public boolean getBoolean(ResourceName key) {
-        return this.getPartContent(key.toString(), PartBoolean.class, false);
+        return this.getPrimitive(key.toString(), TYPE_BOOLEAN, 0) != 0;
     }
 
     public void addBoolean(ResourceName key, boolean s) {
-        this.addPart(key.toString(), new PartBoolean(s));
+        this.addPrimitive(key.toString(), TYPE_BOOLEAN, s ? 1 : 0);
     }
 
     public String getString(ResourceName key) {
@@ -136,7 +136,7 @@ public final class ModBasedDataSet extends AbstractDataSet {
 
     public ModBasedDataSet copy() {
         ModBasedDataSet set = new ModBasedDataSet();
-        set.data.putAll(this.data);
+        this.copyInto(set);
         return set;
     }
 }
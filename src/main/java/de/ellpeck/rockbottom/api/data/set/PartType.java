@@ -0,0 +1,97 @@
+/*
+ * This file ("PartType.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/RockBottomGame/>.
+ * View information on the project at <https://rockbottom.ellpeck.de/>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * © 2018 Ellpeck
+ */
+
+package de.ellpeck.rockbottom.api.data.set;
+
+import de.ellpeck.rockbottom.api.data.set.part.*;
+import de.ellpeck.rockbottom.api.data.set.part.num.*;
+
+/**
+ * The types of values that a {@link DataSetReader} can come across and that a
+ * {@link DataSetWriter} can write. Every type is identified by the {@link
+ * IPartFactory} that the corresponding {@link DataPart} uses, and data parts
+ * whose factory is not one of the built-in ones are of type {@link #OTHER}.
+ */
+public enum PartType {
+
+    BYTE(PartByte.FACTORY, 1),
+    SHORT(PartShort.FACTORY, 2),
+    INT(PartInt.FACTORY, 4),
+    LONG(PartLong.FACTORY, 8),
+    FLOAT(PartFloat.FACTORY, 4),
+    DOUBLE(PartDouble.FACTORY, 8),
+    BOOLEAN(PartBoolean.FACTORY, 1),
+    STRING(PartString.FACTORY, -1),
+    UNIQUE_ID(PartUniqueId.FACTORY, 16),
+    DATA_SET(PartDataSet.FACTORY, -1),
+    MOD_BASED_DATA_SET(PartModBasedDataSet.FACTORY, -1),
+    LIST(PartList.FACTORY, -1),
+    OTHER(null, -1);
+
+    private static final PartType[] TYPES = values();
+
+    private final IPartFactory<?> factory;
+    private final int fixedSize;
+
+    PartType(IPartFactory<?> factory, int fixedSize) {
+        this.factory = factory;
+        this.fixedSize = fixedSize;
+    }
+
+    public static PartType of(IPartFactory<?> factory) {
+        for (PartType type : TYPES) {
+            if (type.factory == factory) {
+                return type;
+            }
+        }
+        return OTHER;
+    }
+
+    /**
+     * Returns the factory of this type, or null if this is {@link #OTHER}
+     *
+     * @return The factory
+     */
+    public IPartFactory<?> getFactory() {
+        return this.factory;
+    }
+
+    /**
+     * Returns the amount of bytes that a value of this type takes up in the
+     * binary format written to a {@link java.io.DataOutputStream}, or -1 if it
+     * depends on the value.
+     *
+     * @return The fixed size
+     */
+    public int getFixedSize() {
+        return this.fixedSize;
+    }
+
+    /**
+     * Returns if this type contains other values that can be entered using
+     * {@link DataSetReader#enter()}.
+     *
+     * @return If this type is a container
+     */
+    public boolean isContainer() {
+        return this == DATA_SET || this == MOD_BASED_DATA_SET || this == LIST;
+    }
+}
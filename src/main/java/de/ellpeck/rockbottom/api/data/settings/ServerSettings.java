@@ -33,12 +33,14 @@ public final class ServerSettings implements IJsonSettings {
     public int autosaveIntervalSeconds;
     public int maxPlayerAmount;
     public String worldName;
+    public float fullChunkSyncFraction;
 
     @Override
     public void load(JsonObject object) {
         this.autosaveIntervalSeconds = this.get(object, "autosave_interval", 60);
         this.maxPlayerAmount = this.get(object, "max_players", 100);
         this.worldName = this.get(object, "world_name", "world_server");
+        this.fullChunkSyncFraction = this.get(object, "full_chunk_sync_fraction", 0.25F);
     }
 
     @Override
@@ -46,6 +48,7 @@ public final class ServerSettings implements IJsonSettings {
         this.set(object, "autosave_interval", this.autosaveIntervalSeconds);
         this.set(object, "max_players", this.maxPlayerAmount);
         this.set(object, "world_name", this.worldName);
+        this.set(object, "full_chunk_sync_fraction", this.fullChunkSyncFraction);
     }
 
     @Override
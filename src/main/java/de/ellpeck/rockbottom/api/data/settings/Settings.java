@@ -78,6 +78,8 @@ public final class Settings implements IJsonSettings {
     public boolean cursorInfos;
     public boolean fullscreen;
     public boolean smoothLighting;
+    public int atlasPadding;
+    public boolean atlasBleed;
 
     public float musicVolume;
     public float soundVolume;
@@ -110,6 +112,8 @@ public final class Settings implements IJsonSettings {
         this.cursorInfos = this.get(object, "cursor_infos", true);
         this.fullscreen = this.get(object, "fullscreen", false);
         this.smoothLighting = this.get(object, "smooth_lighting", true);
+        this.atlasPadding = this.get(object, "atlas_padding", 1);
+        this.atlasBleed = this.get(object, "atlas_bleed", true);
 
         this.musicVolume = this.get(object, "music_volume", 0.5F);
         this.soundVolume = this.get(object, "sound_volume", 1F);
@@ -140,6 +144,8 @@ public final class Settings implements IJsonSettings {
         this.set(object, "cursor_infos", this.cursorInfos);
         this.set(object, "fullscreen", this.fullscreen);
         this.set(object, "smooth_lighting", this.smoothLighting);
+        this.set(object, "atlas_padding", this.atlasPadding);
+        this.set(object, "atlas_bleed", this.atlasBleed);
 
         this.set(object, "music_volume", this.musicVolume);
         this.set(object, "sound_volume", this.soundVolume);
@@ -53,7 +53,7 @@ public final class ActiveEffect {
 
     public static ActiveEffect load(DataSet set) {
         String name = set.getString("effect_name");
-        IEffect effect = Registries.EFFECT_REGISTRY.get(new ResourceName(name));
+        IEffect effect = Registries.EFFECT_REGISTRY.get(ResourceName.of(name));
 
         if (effect != null) {
             int time = set.getInt("time");
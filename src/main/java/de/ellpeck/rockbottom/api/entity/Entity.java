@@ -37,10 +37,12 @@ import de.ellpeck.rockbottom.api.event.impl.EntityDeathEvent;
 import de.ellpeck.rockbottom.api.render.entity.IEntityRenderer;
 import de.ellpeck.rockbottom.api.tile.Tile;
 import de.ellpeck.rockbottom.api.tile.state.TileState;
+import de.ellpeck.rockbottom.api.util.ApiInternal;
 import de.ellpeck.rockbottom.api.util.BoundingBox;
 import de.ellpeck.rockbottom.api.util.Direction;
 import de.ellpeck.rockbottom.api.util.Util;
 import de.ellpeck.rockbottom.api.util.reg.ResourceName;
+import de.ellpeck.rockbottom.api.world.EntityIndex;
 import de.ellpeck.rockbottom.api.world.IChunk;
 import de.ellpeck.rockbottom.api.world.IWorld;
 import de.ellpeck.rockbottom.api.world.layer.TileLayer;
@@ -176,6 +178,34 @@ public abstract class Entity extends MovableWorldObject implements IAdditionalDa
 
     }
 
+    @Override
+    public void setBounds(double x, double y) {
+        super.setBounds(x, y);
+        this.updateIndex();
+    }
+
+    @Override
+    public void setBoundsOrigin(double x, double y) {
+        super.setBoundsOrigin(x, y);
+        this.updateIndex();
+    }
+
+    @Override
+    @ApiInternal
+    public void move() {
+        super.move();
+        this.updateIndex();
+    }
+
+    private void updateIndex() {
+        if (this.world != null) {
+            EntityIndex index = this.world.getEntityIndex();
+            if (index != null) {
+                index.update(this);
+            }
+        }
+    }
+
     public void moveToChunk(IChunk chunk) {
         this.chunkX = chunk.getGridX();
         this.chunkY = chunk.getGridY();
@@ -0,0 +1,171 @@
+/*
+ * This file ("EventDispatcher.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/RockBottomGame/>.
+ * View information on the project at <https://rockbottom.ellpeck.de/>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * © 2018 Ellpeck
+ */
+
+package de.ellpeck.rockbottom.api.event;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stores the {@link IEventListener}s registered into an {@link IEventHandler}
+ * and compiles them into a flat array for every concrete {@link Event} class
+ * that is fired, containing the listeners of the class itself and of all of
+ * its superclasses, sorted by their priority. The arrays are only rebuilt when
+ * listeners are registered or unregistered, so firing an event doesn't have to
+ * look at any listeners that aren't interested in it, and {@link
+ * #hasListeners(Class)} only needs a single lookup.
+ * <p>
+ * Registering and unregistering is synchronized, while firing events can
+ * happen on any thread without locking.
+ */
+public class EventDispatcher {
+
+    private static final IEventListener[] NO_LISTENERS = new IEventListener[0];
+
+    private final Map<Class<? extends Event>, List<Registration>> registrations = new HashMap<>();
+    private final Map<Class<?>, IEventListener[]> compiled = new ConcurrentHashMap<>();
+    private int registrationCounter;
+
+    /**
+     * Registers a listener with the given priority. Listeners with a higher
+     * priority listen to an event first, and listeners with the same priority
+     * listen in the order that they were registered in.
+     *
+     * @param type     The type of event to listen for
+     * @param listener The listener
+     * @param priority The priority
+     * @param <T>      A generic type representing the event
+     */
+    public synchronized <T extends Event> void register(Class<T> type, IEventListener<T> listener, int priority) {
+        this.registrations.computeIfAbsent(type, t -> new ArrayList<>()).add(new Registration(listener, priority, this.registrationCounter++));
+        this.compiled.clear();
+    }
+
+    public synchronized <T extends Event> void unregister(Class<T> type, IEventListener<T> listener) {
+        List<Registration> list = this.registrations.get(type);
+        if (list != null) {
+            Iterator<Registration> iterator = list.iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().listener == listener) {
+                    iterator.remove();
+                    break;
+                }
+            }
+            if (list.isEmpty()) {
+                this.registrations.remove(type);
+            }
+            this.compiled.clear();
+        }
+    }
+
+    public synchronized void unregisterAll(Class<? extends Event> type) {
+        if (this.registrations.remove(type) != null) {
+            this.compiled.clear();
+        }
+    }
+
+    /**
+     * Returns if any listeners would listen to an event of the given class if
+     * it was fired. Callers can use this to avoid creating an event at all if
+     * nobody is listening to it.
+     *
+     * @param type The concrete event class
+     * @return If there are any listeners
+     */
+    public boolean hasListeners(Class<? extends Event> type) {
+        return this.getListeners(type).length > 0;
+    }
+
+    /**
+     * Fires the given event to all of the listeners of its class and its
+     * superclasses, stopping once one of them returns {@link
+     * EventResult#CANCELLED}.
+     *
+     * @param event The event
+     * @return The result
+     */
+    @SuppressWarnings("unchecked")
+    public EventResult fire(Event event) {
+        IEventListener[] listeners = this.getListeners(event.getClass());
+        EventResult result = EventResult.DEFAULT;
+        for (IEventListener listener : listeners) {
+            result = listener.listen(result, event);
+            if (result == EventResult.CANCELLED) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    private IEventListener[] getListeners(Class<?> type) {
+        IEventListener[] listeners = this.compiled.get(type);
+        if (listeners == null) {
+            listeners = this.compile(type);
+        }
+        return listeners;
+    }
+
+    private synchronized IEventListener[] compile(Class<?> type) {
+        IEventListener[] existing = this.compiled.get(type);
+        if (existing != null) {
+            return existing;
+        }
+
+        List<Registration> all = new ArrayList<>();
+        for (Class<?> current = type; current != null && Event.class.isAssignableFrom(current); current = current.getSuperclass()) {
+            List<Registration> list = this.registrations.get(current);
+            if (list != null) {
+                all.addAll(list);
+            }
+        }
+
+        IEventListener[] listeners;
+        if (all.isEmpty()) {
+            listeners = NO_LISTENERS;
+        } else {
+            all.sort((first, second) -> first.priority != second.priority ? Integer.compare(second.priority, first.priority) : Integer.compare(first.order, second.order));
+            listeners = new IEventListener[all.size()];
+            for (int i = 0; i < listeners.length; i++) {
+                listeners[i] = all.get(i).listener;
+            }
+        }
+
+        this.compiled.put(type, listeners);
+        return listeners;
+    }
+
+    private static final class Registration {
+
+        private final IEventListener<?> listener;
+        private final int priority;
+        private final int order;
+
+        private Registration(IEventListener<?> listener, int priority, int order) {
+            this.listener = listener;
+            this.priority = priority;
+            this.order = order;
+        }
+    }
+}
@@ -44,7 +44,25 @@ public interface IEventHandler {
      *                 to
      * @see IEventListener#listen(EventResult, Event)
      */
-    <T extends Event> void registerListener(Class<T> type, IEventListener<T> listener);
+    default <T extends Event> void registerListener(Class<T> type, IEventListener<T> listener) {
+        this.registerListener(type, listener, 0);
+    }
+
+    /**
+     * Registers an {@link IEventListener} that will listen to a certain kind of
+     * event with the given priority. Listeners with a higher priority listen to
+     * an event before listeners with a lower priority, and listeners with the
+     * same priority listen in the order that they were registered in. The
+     * priority of listeners registered without one is 0.
+     *
+     * @param type     The type of event to listen for
+     * @param listener The listener
+     * @param priority The priority
+     * @param <T>      A generic type representing the event that is listened
+     *                 to
+     * @see EventDispatcher
+     */
+    <T extends Event> void registerListener(Class<T> type, IEventListener<T> listener, int priority);
 
     /**
      * Unregisters an {@link IEventListener} from listening to a certain kind of
@@ -76,4 +94,15 @@ public interface IEventHandler {
      * @see #registerListener(Class, IEventListener)
      */
     EventResult fireEvent(Event event);
+
+    /**
+     * Returns if firing an event of the given class would cause any listeners
+     * to listen to it. Code that fires events very often, like every tick or
+     * every frame, should check this first so that the event doesn't have to
+     * be created if nobody is listening to it.
+     *
+     * @param type The class of the event
+     * @return If there are any listeners for the event
+     */
+    boolean hasListeners(Class<? extends Event> type);
 }
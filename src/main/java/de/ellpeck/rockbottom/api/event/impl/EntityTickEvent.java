@@ -27,6 +27,10 @@ import de.ellpeck.rockbottom.api.event.Event;
 /**
  * This event is fired every tick when an {@link Entity} is updating. Cancelling
  * the event will result in the entity not updating for one tick.
+ * <p>
+ * Since this event is fired so often, it is only created if {@link
+ * de.ellpeck.rockbottom.api.event.IEventHandler#hasListeners(Class)} returns
+ * true for it.
  */
 public final class EntityTickEvent extends Event {
 
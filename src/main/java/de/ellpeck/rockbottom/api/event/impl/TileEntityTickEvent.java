@@ -27,6 +27,10 @@ import de.ellpeck.rockbottom.api.tile.entity.TileEntity;
 /**
  * This event is fired every tick when a {@link TileEntity} updates. Cancelling
  * this event will cause the tile entity not to update for one tick.
+ * <p>
+ * Since this event is fired so often, it is only created if {@link
+ * de.ellpeck.rockbottom.api.event.IEventHandler#hasListeners(Class)} returns
+ * true for it.
  */
 public final class TileEntityTickEvent extends Event {
 
@@ -24,18 +24,32 @@ package de.ellpeck.rockbottom.api.event.impl;
 import de.ellpeck.rockbottom.api.data.IDataManager;
 import de.ellpeck.rockbottom.api.event.Event;
 import de.ellpeck.rockbottom.api.world.IWorld;
+import de.ellpeck.rockbottom.api.world.storage.ChunkSaveQueue;
+
+import java.util.concurrent.CompletableFuture;
 
 /**
  * This event is fired when an {@link IWorld} is saved using the specified
- * {@link IDataManager}. This event cannot be cancelled.
+ * {@link IDataManager}. As chunks are written in the background by the {@link
+ * ChunkSaveQueue}, the save might not be finished yet when this event is
+ * fired. The {@code completion} future completes once all of the chunks that
+ * were part of this save have been written to disk, or completes
+ * exceptionally if any of them couldn't be written. This event cannot be
+ * cancelled.
  */
 public final class WorldSaveEvent extends Event {
 
     public final IWorld world;
     public final IDataManager dataManager;
+    public final CompletableFuture<Void> completion;
 
-    public WorldSaveEvent(IWorld world, IDataManager dataManager) {
+    public WorldSaveEvent(IWorld world, IDataManager dataManager, CompletableFuture<Void> completion) {
         this.world = world;
         this.dataManager = dataManager;
+        this.completion = completion;
+    }
+
+    public WorldSaveEvent(IWorld world, IDataManager dataManager) {
+        this(world, dataManager, CompletableFuture.completedFuture(null));
     }
 }
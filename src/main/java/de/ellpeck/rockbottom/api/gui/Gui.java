@@ -27,6 +27,7 @@ import de.ellpeck.rockbottom.api.RockBottomAPI;
 import de.ellpeck.rockbottom.api.assets.IAssetManager;
 import de.ellpeck.rockbottom.api.data.settings.Settings;
 import de.ellpeck.rockbottom.api.event.EventResult;
+import de.ellpeck.rockbottom.api.event.IEventHandler;
 import de.ellpeck.rockbottom.api.event.impl.ComponentRenderEvent;
 import de.ellpeck.rockbottom.api.event.impl.ComponentRenderOverlayEvent;
 import de.ellpeck.rockbottom.api.gui.component.GuiComponent;
@@ -152,10 +153,12 @@ public abstract class Gui {
     }
 
     public void render(IGameInstance game, IAssetManager manager, IRenderer g) {
+        IEventHandler events = RockBottomAPI.getEventHandler();
+        boolean fireEvents = events.hasListeners(ComponentRenderEvent.class);
         for (int i = this.components.size() - 1; i >= 0; i--) {
             GuiComponent component = this.components.get(i);
             if (component.isActive()) {
-                if (RockBottomAPI.getEventHandler().fireEvent(new ComponentRenderEvent(this, i, component)) != EventResult.CANCELLED) {
+                if (!fireEvents || events.fireEvent(new ComponentRenderEvent(this, i, component)) != EventResult.CANCELLED) {
                     component.render(game, manager, g, component.getRenderX(), component.getRenderY());
                 }
             }
@@ -163,10 +166,12 @@ public abstract class Gui {
     }
 
     public void renderOverlay(IGameInstance game, IAssetManager manager, IRenderer g) {
+        IEventHandler events = RockBottomAPI.getEventHandler();
+        boolean fireEvents = events.hasListeners(ComponentRenderOverlayEvent.class);
         for (int i = this.components.size() - 1; i >= 0; i--) {
             GuiComponent component = this.components.get(i);
             if (component.isActive()) {
-                if (RockBottomAPI.getEventHandler().fireEvent(new ComponentRenderOverlayEvent(this, i, component)) != EventResult.CANCELLED) {
+                if (!fireEvents || events.fireEvent(new ComponentRenderOverlayEvent(this, i, component)) != EventResult.CANCELLED) {
                     component.renderOverlay(game, manager, g, component.getRenderX(), component.getRenderY());
                 }
             }
@@ -65,6 +65,16 @@ public interface IInternalHooks {
 
     void doDefaultEntityUpdate(IGameInstance game, Entity entity, List<ActiveEffect> effects, List<AITask> aiTasks);
 
+    /**
+     * Moves the given object by its motion, colliding it with tiles and
+     * entities. Tile collisions are checked against each chunk's {@link
+     * de.ellpeck.rockbottom.api.world.collision.CollisionMask}, entity
+     * collisions are found using a {@link de.ellpeck.rockbottom.api.world.collision.SweepAndPrune}
+     * broad phase, and temporary bounding boxes come from the {@link
+     * de.ellpeck.rockbottom.api.util.BoundingBoxPool#local()} pool.
+     *
+     * @param object The object to move
+     */
     void doWorldObjectMovement(MovableWorldObject object);
 
     boolean doDefaultSlotMovement(IGameInstance game, int button, float x, float y, ContainerGui gui, SlotComponent slot);
@@ -23,6 +23,7 @@ package de.ellpeck.rockbottom.api.inventory;
 
 import de.ellpeck.rockbottom.api.RockBottomAPI;
 import de.ellpeck.rockbottom.api.construction.resource.IUseInfo;
+import de.ellpeck.rockbottom.api.event.IEventHandler;
 import de.ellpeck.rockbottom.api.event.impl.InventoryChangeEvent;
 import de.ellpeck.rockbottom.api.item.ItemInstance;
 
@@ -59,7 +60,10 @@ public abstract class AbstractInventory implements IInventory {
 
     @Override
     public void notifyChange(int slot) {
-        RockBottomAPI.getEventHandler().fireEvent(new InventoryChangeEvent(this, slot));
+        IEventHandler events = RockBottomAPI.getEventHandler();
+        if (events.hasListeners(InventoryChangeEvent.class)) {
+            events.fireEvent(new InventoryChangeEvent(this, slot));
+        }
 
         for (BiConsumer<IInventory, Integer> callback : this.callbacks) {
             callback.accept(this, slot);
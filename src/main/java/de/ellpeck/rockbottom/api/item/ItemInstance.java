@@ -68,7 +68,7 @@ public final class ItemInstance implements IAdditionalDataProvider {
 
     public static ItemInstance load(DataSet set) {
         String name = set.getString("item_name");
-        Item item = Registries.ITEM_REGISTRY.get(new ResourceName(name));
+        Item item = Registries.ITEM_REGISTRY.get(ResourceName.of(name));
 
         if (item != null) {
             int amount = set.getInt("amount");
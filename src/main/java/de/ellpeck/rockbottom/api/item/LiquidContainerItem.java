@@ -60,7 +60,7 @@ public abstract class LiquidContainerItem extends BasicItem {
 
     public static ResourceName getLiquid(ItemInstance instance) {
         DataSet set = getLiquidData(instance, false);
-        return set != null ? new ResourceName(set.getString("name")) : null;
+        return set != null ? ResourceName.of(set.getString("name")) : null;
     }
 
     public static void storeLiquid(ItemInstance instance, ResourceName liquid, int amount) {
@@ -54,11 +54,11 @@ public class SwordItem extends ToolItem {
         double minX = x - (player.facing == Direction.LEFT ? this.attackDistance : 0);
         double maxX = x + (player.facing == Direction.RIGHT ? this.attackDistance : 0);
 
-        for (Entity entity : world.getEntities(new BoundingBox(minX, y - this.attackDistance, maxX, y + this.attackDistance), entity -> entity != player)) {
-            if (Util.distanceSq(entity.getX(), entity.getY(), x, y) <= this.attackDistance * this.attackDistance) {
+        world.forEachEntity(new BoundingBox(minX, y - this.attackDistance, maxX, y + this.attackDistance), entity -> {
+            if (entity != player && Util.distanceSq(entity.getX(), entity.getY(), x, y) <= this.attackDistance * this.attackDistance) {
                 entities.add(entity);
             }
-        }
+        });
 
         return entities;
     }
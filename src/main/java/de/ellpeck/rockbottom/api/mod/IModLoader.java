@@ -21,8 +21,12 @@
 
 package de.ellpeck.rockbottom.api.mod;
 
+import de.ellpeck.rockbottom.api.IApiHandler;
+import de.ellpeck.rockbottom.api.IGameInstance;
+import de.ellpeck.rockbottom.api.Registries;
 import de.ellpeck.rockbottom.api.data.set.DataSet;
 import de.ellpeck.rockbottom.api.data.settings.ModSettings;
+import de.ellpeck.rockbottom.api.event.IEventHandler;
 import de.ellpeck.rockbottom.api.util.ApiInternal;
 
 import java.io.File;
@@ -60,6 +64,11 @@ public interface IModLoader {
     @ApiInternal
     void postInit();
 
+    /**
+     * Calls {@link IMod#postPostInit(IGameInstance, IApiHandler,
+     * IEventHandler)} for all mods. Afterwards, the game calls {@link
+     * Registries#freezeAll()}.
+     */
     @ApiInternal
     void postPostInit();
     
@@ -0,0 +1,159 @@
+/*
+ * This file ("CompactDataInput.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/RockBottomGame/>.
+ * View information on the project at <https://rockbottom.ellpeck.de/>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * © 2018 Ellpeck
+ */
+
+package de.ellpeck.rockbottom.api.net;
+
+import io.netty.buffer.ByteBuf;
+
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+
+/**
+ * A {@link DataInput} that reads from a {@link ByteBuf} that was written using
+ * a {@link CompactDataOutput}.
+ */
+public final class CompactDataInput implements DataInput {
+
+    private final ByteBuf buf;
+
+    public CompactDataInput(ByteBuf buf) {
+        this.buf = buf;
+    }
+
+    @Override
+    public void readFully(byte[] b) throws IOException {
+        this.readFully(b, 0, b.length);
+    }
+
+    @Override
+    public void readFully(byte[] b, int off, int len) throws IOException {
+        this.ensureReadable(len);
+        this.buf.readBytes(b, off, len);
+    }
+
+    @Override
+    public int skipBytes(int n) {
+        int amount = Math.min(n, this.buf.readableBytes());
+        this.buf.skipBytes(amount);
+        return amount;
+    }
+
+    @Override
+    public boolean readBoolean() throws IOException {
+        this.ensureReadable(1);
+        return this.buf.readBoolean();
+    }
+
+    @Override
+    public byte readByte() throws IOException {
+        this.ensureReadable(1);
+        return this.buf.readByte();
+    }
+
+    @Override
+    public int readUnsignedByte() throws IOException {
+        this.ensureReadable(1);
+        return this.buf.readUnsignedByte();
+    }
+
+    @Override
+    public short readShort() throws IOException {
+        this.ensureReadable(2);
+        return this.buf.readShort();
+    }
+
+    @Override
+    public int readUnsignedShort() throws IOException {
+        this.ensureReadable(2);
+        return this.buf.readUnsignedShort();
+    }
+
+    @Override
+    public char readChar() throws IOException {
+        return (char) NetUtil.readVarIntFromBuffer(this.buf);
+    }
+
+    @Override
+    public int readInt() throws IOException {
+        return NetUtil.unZigZag(NetUtil.readVarIntFromBuffer(this.buf));
+    }
+
+    @Override
+    public long readLong() throws IOException {
+        return NetUtil.unZigZag(NetUtil.readVarLongFromBuffer(this.buf));
+    }
+
+    @Override
+    public float readFloat() throws IOException {
+        this.ensureReadable(4);
+        return this.buf.readFloat();
+    }
+
+    @Override
+    public double readDouble() throws IOException {
+        this.ensureReadable(8);
+        return this.buf.readDouble();
+    }
+
+    /**
+     * Reads a line of text the same way {@link DataInputStream#readLine()}
+     * does: every byte is converted to a character, and the line ends at a
+     * {@code \n}, a {@code \r}, a {@code \r\n} or the end of the buffer.
+     *
+     * @return The line without its terminator, or null if the end of the
+     * buffer was reached before any byte was read
+     */
+    @Override
+    public String readLine() {
+        if (!this.buf.isReadable()) {
+            return null;
+        }
+
+        StringBuilder builder = new StringBuilder();
+        while (this.buf.isReadable()) {
+            int c = this.buf.readUnsignedByte();
+            if (c == '\n') {
+                break;
+            } else if (c == '\r') {
+                if (this.buf.isReadable() && this.buf.getByte(this.buf.readerIndex()) == '\n') {
+                    this.buf.skipBytes(1);
+                }
+                break;
+            } else {
+                builder.append((char) c);
+            }
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public String readUTF() throws IOException {
+        return DataInputStream.readUTF(this);
+    }
+
+    private void ensureReadable(int amount) throws EOFException {
+        if (this.buf.readableBytes() < amount) {
+            throw new EOFException();
+        }
+    }
+}
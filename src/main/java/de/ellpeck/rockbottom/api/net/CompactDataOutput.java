@@ -0,0 +1,142 @@
+/*
+ * This file ("CompactDataOutput.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/RockBottomGame/>.
+ * View information on the project at <https://rockbottom.ellpeck.de/>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * © 2018 Ellpeck
+ */
+
+package de.ellpeck.rockbottom.api.net;
+
+import io.netty.buffer.ByteBuf;
+
+import java.io.DataOutput;
+import java.io.UTFDataFormatException;
+
+/**
+ * A {@link DataOutput} that writes to a {@link ByteBuf} using the compact wire
+ * format described in {@link NetCodec}. Ints, longs and chars are written as
+ * varints, with ints and longs being zigzag encoded first so that small
+ * negative numbers stay small. Everything else is written the same way a
+ * {@link java.io.DataOutputStream} would write it, so that data parts that
+ * write themselves to a {@link DataOutput} can be used without changes.
+ *
+ * @see CompactDataInput
+ */
+public final class CompactDataOutput implements DataOutput {
+
+    private final ByteBuf buf;
+
+    public CompactDataOutput(ByteBuf buf) {
+        this.buf = buf;
+    }
+
+    @Override
+    public void write(int b) {
+        this.buf.writeByte(b);
+    }
+
+    @Override
+    public void write(byte[] b) {
+        this.buf.writeBytes(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        this.buf.writeBytes(b, off, len);
+    }
+
+    @Override
+    public void writeBoolean(boolean v) {
+        this.buf.writeBoolean(v);
+    }
+
+    @Override
+    public void writeByte(int v) {
+        this.buf.writeByte(v);
+    }
+
+    @Override
+    public void writeShort(int v) {
+        this.buf.writeShort(v);
+    }
+
+    @Override
+    public void writeChar(int v) {
+        NetUtil.writeVarIntToBuffer(v & 0xFFFF, this.buf);
+    }
+
+    @Override
+    public void writeInt(int v) {
+        NetUtil.writeVarIntToBuffer(NetUtil.zigZag(v), this.buf);
+    }
+
+    @Override
+    public void writeLong(long v) {
+        NetUtil.writeVarLongToBuffer(NetUtil.zigZag(v), this.buf);
+    }
+
+    @Override
+    public void writeFloat(float v) {
+        this.buf.writeFloat(v);
+    }
+
+    @Override
+    public void writeDouble(double v) {
+        this.buf.writeDouble(v);
+    }
+
+    @Override
+    public void writeBytes(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            this.buf.writeByte(s.charAt(i));
+        }
+    }
+
+    @Override
+    public void writeChars(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            this.writeChar(s.charAt(i));
+        }
+    }
+
+    @Override
+    public void writeUTF(String s) throws UTFDataFormatException {
+        int length = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            length += c >= 0x0001 && c <= 0x007F ? 1 : c > 0x07FF ? 3 : 2;
+        }
+        if (length > 0xFFFF) {
+            throw new UTFDataFormatException("Encoded string is too long: " + length + " bytes");
+        }
+
+        this.buf.writeShort(length);
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= 0x0001 && c <= 0x007F) {
+                this.buf.writeByte(c);
+            } else if (c > 0x07FF) {
+                this.buf.writeByte(0xE0 | c >> 12 & 0x0F);
+                this.buf.writeByte(0x80 | c >> 6 & 0x3F);
+                this.buf.writeByte(0x80 | c & 0x3F);
+            } else {
+                this.buf.writeByte(0xC0 | c >> 6 & 0x1F);
+                this.buf.writeByte(0x80 | c & 0x3F);
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * This file ("NameDictionary.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/RockBottomGame/>.
+ * View information on the project at <https://rockbottom.ellpeck.de/>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * © 2018 Ellpeck
+ */
+
+package de.ellpeck.rockbottom.api.net;
+
+import com.google.common.base.Preconditions;
+import de.ellpeck.rockbottom.api.Registries;
+import de.ellpeck.rockbottom.api.util.reg.IRegistry;
+import de.ellpeck.rockbottom.api.util.reg.NameRegistry;
+import de.ellpeck.rockbottom.api.util.reg.ResourceName;
+import io.netty.buffer.ByteBuf;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A table that assigns compact ids to {@link ResourceName}s for a single
+ * connection, so that {@link NetUtil#writeResToBuffer(ResourceName, ByteBuf)}
+ * only has to send a varint instead of the whole name. When a player joins, the
+ * server creates a dictionary of all the names in every {@link NameRegistry}
+ * of {@link Registries#REGISTRIES} using {@link #fromRegistries()} and sends it
+ * to the client along with the {@link de.ellpeck.rockbottom.api.world.DynamicRegistryInfo},
+ * after which both sides call {@link NetCodec#establishNames(io.netty.channel.Channel,
+ * NameDictionary)}.
+ * <p>
+ * Names that aren't part of the dictionary yet, like ones created at runtime,
+ * are sent in full once along with an announcement that adds them to the
+ * dictionary on both sides, and only their id is sent afterwards.
+ */
+public final class NameDictionary {
+
+    /**
+     * The maximum amount of names a dictionary can hold. Names that are written
+     * after this amount has been reached are always sent in full.
+     */
+    public static final int MAX_SIZE = 1 << 16;
+
+    private final Map<ResourceName, Integer> ids = new HashMap<>();
+    private final List<ResourceName> names = new ArrayList<>();
+
+    public static NameDictionary fromRegistries() {
+        NameDictionary dictionary = new NameDictionary();
+        for (IRegistry registry : Registries.REGISTRIES.values()) {
+            if (registry instanceof NameRegistry) {
+                for (Object name : registry.keySet()) {
+                    dictionary.add((ResourceName) name);
+                }
+            }
+        }
+        return dictionary;
+    }
+
+    /**
+     * Returns the id of the given name
+     *
+     * @param name The name
+     * @return The id, or -1 if the name is not part of this dictionary
+     */
+    public int getId(ResourceName name) {
+        Integer id = this.ids.get(name);
+        return id == null ? -1 : id;
+    }
+
+    public ResourceName get(int id) {
+        return id >= 0 && id < this.names.size() ? this.names.get(id) : null;
+    }
+
+    /**
+     * Adds a name to this dictionary if it isn't already part of it and the
+     * dictionary isn't full
+     *
+     * @param name The name
+     * @return The id of the name, or -1 if the dictionary is full
+     */
+    public int add(ResourceName name) {
+        Integer id = this.ids.get(name);
+        if (id != null) {
+            return id;
+        }
+        if (this.isFull()) {
+            return -1;
+        }
+
+        int newId = this.names.size();
+        this.names.add(name);
+        this.ids.put(name, newId);
+        return newId;
+    }
+
+    public boolean isFull() {
+        return this.names.size() >= MAX_SIZE;
+    }
+
+    public int getSize() {
+        return this.names.size();
+    }
+
+    public NameDictionary copy() {
+        NameDictionary dictionary = new NameDictionary();
+        dictionary.names.addAll(this.names);
+        dictionary.ids.putAll(this.ids);
+        return dictionary;
+    }
+
+    public void toBuffer(ByteBuf buf) {
+        NetUtil.writeVarIntToBuffer(this.names.size(), buf);
+        for (ResourceName name : this.names) {
+            NetUtil.writeStringToBuffer(name.toString(), buf);
+        }
+    }
+
+    public void fromBuffer(ByteBuf buf) {
+        this.names.clear();
+        this.ids.clear();
+
+        int amount = NetUtil.readVarIntFromBuffer(buf);
+        Preconditions.checkArgument(amount <= MAX_SIZE, "Received a name dictionary with %s entries, which is more than the maximum of %s", amount, MAX_SIZE);
+        for (int i = 0; i < amount; i++) {
+            this.add(ResourceName.of(NetUtil.readStringFromBuffer(buf)));
+        }
+    }
+}
@@ -0,0 +1,244 @@
+/*
+ * This file ("NetCodec.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/RockBottomGame/>.
+ * View information on the project at <https://rockbottom.ellpeck.de/>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * © 2018 Ellpeck
+ */
+
+package de.ellpeck.rockbottom.api.net;
+
+import de.ellpeck.rockbottom.api.net.packet.IPacket;
+import de.ellpeck.rockbottom.api.util.ApiInternal;
+import de.ellpeck.rockbottom.api.util.reg.ResourceName;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.util.Attribute;
+import io.netty.util.AttributeKey;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps track of which wire format is used for every connection. By default,
+ * connections use the original format with fixed size numbers and two bytes per
+ * character. If both sides support it, which they tell each other when joining
+ * using {@link #COMPACT_VERSION}, they switch to the compact format, in which
+ * {@link NetUtil} writes ints and longs as zigzag varints and strings as UTF-8
+ * with a varint length. Additionally, once a {@link NameDictionary} has been
+ * established for a connection, resource names are sent as ids.
+ * <p>
+ * As {@link IPacket#toBuffer(io.netty.buffer.ByteBuf)} doesn't know which
+ * connection it is writing for, the game calls {@link #enter(Channel)} before
+ * and {@link #exit()} after writing or reading each packet, which makes the
+ * connection's format available through {@link #isCompact()} on the current
+ * thread.
+ * <p>
+ * Names that are announced while a packet is being written are only added to
+ * the connection's outgoing dictionary once {@link #commitNames()} is called
+ * after the packet has been written successfully. If writing fails or the
+ * written buffer is discarded, {@link #exit()} drops them again, so the sender
+ * never uses an id that the receiver hasn't seen announced. {@link
+ * #encode(Channel, IPacket, ByteBuf)} does all of this for a single packet.
+ */
+public final class NetCodec {
+
+    /**
+     * The version of the compact format that this API supports. A version of 0
+     * means that the compact format is not supported.
+     */
+    public static final int COMPACT_VERSION = 1;
+
+    private static final State DEFAULT_STATE = new State();
+    private static final AttributeKey<State> STATE_KEY = AttributeKey.valueOf("rockbottom_net_codec");
+    private static final ThreadLocal<State> CURRENT = ThreadLocal.withInitial(() -> DEFAULT_STATE);
+    private static final ThreadLocal<List<ResourceName>> PENDING_NAMES = ThreadLocal.withInitial(ArrayList::new);
+
+    /**
+     * Returns if the connection whose packet is currently being written or
+     * read on this thread uses the compact format
+     *
+     * @return If the compact format is used
+     */
+    public static boolean isCompact() {
+        return CURRENT.get().compact;
+    }
+
+    public static boolean isCompact(Channel channel) {
+        return getState(channel).compact;
+    }
+
+    /**
+     * Returns the dictionary that names written for the connection whose
+     * packet is currently being written on this thread are looked up and added
+     * in
+     *
+     * @return The dictionary, or null if none has been established
+     */
+    public static NameDictionary getOutgoingNames() {
+        return CURRENT.get().outgoingNames;
+    }
+
+    /**
+     * Returns the dictionary that names read from the connection whose packet
+     * is currently being read on this thread are looked up and added in
+     *
+     * @return The dictionary, or null if none has been established
+     */
+    public static NameDictionary getIncomingNames() {
+        return CURRENT.get().incomingNames;
+    }
+
+    /**
+     * Sets the format of the given connection. This should be called once
+     * both sides have agreed on the format while joining, and before any other
+     * packets are sent.
+     *
+     * @param channel      The connection
+     * @param otherVersion The {@link #COMPACT_VERSION} that the other side
+     *                     supports
+     */
+    @ApiInternal
+    public static void negotiate(Channel channel, int otherVersion) {
+        getOrCreateState(channel).compact = otherVersion == COMPACT_VERSION;
+    }
+
+    /**
+     * Establishes the name dictionary of the given connection. This should be
+     * called by both sides once the dictionary has been sent while joining.
+     * As each side keeps track of the names that it has announced itself, both
+     * directions get their own copy of the dictionary.
+     *
+     * @param channel    The connection
+     * @param dictionary The dictionary
+     */
+    @ApiInternal
+    public static void establishNames(Channel channel, NameDictionary dictionary) {
+        State state = getOrCreateState(channel);
+        state.outgoingNames = dictionary.copy();
+        state.incomingNames = dictionary.copy();
+    }
+
+    /**
+     * Returns the id that the given name is written with for the connection
+     * whose packet is currently being written on this thread. This includes
+     * names that have been announced earlier in the same packet but that
+     * haven't been committed yet.
+     *
+     * @param name The name
+     * @return The id, or -1 if the name has to be announced
+     */
+    static int getOutgoingId(ResourceName name) {
+        NameDictionary names = getOutgoingNames();
+        int id = names.getId(name);
+        if (id >= 0) {
+            return id;
+        }
+
+        int index = PENDING_NAMES.get().indexOf(name);
+        return index >= 0 ? names.getSize() + index : -1;
+    }
+
+    /**
+     * Remembers a name that has just been announced in the packet that is
+     * currently being written on this thread, so that it is added to the
+     * outgoing dictionary when {@link #commitNames()} is called.
+     *
+     * @param name The name
+     */
+    static void addPendingName(ResourceName name) {
+        List<ResourceName> pending = PENDING_NAMES.get();
+        if (getOutgoingNames().getSize() + pending.size() < NameDictionary.MAX_SIZE) {
+            pending.add(name);
+        }
+    }
+
+    /**
+     * Writes the given packet for the given connection, committing any names
+     * that it announced only if it was written without an exception.
+     *
+     * @param channel The connection
+     * @param packet  The packet
+     * @param buf     The buffer to write to
+     */
+    @ApiInternal
+    public static void encode(Channel channel, IPacket packet, ByteBuf buf) {
+        enter(channel);
+        try {
+            packet.toBuffer(buf);
+            commitNames();
+        } finally {
+            exit();
+        }
+    }
+
+    @ApiInternal
+    public static void enter(Channel channel) {
+        CURRENT.set(getState(channel));
+        PENDING_NAMES.get().clear();
+    }
+
+    /**
+     * Adds all of the names that have been announced since {@link
+     * #enter(Channel)} to the outgoing dictionary of the current connection.
+     * This needs to be called once the packet that announced them has been
+     * written successfully and will be sent.
+     */
+    @ApiInternal
+    public static void commitNames() {
+        List<ResourceName> pending = PENDING_NAMES.get();
+        if (!pending.isEmpty()) {
+            NameDictionary names = getOutgoingNames();
+            for (ResourceName name : pending) {
+                names.add(name);
+            }
+            pending.clear();
+        }
+    }
+
+    /**
+     * Stops writing or reading for the current connection. Names that have
+     * been announced but not committed using {@link #commitNames()} are
+     * discarded.
+     */
+    @ApiInternal
+    public static void exit() {
+        CURRENT.set(DEFAULT_STATE);
+        PENDING_NAMES.get().clear();
+    }
+
+    private static State getState(Channel channel) {
+        State state = channel.attr(STATE_KEY).get();
+        return state != null ? state : DEFAULT_STATE;
+    }
+
+    private static State getOrCreateState(Channel channel) {
+        Attribute<State> attribute = channel.attr(STATE_KEY);
+        State state = attribute.get();
+        if (state == null) {
+            state = new State();
+            attribute.set(state);
+        }
+        return state;
+    }
+
+    private static final class State {
+
+        private boolean compact;
+        private NameDictionary outgoingNames;
+        private NameDictionary incomingNames;
+    }
+}
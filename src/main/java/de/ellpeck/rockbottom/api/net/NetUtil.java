@@ -21,6 +21,7 @@
 
 package de.ellpeck.rockbottom.api.net;
 
+import com.google.common.base.Preconditions;
 import de.ellpeck.rockbottom.api.RockBottomAPI;
 import de.ellpeck.rockbottom.api.data.set.AbstractDataSet;
 import de.ellpeck.rockbottom.api.util.reg.ResourceName;
@@ -28,6 +29,7 @@ import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufInputStream;
 import io.netty.buffer.ByteBufOutputStream;
 
+import java.nio.charset.StandardCharsets;
 import java.util.UUID;
 import java.util.logging.Level;
 
@@ -35,7 +37,7 @@ public final class NetUtil {
 
     public static void writeSetToBuffer(AbstractDataSet set, ByteBuf buf) {
         try {
-            RockBottomAPI.getApiHandler().writeDataSet(new ByteBufOutputStream(buf), set);
+            RockBottomAPI.getApiHandler().writeDataSet(NetCodec.isCompact() ? new CompactDataOutput(buf) : new ByteBufOutputStream(buf), set);
         } catch (Exception e) {
             RockBottomAPI.logger().log(Level.SEVERE, "Couldn't write data set to buffer", e);
         }
@@ -43,36 +45,155 @@ public final class NetUtil {
 
     public static void readSetFromBuffer(AbstractDataSet set, ByteBuf buf) {
         try {
-            RockBottomAPI.getApiHandler().readDataSet(new ByteBufInputStream(buf), set);
+            RockBottomAPI.getApiHandler().readDataSet(NetCodec.isCompact() ? new CompactDataInput(buf) : new ByteBufInputStream(buf), set);
         } catch (Exception e) {
             RockBottomAPI.logger().log(Level.SEVERE, "Couldn't read data set from buffer", e);
         }
     }
 
     public static void writeStringToBuffer(String s, ByteBuf buf) {
-        buf.writeInt(s.length());
+        if (NetCodec.isCompact()) {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            writeVarIntToBuffer(bytes.length, buf);
+            buf.writeBytes(bytes);
+        } else {
+            buf.writeInt(s.length());
 
-        for (char c : s.toCharArray()) {
-            buf.writeChar(c);
+            for (int i = 0; i < s.length(); i++) {
+                buf.writeChar(s.charAt(i));
+            }
         }
     }
 
     public static String readStringFromBuffer(ByteBuf buf) {
-        char[] chars = new char[buf.readInt()];
+        if (NetCodec.isCompact()) {
+            byte[] bytes = new byte[readVarIntFromBuffer(buf)];
+            buf.readBytes(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        } else {
+            char[] chars = new char[buf.readInt()];
 
-        for (int i = 0; i < chars.length; i++) {
-            chars[i] = buf.readChar();
+            for (int i = 0; i < chars.length; i++) {
+                chars[i] = buf.readChar();
+            }
+
+            return new String(chars);
+        }
+    }
+
+    /**
+     * Writes an int that is treated as unsigned using between one and five
+     * bytes, where smaller numbers take up less space. For numbers that can be
+     * negative, use {@link #zigZag(int)} first.
+     *
+     * @param i   The int to write
+     * @param buf The buffer to write to
+     */
+    public static void writeVarIntToBuffer(int i, ByteBuf buf) {
+        while ((i & ~0x7F) != 0) {
+            buf.writeByte(i & 0x7F | 0x80);
+            i >>>= 7;
+        }
+        buf.writeByte(i);
+    }
+
+    public static int readVarIntFromBuffer(ByteBuf buf) {
+        int result = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = buf.readByte();
+            result |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return result;
+            }
+        }
+        throw new IllegalArgumentException("Varint is longer than five bytes");
+    }
+
+    public static void writeVarLongToBuffer(long l, ByteBuf buf) {
+        while ((l & ~0x7FL) != 0) {
+            buf.writeByte((int) l & 0x7F | 0x80);
+            l >>>= 7;
+        }
+        buf.writeByte((int) l);
+    }
+
+    public static long readVarLongFromBuffer(ByteBuf buf) {
+        long result = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            byte b = buf.readByte();
+            result |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return result;
+            }
         }
+        throw new IllegalArgumentException("Varlong is longer than ten bytes");
+    }
+
+    /**
+     * Maps signed ints to unsigned ones so that numbers with a small absolute
+     * value stay small when written using {@link #writeVarIntToBuffer(int,
+     * ByteBuf)}: 0 becomes 0, -1 becomes 1, 1 becomes 2 and so on.
+     *
+     * @param i The int
+     * @return The zigzag encoded int
+     */
+    public static int zigZag(int i) {
+        return i << 1 ^ i >> 31;
+    }
+
+    public static int unZigZag(int i) {
+        return i >>> 1 ^ -(i & 1);
+    }
 
-        return new String(chars);
+    public static long zigZag(long l) {
+        return l << 1 ^ l >> 63;
     }
 
+    public static long unZigZag(long l) {
+        return l >>> 1 ^ -(l & 1);
+    }
+
+    /**
+     * Writes a resource name to the given buffer. If a {@link NameDictionary}
+     * has been established for the current connection, this only writes the
+     * name's id, or, if the name isn't part of the dictionary yet, the name
+     * itself along with an announcement that adds it to the dictionary once
+     * the packet has been written.
+     *
+     * @param name The name to write
+     * @param buf  The buffer to write to
+     * @see NetCodec#establishNames(io.netty.channel.Channel, NameDictionary)
+     * @see NetCodec#commitNames()
+     */
     public static void writeResToBuffer(ResourceName name, ByteBuf buf) {
+        if (NetCodec.getOutgoingNames() != null) {
+            int id = NetCodec.getOutgoingId(name);
+            if (id >= 0) {
+                writeVarIntToBuffer(id + 1, buf);
+                return;
+            }
+
+            writeVarIntToBuffer(0, buf);
+            NetCodec.addPendingName(name);
+        }
         writeStringToBuffer(name.toString(), buf);
     }
 
     public static ResourceName readResFromBuffer(ByteBuf buf) {
-        return new ResourceName(readStringFromBuffer(buf));
+        NameDictionary names = NetCodec.getIncomingNames();
+        if (names != null) {
+            int id = readVarIntFromBuffer(buf);
+            if (id > 0) {
+                ResourceName name = names.get(id - 1);
+                Preconditions.checkArgument(name != null, "Received unknown resource name id %s", id - 1);
+                return name;
+            }
+
+            ResourceName name = ResourceName.of(readStringFromBuffer(buf));
+            names.add(name);
+            return name;
+        }
+        return ResourceName.of(readStringFromBuffer(buf));
     }
 
     public static void writeUUIDToBuffer(ByteBuf buf, UUID uuid) {
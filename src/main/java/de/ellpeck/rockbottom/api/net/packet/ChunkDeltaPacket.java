@@ -0,0 +1,229 @@
+/*
+ * This file ("ChunkDeltaPacket.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/RockBottomGame/>.
+ * View information on the project at <https://rockbottom.ellpeck.de/>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * © 2018 Ellpeck
+ */
+
+package de.ellpeck.rockbottom.api.net.packet;
+
+import com.google.common.base.Preconditions;
+import de.ellpeck.rockbottom.api.Constants;
+import de.ellpeck.rockbottom.api.IGameInstance;
+import de.ellpeck.rockbottom.api.Registries;
+import de.ellpeck.rockbottom.api.net.NetUtil;
+import de.ellpeck.rockbottom.api.tile.state.TileState;
+import de.ellpeck.rockbottom.api.util.ApiInternal;
+import de.ellpeck.rockbottom.api.util.reg.ResourceName;
+import de.ellpeck.rockbottom.api.world.IChunk;
+import de.ellpeck.rockbottom.api.world.IWorld;
+import de.ellpeck.rockbottom.api.world.layer.TileLayer;
+import de.ellpeck.rockbottom.api.world.storage.DirtyTileTracker;
+import de.ellpeck.rockbottom.api.world.storage.ITileStorageView;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A packet that contains only the positions of a chunk that changed since the
+ * last time it was synchronized, as recorded by its {@link DirtyTileTracker}.
+ * Every layer's changes are written with their own small palette of state ids
+ * so that each changed position only takes up three or four bytes.
+ * <p>
+ * The packet is registered into {@link Registries#PACKET_REGISTRY} under
+ * {@link #NAME} by {@link #register()}, which the game calls after
+ * registering its own packets. The changes are applied on the game thread.
+ */
+public final class ChunkDeltaPacket implements IPacket {
+
+    public static final ResourceName NAME = ResourceName.intern("chunk_delta");
+    public static final IFactory FACTORY = ChunkDeltaPacket::new;
+
+    private final List<LayerDelta> layers = new ArrayList<>();
+    private int gridX;
+    private int gridY;
+
+    public ChunkDeltaPacket(IChunk chunk, DirtyTileTracker tracker) {
+        this.gridX = chunk.getGridX();
+        this.gridY = chunk.getGridY();
+
+        IWorld world = chunk.getWorld();
+        int[] indices = new int[ITileStorageView.SIZE];
+        for (TileLayer layer : TileLayer.getAllLayers()) {
+            int amount = tracker.copyDirtyIndices(layer, indices);
+            if (amount > 0) {
+                LayerDelta delta = new LayerDelta(layer.getName(), amount);
+                List<TileState> palette = new ArrayList<>();
+                for (int i = 0; i < amount; i++) {
+                    int index = indices[i];
+                    TileState state = chunk.getStateInner(layer, index / Constants.CHUNK_SIZE, index % Constants.CHUNK_SIZE);
+
+                    int paletteIndex = -1;
+                    for (int p = 0; p < palette.size(); p++) {
+                        if (palette.get(p) == state) {
+                            paletteIndex = p;
+                            break;
+                        }
+                    }
+                    if (paletteIndex < 0) {
+                        paletteIndex = palette.size();
+                        palette.add(state);
+                    }
+
+                    delta.indices[i] = (short) index;
+                    delta.paletteIndices[i] = (short) paletteIndex;
+                }
+
+                delta.palette = new int[palette.size()];
+                for (int p = 0; p < delta.palette.length; p++) {
+                    delta.palette[p] = world.getIdForState(palette.get(p));
+                }
+                this.layers.add(delta);
+            }
+        }
+    }
+
+    private ChunkDeltaPacket() {
+    }
+
+    /**
+     * Registers this packet into {@link Registries#PACKET_REGISTRY}. This is
+     * called by the game once its own packets are registered, so that their
+     * ids stay the same, and should not be called by mods.
+     */
+    @ApiInternal
+    public static void register() {
+        Registries.PACKET_REGISTRY.registerNextFree(NAME, FACTORY);
+    }
+
+    @Override
+    public void toBuffer(ByteBuf buf) {
+        buf.writeInt(this.gridX);
+        buf.writeInt(this.gridY);
+        buf.writeByte(this.layers.size());
+
+        for (LayerDelta delta : this.layers) {
+            NetUtil.writeResToBuffer(delta.layerName, buf);
+
+            buf.writeShort(delta.palette.length);
+            for (int id : delta.palette) {
+                buf.writeInt(id);
+            }
+
+            boolean bytePalette = delta.palette.length <= 256;
+            buf.writeShort(delta.indices.length);
+            for (int i = 0; i < delta.indices.length; i++) {
+                buf.writeShort(delta.indices[i]);
+                if (bytePalette) {
+                    buf.writeByte(delta.paletteIndices[i]);
+                } else {
+                    buf.writeShort(delta.paletteIndices[i]);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void fromBuffer(ByteBuf buf) {
+        this.gridX = buf.readInt();
+        this.gridY = buf.readInt();
+
+        int layerAmount = buf.readUnsignedByte();
+        for (int l = 0; l < layerAmount; l++) {
+            ResourceName layerName = NetUtil.readResFromBuffer(buf);
+
+            int[] palette = new int[buf.readUnsignedShort()];
+            for (int p = 0; p < palette.length; p++) {
+                palette[p] = buf.readInt();
+            }
+
+            boolean bytePalette = palette.length <= 256;
+            int amount = buf.readUnsignedShort();
+            Preconditions.checkArgument(amount <= ITileStorageView.SIZE, "Chunk delta contains more changes than a chunk has positions");
+
+            LayerDelta delta = new LayerDelta(layerName, amount);
+            delta.palette = palette;
+            for (int i = 0; i < amount; i++) {
+                delta.indices[i] = buf.readShort();
+                delta.paletteIndices[i] = bytePalette ? (short) buf.readUnsignedByte() : buf.readShort();
+            }
+            this.layers.add(delta);
+        }
+    }
+
+    @Override
+    public void handle(IGameInstance game, ChannelHandlerContext context) {
+        game.enqueueAction((inst, packet) -> packet.apply(inst), this);
+    }
+
+    private void apply(IGameInstance game) {
+        IWorld world = game.getWorld();
+        if (world != null && world.isChunkLoaded(this.gridX, this.gridY)) {
+            IChunk chunk = world.getChunkFromGridCoords(this.gridX, this.gridY);
+
+            for (LayerDelta delta : this.layers) {
+                TileLayer layer = Registries.TILE_LAYER_REGISTRY.get(delta.layerName);
+                if (layer != null) {
+                    TileState[] states = new TileState[delta.palette.length];
+                    for (int p = 0; p < states.length; p++) {
+                        states[p] = world.getStateForId(delta.palette[p]);
+                    }
+
+                    for (int i = 0; i < delta.indices.length; i++) {
+                        int index = delta.indices[i] & 0xFFFF;
+                        int paletteIndex = delta.paletteIndices[i] & 0xFFFF;
+                        if (index < ITileStorageView.SIZE && paletteIndex < states.length) {
+                            TileState state = states[paletteIndex];
+                            if (state != null) {
+                                chunk.setStateInner(layer, index / Constants.CHUNK_SIZE, index % Constants.CHUNK_SIZE, state);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public ResourceName getName() {
+        return NAME;
+    }
+
+    public int getGridX() {
+        return this.gridX;
+    }
+
+    public int getGridY() {
+        return this.gridY;
+    }
+
+    private static final class LayerDelta {
+
+        private final ResourceName layerName;
+        private final short[] indices;
+        private final short[] paletteIndices;
+        private int[] palette;
+
+        private LayerDelta(ResourceName layerName, int amount) {
+            this.layerName = layerName;
+            this.indices = new short[amount];
+            this.paletteIndices = new short[amount];
+        }
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * This file ("ChunkLightCache.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/RockBottomGame/>.
+ * View information on the project at <https://rockbottom.ellpeck.de/>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * © 2018 Ellpeck
+ */
+
+package de.ellpeck.rockbottom.api.render;
+
+import de.ellpeck.rockbottom.api.Constants;
+import de.ellpeck.rockbottom.api.IApiHandler;
+import de.ellpeck.rockbottom.api.RockBottomAPI;
+import de.ellpeck.rockbottom.api.world.IChunk;
+import de.ellpeck.rockbottom.api.world.IWorld;
+import de.ellpeck.rockbottom.api.world.layer.TileLayer;
+
+import java.util.List;
+
+/**
+ * Caches the interpolated corner colors of every tile in a chunk, so that
+ * tile renderers don't have to call {@link IApiHandler#interpolateLight(IWorld,
+ * int, int)} and {@link IApiHandler#interpolateWorldColor(int[], TileLayer)}
+ * for every tile on every layer every frame. The colors are stored in one
+ * packed int array per distinct {@link TileLayer#getRenderLightModifier()},
+ * so layers that share a modifier also share their colors.
+ * <p>
+ * The cache is rebuilt by {@link #update(IWorld)} only if it has been {@link
+ * #invalidate()}d, which happens when the light of the chunk or of the border
+ * of one of its neighbors changes, or if the world's {@link
+ * IWorld#getSkylightModifier(boolean)} has moved to a different one of
+ * {@link #SKYLIGHT_STEPS} steps since it was last built. Since the modifier
+ * changes a little bit every tick as the day goes by, only rebuilding once it
+ * has changed noticeably keeps the cache and every {@link ChunkMesh} that is
+ * built from it from being rebuilt every tick.
+ */
+public class ChunkLightCache {
+
+    /**
+     * The amount of steps that the skylight modifier, which goes from 0 to 1,
+     * is divided into. The cache is only rebuilt when the modifier moves into
+     * a different step.
+     */
+    public static final int SKYLIGHT_STEPS = 32;
+
+    private static final int CORNERS = 4;
+    private static final int SIZE = Constants.CHUNK_SIZE * Constants.CHUNK_SIZE * CORNERS;
+
+    private final IChunk chunk;
+    private final int[] light = new int[SIZE];
+    private int[][] colorsPerLayer;
+    private int builtSkylightStep = Integer.MIN_VALUE;
+    private boolean dirty = true;
+    private int version;
+
+    public ChunkLightCache(IChunk chunk) {
+        this.chunk = chunk;
+    }
+
+    /**
+     * Marks this cache as needing to be rebuilt on the next {@link
+     * #update(IWorld)}
+     */
+    public void invalidate() {
+        this.dirty = true;
+    }
+
+    public boolean isDirty() {
+        return this.dirty;
+    }
+
+    /**
+     * Returns a number that changes every time this cache is rebuilt, which
+     * can be used to find out if the light has changed since it was last
+     * looked at without having to be the one that calls {@link
+     * #update(IWorld)}.
+     *
+     * @return The version of the cached light
+     */
+    public int getVersion() {
+        return this.version;
+    }
+
+    /**
+     * Rebuilds this cache if it is dirty or if the world's skylight modifier
+     * has moved to a different step. This should be called once per frame
+     * before any of the chunk's tiles are rendered.
+     *
+     * @param world The world
+     * @return If the cache was rebuilt
+     */
+    public boolean update(IWorld world) {
+        int step = Math.round(world.getSkylightModifier(true) * SKYLIGHT_STEPS);
+        if (this.dirty || step != this.builtSkylightStep) {
+            this.rebuild(world);
+            this.builtSkylightStep = step;
+            this.dirty = false;
+            this.version++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Copies the four corner colors of the given position into the given
+     * array, in the same order as {@link IApiHandler#interpolateWorldColor(int[],
+     * TileLayer)} returns them. The array can be reused for every tile, so
+     * rendering doesn't need to allocate.
+     *
+     * @param layer The layer
+     * @param x     The x coordinate inside the chunk
+     * @param y     The y coordinate inside the chunk
+     * @param out   The array of at least length four to copy the colors into
+     * @return The given array
+     */
+    public int[] getColors(TileLayer layer, int x, int y, int[] out) {
+        System.arraycopy(this.colorsPerLayer[layer.index()], getIndex(x, y), out, 0, CORNERS);
+        return out;
+    }
+
+    /**
+     * Copies the corner colors of all of the positions of the given layer into
+     * the given array, four per position, with the position (x, y) starting at
+     * {@code (x * CHUNK_SIZE + y) * 4}. This is used to take a snapshot of the
+     * colors that can be read on another thread.
+     *
+     * @param layer The layer
+     * @param out   The array of at least length {@code CHUNK_SIZE * CHUNK_SIZE
+     *              * 4} to copy the colors into
+     * @return The given array
+     */
+    public int[] copyColors(TileLayer layer, int[] out) {
+        System.arraycopy(this.colorsPerLayer[layer.index()], 0, out, 0, SIZE);
+        return out;
+    }
+
+    /**
+     * Returns the color of a single corner of the given position
+     *
+     * @param layer  The layer
+     * @param x      The x coordinate inside the chunk
+     * @param y      The y coordinate inside the chunk
+     * @param corner The corner, between 0 and 3
+     * @return The color
+     */
+    public int getColor(TileLayer layer, int x, int y, int corner) {
+        return this.colorsPerLayer[layer.index()][getIndex(x, y) + corner];
+    }
+
+    /**
+     * Copies the four interpolated light values of the given position into the
+     * given array, in the same order as {@link IApiHandler#interpolateLight(IWorld,
+     * int, int)} returns them.
+     *
+     * @param x   The x coordinate inside the chunk
+     * @param y   The y coordinate inside the chunk
+     * @param out The array of at least length four to copy the light into
+     * @return The given array
+     */
+    public int[] getLight(int x, int y, int[] out) {
+        System.arraycopy(this.light, getIndex(x, y), out, 0, CORNERS);
+        return out;
+    }
+
+    private void rebuild(IWorld world) {
+        IApiHandler api = RockBottomAPI.getApiHandler();
+        int startX = this.chunk.getX();
+        int startY = this.chunk.getY();
+        for (int x = 0; x < Constants.CHUNK_SIZE; x++) {
+            for (int y = 0; y < Constants.CHUNK_SIZE; y++) {
+                int[] interpolated = api.interpolateLight(world, startX + x, startY + y);
+                System.arraycopy(interpolated, 0, this.light, getIndex(x, y), CORNERS);
+            }
+        }
+
+        List<TileLayer> layers = TileLayer.getAllLayers();
+        if (this.colorsPerLayer == null || this.colorsPerLayer.length != layers.size()) {
+            this.colorsPerLayer = new int[layers.size()][];
+        }
+
+        int[] cornerLight = new int[CORNERS];
+        for (int i = 0; i < layers.size(); i++) {
+            TileLayer layer = layers.get(i);
+
+            int[] shared = null;
+            for (int j = 0; j < i; j++) {
+                if (Float.compare(layers.get(j).getRenderLightModifier(), layer.getRenderLightModifier()) == 0) {
+                    shared = this.colorsPerLayer[j];
+                    break;
+                }
+            }
+            if (shared != null) {
+                this.colorsPerLayer[i] = shared;
+                continue;
+            }
+
+            int[] colors = this.colorsPerLayer[i];
+            if (colors == null || this.isShared(colors, i)) {
+                colors = new int[SIZE];
+                this.colorsPerLayer[i] = colors;
+            }
+            for (int index = 0; index < SIZE; index += CORNERS) {
+                System.arraycopy(this.light, index, cornerLight, 0, CORNERS);
+                System.arraycopy(api.interpolateWorldColor(cornerLight, layer), 0, colors, index, CORNERS);
+            }
+        }
+    }
+
+    private boolean isShared(int[] colors, int layerIndex) {
+        for (int j = 0; j < layerIndex; j++) {
+            if (this.colorsPerLayer[j] == colors) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int getIndex(int x, int y) {
+        return (x * Constants.CHUNK_SIZE + y) * CORNERS;
+    }
+}
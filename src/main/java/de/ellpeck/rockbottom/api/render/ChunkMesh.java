@@ -0,0 +1,469 @@
+/*
+ * This file ("ChunkMesh.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/RockBottomGame/>.
+ * View information on the project at <https://rockbottom.ellpeck.de/>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * © 2018 Ellpeck
+ */
+
+package de.ellpeck.rockbottom.api.render;
+
+import com.google.common.base.Preconditions;
+import de.ellpeck.rockbottom.api.Constants;
+import de.ellpeck.rockbottom.api.IGameInstance;
+import de.ellpeck.rockbottom.api.IRenderer;
+import de.ellpeck.rockbottom.api.assets.IAssetManager;
+import de.ellpeck.rockbottom.api.render.engine.IDisposable;
+import de.ellpeck.rockbottom.api.render.engine.IVBO;
+import de.ellpeck.rockbottom.api.render.engine.MeshBuffer;
+import de.ellpeck.rockbottom.api.render.tile.ITileRenderer;
+import de.ellpeck.rockbottom.api.tile.Tile;
+import de.ellpeck.rockbottom.api.tile.state.TileState;
+import de.ellpeck.rockbottom.api.world.IChunk;
+import de.ellpeck.rockbottom.api.world.IWorld;
+import de.ellpeck.rockbottom.api.world.layer.TileLayer;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Caches the vertices of all of the tiles of a chunk, one static {@link IVBO}
+ * per {@link TileLayer}, so that static terrain doesn't have to go through
+ * {@link ITileRenderer#render(IGameInstance, IAssetManager, IRenderer, IWorld,
+ * Tile, TileState, int, int, TileLayer, float, float, float, int[])} every
+ * frame. A layer's mesh is rebuilt by {@link #update(IGameInstance,
+ * IAssetManager, IRenderer, IWorld, TileLayer)} only if it has been {@link
+ * #invalidate()}d, which happens when the chunk is {@link IChunk#setDirty()}
+ * or a state in it changes, or if its {@link ChunkLightCache} has been rebuilt
+ * since. The light cache only follows the day and night cycle in {@link
+ * ChunkLightCache#SKYLIGHT_STEPS} steps, so meshes aren't rebuilt every tick
+ * while the sky light slowly changes.
+ * <p>
+ * The mesh is built by calling the tile renderers while a {@link MeshBuffer}
+ * is set as the renderer's {@link IRenderer#setCapture(MeshBuffer)}. Tiles are
+ * rendered with a scale of 1 relative to the chunk's top left corner, so the
+ * tile at the inner position (x, y) is rendered at (x, {@link
+ * Constants#CHUNK_SIZE} - 1 - y), and the game translates and scales the mesh
+ * when drawing it. Tiles whose renderer returns false from {@link
+ * ITileRenderer#isStaticMesh(IGameInstance, IAssetManager, IWorld, Tile,
+ * TileState, int, int, TileLayer)} or that have a {@link
+ * ITileRenderer#getRenderShader(IGameInstance, IAssetManager, IRenderer,
+ * IWorld, Tile, TileState, int, int, TileLayer)} are left out of the mesh and
+ * marked as {@link #isDynamic(TileLayer, int, int)}, so that they can still be
+ * rendered every frame.
+ * <p>
+ * Building a layer is split into three steps so that the vertices can be
+ * generated on a worker thread, as done by the {@link ChunkMeshBuilder}:
+ * {@link #createSnapshot(TileLayer)} copies the chunk's data on the rendering
+ * thread, {@link #build(IGameInstance, IAssetManager, IRenderer, IWorld,
+ * ChunkMeshSnapshot)} generates the vertices into a back buffer on any thread,
+ * and {@link #finishBuild(ChunkMeshSnapshot)} swaps it with the front buffer
+ * on the rendering thread so that it can be {@link #upload(IRenderer,
+ * TileLayer)}ed. The front buffer keeps being drawn while the back buffer is
+ * being built. The second step may only happen on another thread if the
+ * snapshot {@link ChunkMeshSnapshot#isThreadSafe()}, and apart from it, all
+ * methods of this class have to be called on the rendering thread.
+ */
+public class ChunkMesh implements IDisposable {
+
+    private static final int AREA = Constants.CHUNK_SIZE * Constants.CHUNK_SIZE;
+
+    private final IChunk chunk;
+    private final int componentsPerVertex;
+    private LayerMesh[] layers = new LayerMesh[0];
+    private int rebuildAmount;
+    private int uploadAmount;
+
+    public ChunkMesh(IChunk chunk, int componentsPerVertex) {
+        this.chunk = chunk;
+        this.componentsPerVertex = componentsPerVertex;
+    }
+
+    /**
+     * Marks all layers of this mesh as needing to be rebuilt
+     */
+    public void invalidate() {
+        for (LayerMesh mesh : this.layers) {
+            if (mesh != null) {
+                mesh.dirty = true;
+            }
+        }
+    }
+
+    /**
+     * Marks the given layer of this mesh as needing to be rebuilt
+     *
+     * @param layer The layer
+     */
+    public void invalidate(TileLayer layer) {
+        LayerMesh mesh = this.get(layer);
+        if (mesh != null) {
+            mesh.dirty = true;
+        }
+    }
+
+    /**
+     * Returns if the given layer has to be rebuilt, either because it was
+     * invalidated or because the chunk's light has changed since it was
+     * built. Note that the light is only checked against the last {@link
+     * ChunkLightCache#update(IWorld)}, which {@link #update(IGameInstance,
+     * IAssetManager, IRenderer, IWorld, TileLayer)} calls before checking.
+     *
+     * @param layer The layer
+     * @return If the layer needs to be rebuilt
+     */
+    public boolean needsRebuild(TileLayer layer) {
+        LayerMesh mesh = this.get(layer);
+        return mesh == null || mesh.dirty || mesh.lightVersion != this.chunk.getLightCache().getVersion();
+    }
+
+    /**
+     * @param layer The layer
+     * @return If a snapshot of the given layer has been taken that hasn't been
+     * passed to {@link #finishBuild(ChunkMeshSnapshot)} yet
+     */
+    public boolean isBuilding(TileLayer layer) {
+        LayerMesh mesh = this.get(layer);
+        return mesh != null && mesh.building;
+    }
+
+    /**
+     * Rebuilds and uploads the given layer's mesh on the calling thread if it
+     * {@link #needsRebuild(TileLayer)} and isn't already being built in the
+     * background.
+     *
+     * @param game     The game instance
+     * @param manager  The asset manager
+     * @param renderer The renderer
+     * @param world    The world
+     * @param layer    The layer
+     * @return If the mesh was rebuilt
+     */
+    public boolean update(IGameInstance game, IAssetManager manager, IRenderer renderer, IWorld world, TileLayer layer) {
+        this.chunk.getLightCache().update(world);
+        if (!this.isBuilding(layer) && this.needsRebuild(layer)) {
+            this.build(game, manager, renderer, world, layer);
+            this.upload(renderer, layer);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Builds the CPU-side vertices of the given layer on the calling thread
+     * without uploading them. The chunk's {@link ChunkLightCache} has to be up
+     * to date when this is called.
+     *
+     * @param game     The game instance
+     * @param manager  The asset manager
+     * @param renderer The renderer whose capture to use
+     * @param world    The world
+     * @param layer    The layer
+     */
+    public void build(IGameInstance game, IAssetManager manager, IRenderer renderer, IWorld world, TileLayer layer) {
+        ChunkMeshSnapshot snapshot = this.createSnapshot(layer);
+        try {
+            this.build(game, manager, renderer, world, snapshot);
+        } finally {
+            this.finishBuild(snapshot);
+        }
+    }
+
+    /**
+     * Copies the states and corner colors of the given layer, so that its
+     * vertices can be built on another thread. The chunk's {@link
+     * ChunkLightCache} has to be up to date when this is called, and the
+     * layer can't already be {@link #isBuilding(TileLayer)}. Taking a snapshot
+     * clears the layer's dirty state, so changes made to the chunk after this
+     * call will cause another rebuild.
+     *
+     * @param layer The layer
+     * @return The snapshot
+     */
+    public ChunkMeshSnapshot createSnapshot(TileLayer layer) {
+        LayerMesh mesh = this.getOrCreate(layer);
+        Preconditions.checkState(!mesh.building, "Layer %s of the mesh of chunk at %s, %s is already being built", layer, this.chunk.getGridX(), this.chunk.getGridY());
+
+        TileState[] states = new TileState[AREA];
+        boolean threadSafe = true;
+        for (int x = 0; x < Constants.CHUNK_SIZE; x++) {
+            for (int y = 0; y < Constants.CHUNK_SIZE; y++) {
+                TileState state = this.chunk.getStateInner(layer, x, y);
+                states[getIndex(x, y)] = state;
+
+                if (threadSafe && !state.getTile().isAir()) {
+                    ITileRenderer renderer = state.getTile().getRenderer();
+                    if (renderer != null && !renderer.isMeshThreadSafe()) {
+                        threadSafe = false;
+                    }
+                }
+            }
+        }
+
+        ChunkLightCache lightCache = this.chunk.getLightCache();
+        int[] colors = lightCache.copyColors(layer, new int[AREA * 4]);
+
+        mesh.building = true;
+        mesh.dirty = false;
+        mesh.lightVersion = lightCache.getVersion();
+        return new ChunkMeshSnapshot(this, layer, this.chunk.getX(), this.chunk.getY(), states, colors, threadSafe, mesh.back, mesh.backDynamic);
+    }
+
+    /**
+     * Builds the vertices of the given snapshot into the back buffer of its
+     * layer and prepares them for uploading. This can be called on any thread
+     * if the snapshot {@link ChunkMeshSnapshot#isThreadSafe()}, and has to be
+     * called on the rendering thread otherwise, since the tile renderers are
+     * called on the same thread and are given the live world.
+     *
+     * @param game     The game instance
+     * @param manager  The asset manager
+     * @param renderer The renderer whose capture to use, which is local to
+     *                 the calling thread
+     * @param world    The world
+     * @param snapshot The snapshot
+     */
+    public void build(IGameInstance game, IAssetManager manager, IRenderer renderer, IWorld world, ChunkMeshSnapshot snapshot) {
+        MeshBuffer buffer = snapshot.target;
+        BitSet dynamic = snapshot.dynamic;
+        buffer.clear();
+        dynamic.clear();
+
+        TileLayer layer = snapshot.getLayer();
+        int[] light = new int[4];
+
+        MeshBuffer previous = renderer.getCapture();
+        renderer.setCapture(buffer);
+        try {
+            for (int x = 0; x < Constants.CHUNK_SIZE; x++) {
+                for (int y = 0; y < Constants.CHUNK_SIZE; y++) {
+                    TileState state = snapshot.getState(x, y);
+                    Tile tile = state.getTile();
+                    if (tile.isAir()) {
+                        continue;
+                    }
+
+                    ITileRenderer tileRenderer = tile.getRenderer();
+                    if (tileRenderer == null) {
+                        continue;
+                    }
+
+                    int worldX = snapshot.getStartX() + x;
+                    int worldY = snapshot.getStartY() + y;
+                    if (tileRenderer.getRenderShader(game, manager, renderer, world, tile, state, worldX, worldY, layer) != null || !tileRenderer.isStaticMesh(game, manager, world, tile, state, worldX, worldY, layer)) {
+                        dynamic.set(getIndex(x, y));
+                        continue;
+                    }
+
+                    tileRenderer.render(game, manager, renderer, world, tile, state, worldX, worldY, layer, x, Constants.CHUNK_SIZE - 1 - y, 1F, snapshot.getColors(x, y, light));
+                }
+            }
+            buffer.prepareUpload();
+        } catch (RuntimeException | Error e) {
+            snapshot.failed = true;
+            throw e;
+        } finally {
+            renderer.setCapture(previous);
+        }
+    }
+
+    /**
+     * Finishes building the layer of the given snapshot by swapping its back
+     * buffer with its front buffer, unless building failed or the mesh has
+     * been {@link #dispose()}d in the meantime. If building failed, the layer
+     * is {@link #invalidate(TileLayer)}d so that it is built again.
+     *
+     * @param snapshot The snapshot that has been built
+     * @return If the front buffer was replaced and needs to be uploaded
+     */
+    public boolean finishBuild(ChunkMeshSnapshot snapshot) {
+        LayerMesh mesh = this.get(snapshot.getLayer());
+        if (mesh == null || mesh.back != snapshot.target) {
+            return false;
+        }
+        mesh.building = false;
+
+        if (snapshot.hasFailed()) {
+            mesh.dirty = true;
+            return false;
+        }
+
+        MeshBuffer buffer = mesh.front;
+        mesh.front = mesh.back;
+        mesh.back = buffer;
+
+        BitSet dynamic = mesh.frontDynamic;
+        mesh.frontDynamic = mesh.backDynamic;
+        mesh.backDynamic = dynamic;
+
+        this.rebuildAmount++;
+        return true;
+    }
+
+    /**
+     * Uploads the front buffer of the given layer into its static {@link
+     * IVBO}, creating it if it doesn't exist yet. Empty layers aren't
+     * uploaded, so {@link #getVertexAmount(TileLayer)} should be checked
+     * before drawing.
+     *
+     * @param renderer The renderer
+     * @param layer    The layer
+     */
+    public void upload(IRenderer renderer, TileLayer layer) {
+        LayerMesh mesh = this.get(layer);
+        if (mesh == null || mesh.front.isEmpty()) {
+            return;
+        }
+
+        if (mesh.vbo == null) {
+            mesh.vbo = renderer.createVBO(true);
+        }
+        mesh.vbo.bind();
+        mesh.vbo.data((long) mesh.front.size() * Float.BYTES);
+        mesh.vbo.subData(mesh.front.prepareUpload());
+        mesh.vbo.unbind();
+        this.uploadAmount++;
+    }
+
+    /**
+     * @param layer The layer
+     * @return The static buffer holding the given layer's mesh, or null if it
+     * hasn't been uploaded yet
+     */
+    public IVBO getVBO(TileLayer layer) {
+        LayerMesh mesh = this.get(layer);
+        return mesh != null ? mesh.vbo : null;
+    }
+
+    /**
+     * @param layer The layer
+     * @return The CPU-side vertices of the given layer that are currently
+     * shown, including the texture sections to draw them with, or null if the
+     * layer hasn't been built yet
+     */
+    public MeshBuffer getBuffer(TileLayer layer) {
+        LayerMesh mesh = this.get(layer);
+        return mesh != null ? mesh.front : null;
+    }
+
+    public int getVertexAmount(TileLayer layer) {
+        LayerMesh mesh = this.get(layer);
+        return mesh != null ? mesh.front.getVertexAmount() : 0;
+    }
+
+    /**
+     * Returns if the given position was left out of the mesh of the given
+     * layer and has to be rendered every frame instead
+     *
+     * @param layer The layer
+     * @param x     The x coordinate inside the chunk
+     * @param y     The y coordinate inside the chunk
+     * @return If the position is rendered dynamically
+     */
+    public boolean isDynamic(TileLayer layer, int x, int y) {
+        LayerMesh mesh = this.get(layer);
+        return mesh != null && mesh.frontDynamic.get(getIndex(x, y));
+    }
+
+    /**
+     * Returns the next dynamically rendered position of the given layer,
+     * starting at the given index, which can be used to iterate them all
+     * without checking every position. The index of a position is {@code x *
+     * CHUNK_SIZE + y}.
+     *
+     * @param layer     The layer
+     * @param fromIndex The index to start searching at
+     * @return The index of the next dynamic position, or -1 if there is none
+     */
+    public int nextDynamicIndex(TileLayer layer, int fromIndex) {
+        LayerMesh mesh = this.get(layer);
+        return mesh != null ? mesh.frontDynamic.nextSetBit(fromIndex) : -1;
+    }
+
+    public int getDynamicAmount(TileLayer layer) {
+        LayerMesh mesh = this.get(layer);
+        return mesh != null ? mesh.frontDynamic.cardinality() : 0;
+    }
+
+    /**
+     * @return The amount of times any layer of this mesh has been built
+     */
+    public int getRebuildAmount() {
+        return this.rebuildAmount;
+    }
+
+    /**
+     * @return The amount of times any layer of this mesh has been uploaded
+     */
+    public int getUploadAmount() {
+        return this.uploadAmount;
+    }
+
+    @Override
+    public void dispose() {
+        for (LayerMesh mesh : this.layers) {
+            if (mesh != null && mesh.vbo != null) {
+                mesh.vbo.dispose();
+                mesh.vbo = null;
+            }
+        }
+        this.layers = new LayerMesh[0];
+    }
+
+    private LayerMesh get(TileLayer layer) {
+        int index = layer.index();
+        return index < this.layers.length ? this.layers[index] : null;
+    }
+
+    private LayerMesh getOrCreate(TileLayer layer) {
+        int index = layer.index();
+        if (index >= this.layers.length) {
+            List<TileLayer> all = TileLayer.getAllLayers();
+            Preconditions.checkArgument(index < all.size(), "Layer %s is not registered", layer);
+            LayerMesh[] layers = new LayerMesh[all.size()];
+            System.arraycopy(this.layers, 0, layers, 0, this.layers.length);
+            this.layers = layers;
+        }
+
+        LayerMesh mesh = this.layers[index];
+        if (mesh == null) {
+            mesh = new LayerMesh(this.componentsPerVertex);
+            this.layers[index] = mesh;
+        }
+        return mesh;
+    }
+
+    private static int getIndex(int x, int y) {
+        return x * Constants.CHUNK_SIZE + y;
+    }
+
+    private static class LayerMesh {
+
+        private MeshBuffer front;
+        private MeshBuffer back;
+        private BitSet frontDynamic = new BitSet(AREA);
+        private BitSet backDynamic = new BitSet(AREA);
+        private IVBO vbo;
+        private boolean dirty = true;
+        private boolean building;
+        private int lightVersion;
+
+        private LayerMesh(int componentsPerVertex) {
+            this.front = new MeshBuffer(componentsPerVertex);
+            this.back = new MeshBuffer(componentsPerVertex);
+        }
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * This file ("ChunkMeshBuilder.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/RockBottomGame/>.
+ * View information on the project at <https://rockbottom.ellpeck.de/>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * © 2018 Ellpeck
+ */
+
+package de.ellpeck.rockbottom.api.render;
+
+import de.ellpeck.rockbottom.api.IGameInstance;
+import de.ellpeck.rockbottom.api.IRenderer;
+import de.ellpeck.rockbottom.api.RockBottomAPI;
+import de.ellpeck.rockbottom.api.assets.IAssetManager;
+import de.ellpeck.rockbottom.api.render.engine.IVBO;
+import de.ellpeck.rockbottom.api.render.tile.ITileRenderer;
+import de.ellpeck.rockbottom.api.util.ApiInternal;
+import de.ellpeck.rockbottom.api.world.IChunk;
+import de.ellpeck.rockbottom.api.world.IWorld;
+import de.ellpeck.rockbottom.api.world.layer.TileLayer;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+/**
+ * Builds {@link ChunkMesh}es on a pool of worker threads, so that generating
+ * the vertices of dirty chunks doesn't happen on the rendering thread. For
+ * every layer that is {@link #submit(IWorld, IChunk, TileLayer)}ted, a {@link
+ * ChunkMeshSnapshot} is taken on the rendering thread and the mesh is built
+ * from it in the background, including preparing the buffer to upload. Only
+ * the final {@link IVBO#subData(java.nio.FloatBuffer)} happens on the
+ * rendering thread in {@link #uploadCompleted(long)}, which stops once the
+ * given time budget for the frame is used up. Until then, the chunk keeps
+ * being drawn with its previous mesh.
+ * <p>
+ * Only layers whose snapshot {@link ChunkMeshSnapshot#isThreadSafe()} are
+ * built on the worker threads. Layers that contain a tile whose renderer
+ * isn't {@link ITileRenderer#isMeshThreadSafe()} are built on the rendering
+ * thread during {@link #uploadCompleted(long)} instead, as part of the same
+ * time budget, so that those renderers never read the world while the game
+ * thread changes it. All methods of this class have to be called on the
+ * rendering thread.
+ */
+@ApiInternal
+public final class ChunkMeshBuilder {
+
+    private final IGameInstance game;
+    private final IAssetManager manager;
+    private final IRenderer renderer;
+    private final ExecutorService workers;
+    private final Queue<ChunkMeshSnapshot> completed = new ConcurrentLinkedQueue<>();
+    private final Queue<Runnable> renderThreadBuilds = new ArrayDeque<>();
+    private final AtomicInteger builtAmount = new AtomicInteger();
+    private int pendingAmount;
+    private int uploadedAmount;
+
+    /**
+     * Creates a new builder
+     *
+     * @param game     The game instance
+     * @param manager  The asset manager
+     * @param renderer The renderer whose capture the workers use
+     * @param threads  The amount of worker threads
+     */
+    public ChunkMeshBuilder(IGameInstance game, IAssetManager manager, IRenderer renderer, int threads) {
+        this.game = game;
+        this.manager = manager;
+        this.renderer = renderer;
+
+        AtomicInteger threadId = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "ChunkMeshBuilder-" + threadId.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts building the given layer of the given chunk's mesh in the
+     * background if it needs to be rebuilt and isn't already being built.
+     * This should be called every frame for every visible layer of every
+     * visible chunk, before {@link #uploadCompleted(long)}.
+     *
+     * @param world The world
+     * @param chunk The chunk
+     * @param layer The layer
+     * @return If building was started
+     */
+    public boolean submit(IWorld world, IChunk chunk, TileLayer layer) {
+        ChunkMesh mesh = chunk.getMesh();
+        if (mesh == null) {
+            return false;
+        }
+
+        chunk.getLightCache().update(world);
+        if (mesh.isBuilding(layer) || !mesh.needsRebuild(layer)) {
+            return false;
+        }
+
+        ChunkMeshSnapshot snapshot = mesh.createSnapshot(layer);
+        if (!snapshot.isThreadSafe()) {
+            this.renderThreadBuilds.add(() -> this.build(world, snapshot));
+            this.pendingAmount++;
+            return true;
+        }
+
+        try {
+            this.workers.execute(() -> this.build(world, snapshot));
+        } catch (RejectedExecutionException e) {
+            mesh.finishBuild(snapshot);
+            mesh.invalidate(layer);
+            return false;
+        }
+        this.pendingAmount++;
+        return true;
+    }
+
+    /**
+     * Builds the layers that can't be built on the worker threads, and then
+     * swaps in and uploads the meshes that have finished building, until there
+     * are none left or the given time has passed. At least one mesh is
+     * uploaded if there are any, so that a small budget can't stall building
+     * entirely.
+     *
+     * @param budgetNanos The time that uploading may take this frame, in
+     *                    nanoseconds
+     * @return The amount of meshes that were uploaded
+     */
+    public int uploadCompleted(long budgetNanos) {
+        long start = System.nanoTime();
+        int amount = 0;
+
+        Runnable build;
+        while ((build = this.renderThreadBuilds.poll()) != null) {
+            build.run();
+            if (System.nanoTime() - start >= budgetNanos) {
+                break;
+            }
+        }
+
+        ChunkMeshSnapshot snapshot;
+        while ((snapshot = this.completed.poll()) != null) {
+            this.pendingAmount--;
+
+            ChunkMesh mesh = snapshot.getMesh();
+            if (mesh.finishBuild(snapshot)) {
+                mesh.upload(this.renderer, snapshot.getLayer());
+                amount++;
+            }
+
+            if (System.nanoTime() - start >= budgetNanos) {
+                break;
+            }
+        }
+
+        this.uploadedAmount += amount;
+        return amount;
+    }
+
+    /**
+     * @return The amount of meshes that have been submitted but not uploaded
+     * yet
+     */
+    public int getPendingAmount() {
+        return this.pendingAmount;
+    }
+
+    /**
+     * @return The amount of meshes that are done building and waiting to be
+     * uploaded
+     */
+    public int getCompletedAmount() {
+        return this.completed.size();
+    }
+
+    /**
+     * @return The amount of meshes that have been built, either by the
+     * workers or on the rendering thread
+     */
+    public int getBuiltAmount() {
+        return this.builtAmount.get();
+    }
+
+    /**
+     * @return The amount of meshes that have been uploaded
+     */
+    public int getUploadedAmount() {
+        return this.uploadedAmount;
+    }
+
+    public void shutdown() {
+        this.workers.shutdown();
+        try {
+            if (!this.workers.awaitTermination(10, TimeUnit.SECONDS)) {
+                RockBottomAPI.logger().warning("Chunk mesh building didn't finish in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        this.completed.clear();
+        this.renderThreadBuilds.clear();
+        this.pendingAmount = 0;
+    }
+
+    private void build(IWorld world, ChunkMeshSnapshot snapshot) {
+        try {
+            snapshot.getMesh().build(this.game, this.manager, this.renderer, world, snapshot);
+            this.builtAmount.incrementAndGet();
+        } catch (Exception e) {
+            RockBottomAPI.logger().log(Level.WARNING, "Couldn't build layer " + snapshot.getLayer() + " of the chunk mesh at " + snapshot.getStartX() + ", " + snapshot.getStartY(), e);
+        } finally {
+            this.completed.add(snapshot);
+        }
+    }
+}
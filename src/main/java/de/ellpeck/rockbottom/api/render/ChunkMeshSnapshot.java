@@ -0,0 +1,135 @@
+/*
+ * This file ("ChunkMeshSnapshot.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/RockBottomGame/>.
+ * View information on the project at <https://rockbottom.ellpeck.de/>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * © 2018 Ellpeck
+ */
+
+package de.ellpeck.rockbottom.api.render;
+
+import de.ellpeck.rockbottom.api.Constants;
+import de.ellpeck.rockbottom.api.render.engine.MeshBuffer;
+import de.ellpeck.rockbottom.api.render.tile.ITileRenderer;
+import de.ellpeck.rockbottom.api.tile.state.TileState;
+import de.ellpeck.rockbottom.api.world.IChunk;
+import de.ellpeck.rockbottom.api.world.layer.TileLayer;
+
+import java.util.BitSet;
+
+/**
+ * A copy of everything that {@link ChunkMesh} reads from its chunk to build
+ * one layer, which is the states of the layer and their cached corner
+ * colors. A snapshot is taken on the rendering thread using {@link
+ * ChunkMesh#createSnapshot(TileLayer)}, after which the mesh can be built
+ * from it on any thread while the chunk keeps changing. Any change to the
+ * chunk in the meantime invalidates the mesh again, so a mesh built from an
+ * outdated snapshot is only ever shown until the next build is done.
+ * <p>
+ * The tile renderers are still passed the live world, so a snapshot may only
+ * be built on another thread if it {@link #isThreadSafe()}.
+ */
+public final class ChunkMeshSnapshot {
+
+    private final ChunkMesh mesh;
+    private final TileLayer layer;
+    private final int startX;
+    private final int startY;
+    private final TileState[] states;
+    private final int[] colors;
+    private final boolean threadSafe;
+
+    final MeshBuffer target;
+    final BitSet dynamic;
+    boolean failed;
+
+    ChunkMeshSnapshot(ChunkMesh mesh, TileLayer layer, int startX, int startY, TileState[] states, int[] colors, boolean threadSafe, MeshBuffer target, BitSet dynamic) {
+        this.mesh = mesh;
+        this.layer = layer;
+        this.startX = startX;
+        this.startY = startY;
+        this.states = states;
+        this.colors = colors;
+        this.threadSafe = threadSafe;
+        this.target = target;
+        this.dynamic = dynamic;
+    }
+
+    public ChunkMesh getMesh() {
+        return this.mesh;
+    }
+
+    public TileLayer getLayer() {
+        return this.layer;
+    }
+
+    /**
+     * @return The world x coordinate of the chunk's origin
+     * @see IChunk#getX()
+     */
+    public int getStartX() {
+        return this.startX;
+    }
+
+    /**
+     * @return The world y coordinate of the chunk's origin
+     * @see IChunk#getY()
+     */
+    public int getStartY() {
+        return this.startY;
+    }
+
+    /**
+     * @param x The x coordinate inside the chunk
+     * @param y The y coordinate inside the chunk
+     * @return The state at the given position when the snapshot was taken
+     */
+    public TileState getState(int x, int y) {
+        return this.states[x * Constants.CHUNK_SIZE + y];
+    }
+
+    /**
+     * Copies the four corner colors of the given position into the given
+     * array
+     *
+     * @param x   The x coordinate inside the chunk
+     * @param y   The y coordinate inside the chunk
+     * @param out The array of at least length four to copy the colors into
+     * @return The given array
+     * @see ChunkLightCache#getColors(TileLayer, int, int, int[])
+     */
+    public int[] getColors(int x, int y, int[] out) {
+        System.arraycopy(this.colors, (x * Constants.CHUNK_SIZE + y) * 4, out, 0, 4);
+        return out;
+    }
+
+    /**
+     * @return If the renderers of all of the tiles in this snapshot are {@link
+     * ITileRenderer#isMeshThreadSafe()}, meaning that it can be built on a
+     * worker thread
+     */
+    public boolean isThreadSafe() {
+        return this.threadSafe;
+    }
+
+    /**
+     * @return If building the mesh from this snapshot threw an exception, in
+     * which case the previous mesh is kept
+     */
+    public boolean hasFailed() {
+        return this.failed;
+    }
+}
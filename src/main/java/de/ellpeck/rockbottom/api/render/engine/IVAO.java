@@ -27,6 +27,16 @@ public interface IVAO extends IDisposable {
 
     void draw(int amount);
 
+    /**
+     * Draws a range of the vertices of this vertex array, which is used to
+     * draw the individual sections of a {@link MeshBuffer} that has been
+     * uploaded as a whole.
+     *
+     * @param first  The index of the first vertex to draw
+     * @param amount The amount of vertices to draw
+     */
+    void draw(int first, int amount);
+
     void unbind();
 
     int getId();
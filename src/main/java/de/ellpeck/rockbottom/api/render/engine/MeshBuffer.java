@@ -0,0 +1,341 @@
+/*
+ * This file ("MeshBuffer.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/RockBottomGame/>.
+ * View information on the project at <https://rockbottom.ellpeck.de/>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * © 2018 Ellpeck
+ */
+
+package de.ellpeck.rockbottom.api.render.engine;
+
+import com.google.common.base.Preconditions;
+import de.ellpeck.rockbottom.api.IRenderer;
+import de.ellpeck.rockbottom.api.assets.IShaderProgram;
+import de.ellpeck.rockbottom.api.assets.texture.ITexture;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A growable CPU-side buffer of vertex data that an {@link IRenderer} writes
+ * into instead of its streaming buffer while it is set as the renderer's
+ * {@link IRenderer#setCapture(MeshBuffer)}. Vertices are grouped into
+ * sections, one for every run of vertices that was added with the same
+ * {@link ITexture}, {@link IShaderProgram}, layer and {@link RenderTransform},
+ * so that the recorded
+ * mesh can later be drawn with one draw call per section, or be reordered by
+ * a {@link SpriteBatch}.
+ * <p>
+ * A buffer can be built on any thread, including {@link #prepareUpload()}, as
+ * long as only one thread uses it at a time.
+ */
+public class MeshBuffer {
+
+    private final int componentsPerVertex;
+    private final List<ITexture> sectionTextures = new ArrayList<>();
+    private final List<IShaderProgram> sectionPrograms = new ArrayList<>();
+    private final List<RenderTransform> sectionTransforms = new ArrayList<>();
+    private int[] sectionStarts = new int[8];
+    private int[] sectionLayers = new int[8];
+    private float[] data;
+    private int size;
+    private ITexture texture;
+    private IShaderProgram program;
+    private RenderTransform transform;
+    private int layer;
+    private boolean sectionBroken;
+    private FloatBuffer uploadBuffer;
+    private boolean uploadPrepared;
+
+    public MeshBuffer(int componentsPerVertex) {
+        this(componentsPerVertex, 1024);
+    }
+
+    public MeshBuffer(int componentsPerVertex, int initialCapacity) {
+        Preconditions.checkArgument(componentsPerVertex > 0, "Components per vertex must be positive");
+        this.componentsPerVertex = componentsPerVertex;
+        this.data = new float[Math.max(initialCapacity, componentsPerVertex)];
+    }
+
+    /**
+     * Adds a single vertex component to this buffer. If this is the first
+     * component of a vertex and the texture, program, layer or transformation
+     * has changed
+     * since the last vertex, a new section is started.
+     *
+     * @param f The component
+     * @return This buffer
+     */
+    public MeshBuffer put(float f) {
+        if (this.size % this.componentsPerVertex == 0) {
+            int amount = this.sectionTextures.size();
+            if (amount <= 0 || this.sectionBroken || this.sectionTextures.get(amount - 1) != this.texture || this.sectionPrograms.get(amount - 1) != this.program || this.sectionLayers[amount - 1] != this.layer || !Objects.equals(this.sectionTransforms.get(amount - 1), this.transform)) {
+                this.startSection();
+            }
+        }
+
+        if (this.size >= this.data.length) {
+            this.data = Arrays.copyOf(this.data, this.data.length * 2);
+        }
+        this.data[this.size++] = f;
+        this.uploadPrepared = false;
+        return this;
+    }
+
+    /**
+     * Sets the texture that the following vertices are drawn with. This is
+     * called by the renderer whenever its texture changes while capturing.
+     *
+     * @param texture The texture, or null if no texture is bound
+     */
+    public void setTexture(ITexture texture) {
+        this.texture = texture;
+    }
+
+    public ITexture getTexture() {
+        return this.texture;
+    }
+
+    /**
+     * Sets the shader program that the following vertices are drawn with.
+     * This is called by the renderer whenever its program changes while
+     * capturing.
+     *
+     * @param program The program, or null for the renderer's default program
+     */
+    public void setProgram(IShaderProgram program) {
+        this.program = program;
+    }
+
+    public IShaderProgram getProgram() {
+        return this.program;
+    }
+
+    /**
+     * Sets the transformation that the following vertices are drawn with.
+     * This is called by the renderer whenever its transformation changes
+     * while capturing, since the renderer only applies it when flushing.
+     *
+     * @param transform The transformation, or null if it isn't recorded
+     */
+    public void setTransform(RenderTransform transform) {
+        this.transform = transform;
+    }
+
+    public RenderTransform getTransform() {
+        return this.transform;
+    }
+
+    /**
+     * Sets the layer that the following vertices belong to. The layer isn't
+     * used by the renderer, but it is the first key that a {@link
+     * SpriteBatch} sorts sections by, with lower layers being drawn first.
+     *
+     * @param layer The layer
+     */
+    public void setLayer(int layer) {
+        this.layer = layer;
+    }
+
+    public int getLayer() {
+        return this.layer;
+    }
+
+    /**
+     * Makes the next vertex start a new section even if its texture, program
+     * and layer are the same as the previous one's
+     */
+    public void breakSection() {
+        this.sectionBroken = true;
+    }
+
+    /**
+     * Removes all of the vertices and sections from this buffer, keeping its
+     * allocated capacity
+     */
+    public void clear() {
+        this.size = 0;
+        this.texture = null;
+        this.program = null;
+        this.transform = null;
+        this.layer = 0;
+        this.sectionBroken = false;
+        this.sectionTextures.clear();
+        this.sectionPrograms.clear();
+        this.sectionTransforms.clear();
+        this.uploadPrepared = false;
+    }
+
+    public boolean isEmpty() {
+        return this.size <= 0;
+    }
+
+    public int getComponentsPerVertex() {
+        return this.componentsPerVertex;
+    }
+
+    /**
+     * @return The amount of vertex components in this buffer
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * @return The amount of complete vertices in this buffer
+     */
+    public int getVertexAmount() {
+        return this.size / this.componentsPerVertex;
+    }
+
+    public int getSectionAmount() {
+        return this.sectionTextures.size();
+    }
+
+    public ITexture getSectionTexture(int section) {
+        return this.sectionTextures.get(section);
+    }
+
+    public IShaderProgram getSectionProgram(int section) {
+        return this.sectionPrograms.get(section);
+    }
+
+    /**
+     * @param section The section
+     * @return The transformation that the given section was added with, or
+     * null if it wasn't recorded
+     */
+    public RenderTransform getSectionTransform(int section) {
+        return this.sectionTransforms.get(section);
+    }
+
+    public int getSectionLayer(int section) {
+        Preconditions.checkElementIndex(section, this.sectionTextures.size());
+        return this.sectionLayers[section];
+    }
+
+    /**
+     * @param section The section
+     * @return The index of the first vertex of the given section
+     */
+    public int getSectionStart(int section) {
+        Preconditions.checkElementIndex(section, this.sectionTextures.size());
+        return this.sectionStarts[section];
+    }
+
+    public int getSectionVertexAmount(int section) {
+        int end = section + 1 < this.sectionTextures.size() ? this.sectionStarts[section + 1] : this.getVertexAmount();
+        return end - this.getSectionStart(section);
+    }
+
+    /**
+     * Returns the backing array of this buffer. Only the first {@link #size()}
+     * components are valid, and the array is replaced when the buffer grows.
+     *
+     * @return The backing array
+     */
+    public float[] getData() {
+        return this.data;
+    }
+
+    /**
+     * Copies all of the components of this buffer into the given buffer at its
+     * current position
+     *
+     * @param buffer The buffer to write to
+     */
+    public void writeTo(FloatBuffer buffer) {
+        buffer.put(this.data, 0, this.size);
+    }
+
+    /**
+     * Returns a direct buffer holding all of the components of this buffer,
+     * ready to be passed to {@link IVBO#subData(FloatBuffer)}. The direct
+     * buffer is owned by this buffer and reused, so it is only valid until
+     * this buffer is changed. Preparing it ahead of time, for example on the
+     * thread that built the mesh, means that only the upload itself is left
+     * for the rendering thread.
+     *
+     * @return The direct buffer, with its position at zero and its limit at
+     * {@link #size()}
+     */
+    public FloatBuffer prepareUpload() {
+        if (!this.uploadPrepared) {
+            if (this.uploadBuffer == null || this.uploadBuffer.capacity() < this.size) {
+                this.uploadBuffer = ByteBuffer.allocateDirect(this.data.length * Float.BYTES).order(ByteOrder.nativeOrder()).asFloatBuffer();
+            }
+            ((Buffer) this.uploadBuffer).clear();
+            this.uploadBuffer.put(this.data, 0, this.size);
+            this.uploadPrepared = true;
+        }
+        ((Buffer) this.uploadBuffer).position(0).limit(this.size);
+        return this.uploadBuffer;
+    }
+
+    /**
+     * Copies the content of the given buffer into this one, replacing this
+     * buffer's content
+     *
+     * @param other The buffer to copy
+     */
+    public void set(MeshBuffer other) {
+        Preconditions.checkArgument(other.componentsPerVertex == this.componentsPerVertex, "Cannot copy a mesh with %s components per vertex into one with %s", other.componentsPerVertex, this.componentsPerVertex);
+        if (this.data.length < other.size) {
+            this.data = new float[other.data.length];
+        }
+        System.arraycopy(other.data, 0, this.data, 0, other.size);
+        this.size = other.size;
+        this.texture = other.texture;
+        this.program = other.program;
+        this.transform = other.transform;
+        this.layer = other.layer;
+        this.sectionBroken = other.sectionBroken;
+        this.uploadPrepared = false;
+
+        this.sectionTextures.clear();
+        this.sectionTextures.addAll(other.sectionTextures);
+        this.sectionPrograms.clear();
+        this.sectionPrograms.addAll(other.sectionPrograms);
+        this.sectionTransforms.clear();
+        this.sectionTransforms.addAll(other.sectionTransforms);
+        if (this.sectionStarts.length < other.sectionStarts.length) {
+            this.sectionStarts = new int[other.sectionStarts.length];
+            this.sectionLayers = new int[other.sectionLayers.length];
+        }
+        System.arraycopy(other.sectionStarts, 0, this.sectionStarts, 0, other.sectionTextures.size());
+        System.arraycopy(other.sectionLayers, 0, this.sectionLayers, 0, other.sectionTextures.size());
+    }
+
+    private void startSection() {
+        int amount = this.sectionTextures.size();
+        if (amount >= this.sectionStarts.length) {
+            this.sectionStarts = Arrays.copyOf(this.sectionStarts, this.sectionStarts.length * 2);
+            this.sectionLayers = Arrays.copyOf(this.sectionLayers, this.sectionLayers.length * 2);
+        }
+        this.sectionStarts[amount] = this.getVertexAmount();
+        this.sectionLayers[amount] = this.layer;
+        this.sectionTextures.add(this.texture);
+        this.sectionPrograms.add(this.program);
+        this.sectionTransforms.add(this.transform);
+        this.sectionBroken = false;
+    }
+}
@@ -0,0 +1,787 @@
+/*
+ * This file ("RecordingRenderer.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/RockBottomGame/>.
+ * View information on the project at <https://rockbottom.ellpeck.de/>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * © 2018 Ellpeck
+ */
+
+package de.ellpeck.rockbottom.api.render.engine;
+
+import de.ellpeck.rockbottom.api.IGameInstance;
+import de.ellpeck.rockbottom.api.IRenderer;
+import de.ellpeck.rockbottom.api.assets.IAssetManager;
+import de.ellpeck.rockbottom.api.assets.IShaderProgram;
+import de.ellpeck.rockbottom.api.assets.texture.ITexture;
+import de.ellpeck.rockbottom.api.item.ItemInstance;
+import de.ellpeck.rockbottom.api.render.ChunkMesh;
+import de.ellpeck.rockbottom.api.util.Colors;
+import org.lwjgl.opengl.GL15;
+
+import java.nio.FloatBuffer;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An {@link IRenderer} that doesn't need a graphics context and only records
+ * what is added to it. Vertices are written into a {@link MeshBuffer} the same
+ * way the game's renderer writes them into its streaming buffer, and created
+ * vertex buffers only remember the data that is uploaded into them. This
+ * makes it possible to run tile renderers and build a {@link ChunkMesh}
+ * headlessly to check the amount of vertices, flushes and uploads that they
+ * cause. Gui methods like {@link #renderSlotInGui(IGameInstance,
+ * IAssetManager, ItemInstance, float, float, float, boolean, boolean)} don't
+ * record anything. Like the game's renderer, it can be captured into from
+ * several threads at once.
+ */
+public class RecordingRenderer implements IRenderer {
+
+    private static final VertexProcessor DEFAULT_PROCESSOR = new VertexProcessor();
+
+    private final ThreadLocal<MeshBuffer> capture = new ThreadLocal<>();
+    private final MeshBuffer vertices;
+    private IShaderProgram defaultProgram;
+    private IShaderProgram program;
+    private ITexture texture;
+
+    private float rotation;
+    private float rotationCenterX;
+    private float rotationCenterY;
+    private float translationX;
+    private float translationY;
+    private float scaleX = 1F;
+    private float scaleY = 1F;
+    private boolean mirroredHor;
+    private boolean mirroredVert;
+    private int backgroundColor;
+
+    private int flushes;
+    private int totalFlushes;
+    private int flushedVertices;
+    private final AtomicInteger texturedRegions = new AtomicInteger();
+    private int createdBuffers;
+    private int uploads;
+
+    public RecordingRenderer() {
+        this(8);
+    }
+
+    public RecordingRenderer(int componentsPerVertex) {
+        this.vertices = new MeshBuffer(componentsPerVertex);
+    }
+
+    @Override
+    public void setDefaultProgram(IShaderProgram program) {
+        this.defaultProgram = program;
+    }
+
+    @Override
+    public void addTexturedRegion(ITexture texture, float x, float y, float x2, float y2, float x3, float y3, float x4, float y4, float srcX, float srcY, float srcX2, float srcY2, int[] light, int filter) {
+        this.setTexture(texture);
+        this.texturedRegions.incrementAndGet();
+
+        float width = texture.getTextureWidth();
+        float height = texture.getTextureHeight();
+        float u = (texture.getRenderOffsetX() + srcX) / width;
+        float v = (texture.getRenderOffsetY() + srcY) / height;
+        float u2 = (texture.getRenderOffsetX() + srcX2) / width;
+        float v2 = (texture.getRenderOffsetY() + srcY2) / height;
+
+        int topLeft = light == null ? filter : Colors.multiply(light[ITexture.TOP_LEFT], filter);
+        int bottomLeft = light == null ? filter : Colors.multiply(light[ITexture.BOTTOM_LEFT], filter);
+        int bottomRight = light == null ? filter : Colors.multiply(light[ITexture.BOTTOM_RIGHT], filter);
+        int topRight = light == null ? filter : Colors.multiply(light[ITexture.TOP_RIGHT], filter);
+
+        this.getProcessor().addTexturedRegion(this, texture, x, y, x2, y2, x3, y3, x4, y4, u, v, u2, v2, topLeft, bottomLeft, bottomRight, topRight);
+    }
+
+    @Override
+    public void addTriangle(float x1, float y1, float x2, float y2, float x3, float y3, int color1, int color2, int color3, float u1, float v1, float u2, float v2, float u3, float v3) {
+        this.getProcessor().addTriangle(this, x1, y1, x2, y2, x3, y3, color1, color2, color3, u1, v1, u2, v2, u3, v3);
+    }
+
+    @Override
+    public IRenderer put(float f) {
+        MeshBuffer capture = this.capture.get();
+        if (capture != null) {
+            capture.put(f);
+        } else {
+            this.vertices.put(f);
+        }
+        return this;
+    }
+
+    @Override
+    public void addVertex(float x, float y, int color, float u, float v) {
+        VertexProcessor processor = this.getProcessor();
+        processor.addVertex(this, x, y, color, u, v);
+        processor.onVertexCompleted(this);
+    }
+
+    @Override
+    public void addVertices(MeshBuffer buffer, int firstVertex, int amount) {
+        int components = buffer.getComponentsPerVertex();
+        float[] data = buffer.getData();
+        int end = (firstVertex + amount) * components;
+        for (int i = firstVertex * components; i < end; i++) {
+            this.put(data[i]);
+        }
+    }
+
+    @Override
+    public void begin() {
+        this.flushes = 0;
+        this.getProcessor().onBegin(this);
+    }
+
+    @Override
+    public void end() {
+        this.flush();
+        this.getProcessor().onEnd(this);
+    }
+
+    @Override
+    public void flush() {
+        if (!this.vertices.isEmpty()) {
+            this.flushedVertices += this.vertices.getVertexAmount();
+            this.flushes++;
+            this.totalFlushes++;
+            this.vertices.clear();
+            this.getProcessor().onFlush(this);
+        }
+    }
+
+    @Override
+    public void rotate(float angle) {
+        this.setRotation(this.getRotation() + angle);
+    }
+
+    @Override
+    public void setRotationCenter(float x, float y) {
+        MeshBuffer capture = this.capture.get();
+        if (capture != null) {
+            capture.setTransform(this.getCaptureTransform(capture).withRotationCenter(x, y));
+        } else {
+            this.rotationCenterX = x;
+            this.rotationCenterY = y;
+        }
+    }
+
+    @Override
+    public float getRotationCenterX() {
+        RenderTransform transform = this.getCaptureTransform();
+        return transform != null ? transform.rotationCenterX : this.rotationCenterX;
+    }
+
+    @Override
+    public float getRotationCenterY() {
+        RenderTransform transform = this.getCaptureTransform();
+        return transform != null ? transform.rotationCenterY : this.rotationCenterY;
+    }
+
+    @Override
+    public void translate(float x, float y) {
+        this.setTranslation(this.getTranslationX() + x, this.getTranslationY() + y);
+    }
+
+    @Override
+    public void setTranslation(float x, float y) {
+        MeshBuffer capture = this.capture.get();
+        if (capture != null) {
+            capture.setTransform(this.getCaptureTransform(capture).withTranslation(x, y));
+        } else {
+            this.flush();
+            this.translationX = x;
+            this.translationY = y;
+        }
+    }
+
+    @Override
+    public void scale(float x, float y) {
+        this.setScale(this.getScaleX() * x, this.getScaleY() * y);
+    }
+
+    @Override
+    public void setScale(float x, float y) {
+        MeshBuffer capture = this.capture.get();
+        if (capture != null) {
+            capture.setTransform(this.getCaptureTransform(capture).withScale(x, y));
+        } else {
+            this.flush();
+            this.scaleX = x;
+            this.scaleY = y;
+        }
+    }
+
+    @Override
+    public void mirror(boolean hor, boolean vert) {
+        this.setMirrored(this.isMirroredHor() != hor, this.isMirroredVert() != vert);
+    }
+
+    @Override
+    public void setMirrored(boolean hor, boolean vert) {
+        MeshBuffer capture = this.capture.get();
+        if (capture != null) {
+            capture.setTransform(this.getCaptureTransform(capture).withMirrored(hor, vert));
+        } else {
+            this.flush();
+            this.mirroredHor = hor;
+            this.mirroredVert = vert;
+        }
+    }
+
+    @Override
+    public void resetTransformation() {
+        this.setRotation(0F);
+        this.setRotationCenter(0F, 0F);
+        this.setTranslation(0F, 0F);
+        this.setScale(1F, 1F);
+        this.setMirrored(false, false);
+    }
+
+    @Override
+    public float getRotation() {
+        RenderTransform transform = this.getCaptureTransform();
+        return transform != null ? transform.rotation : this.rotation;
+    }
+
+    @Override
+    public void setRotation(float angle) {
+        MeshBuffer capture = this.capture.get();
+        if (capture != null) {
+            capture.setTransform(this.getCaptureTransform(capture).withRotation(angle % 360F));
+        } else {
+            this.flush();
+            this.rotation = angle % 360F;
+        }
+    }
+
+    @Override
+    public float getTranslationX() {
+        RenderTransform transform = this.getCaptureTransform();
+        return transform != null ? transform.translationX : this.translationX;
+    }
+
+    @Override
+    public float getTranslationY() {
+        RenderTransform transform = this.getCaptureTransform();
+        return transform != null ? transform.translationY : this.translationY;
+    }
+
+    @Override
+    public float getScaleX() {
+        RenderTransform transform = this.getCaptureTransform();
+        return transform != null ? transform.scaleX : this.scaleX;
+    }
+
+    @Override
+    public float getScaleY() {
+        RenderTransform transform = this.getCaptureTransform();
+        return transform != null ? transform.scaleY : this.scaleY;
+    }
+
+    @Override
+    public boolean isMirroredHor() {
+        RenderTransform transform = this.getCaptureTransform();
+        return transform != null ? transform.mirroredHor : this.mirroredHor;
+    }
+
+    @Override
+    public boolean isMirroredVert() {
+        RenderTransform transform = this.getCaptureTransform();
+        return transform != null ? transform.mirroredVert : this.mirroredVert;
+    }
+
+    private RenderTransform getCaptureTransform() {
+        MeshBuffer capture = this.capture.get();
+        return capture != null ? this.getCaptureTransform(capture) : null;
+    }
+
+    private RenderTransform getCaptureTransform(MeshBuffer capture) {
+        RenderTransform transform = capture.getTransform();
+        return transform != null ? transform : RenderTransform.IDENTITY;
+    }
+
+    @Override
+    public IShaderProgram getProgram() {
+        MeshBuffer capture = this.capture.get();
+        if (capture != null) {
+            return capture.getProgram() != null ? capture.getProgram() : this.defaultProgram;
+        } else {
+            return this.program;
+        }
+    }
+
+    @Override
+    public void setProgram(IShaderProgram program) {
+        if (program == null) {
+            program = this.defaultProgram;
+        }
+
+        MeshBuffer capture = this.capture.get();
+        if (capture != null) {
+            capture.setProgram(program);
+        } else if (this.program != program) {
+            this.flush();
+            this.program = program;
+        }
+    }
+
+    @Override
+    public ITexture getTexture() {
+        MeshBuffer capture = this.capture.get();
+        return capture != null ? capture.getTexture() : this.texture;
+    }
+
+    @Override
+    public void setTexture(ITexture texture) {
+        MeshBuffer capture = this.capture.get();
+        if (capture != null) {
+            capture.setTexture(texture);
+        } else if (this.texture != texture) {
+            this.flush();
+            this.texture = texture;
+        }
+    }
+
+    @Override
+    public void renderSlotInGui(IGameInstance game, IAssetManager manager, ItemInstance slot, float x, float y, float scale, boolean hovered, boolean canPlaceInto) {
+    }
+
+    @Override
+    public void renderSlotInGui(IGameInstance game, IAssetManager manager, ItemInstance slot, float x, float y, float scale, boolean hovered, boolean canPlaceInto, boolean renderBackground, int colorOverride) {
+    }
+
+    @Override
+    public void renderItemInGui(IGameInstance game, IAssetManager manager, ItemInstance slot, float x, float y, float scale, int color) {
+    }
+
+    @Override
+    public void renderItemInGui(IGameInstance game, IAssetManager manager, ItemInstance slot, float x, float y, float scale, int color, boolean displayAmount, boolean displayDurability) {
+    }
+
+    @Override
+    public void describeItem(IGameInstance game, IAssetManager manager, ItemInstance instance, boolean isRealItem) {
+    }
+
+    @Override
+    public void drawHoverInfoAtMouse(IGameInstance game, IAssetManager manager, boolean firstLineOffset, int maxLength, String... text) {
+    }
+
+    @Override
+    public void drawHoverInfoAtMouse(IGameInstance game, IAssetManager manager, boolean firstLineOffset, int maxLength, List<String> text) {
+    }
+
+    @Override
+    public void drawHoverInfo(IGameInstance game, IAssetManager manager, float x, float y, float scale, boolean firstLineOffset, boolean canLeaveScreen, int maxLength, List<String> text) {
+    }
+
+    @Override
+    public void addEmptyRect(float x, float y, float width, float height, int color) {
+        this.addEmptyRect(x, y, width, height, 1F, color);
+    }
+
+    @Override
+    public void addEmptyRect(float x, float y, float width, float height, float lineWidth, int color) {
+        this.addFilledRect(x, y, width - lineWidth, lineWidth, color);
+        this.addFilledRect(x + lineWidth, y + height - lineWidth, width - lineWidth, lineWidth, color);
+        this.addFilledRect(x + width - lineWidth, y, lineWidth, height - lineWidth, color);
+        this.addFilledRect(x, y + lineWidth, lineWidth, height - lineWidth, color);
+    }
+
+    @Override
+    public void addFilledRect(float x, float y, float width, float height, int color) {
+        this.setTexture(null);
+        this.addTriangle(x, y, x, y + height, x + width, y + height, color, color, color, 0F, 0F, 0F, 1F, 1F, 1F);
+        this.addTriangle(x, y, x + width, y + height, x + width, y, color, color, color, 0F, 0F, 1F, 1F, 1F, 0F);
+    }
+
+    @Override
+    public void activateTextureBank(TextureBank bank) {
+    }
+
+    @Override
+    public void unbindTexture() {
+        this.setTexture(null);
+    }
+
+    @Override
+    public void unbindAllTextures() {
+        this.unbindTexture();
+    }
+
+    @Override
+    public void unbindVAO() {
+    }
+
+    @Override
+    public void unbindVBO() {
+    }
+
+    @Override
+    public void unbindShaderProgram() {
+        this.setProgram(null);
+    }
+
+    @Override
+    public IVAO createVAO() {
+        return new RecordingVAO();
+    }
+
+    @Override
+    public IVBO createVBO(boolean isStatic) {
+        this.createdBuffers++;
+        return new RecordingVBO(isStatic, this.createdBuffers);
+    }
+
+    @Override
+    public void calcScales() {
+    }
+
+    @Override
+    public float getDisplayRatio() {
+        return 1F;
+    }
+
+    @Override
+    public float getGuiScale() {
+        return 1F;
+    }
+
+    @Override
+    public float getWorldScale() {
+        return 1F;
+    }
+
+    @Override
+    public float getWidthInWorld() {
+        return 0F;
+    }
+
+    @Override
+    public float getHeightInWorld() {
+        return 0F;
+    }
+
+    @Override
+    public float getWidthInGui() {
+        return 0F;
+    }
+
+    @Override
+    public float getHeightInGui() {
+        return 0F;
+    }
+
+    @Override
+    public float getMouseInGuiX() {
+        return 0F;
+    }
+
+    @Override
+    public float getMouseInGuiY() {
+        return 0F;
+    }
+
+    @Override
+    public boolean isDebug() {
+        return false;
+    }
+
+    @Override
+    public boolean isItemInfoDebug() {
+        return false;
+    }
+
+    @Override
+    public boolean isChunkBorderDebug() {
+        return false;
+    }
+
+    @Override
+    public boolean isGuiDebug() {
+        return false;
+    }
+
+    @Override
+    public boolean isLineDebug() {
+        return false;
+    }
+
+    @Override
+    public boolean isBiomeDebug() {
+        return false;
+    }
+
+    @Override
+    public boolean isHeightDebug() {
+        return false;
+    }
+
+    @Override
+    public boolean isBoundBoxDebug() {
+        return false;
+    }
+
+    @Override
+    public boolean isCullingDebug() {
+        return false;
+    }
+
+    @Override
+    public double getMousedTileX() {
+        return 0D;
+    }
+
+    @Override
+    public double getMousedTileY() {
+        return 0D;
+    }
+
+    @Override
+    public int getFlushes() {
+        return this.flushes;
+    }
+
+    @Override
+    public void backgroundColor(int color) {
+        this.backgroundColor = color;
+    }
+
+    public int getBackgroundColor() {
+        return this.backgroundColor;
+    }
+
+    @Override
+    public FloatBuffer getVertices() {
+        return FloatBuffer.wrap(this.vertices.getData(), 0, this.vertices.size());
+    }
+
+    @Override
+    public int getVertexAmount() {
+        return this.vertices.getVertexAmount();
+    }
+
+    @Override
+    public void setCapture(MeshBuffer capture) {
+        if (capture != null) {
+            this.capture.set(capture);
+        } else {
+            this.capture.remove();
+        }
+    }
+
+    @Override
+    public MeshBuffer getCapture() {
+        return this.capture.get();
+    }
+
+    @Override
+    public double getCameraX() {
+        return 0D;
+    }
+
+    @Override
+    public double getCameraY() {
+        return 0D;
+    }
+
+    @Override
+    public void dispose() {
+        this.vertices.clear();
+    }
+
+    /**
+     * @return The amount of flushes since this renderer was created or {@link
+     * #resetRecording()} was called, as opposed to {@link #getFlushes()},
+     * which only counts the flushes since the last {@link #begin()}
+     */
+    public int getTotalFlushes() {
+        return this.totalFlushes;
+    }
+
+    /**
+     * @return The amount of vertices that have been flushed, not counting
+     * vertices that went into a capture
+     */
+    public int getFlushedVertexAmount() {
+        return this.flushedVertices;
+    }
+
+    /**
+     * @return The amount of calls to {@link #addTexturedRegion(ITexture, float,
+     * float, float, float, float, float, float, float, float, float, float,
+     * float, int[], int)}, including ones that went into a capture
+     */
+    public int getTexturedRegionAmount() {
+        return this.texturedRegions.get();
+    }
+
+    /**
+     * @return The amount of vertex buffers that have been created
+     */
+    public int getCreatedBufferAmount() {
+        return this.createdBuffers;
+    }
+
+    /**
+     * @return The amount of times data has been uploaded into any of the
+     * vertex buffers created by this renderer
+     */
+    public int getUploadAmount() {
+        return this.uploads;
+    }
+
+    /**
+     * Resets all of the counters of this renderer and discards any vertices
+     * that haven't been flushed yet
+     */
+    public void resetRecording() {
+        this.vertices.clear();
+        this.flushes = 0;
+        this.totalFlushes = 0;
+        this.flushedVertices = 0;
+        this.texturedRegions.set(0);
+        this.createdBuffers = 0;
+        this.uploads = 0;
+    }
+
+    private VertexProcessor getProcessor() {
+        IShaderProgram program = this.getProgram();
+        return program != null ? program.getProcessor() : DEFAULT_PROCESSOR;
+    }
+
+    /**
+     * A vertex buffer that only stores the data that was last uploaded to it
+     */
+    public class RecordingVBO implements IVBO {
+
+        private final boolean isStatic;
+        private final int id;
+        private float[] data = new float[0];
+        private long size;
+        private boolean disposed;
+
+        private RecordingVBO(boolean isStatic, int id) {
+            this.isStatic = isStatic;
+            this.id = id;
+        }
+
+        @Override
+        public void bind() {
+        }
+
+        @Override
+        public void data(long size) {
+            this.size = size;
+        }
+
+        @Override
+        public void subData(FloatBuffer vertices) {
+            this.data = new float[vertices.remaining()];
+            vertices.duplicate().get(this.data);
+            RecordingRenderer.this.uploads++;
+        }
+
+        @Override
+        public int getDrawMode() {
+            return this.isStatic ? GL15.GL_STATIC_DRAW : GL15.GL_DYNAMIC_DRAW;
+        }
+
+        @Override
+        public void unbind() {
+        }
+
+        @Override
+        public int getId() {
+            return this.id;
+        }
+
+        @Override
+        public boolean isStatic() {
+            return this.isStatic;
+        }
+
+        @Override
+        public void dispose() {
+            this.disposed = true;
+            this.data = new float[0];
+        }
+
+        /**
+         * @return A copy of the data that was last uploaded
+         */
+        public float[] getData() {
+            return this.data.clone();
+        }
+
+        /**
+         * @return The size in bytes that was last allocated
+         */
+        public long getSize() {
+            return this.size;
+        }
+
+        public boolean isDisposed() {
+            return this.disposed;
+        }
+    }
+
+    /**
+     * A vertex array that only counts the vertices that are drawn with it
+     */
+    public static class RecordingVAO implements IVAO {
+
+        private int drawCalls;
+        private int drawnVertices;
+
+        @Override
+        public void bind() {
+        }
+
+        @Override
+        public void draw(int amount) {
+            this.draw(0, amount);
+        }
+
+        @Override
+        public void draw(int first, int amount) {
+            this.drawCalls++;
+            this.drawnVertices += amount;
+        }
+
+        @Override
+        public void unbind() {
+        }
+
+        @Override
+        public int getId() {
+            return 0;
+        }
+
+        @Override
+        public void dispose() {
+        }
+
+        public int getDrawCalls() {
+            return this.drawCalls;
+        }
+
+        public int getDrawnVertexAmount() {
+            return this.drawnVertices;
+        }
+    }
+}
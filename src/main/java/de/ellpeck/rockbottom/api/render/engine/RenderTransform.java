@@ -0,0 +1,135 @@
+/*
+ * This file ("RenderTransform.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/RockBottomGame/>.
+ * View information on the project at <https://rockbottom.ellpeck.de/>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * © 2018 Ellpeck
+ */
+
+
+package de.ellpeck.rockbottom.api.render.engine;
+
+import de.ellpeck.rockbottom.api.IRenderer;
+
+/**
+ * An immutable copy of the transformation of an {@link IRenderer}, meaning
+ * its rotation, rotation center, translation, scale and mirroring. Since the
+ * renderer applies its transformation when it flushes rather than when
+ * vertices are added, a {@link MeshBuffer} stores the transformation of every
+ * section, so that a {@link SpriteBatch} can restore it before drawing the
+ * section again.
+ */
+public final class RenderTransform {
+
+    /**
+     * The transformation of a renderer that hasn't been transformed at all
+     */
+    public static final RenderTransform IDENTITY = new RenderTransform(0F, 0F, 0F, 0F, 0F, 1F, 1F, false, false);
+
+    public final float rotation;
+    public final float rotationCenterX;
+    public final float rotationCenterY;
+    public final float translationX;
+    public final float translationY;
+    public final float scaleX;
+    public final float scaleY;
+    public final boolean mirroredHor;
+    public final boolean mirroredVert;
+
+    public RenderTransform(float rotation, float rotationCenterX, float rotationCenterY, float translationX, float translationY, float scaleX, float scaleY, boolean mirroredHor, boolean mirroredVert) {
+        this.rotation = rotation;
+        this.rotationCenterX = rotationCenterX;
+        this.rotationCenterY = rotationCenterY;
+        this.translationX = translationX;
+        this.translationY = translationY;
+        this.scaleX = scaleX;
+        this.scaleY = scaleY;
+        this.mirroredHor = mirroredHor;
+        this.mirroredVert = mirroredVert;
+    }
+
+    /**
+     * Copies the current transformation of the given renderer
+     *
+     * @param renderer The renderer
+     * @return The transformation
+     */
+    public static RenderTransform of(IRenderer renderer) {
+        return new RenderTransform(renderer.getRotation(), renderer.getRotationCenterX(), renderer.getRotationCenterY(), renderer.getTranslationX(), renderer.getTranslationY(), renderer.getScaleX(), renderer.getScaleY(), renderer.isMirroredHor(), renderer.isMirroredVert());
+    }
+
+    public RenderTransform withRotation(float rotation) {
+        return new RenderTransform(rotation, this.rotationCenterX, this.rotationCenterY, this.translationX, this.translationY, this.scaleX, this.scaleY, this.mirroredHor, this.mirroredVert);
+    }
+
+    public RenderTransform withRotationCenter(float x, float y) {
+        return new RenderTransform(this.rotation, x, y, this.translationX, this.translationY, this.scaleX, this.scaleY, this.mirroredHor, this.mirroredVert);
+    }
+
+    public RenderTransform withTranslation(float x, float y) {
+        return new RenderTransform(this.rotation, this.rotationCenterX, this.rotationCenterY, x, y, this.scaleX, this.scaleY, this.mirroredHor, this.mirroredVert);
+    }
+
+    public RenderTransform withScale(float x, float y) {
+        return new RenderTransform(this.rotation, this.rotationCenterX, this.rotationCenterY, this.translationX, this.translationY, x, y, this.mirroredHor, this.mirroredVert);
+    }
+
+    public RenderTransform withMirrored(boolean hor, boolean vert) {
+        return new RenderTransform(this.rotation, this.rotationCenterX, this.rotationCenterY, this.translationX, this.translationY, this.scaleX, this.scaleY, hor, vert);
+    }
+
+    /**
+     * Sets the transformation of the given renderer to this one. The
+     * renderer flushes before changing it, like it does for any other
+     * transformation change.
+     *
+     * @param renderer The renderer
+     */
+    public void apply(IRenderer renderer) {
+        renderer.setRotationCenter(this.rotationCenterX, this.rotationCenterY);
+        renderer.setRotation(this.rotation);
+        renderer.setTranslation(this.translationX, this.translationY);
+        renderer.setScale(this.scaleX, this.scaleY);
+        renderer.setMirrored(this.mirroredHor, this.mirroredVert);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || this.getClass() != o.getClass()) {
+            return false;
+        }
+
+        RenderTransform other = (RenderTransform) o;
+        return Float.compare(other.rotation, this.rotation) == 0 && Float.compare(other.rotationCenterX, this.rotationCenterX) == 0 && Float.compare(other.rotationCenterY, this.rotationCenterY) == 0 && Float.compare(other.translationX, this.translationX) == 0 && Float.compare(other.translationY, this.translationY) == 0 && Float.compare(other.scaleX, this.scaleX) == 0 && Float.compare(other.scaleY, this.scaleY) == 0 && this.mirroredHor == other.mirroredHor && this.mirroredVert == other.mirroredVert;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Float.floatToIntBits(this.rotation);
+        result = 31 * result + Float.floatToIntBits(this.rotationCenterX);
+        result = 31 * result + Float.floatToIntBits(this.rotationCenterY);
+        result = 31 * result + Float.floatToIntBits(this.translationX);
+        result = 31 * result + Float.floatToIntBits(this.translationY);
+        result = 31 * result + Float.floatToIntBits(this.scaleX);
+        result = 31 * result + Float.floatToIntBits(this.scaleY);
+        result = 31 * result + (this.mirroredHor ? 1 : 0);
+        result = 31 * result + (this.mirroredVert ? 1 : 0);
+        return result;
+    }
+}
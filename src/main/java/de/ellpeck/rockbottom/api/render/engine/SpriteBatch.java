@@ -0,0 +1,249 @@
+/*
+ * This file ("SpriteBatch.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/RockBottomGame/>.
+ * View information on the project at <https://rockbottom.ellpeck.de/>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * © 2018 Ellpeck
+ */
+
+package de.ellpeck.rockbottom.api.render.engine;
+
+import com.google.common.base.Preconditions;
+import de.ellpeck.rockbottom.api.IRenderer;
+import de.ellpeck.rockbottom.api.assets.IShaderProgram;
+import de.ellpeck.rockbottom.api.assets.texture.ITexture;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Defers drawing so that vertices that share a texture and shader program are
+ * drawn together, even if they were added in between other things. Between
+ * {@link #begin(IRenderer)} and {@link #end()}, everything added to the
+ * renderer is recorded into a {@link MeshBuffer} together with its texture,
+ * program, {@link RenderTransform} and the layer set using {@link
+ * #setLayer(int)}. When the batch ends, the recorded sections are sorted
+ * stably by layer, then program, then texture, then transformation, and drawn
+ * through {@link IRenderer#addVertices(MeshBuffer, int, int)} with their
+ * transformation restored, so that the renderer only has to flush once for
+ * every distinct combination instead of every time the texture changes.
+ * <p>
+ * Sorting assumes that vertices of the same layer don't depend on the order
+ * in which they are drawn. Things that do, like overlapping translucent
+ * sprites, should be drawn while {@link #setOrdered(boolean)} is enabled,
+ * which keeps them in their original order and keeps everything before and
+ * after them from being sorted across them.
+ */
+public class SpriteBatch {
+
+    private final MeshBuffer buffer;
+    private final Map<Object, Integer> ordinals = new IdentityHashMap<>();
+    private final Map<RenderTransform, Integer> transformOrdinals = new HashMap<>();
+    private int[] toggles = new int[8];
+    private int toggleAmount;
+    private boolean ordered;
+
+    private IRenderer renderer;
+    private MeshBuffer previousCapture;
+
+    private int lastSectionAmount;
+    private int lastRunAmount;
+
+    public SpriteBatch() {
+        this(8);
+    }
+
+    /**
+     * @param componentsPerVertex The amount of components per vertex of the
+     *                            shader programs that will be drawn with
+     */
+    public SpriteBatch(int componentsPerVertex) {
+        this.buffer = new MeshBuffer(componentsPerVertex);
+    }
+
+    /**
+     * Starts recording everything that is added to the given renderer on the
+     * calling thread
+     *
+     * @param renderer The renderer
+     */
+    public void begin(IRenderer renderer) {
+        Preconditions.checkState(this.renderer == null, "Sprite batch has already begun");
+        this.renderer = renderer;
+        this.previousCapture = renderer.getCapture();
+
+        this.buffer.clear();
+        this.buffer.setTexture(renderer.getTexture());
+        this.buffer.setProgram(renderer.getProgram());
+        this.buffer.setTransform(RenderTransform.of(renderer));
+        this.toggleAmount = 0;
+        this.ordered = false;
+
+        renderer.setCapture(this.buffer);
+    }
+
+    /**
+     * Sets the layer that everything added from now on is sorted into. Lower
+     * layers are drawn first.
+     *
+     * @param layer The layer
+     */
+    public void setLayer(int layer) {
+        Preconditions.checkState(this.renderer != null, "Sprite batch hasn't begun");
+        this.buffer.setLayer(layer);
+    }
+
+    /**
+     * Sets if everything added from now on has to be drawn in the order it is
+     * added in, which is needed for translucent draws that overlap
+     *
+     * @param ordered If the draws are order-dependent
+     */
+    public void setOrdered(boolean ordered) {
+        Preconditions.checkState(this.renderer != null, "Sprite batch hasn't begun");
+        if (this.ordered != ordered) {
+            this.ordered = ordered;
+            this.buffer.breakSection();
+
+            if (this.toggleAmount >= this.toggles.length) {
+                this.toggles = Arrays.copyOf(this.toggles, this.toggles.length * 2);
+            }
+            this.toggles[this.toggleAmount++] = this.buffer.getSectionAmount();
+        }
+    }
+
+    public boolean isOrdered() {
+        return this.ordered;
+    }
+
+    public boolean isBatching() {
+        return this.renderer != null;
+    }
+
+    /**
+     * Stops recording, sorts the recorded sections and draws them with the
+     * renderer that was passed to {@link #begin(IRenderer)}. Afterwards, the
+     * renderer's texture, program and transformation are the ones that were
+     * last set while recording, like they would be without batching.
+     */
+    public void end() {
+        Preconditions.checkState(this.renderer != null, "Sprite batch hasn't begun");
+        IRenderer renderer = this.renderer;
+        this.renderer = null;
+        renderer.setCapture(this.previousCapture);
+        this.previousCapture = null;
+
+        int amount = this.buffer.getSectionAmount();
+        int[] groups = new int[amount];
+        int[] programs = new int[amount];
+        int[] textures = new int[amount];
+        int[] transforms = new int[amount];
+
+        int group = 0;
+        int toggle = 0;
+        boolean ordered = false;
+        for (int i = 0; i < amount; i++) {
+            while (toggle < this.toggleAmount && this.toggles[toggle] <= i) {
+                ordered = !ordered;
+                group++;
+                toggle++;
+            }
+            groups[i] = group;
+            if (ordered) {
+                // every ordered section gets its own group so that it stays in place
+                group++;
+            }
+            programs[i] = getOrdinal(this.ordinals, this.buffer.getSectionProgram(i));
+            textures[i] = getOrdinal(this.ordinals, this.buffer.getSectionTexture(i));
+            transforms[i] = getOrdinal(this.transformOrdinals, this.buffer.getSectionTransform(i));
+        }
+        this.ordinals.clear();
+        this.transformOrdinals.clear();
+
+        Integer[] order = new Integer[amount];
+        for (int i = 0; i < amount; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.<Integer>comparingInt(i -> groups[i])
+                .thenComparingInt(this.buffer::getSectionLayer)
+                .thenComparingInt(i -> programs[i])
+                .thenComparingInt(i -> textures[i])
+                .thenComparingInt(i -> transforms[i]));
+
+        int runs = 0;
+        IShaderProgram lastProgram = null;
+        ITexture lastTexture = null;
+        RenderTransform lastTransform = RenderTransform.of(renderer);
+        for (int i = 0; i < amount; i++) {
+            int section = order[i];
+            IShaderProgram program = this.buffer.getSectionProgram(section);
+            ITexture texture = this.buffer.getSectionTexture(section);
+            RenderTransform transform = this.buffer.getSectionTransform(section);
+            boolean transformChanged = transform != null && !transform.equals(lastTransform);
+            if (i <= 0 || program != lastProgram || texture != lastTexture || transformChanged) {
+                renderer.setProgram(program);
+                renderer.setTexture(texture);
+                if (transformChanged) {
+                    transform.apply(renderer);
+                    lastTransform = transform;
+                }
+                lastProgram = program;
+                lastTexture = texture;
+                runs++;
+            }
+            renderer.addVertices(this.buffer, this.buffer.getSectionStart(section), this.buffer.getSectionVertexAmount(section));
+        }
+
+        renderer.setProgram(this.buffer.getProgram());
+        renderer.setTexture(this.buffer.getTexture());
+        RenderTransform transform = this.buffer.getTransform();
+        if (transform != null && !transform.equals(lastTransform)) {
+            transform.apply(renderer);
+        }
+
+        this.lastSectionAmount = amount;
+        this.lastRunAmount = runs;
+    }
+
+    /**
+     * @return The amount of sections that were recorded by the last batch,
+     * which is how many times the texture or program would have changed
+     * without batching
+     */
+    public int getLastSectionAmount() {
+        return this.lastSectionAmount;
+    }
+
+    /**
+     * @return The amount of distinct runs of texture, program and
+     * transformation that the last batch was drawn in
+     */
+    public int getLastRunAmount() {
+        return this.lastRunAmount;
+    }
+
+    private static <T> int getOrdinal(Map<T, Integer> ordinals, T object) {
+        Integer ordinal = ordinals.get(object);
+        if (ordinal == null) {
+            ordinal = ordinals.size();
+            ordinals.put(object, ordinal);
+        }
+        return ordinal;
+    }
+}
@@ -56,6 +56,28 @@ public class DefaultTileRenderer<T extends Tile> implements ITileRenderer<T> {
 
     }
 
+    /**
+     * The default renderer only draws a positional variation of its texture,
+     * which only depends on the state and the position, so it can be cached.
+     * This isn't inherited by subclasses, which have to opt in themselves if
+     * they know that their rendering is static.
+     */
+    @Override
+    public boolean isStaticMesh(IGameInstance game, IAssetManager manager, IWorld world, T tile, TileState state, int x, int y, TileLayer layer) {
+        return this.getClass() == DefaultTileRenderer.class;
+    }
+
+    /**
+     * The default renderer only looks at the state to find out if a tile is
+     * chiseled, so it can be used on other threads. This isn't inherited by
+     * subclasses, which have to opt in themselves if they neither read from
+     * the world nor change their fields while rendering.
+     */
+    @Override
+    public boolean isMeshThreadSafe() {
+        return this.getClass() == DefaultTileRenderer.class;
+    }
+
     @Override
     public void renderInForeground(IGameInstance game, IAssetManager manager, IRenderer renderer, IWorld world, T tile, TileState state, int x, int y, TileLayer layer, float renderX, float renderY, float scale, int[] light) {
         if (tile.isChiseled(world, x, y, layer, state))
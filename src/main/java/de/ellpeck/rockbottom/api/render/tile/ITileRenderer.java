@@ -28,6 +28,7 @@ import de.ellpeck.rockbottom.api.assets.IAssetManager;
 import de.ellpeck.rockbottom.api.assets.texture.ITexture;
 import de.ellpeck.rockbottom.api.entity.player.AbstractPlayerEntity;
 import de.ellpeck.rockbottom.api.item.ItemInstance;
+import de.ellpeck.rockbottom.api.render.ChunkMesh;
 import de.ellpeck.rockbottom.api.tile.Tile;
 import de.ellpeck.rockbottom.api.tile.state.TileState;
 import de.ellpeck.rockbottom.api.util.reg.ResourceName;
@@ -58,6 +59,56 @@ public interface ITileRenderer<T extends Tile> {
         return null;
     }
 
+    /**
+     * Returns if the given tile can be baked into its chunk's {@link
+     * ChunkMesh}, meaning that {@link #render(IGameInstance, IAssetManager,
+     * IRenderer, IWorld, Tile, TileState, int, int, TileLayer, float, float,
+     * float, int[])} draws exactly the same thing every frame until the chunk
+     * is changed or its light changes. This is false by default, so renderers
+     * that animate or otherwise depend on the time or the player keep being
+     * rendered every frame like before, and only renderers that know that
+     * they are static, like {@link DefaultTileRenderer}, opt into being
+     * cached. Renderers that read neighboring tiles should only return true
+     * for positions whose neighbors are in the same chunk, since changes in
+     * other chunks don't cause a rebuild. {@link
+     * #renderInForeground(IGameInstance, IAssetManager, IRenderer, IWorld,
+     * Tile, TileState, int, int, TileLayer, float, float, float, int[])} is
+     * always called every frame.
+     *
+     * @param game    The game instance
+     * @param manager The asset manager
+     * @param world   The world
+     * @param tile    The tile
+     * @param state   The state
+     * @param x       The x coordinate
+     * @param y       The y coordinate
+     * @param layer   The layer
+     * @return If the tile can be cached in a static mesh
+     */
+    default boolean isStaticMesh(IGameInstance game, IAssetManager manager, IWorld world, T tile, TileState state, int x, int y, TileLayer layer) {
+        return false;
+    }
+
+    /**
+     * Returns if this renderer's {@link #render(IGameInstance, IAssetManager,
+     * IRenderer, IWorld, Tile, TileState, int, int, TileLayer, float, float,
+     * float, int[])}, {@link #isStaticMesh(IGameInstance, IAssetManager,
+     * IWorld, Tile, TileState, int, int, TileLayer)} and {@link
+     * #getRenderShader(IGameInstance, IAssetManager, IRenderer, IWorld, Tile,
+     * TileState, int, int, TileLayer)} can be called on a worker thread while
+     * a {@link ChunkMesh} is being built. Renderers that return true may only
+     * look at the tile, state, position and layer that they are given and at
+     * the assets, and must neither read from the world, which keeps changing
+     * on the game thread at the same time, nor change any of their own
+     * fields. This is false by default, in which case chunk layers that
+     * contain the tile are built on the rendering thread instead.
+     *
+     * @return If this renderer can be used to build meshes on other threads
+     */
+    default boolean isMeshThreadSafe() {
+        return false;
+    }
+
     default ResourceName getRenderShader(IGameInstance game, IAssetManager manager, IRenderer renderer, IWorld world, T tile, TileState state, int x, int y, TileLayer layer) {
         return null;
     }
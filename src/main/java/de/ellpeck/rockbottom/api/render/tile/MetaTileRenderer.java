@@ -46,6 +46,24 @@ public class MetaTileRenderer<T extends TileMeta> extends DefaultTileRenderer<T>
         super.render(game, manager, renderer, world, tile, state, x, y, layer, renderX, renderY, scale, light);
     }
 
+    /**
+     * The texture only depends on the meta of the state, so the meta renderer
+     * can be cached like the default one.
+     */
+    @Override
+    public boolean isStaticMesh(IGameInstance game, IAssetManager manager, IWorld world, T tile, TileState state, int x, int y, TileLayer layer) {
+        return this.getClass() == MetaTileRenderer.class;
+    }
+
+    /**
+     * Rendering changes the texture field of this renderer, so it can't be
+     * used on more than one thread at a time.
+     */
+    @Override
+    public boolean isMeshThreadSafe() {
+        return false;
+    }
+
     @Override
     public void renderItem(IGameInstance game, IAssetManager manager, IRenderer renderer, T tile, ItemInstance instance, float x, float y, float scale, int filter) {
         this.setTextureResource(tile, instance.getMeta());
@@ -62,6 +62,21 @@ public class MultiTileRenderer<T extends MultiTile> extends DefaultTileRenderer<
         manager.getTexture(this.textures.get(innerCoord)).getPositionalVariation(x, y).draw(renderX, renderY, scale, scale, light);
     }
 
+    /**
+     * The texture only depends on the part of the multi tile that the state
+     * belongs to and the position, so the multi renderer can be cached and
+     * used on other threads like the default one.
+     */
+    @Override
+    public boolean isStaticMesh(IGameInstance game, IAssetManager manager, IWorld world, T tile, TileState state, int x, int y, TileLayer layer) {
+        return this.getClass() == MultiTileRenderer.class;
+    }
+
+    @Override
+    public boolean isMeshThreadSafe() {
+        return this.getClass() == MultiTileRenderer.class;
+    }
+
     @Override
     public ITexture getParticleTexture(IGameInstance game, IAssetManager manager, IRenderer renderer, T tile, TileState state) {
         Pos2 innerCoord = tile.getInnerCoord(state);
@@ -1,5 +1,6 @@
 package de.ellpeck.rockbottom.api.render.tile;
 
+import de.ellpeck.rockbottom.api.Constants;
 import de.ellpeck.rockbottom.api.GameContent;
 import de.ellpeck.rockbottom.api.IGameInstance;
 import de.ellpeck.rockbottom.api.IRenderer;
@@ -78,6 +79,26 @@ public class PlatformTileRenderer extends DefaultTileRenderer<PlatformTile> {
         texture.draw(renderX + (flip ? scale : 0), renderY, renderX + (flip ? 0 : scale), renderY + scale, col * 12, row * 12, col * 12 + 12, row * 12 + 12, light);
     }
 
+    /**
+     * Platforms connect to the tiles to their left and right, which can be in
+     * a neighboring chunk, so they are only cached if both of them are in the
+     * same chunk.
+     */
+    @Override
+    public boolean isStaticMesh(IGameInstance game, IAssetManager manager, IWorld world, PlatformTile tile, TileState state, int x, int y, TileLayer layer) {
+        int innerX = Math.floorMod(x, Constants.CHUNK_SIZE);
+        return innerX > 0 && innerX < Constants.CHUNK_SIZE - 1;
+    }
+
+    /**
+     * Platforms read the tiles next to them from the world, so they can't be
+     * built on other threads.
+     */
+    @Override
+    public boolean isMeshThreadSafe() {
+        return false;
+    }
+
     @Override
     public void renderItem(IGameInstance game, IAssetManager manager, IRenderer renderer, PlatformTile tile, ItemInstance instance, float x, float y, float scale, int filter) {
         manager.getTexture(this.texture).draw(x, y + scale/2, x + scale, y + scale + scale/2, 24, 0, 36, 12, filter);
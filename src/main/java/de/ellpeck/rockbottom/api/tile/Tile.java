@@ -315,6 +315,13 @@ public class Tile {
     }
 
     public void onChangeAround(IWorld world, int x, int y, TileLayer layer, int changedX, int changedY, TileLayer changedLayer) {
+        if (this.canProvideTileEntity()) {
+            TileEntity tile = world.getTileEntity(layer, x, y);
+            if (tile != null) {
+                tile.wakeUp();
+            }
+        }
+
         if (!world.isClient() && !this.canStay(world, x, y, layer, changedX, changedY, changedLayer)) {
             this.doBreak(world, x, y, layer, null, false, true);
         }
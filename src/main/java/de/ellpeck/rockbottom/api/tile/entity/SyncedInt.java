@@ -26,11 +26,25 @@ import de.ellpeck.rockbottom.api.data.set.DataSet;
 public final class SyncedInt {
 
     private final String name;
+    private final TileEntity owner;
     private int value;
     private int lastValue;
 
     public SyncedInt(String name) {
+        this(name, null);
+    }
+
+    /**
+     * Creates a synced int that wakes up the given tile entity whenever its
+     * value changes
+     *
+     * @param name  The name to save the value with
+     * @param owner The tile entity that owns this value
+     * @see TileEntity#sleep()
+     */
+    public SyncedInt(String name, TileEntity owner) {
         this.name = name;
+        this.owner = owner;
     }
 
     public boolean needsSync() {
@@ -42,7 +56,10 @@ public final class SyncedInt {
     }
 
     public void set(int value) {
-        this.value = value;
+        if (this.value != value) {
+            this.value = value;
+            this.onChanged();
+        }
     }
 
     public int get() {
@@ -50,11 +67,11 @@ public final class SyncedInt {
     }
 
     public void add(int amount) {
-        this.value += amount;
+        this.set(this.value + amount);
     }
 
     public void remove(int amount) {
-        this.value -= amount;
+        this.set(this.value - amount);
     }
 
     public void save(DataSet set) {
@@ -64,4 +81,10 @@ public final class SyncedInt {
     public void load(DataSet set) {
         this.value = set.getInt(this.name);
     }
+
+    private void onChanged() {
+        if (this.owner != null) {
+            this.owner.wakeUp();
+        }
+    }
 }
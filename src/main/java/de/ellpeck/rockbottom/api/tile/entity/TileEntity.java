@@ -39,6 +39,11 @@ public abstract class TileEntity {
     public final int y;
     public final TileLayer layer;
 
+    TileEntityTicker ticker;
+    int tickerIndex = -1;
+    boolean asleep;
+    long wakeTime = -1;
+
     public TileEntity(IWorld world, int x, int y, TileLayer layer) {
         this.world = world;
         this.x = x;
@@ -108,4 +113,45 @@ public abstract class TileEntity {
     public boolean doesTick() {
         return false;
     }
+
+    /**
+     * Puts this tile entity to sleep, meaning that {@link #update(IGameInstance)}
+     * won't be called anymore until it is woken up again by {@link #wakeUp()}.
+     * This should be used when a tile entity knows that its update won't do
+     * anything until something around it changes. A sleeping tile entity is
+     * woken up automatically when its {@link TileInventory} changes, when a
+     * tile next to it changes, or when one of its {@link SyncedInt}s that
+     * were created with it as their owner changes.
+     */
+    protected void sleep() {
+        if (this.ticker != null) {
+            this.ticker.sleep(this, -1);
+        }
+    }
+
+    /**
+     * Puts this tile entity to sleep like {@link #sleep()}, but also wakes it
+     * up once the given amount of ticks has passed.
+     *
+     * @param ticks The maximum amount of ticks to sleep for
+     */
+    protected void sleepFor(int ticks) {
+        if (this.ticker != null) {
+            this.ticker.sleep(this, this.world.getTotalTime() + Math.max(1, ticks));
+        }
+    }
+
+    /**
+     * Wakes this tile entity up if it is asleep, so that {@link
+     * #update(IGameInstance)} is called again every tick.
+     */
+    public void wakeUp() {
+        if (this.asleep && this.ticker != null) {
+            this.ticker.wake(this);
+        }
+    }
+
+    public boolean isAsleep() {
+        return this.asleep;
+    }
 }
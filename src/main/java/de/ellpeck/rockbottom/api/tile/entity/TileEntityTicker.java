@@ -0,0 +1,261 @@
+/*
+ * This file ("TileEntityTicker.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/RockBottomGame/>.
+ * View information on the project at <https://rockbottom.ellpeck.de/>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * © 2018 Ellpeck
+ */
+
+package de.ellpeck.rockbottom.api.tile.entity;
+
+import com.google.common.base.Preconditions;
+import de.ellpeck.rockbottom.api.IGameInstance;
+import de.ellpeck.rockbottom.api.world.IWorld;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Ticks all of the ticking {@link TileEntity} objects in a world, skipping
+ * the ones that are asleep. A tile entity can put itself to sleep using {@link
+ * TileEntity#sleep()} or {@link TileEntity#sleepFor(int)} when it knows that
+ * its {@link TileEntity#update(IGameInstance)} won't do anything, like a
+ * smelter without fuel, and it is then woken up again by {@link
+ * TileEntity#wakeUp()}. This happens automatically when its {@link
+ * TileInventory} changes, when a tile next to it changes, when one of its
+ * {@link SyncedInt}s changes or when the time it was put to sleep for has
+ * passed.
+ * <p>
+ * When profiling is enabled, the time spent updating tile entities is
+ * recorded for every tile entity class.
+ *
+ * @see IWorld#getTileEntityTicker()
+ */
+public final class TileEntityTicker {
+
+    private final IWorld world;
+    private final List<TileEntity> awake = new ArrayList<>();
+    private final PriorityQueue<TimedWake> timedWakes = new PriorityQueue<>(Comparator.comparingLong(wake -> wake.time));
+    private final Map<Class<? extends TileEntity>, TickTiming> timings = new HashMap<>();
+    private TileEntity[] ticking = new TileEntity[64];
+    private int sleepingAmount;
+    private boolean profiling;
+
+    public TileEntityTicker(IWorld world) {
+        this.world = world;
+    }
+
+    /**
+     * Adds a tile entity to be ticked. It starts out awake.
+     *
+     * @param tile The tile entity
+     */
+    public void add(TileEntity tile) {
+        Preconditions.checkState(tile.ticker == null, "Tried adding tile entity %s to a ticker twice", tile);
+        tile.ticker = this;
+        tile.asleep = false;
+        tile.wakeTime = -1;
+        this.addAwake(tile);
+    }
+
+    /**
+     * Removes a tile entity so that it isn't ticked anymore, no matter if it
+     * is awake or asleep.
+     *
+     * @param tile The tile entity
+     */
+    public void remove(TileEntity tile) {
+        if (tile.ticker == this) {
+            if (tile.asleep) {
+                this.sleepingAmount--;
+                this.removeTimedWake(tile);
+            } else {
+                this.removeAwake(tile);
+            }
+            tile.ticker = null;
+            tile.asleep = false;
+            tile.wakeTime = -1;
+        }
+    }
+
+    /**
+     * Wakes up all of the tile entities whose sleep time has passed and
+     * updates all of the tile entities that are awake. Tile entities that are
+     * added or woken up while the others are being updated are first updated
+     * in the next tick.
+     *
+     * @param game The game instance
+     */
+    public void tick(IGameInstance game) {
+        long time = this.world.getTotalTime();
+        while (!this.timedWakes.isEmpty() && this.timedWakes.peek().time <= time) {
+            TimedWake wake = this.timedWakes.poll();
+            TileEntity tile = wake.tile;
+            if (tile.ticker == this && tile.asleep && tile.wakeTime == wake.time) {
+                tile.wakeTime = -1;
+                this.wake(tile);
+            }
+        }
+
+        int amount = this.awake.size();
+        if (this.ticking.length < amount) {
+            this.ticking = new TileEntity[Math.max(amount, this.ticking.length * 2)];
+        }
+        this.awake.toArray(this.ticking);
+
+        for (int i = 0; i < amount; i++) {
+            TileEntity tile = this.ticking[i];
+            this.ticking[i] = null;
+
+            if (tile.ticker == this && !tile.asleep) {
+                if (this.profiling) {
+                    long start = System.nanoTime();
+                    tile.update(game);
+                    this.timings.computeIfAbsent(tile.getClass(), c -> new TickTiming()).add(System.nanoTime() - start);
+                } else {
+                    tile.update(game);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The amount of tile entities that are currently updated every
+     * tick
+     */
+    public int getAwakeAmount() {
+        return this.awake.size();
+    }
+
+    /**
+     * @return The amount of tile entities that are currently asleep
+     */
+    public int getSleepingAmount() {
+        return this.sleepingAmount;
+    }
+
+    public boolean isProfiling() {
+        return this.profiling;
+    }
+
+    public void setProfiling(boolean profiling) {
+        this.profiling = profiling;
+    }
+
+    /**
+     * Returns the time spent updating tile entities of each class since
+     * profiling was enabled or the timings were last reset
+     *
+     * @return The timings per tile entity class
+     */
+    public Map<Class<? extends TileEntity>, TickTiming> getTimings() {
+        return Collections.unmodifiableMap(this.timings);
+    }
+
+    public void resetTimings() {
+        this.timings.clear();
+    }
+
+    void sleep(TileEntity tile, long wakeTime) {
+        if (!tile.asleep) {
+            this.removeAwake(tile);
+            tile.asleep = true;
+            this.sleepingAmount++;
+        }
+
+        this.removeTimedWake(tile);
+        tile.wakeTime = wakeTime;
+        if (wakeTime >= 0) {
+            this.timedWakes.add(new TimedWake(tile, wakeTime));
+        }
+    }
+
+    void wake(TileEntity tile) {
+        if (tile.asleep) {
+            this.removeTimedWake(tile);
+            tile.asleep = false;
+            tile.wakeTime = -1;
+            this.sleepingAmount--;
+            this.addAwake(tile);
+        }
+    }
+
+    private void removeTimedWake(TileEntity tile) {
+        if (tile.wakeTime >= 0) {
+            this.timedWakes.removeIf(wake -> wake.tile == tile);
+        }
+    }
+
+    private void addAwake(TileEntity tile) {
+        tile.tickerIndex = this.awake.size();
+        this.awake.add(tile);
+    }
+
+    private void removeAwake(TileEntity tile) {
+        int index = tile.tickerIndex;
+        TileEntity last = this.awake.remove(this.awake.size() - 1);
+        if (last != tile) {
+            this.awake.set(index, last);
+            last.tickerIndex = index;
+        }
+        tile.tickerIndex = -1;
+    }
+
+    private static final class TimedWake {
+
+        private final TileEntity tile;
+        private final long time;
+
+        private TimedWake(TileEntity tile, long time) {
+            this.tile = tile;
+            this.time = time;
+        }
+    }
+
+    public static final class TickTiming {
+
+        private long totalNanos;
+        private long maxNanos;
+        private long updates;
+
+        private void add(long nanos) {
+            this.totalNanos += nanos;
+            this.maxNanos = Math.max(this.maxNanos, nanos);
+            this.updates++;
+        }
+
+        public long getTotalNanos() {
+            return this.totalNanos;
+        }
+
+        public long getMaxNanos() {
+            return this.maxNanos;
+        }
+
+        public long getUpdates() {
+            return this.updates;
+        }
+
+        public long getAverageNanos() {
+            return this.updates > 0 ? this.totalNanos / this.updates : 0;
+        }
+    }
+}
@@ -60,6 +60,9 @@ public class TileInventory extends BasicFilteredInventory {
 
     public TileInventory(TileEntity tile, int slotAmount, Function<ItemInstance, List<Integer>> inputSlotFunction, List<Integer> outputSlots) {
         super(slotAmount, inputSlotFunction, outputSlots);
-        this.addChangeCallback((inv, slot) -> tile.world.setDirty(tile.x, tile.y));
+        this.addChangeCallback((inv, slot) -> {
+            tile.world.setDirty(tile.x, tile.y);
+            tile.wakeUp();
+        });
     }
 }
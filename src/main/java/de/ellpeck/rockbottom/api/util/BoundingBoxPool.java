@@ -0,0 +1,102 @@
+/*
+ * This file ("BoundingBoxPool.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/RockBottomGame/>.
+ * View information on the project at <https://rockbottom.ellpeck.de/>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * © 2018 Ellpeck
+ */
+
+package de.ellpeck.rockbottom.api.util;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Arrays;
+
+/**
+ * A pool of scratch {@link BoundingBox} objects that can be reused instead of
+ * creating new ones for every collision check. Boxes are handed out in order,
+ * and everything that was obtained after a {@link #mark()} is given back at
+ * once using {@link #release(int)}, like this:
+ * <pre>{@code
+ * BoundingBoxPool pool = BoundingBoxPool.local();
+ * int mark = pool.mark();
+ * try {
+ *     BoundingBox box = pool.obtain(object.currentBounds).add(motionX, motionY);
+ *     ...
+ * } finally {
+ *     pool.release(mark);
+ * }
+ * }</pre>
+ * Boxes obtained from a pool must not be stored anywhere once they have been
+ * released. A pool is not thread-safe, which is why every thread has its own
+ * one in {@link #local()}.
+ */
+public final class BoundingBoxPool {
+
+    private static final ThreadLocal<BoundingBoxPool> LOCAL = ThreadLocal.withInitial(BoundingBoxPool::new);
+
+    private BoundingBox[] boxes = new BoundingBox[32];
+    private int used;
+
+    public static BoundingBoxPool local() {
+        return LOCAL.get();
+    }
+
+    public BoundingBox obtain() {
+        return this.obtain(0, 0, 0, 0);
+    }
+
+    public BoundingBox obtain(BoundingBox box) {
+        return this.obtain(box.getMinX(), box.getMinY(), box.getMaxX(), box.getMaxY());
+    }
+
+    public BoundingBox obtain(double minX, double minY, double maxX, double maxY) {
+        if (this.used >= this.boxes.length) {
+            this.boxes = Arrays.copyOf(this.boxes, this.boxes.length * 2);
+        }
+
+        BoundingBox box = this.boxes[this.used];
+        if (box == null) {
+            box = new BoundingBox();
+            this.boxes[this.used] = box;
+        }
+        this.used++;
+        return box.set(minX, minY, maxX, maxY);
+    }
+
+    /**
+     * Returns a mark that all of the boxes obtained after this call can be
+     * released with
+     *
+     * @return The mark
+     */
+    public int mark() {
+        return this.used;
+    }
+
+    public void release(int mark) {
+        Preconditions.checkArgument(mark >= 0 && mark <= this.used, "Tried releasing bounding box pool to mark " + mark + " while only " + this.used + " boxes are in use");
+        this.used = mark;
+    }
+
+    public void releaseAll() {
+        this.used = 0;
+    }
+
+    public int getUsedAmount() {
+        return this.used;
+    }
+}
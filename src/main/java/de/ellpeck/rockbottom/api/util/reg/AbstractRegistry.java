@@ -29,6 +29,8 @@ import de.ellpeck.rockbottom.api.RockBottomAPI;
 
 import java.util.Map;
 import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 public class AbstractRegistry<T, U> implements IRegistry<T, U> {
 
@@ -36,6 +38,7 @@ public class AbstractRegistry<T, U> implements IRegistry<T, U> {
     protected final boolean canUnregister;
     protected final BiMap<T, U> map = HashBiMap.create();
     protected final BiMap<T, U> unmodifiableMap;
+    private int modificationCount;
 
     public AbstractRegistry(ResourceName name, boolean canUnregister) {
         this.name = name;
@@ -46,11 +49,16 @@ public class AbstractRegistry<T, U> implements IRegistry<T, U> {
 
     @Override
     public void register(T key, U value) {
-        Preconditions.checkArgument(key != null, "Tried registering " + value + " with name " + key + " which is invalid into registry " + this);
-        Preconditions.checkArgument(!this.map.containsKey(key), "Cannot register " + value + " with name " + key + " twice into registry " + this);
+        Preconditions.checkArgument(key != null, "Tried registering %s with name %s which is invalid into registry %s", value, key, this);
+        Preconditions.checkArgument(!this.map.containsKey(key), "Cannot register %s with name %s twice into registry %s", value, key, this);
 
         this.map.put(key, value);
-        RockBottomAPI.logger().config("Registered " + value + " with name " + key + " into registry " + this);
+        this.modificationCount++;
+
+        Logger logger = RockBottomAPI.logger();
+        if (logger.isLoggable(Level.CONFIG)) {
+            logger.config("Registered " + value + " with name " + key + " into registry " + this);
+        }
     }
 
     @Override
@@ -77,12 +85,21 @@ public class AbstractRegistry<T, U> implements IRegistry<T, U> {
     public void unregister(T key) {
         if (this.canUnregister) {
             this.map.remove(key);
-            RockBottomAPI.logger().config("Unregistered " + key + " from registry " + this);
+            this.modificationCount++;
+
+            Logger logger = RockBottomAPI.logger();
+            if (logger.isLoggable(Level.CONFIG)) {
+                logger.config("Unregistered " + key + " from registry " + this);
+            }
         } else {
             throw new UnsupportedOperationException("Unregistering from registry " + this + " is disallowed");
         }
     }
 
+    public boolean canUnregister() {
+        return this.canUnregister;
+    }
+
     @Override
     public BiMap<T, U> getUnmodifiable() {
         return this.unmodifiableMap;
@@ -103,6 +120,17 @@ public class AbstractRegistry<T, U> implements IRegistry<T, U> {
         return this.unmodifiableMap.entrySet();
     }
 
+    /**
+     * Returns a number that changes every time something is registered into
+     * or unregistered from this registry, which can be used to find out if
+     * data derived from this registry's contents is out of date.
+     *
+     * @return The modification count
+     */
+    public int getModificationCount() {
+        return this.modificationCount;
+    }
+
     @Override
     public ResourceName getName() {
         return this.name;
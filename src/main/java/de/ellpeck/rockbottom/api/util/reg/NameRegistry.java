@@ -21,9 +21,100 @@
 
 package de.ellpeck.rockbottom.api.util.reg;
 
+import com.google.common.base.Preconditions;
+import de.ellpeck.rockbottom.api.Registries;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A registry that maps {@link ResourceName}s to values. Once all of the
+ * content has been registered, the registry can be {@link #freeze()}n, which
+ * assigns every entry a dense int id, so that hot code can look entries up
+ * using {@link #get(int)} and {@link #getIndex(Object)}, which are backed by
+ * an array and an identity map, rather than by hashing resource names. The
+ * game freezes every registry in {@link Registries#REGISTRIES} that can't be
+ * unregistered from using {@link Registries#freezeAll()} once all mods are
+ * done loading.
+ *
+ * @param <U> The type of the registered values
+ */
 public class NameRegistry<U> extends AbstractRegistry<ResourceName, U> {
 
+    private Object[] byIndex;
+    private Map<U, Integer> indices;
+
     public NameRegistry(ResourceName name, boolean canUnregister) {
         super(name, canUnregister);
     }
+
+    @Override
+    public void register(ResourceName key, U value) {
+        Preconditions.checkState(!this.isFrozen(), "Cannot register %s with name %s into registry %s after it has been frozen", value, key, this);
+        super.register(key, value);
+    }
+
+    @Override
+    public void unregister(ResourceName key) {
+        Preconditions.checkState(!this.isFrozen(), "Cannot unregister %s from registry %s after it has been frozen", key, this);
+        super.unregister(key);
+    }
+
+    /**
+     * Assigns every registered entry a dense int id in the order of their
+     * names and prevents any further registering or unregistering. This
+     * should be called once all of the content has been loaded. Calling this
+     * on a frozen registry does nothing.
+     */
+    public void freeze() {
+        if (this.isFrozen()) {
+            return;
+        }
+
+        List<ResourceName> names = new ArrayList<>(this.map.keySet());
+        names.sort(null);
+
+        Object[] values = new Object[names.size()];
+        Map<U, Integer> indices = new IdentityHashMap<>(names.size());
+        for (int i = 0; i < values.length; i++) {
+            U value = this.map.get(names.get(i));
+            values[i] = value;
+            indices.put(value, i);
+        }
+
+        this.indices = indices;
+        this.byIndex = values;
+    }
+
+    public boolean isFrozen() {
+        return this.byIndex != null;
+    }
+
+    /**
+     * Returns the value with the given dense id that was assigned when this
+     * registry was frozen
+     *
+     * @param index The id
+     * @return The value, or null if there is none with that id
+     */
+    @SuppressWarnings("unchecked")
+    public U get(int index) {
+        Preconditions.checkState(this.isFrozen(), "Cannot access registry %s by index before it has been frozen", this);
+        return index >= 0 && index < this.byIndex.length ? (U) this.byIndex[index] : null;
+    }
+
+    /**
+     * Returns the dense id that was assigned to the given value when this
+     * registry was frozen
+     *
+     * @param value The value
+     * @return The id, or -1 if the value isn't registered
+     */
+    public int getIndex(U value) {
+        Preconditions.checkState(this.isFrozen(), "Cannot access registry %s by index before it has been frozen", this);
+        Integer index = this.indices.get(value);
+        return index != null ? index : -1;
+    }
 }
@@ -25,6 +25,7 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import de.ellpeck.rockbottom.api.data.IDataManager;
 import de.ellpeck.rockbottom.api.data.settings.IJsonSettings;
+import de.ellpeck.rockbottom.api.net.NetCodec;
 import de.ellpeck.rockbottom.api.net.NetUtil;
 import de.ellpeck.rockbottom.api.util.ApiInternal;
 import io.netty.buffer.ByteBuf;
@@ -70,17 +71,33 @@ public final class NameToIndexInfo implements IJsonSettings {
     public void fromBuffer(ByteBuf buf) {
         this.reg.map.clear();
 
-        int amount = buf.readInt();
-        for (int i = 0; i < amount; i++) {
-            this.reg.map.put(buf.readInt(), new ResourceName(NetUtil.readStringFromBuffer(buf)));
+        if (NetCodec.isCompact()) {
+            int amount = NetUtil.readVarIntFromBuffer(buf);
+            for (int i = 0; i < amount; i++) {
+                this.reg.map.put(NetUtil.readVarIntFromBuffer(buf), new ResourceName(NetUtil.readStringFromBuffer(buf)));
+            }
+        } else {
+            int amount = buf.readInt();
+            for (int i = 0; i < amount; i++) {
+                this.reg.map.put(buf.readInt(), new ResourceName(NetUtil.readStringFromBuffer(buf)));
+            }
         }
     }
 
     public void toBuffer(ByteBuf buf) {
-        buf.writeInt(this.reg.getSize());
+        boolean compact = NetCodec.isCompact();
+        if (compact) {
+            NetUtil.writeVarIntToBuffer(this.reg.getSize(), buf);
+        } else {
+            buf.writeInt(this.reg.getSize());
+        }
 
         for (Map.Entry<Integer, ResourceName> entry : this.reg.map.entrySet()) {
-            buf.writeInt(entry.getKey());
+            if (compact) {
+                NetUtil.writeVarIntToBuffer(entry.getKey(), buf);
+            } else {
+                buf.writeInt(entry.getKey());
+            }
             NetUtil.writeStringToBuffer(entry.getValue().toString(), buf);
         }
     }
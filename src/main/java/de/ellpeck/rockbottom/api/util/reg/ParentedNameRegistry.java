@@ -21,6 +21,8 @@
 
 package de.ellpeck.rockbottom.api.util.reg;
 
+import com.google.common.base.Preconditions;
+
 public class ParentedNameRegistry<T> extends NameRegistry<T> {
 
     private final NameRegistry<T> parent;
@@ -32,12 +34,21 @@ public class ParentedNameRegistry<T> extends NameRegistry<T> {
 
     @Override
     public void register(ResourceName name, T value) {
+        // check this registry before the parent is changed so that both stay consistent
+        Preconditions.checkState(!this.isFrozen(), "Cannot register %s with name %s into registry %s after it has been frozen", value, name, this);
+        Preconditions.checkArgument(!this.map.containsKey(name), "Cannot register %s with name %s twice into registry %s", value, name, this);
+
         this.parent.register(name, value);
         super.register(name, value);
     }
 
     @Override
     public void unregister(ResourceName name) {
+        Preconditions.checkState(!this.isFrozen(), "Cannot unregister %s from registry %s after it has been frozen", name, this);
+        if (!this.canUnregister) {
+            throw new UnsupportedOperationException("Unregistering from registry " + this + " is disallowed");
+        }
+
         this.parent.unregister(name);
         super.unregister(name);
     }
@@ -29,6 +29,9 @@ import de.ellpeck.rockbottom.api.mod.IMod;
 import de.ellpeck.rockbottom.api.util.ApiInternal;
 import de.ellpeck.rockbottom.api.util.Util;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * A resource name that defines the name of a resource and the domain that it is
  * created from. A resource name is structured in the following way: The domain,
@@ -42,8 +45,13 @@ import de.ellpeck.rockbottom.api.util.Util;
  */
 public final class ResourceName implements Comparable<ResourceName> {
 
+    private static final int MAX_CACHED_NAMES = 1 << 14;
+    private static final Map<String, ResourceName> CACHE = new ConcurrentHashMap<>();
+
     private final String domain;
     private final String resourceName;
+    private String combined;
+    private int hash;
 
     /**
      * Creates a resource name with the given {@link IMod} as the domain.
@@ -66,9 +74,10 @@ public final class ResourceName implements Comparable<ResourceName> {
     public ResourceName(String combined) {
         Preconditions.checkArgument(Util.isResourceName(combined), "Cannot create a resource name from combined string " + combined);
 
-        String[] split = combined.split(Constants.RESOURCE_SEPARATOR, 2);
-        this.domain = split[0];
-        this.resourceName = split[1];
+        int separator = combined.indexOf(Constants.RESOURCE_SEPARATOR);
+        this.domain = combined.substring(0, separator);
+        this.resourceName = combined.substring(separator + Constants.RESOURCE_SEPARATOR.length());
+        this.combined = combined;
     }
 
     private ResourceName(String domain, String resourceName) {
@@ -76,6 +85,28 @@ public final class ResourceName implements Comparable<ResourceName> {
         this.resourceName = resourceName;
     }
 
+    /**
+     * Returns a resource name for the given combined string, like {@link
+     * #ResourceName(String)} does, but reuses the same instance for the same
+     * string. This should be used when the same names are read over and over
+     * again, like when loading items and entities from data sets, so that
+     * looking them up doesn't create and validate a new resource name every
+     * time.
+     *
+     * @param combined The combined resource string
+     * @return The resource name
+     */
+    public static ResourceName of(String combined) {
+        ResourceName name = CACHE.get(combined);
+        if (name == null) {
+            name = new ResourceName(combined);
+            if (CACHE.size() < MAX_CACHED_NAMES) {
+                CACHE.put(combined, name);
+            }
+        }
+        return name;
+    }
+
     /**
      * Creates an internal resource name that uses the {@link IGameInstance}
      * instance from {@link RockBottomAPI#getGame()} as the domain. Using this
@@ -155,8 +186,12 @@ public final class ResourceName implements Comparable<ResourceName> {
 
     @Override
     public int hashCode() {
-        int result = this.domain.hashCode();
-        result = 31 * result + this.resourceName.hashCode();
+        int result = this.hash;
+        if (result == 0) {
+            result = this.domain.hashCode();
+            result = 31 * result + this.resourceName.hashCode();
+            this.hash = result;
+        }
         return result;
     }
 
@@ -167,6 +202,11 @@ public final class ResourceName implements Comparable<ResourceName> {
 
     @Override
     public String toString() {
-        return this.getDomain() + Constants.RESOURCE_SEPARATOR + this.getResourceName();
+        String result = this.combined;
+        if (result == null) {
+            result = this.getDomain() + Constants.RESOURCE_SEPARATOR + this.getResourceName();
+            this.combined = result;
+        }
+        return result;
     }
 }
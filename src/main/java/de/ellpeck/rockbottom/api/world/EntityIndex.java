@@ -0,0 +1,482 @@
+/*
+ * This file ("EntityIndex.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/RockBottomGame/>.
+ * View information on the project at <https://rockbottom.ellpeck.de/>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * © 2018 Ellpeck
+ */
+
+package de.ellpeck.rockbottom.api.world;
+
+import com.google.common.base.Preconditions;
+import de.ellpeck.rockbottom.api.entity.Entity;
+import de.ellpeck.rockbottom.api.util.BoundingBox;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * A spatial index of all of the {@link Entity} objects in a world. Entities are
+ * put into the cell of a uniform grid that their center is in, and queries
+ * look at every cell that an entity intersecting the queried area could be in,
+ * which makes them independent of the total amount of entities in the world.
+ * <p>
+ * The world keeps this index up to date when entities are added, removed or
+ * moved, and entities update it themselves whenever their bounds are changed
+ * through {@link Entity#move()}, {@link Entity#setBounds(double, double)} or
+ * {@link Entity#setBoundsOrigin(double, double)}, which {@link
+ * Entity#setPos(double, double)} and {@link Entity#resetBounds()} use.
+ * Queries should not add, remove or move entities from inside of the given
+ * consumers. This class is not thread-safe.
+ *
+ * @see IWorld#getEntityIndex()
+ */
+public final class EntityIndex {
+
+    public static final int DEFAULT_CELL_SIZE = 8;
+
+    private final int cellSize;
+    private final Map<Entity, Cell> entityCells = new IdentityHashMap<>();
+
+    private long[] keys = new long[64];
+    private Cell[] cells = new Cell[64];
+    private int cellAmount;
+
+    private double maxHalfWidth;
+    private double maxHalfHeight;
+    private int minCellX = Integer.MAX_VALUE;
+    private int minCellY = Integer.MAX_VALUE;
+    private int maxCellX = Integer.MIN_VALUE;
+    private int maxCellY = Integer.MIN_VALUE;
+    private boolean boundsDirty;
+
+    private final Entity[] closest = new Entity[1];
+    private double[] nearestDistances = new double[8];
+
+    public EntityIndex() {
+        this(DEFAULT_CELL_SIZE);
+    }
+
+    public EntityIndex(int cellSize) {
+        Preconditions.checkArgument(cellSize > 0, "Cell size needs to be positive");
+        this.cellSize = cellSize;
+    }
+
+    public void add(Entity entity) {
+        if (!this.entityCells.containsKey(entity)) {
+            this.maxHalfWidth = Math.max(this.maxHalfWidth, entity.getWidth() / 2D);
+            this.maxHalfHeight = Math.max(this.maxHalfHeight, entity.getHeight() / 2D);
+
+            Cell cell = this.getOrCreateCell(this.toCell(entity.getX()), this.toCell(entity.getY()));
+            cell.add(entity);
+            this.entityCells.put(entity, cell);
+        }
+    }
+
+    public void remove(Entity entity) {
+        Cell cell = this.entityCells.remove(entity);
+        if (cell != null) {
+            if (entity.getWidth() / 2D >= this.maxHalfWidth || entity.getHeight() / 2D >= this.maxHalfHeight) {
+                this.boundsDirty = true;
+            }
+
+            cell.remove(entity);
+            if (cell.size <= 0) {
+                this.removeCell(cell.x, cell.y);
+            }
+        }
+    }
+
+    /**
+     * Moves the given entity into the cell that it is now in and accounts for
+     * a change in its size. This does nothing if the entity is not part of
+     * this index.
+     *
+     * @param entity The entity
+     */
+    public void update(Entity entity) {
+        Cell cell = this.entityCells.get(entity);
+        if (cell != null) {
+            this.maxHalfWidth = Math.max(this.maxHalfWidth, entity.getWidth() / 2D);
+            this.maxHalfHeight = Math.max(this.maxHalfHeight, entity.getHeight() / 2D);
+
+            int cellX = this.toCell(entity.getX());
+            int cellY = this.toCell(entity.getY());
+            if (cell.x != cellX || cell.y != cellY) {
+                cell.remove(entity);
+                if (cell.size <= 0) {
+                    this.removeCell(cell.x, cell.y);
+                }
+
+                Cell newCell = this.getOrCreateCell(cellX, cellY);
+                newCell.add(entity);
+                this.entityCells.put(entity, newCell);
+            }
+        }
+    }
+
+    public boolean contains(Entity entity) {
+        return this.entityCells.containsKey(entity);
+    }
+
+    public int getSize() {
+        return this.entityCells.size();
+    }
+
+    public void clear() {
+        this.entityCells.clear();
+        Arrays.fill(this.cells, null);
+        this.cellAmount = 0;
+        this.maxHalfWidth = 0;
+        this.maxHalfHeight = 0;
+        this.minCellX = Integer.MAX_VALUE;
+        this.minCellY = Integer.MAX_VALUE;
+        this.maxCellX = Integer.MIN_VALUE;
+        this.maxCellY = Integer.MIN_VALUE;
+        this.boundsDirty = false;
+    }
+
+    public void forEachEntity(BoundingBox area, Consumer<Entity> consumer) {
+        this.forEachEntity(area, Entity.class, null, consumer);
+    }
+
+    public <T extends Entity> void forEachEntity(BoundingBox area, Class<T> type, Consumer<T> consumer) {
+        this.forEachEntity(area, type, null, consumer);
+    }
+
+    /**
+     * Calls the given consumer for every entity whose bounds intersect the
+     * given area, that is of the given type and for which the given predicate
+     * applies. This does not allocate any memory.
+     *
+     * @param area     The area
+     * @param type     The type that entities need to be
+     * @param test     The predicate, or null if all entities of the type should
+     *                 be accepted
+     * @param consumer The consumer
+     * @param <T>      The type of entity
+     */
+    public <T extends Entity> void forEachEntity(BoundingBox area, Class<T> type, Predicate<T> test, Consumer<T> consumer) {
+        if (this.entityCells.isEmpty()) {
+            return;
+        }
+        this.updateBounds();
+
+        int minX = Math.max(this.toCell(area.getMinX() - this.maxHalfWidth), this.minCellX);
+        int minY = Math.max(this.toCell(area.getMinY() - this.maxHalfHeight), this.minCellY);
+        int maxX = Math.min(this.toCell(area.getMaxX() + this.maxHalfWidth), this.maxCellX);
+        int maxY = Math.min(this.toCell(area.getMaxY() + this.maxHalfHeight), this.maxCellY);
+
+        for (int x = minX; x <= maxX; x++) {
+            for (int y = minY; y <= maxY; y++) {
+                Cell cell = this.getCell(x, y);
+                if (cell != null) {
+                    for (int i = 0; i < cell.size; i++) {
+                        Entity entity = cell.entities[i];
+                        if (type.isInstance(entity) && entity.currentBounds.intersects(area)) {
+                            T t = type.cast(entity);
+                            if (test == null || test.test(t)) {
+                                consumer.accept(t);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    public <T extends Entity> int countEntities(BoundingBox area, Class<T> type) {
+        int[] amount = new int[1];
+        this.forEachEntity(area, type, null, entity -> amount[0]++);
+        return amount[0];
+    }
+
+    /**
+     * Returns the entity of the given type whose center is closest to the given
+     * position
+     *
+     * @param x           The x coordinate
+     * @param y           The y coordinate
+     * @param maxDistance The maximum distance that the entity can have
+     * @param type        The type that the entity needs to be
+     * @param test        The predicate, or null if all entities of the type
+     *                    should be accepted
+     * @param <T>         The type of entity
+     * @return The closest entity, or null if there is none
+     */
+    public <T extends Entity> T getClosest(double x, double y, double maxDistance, Class<T> type, Predicate<T> test) {
+        Entity[] result = this.closest;
+        T closest = this.getNearest(x, y, maxDistance, type, test, result) > 0 ? type.cast(result[0]) : null;
+        result[0] = null;
+        return closest;
+    }
+
+    /**
+     * Finds the entities of the given type whose centers are closest to the
+     * given position. The search starts at the cell that the position is in
+     * and moves outwards ring by ring until no closer entities can be found or
+     * the maximum distance has been reached, which is why the maximum distance
+     * needs to be finite.
+     *
+     * @param x           The x coordinate
+     * @param y           The y coordinate
+     * @param maxDistance The maximum distance that entities can have
+     * @param type        The type that entities need to be
+     * @param test        The predicate, or null if all entities of the type
+     *                    should be accepted
+     * @param out         The array that the closest entities are stored in,
+     *                    sorted by distance. Its length is the maximum amount
+     *                    of entities that are found.
+     * @param <T>         The type of entity
+     * @return The amount of entities that were found
+     */
+    public <T extends Entity> int getNearest(double x, double y, double maxDistance, Class<T> type, Predicate<T> test, Entity[] out) {
+        Preconditions.checkArgument(maxDistance >= 0 && maxDistance < Double.POSITIVE_INFINITY, "Maximum distance needs to be positive and finite, but was " + maxDistance);
+
+        int k = out.length;
+        if (k <= 0 || this.entityCells.isEmpty()) {
+            return 0;
+        }
+        this.updateBounds();
+        if (this.nearestDistances.length < k) {
+            this.nearestDistances = new double[k];
+        }
+        double[] distances = this.nearestDistances;
+        double maxDistSq = maxDistance * maxDistance;
+
+        int centerX = this.toCell(x);
+        int centerY = this.toCell(y);
+        int maxRing = Math.max(Math.max(centerX - this.minCellX, this.maxCellX - centerX), Math.max(centerY - this.minCellY, this.maxCellY - centerY));
+        maxRing = (int) Math.min(maxRing, Math.ceil(maxDistance / this.cellSize) + 1);
+
+        int found = 0;
+        for (int ring = 0; ring <= maxRing; ring++) {
+            double ringDist = (ring - 1) * (double) this.cellSize;
+            if (ring > 1 && (ringDist * ringDist > maxDistSq || found >= k && ringDist * ringDist > distances[k - 1])) {
+                break;
+            }
+
+            int minX = Math.max(centerX - ring, this.minCellX);
+            int maxX = Math.min(centerX + ring, this.maxCellX);
+            int minY = Math.max(centerY - ring, this.minCellY);
+            int maxY = Math.min(centerY + ring, this.maxCellY);
+            for (int cellX = minX; cellX <= maxX; cellX++) {
+                boolean edge = cellX == centerX - ring || cellX == centerX + ring;
+                for (int cellY = minY; cellY <= maxY; cellY++) {
+                    if (!edge && cellY != centerY - ring && cellY != centerY + ring) {
+                        // only the outer ring of cells is new, so skip to its other side
+                        cellY = centerY + ring - 1;
+                        continue;
+                    }
+
+                    Cell cell = this.getCell(cellX, cellY);
+                    if (cell != null) {
+                        for (int i = 0; i < cell.size; i++) {
+                            Entity entity = cell.entities[i];
+                            if (type.isInstance(entity)) {
+                                double dx = entity.getX() - x;
+                                double dy = entity.getY() - y;
+                                double distSq = dx * dx + dy * dy;
+                                if (distSq <= maxDistSq && (found < k || distSq < distances[k - 1]) && (test == null || test.test(type.cast(entity)))) {
+                                    int pos = Math.min(found, k - 1);
+                                    while (pos > 0 && distances[pos - 1] > distSq) {
+                                        distances[pos] = distances[pos - 1];
+                                        out[pos] = out[pos - 1];
+                                        pos--;
+                                    }
+                                    distances[pos] = distSq;
+                                    out[pos] = entity;
+                                    if (found < k) {
+                                        found++;
+                                    }
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    private int toCell(double coord) {
+        return (int) Math.floor(coord / this.cellSize);
+    }
+
+    private static long toKey(int x, int y) {
+        return (long) x << 32 | y & 0xFFFFFFFFL;
+    }
+
+    private int slot(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ hash >>> 32) & this.keys.length - 1;
+    }
+
+    private Cell getCell(int x, int y) {
+        long key = toKey(x, y);
+        for (int i = this.slot(key); ; i = i + 1 & this.keys.length - 1) {
+            Cell cell = this.cells[i];
+            if (cell == null) {
+                return null;
+            } else if (this.keys[i] == key) {
+                return cell;
+            }
+        }
+    }
+
+    private Cell getOrCreateCell(int x, int y) {
+        Cell cell = this.getCell(x, y);
+        if (cell == null) {
+            if ((this.cellAmount + 1) * 2 > this.keys.length) {
+                this.resize(this.keys.length * 2);
+            }
+
+            cell = new Cell(x, y);
+            long key = toKey(x, y);
+            int i = this.slot(key);
+            while (this.cells[i] != null) {
+                i = i + 1 & this.keys.length - 1;
+            }
+            this.keys[i] = key;
+            this.cells[i] = cell;
+            this.cellAmount++;
+
+            this.minCellX = Math.min(this.minCellX, x);
+            this.minCellY = Math.min(this.minCellY, y);
+            this.maxCellX = Math.max(this.maxCellX, x);
+            this.maxCellY = Math.max(this.maxCellY, y);
+        }
+        return cell;
+    }
+
+    private void removeCell(int x, int y) {
+        long key = toKey(x, y);
+        int mask = this.keys.length - 1;
+        int i = this.slot(key);
+        while (this.cells[i] != null && this.keys[i] != key) {
+            i = i + 1 & mask;
+        }
+        if (this.cells[i] == null) {
+            return;
+        }
+
+        this.cells[i] = null;
+        this.cellAmount--;
+
+        if (x <= this.minCellX || x >= this.maxCellX || y <= this.minCellY || y >= this.maxCellY) {
+            this.boundsDirty = true;
+        }
+
+        // shift back the entries that follow so that probing doesn't stop early
+        for (int j = i + 1 & mask; this.cells[j] != null; j = j + 1 & mask) {
+            int wanted = this.slot(this.keys[j]);
+            if ((j - wanted & mask) >= (j - i & mask)) {
+                this.keys[i] = this.keys[j];
+                this.cells[i] = this.cells[j];
+                this.cells[j] = null;
+                i = j;
+            }
+        }
+    }
+
+    /**
+     * Recalculates the area that is covered by cells and the largest entity
+     * size if a cell on the edge of the area or the largest entity has been
+     * removed since the last query, so that searches are only ever bounded by
+     * the entities that are actually in the index.
+     */
+    private void updateBounds() {
+        if (!this.boundsDirty) {
+            return;
+        }
+        this.boundsDirty = false;
+
+        this.maxHalfWidth = 0;
+        this.maxHalfHeight = 0;
+        this.minCellX = Integer.MAX_VALUE;
+        this.minCellY = Integer.MAX_VALUE;
+        this.maxCellX = Integer.MIN_VALUE;
+        this.maxCellY = Integer.MIN_VALUE;
+
+        for (Cell cell : this.cells) {
+            if (cell != null) {
+                this.minCellX = Math.min(this.minCellX, cell.x);
+                this.minCellY = Math.min(this.minCellY, cell.y);
+                this.maxCellX = Math.max(this.maxCellX, cell.x);
+                this.maxCellY = Math.max(this.maxCellY, cell.y);
+
+                for (int i = 0; i < cell.size; i++) {
+                    Entity entity = cell.entities[i];
+                    this.maxHalfWidth = Math.max(this.maxHalfWidth, entity.getWidth() / 2D);
+                    this.maxHalfHeight = Math.max(this.maxHalfHeight, entity.getHeight() / 2D);
+                }
+            }
+        }
+    }
+
+    private void resize(int length) {
+        long[] oldKeys = this.keys;
+        Cell[] oldCells = this.cells;
+        this.keys = new long[length];
+        this.cells = new Cell[length];
+
+        for (int i = 0; i < oldCells.length; i++) {
+            Cell cell = oldCells[i];
+            if (cell != null) {
+                int j = this.slot(oldKeys[i]);
+                while (this.cells[j] != null) {
+                    j = j + 1 & length - 1;
+                }
+                this.keys[j] = oldKeys[i];
+                this.cells[j] = cell;
+            }
+        }
+    }
+
+    private static final class Cell {
+
+        private final int x;
+        private final int y;
+        private Entity[] entities = new Entity[4];
+        private int size;
+
+        private Cell(int x, int y) {
+            this.x = x;
+            this.y = y;
+        }
+
+        private void add(Entity entity) {
+            if (this.size >= this.entities.length) {
+                this.entities = Arrays.copyOf(this.entities, this.size * 2);
+            }
+            this.entities[this.size++] = entity;
+        }
+
+        private void remove(Entity entity) {
+            for (int i = 0; i < this.size; i++) {
+                if (this.entities[i] == entity) {
+                    this.size--;
+                    this.entities[i] = this.entities[this.size];
+                    this.entities[this.size] = null;
+                    return;
+                }
+            }
+        }
+    }
+}
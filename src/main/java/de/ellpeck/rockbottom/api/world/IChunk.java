@@ -24,12 +24,22 @@ package de.ellpeck.rockbottom.api.world;
 import de.ellpeck.rockbottom.api.IGameInstance;
 import de.ellpeck.rockbottom.api.data.set.DataSet;
 import de.ellpeck.rockbottom.api.entity.player.AbstractPlayerEntity;
+import de.ellpeck.rockbottom.api.net.packet.ChunkDeltaPacket;
+import de.ellpeck.rockbottom.api.render.ChunkLightCache;
+import de.ellpeck.rockbottom.api.render.ChunkMesh;
 import de.ellpeck.rockbottom.api.tile.state.TileState;
 import de.ellpeck.rockbottom.api.util.ApiInternal;
 import de.ellpeck.rockbottom.api.util.Counter;
+import de.ellpeck.rockbottom.api.world.collision.CollisionMask;
 import de.ellpeck.rockbottom.api.world.gen.biome.Biome;
 import de.ellpeck.rockbottom.api.world.layer.TileLayer;
+import de.ellpeck.rockbottom.api.world.storage.ChunkSnapshot;
+import de.ellpeck.rockbottom.api.world.storage.DirtyTileTracker;
+import de.ellpeck.rockbottom.api.world.storage.ITileStorageView;
+import de.ellpeck.rockbottom.api.world.storage.RegionStorage;
 
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 
@@ -66,6 +76,17 @@ public interface IChunk extends IChunkOrWorld {
 
     void setStateInner(TileLayer layer, int x, int y, TileState tile);
 
+    /**
+     * Gets a read-only view of the palette-compressed storage of the given
+     * layer. This can be used to scan a whole layer of this chunk without
+     * calling {@link #getStateInner(TileLayer, int, int)} for every position.
+     *
+     * @param layer The layer
+     * @return The view, which is never null, even if the layer only contains
+     * air
+     */
+    ITileStorageView getTileStorage(TileLayer layer);
+
     byte getSkylightInner(int x, int y);
 
     @ApiInternal
@@ -82,16 +103,97 @@ public interface IChunk extends IChunkOrWorld {
     @ApiInternal
     boolean shouldUnload();
 
+    /**
+     * Marks this chunk as needing to be saved. This also invalidates its
+     * {@link #getMesh()}.
+     */
     void setDirty();
 
+    /**
+     * Returns the tracker that records which positions of this chunk have
+     * changed since it was last synchronized to clients. On the server, every
+     * state change marks its position here, and once per tick, the chunk
+     * sends either a {@link ChunkDeltaPacket} containing only the changed positions or, if {@link
+     * DirtyTileTracker#exceeds(float)} the configured full chunk sync
+     * fraction, the whole chunk, after which the tracker is cleared.
+     *
+     * @return The dirty tile tracker
+     */
+    @ApiInternal
+    DirtyTileTracker getDirtyTiles();
+
+    /**
+     * Returns the cached static collision geometry of the given layer of this
+     * chunk. Setting a state in this chunk invalidates the mask at that
+     * position.
+     *
+     * @param layer The layer
+     * @return The collision mask
+     */
+    @ApiInternal
+    CollisionMask getCollisionMask(TileLayer layer);
+
+    /**
+     * Returns the cached interpolated light and corner colors of all of the
+     * positions in this chunk, which renderers should use instead of
+     * interpolating the light for every tile every frame. Changing the light
+     * of this chunk, or of the border of one of its neighbors, invalidates it.
+     *
+     * @return The light cache
+     */
+    @ApiInternal
+    ChunkLightCache getLightCache();
+
+    /**
+     * Returns the cached static vertices of this chunk's tiles, which the
+     * world renderer draws instead of calling every tile renderer every frame.
+     * Calling {@link #setDirty()} invalidates the whole mesh, changing a state
+     * in this chunk invalidates the layer of the change, and changing a state on the border
+     * of this chunk also invalidates the mesh of the adjacent chunk, because
+     * tile renderers may depend on their neighbors. This is null on the
+     * dedicated server.
+     *
+     * @return The mesh, or null if this chunk isn't rendered
+     */
+    @ApiInternal
+    ChunkMesh getMesh();
+
     @ApiInternal
     void save(DataSet set);
 
+    /**
+     * Writes this chunk straight from its storage into the given output
+     * without building an intermediate {@link DataSet}. This is used by the
+     * {@link RegionStorage} for payloads of the {@link
+     * RegionStorage#FORMAT_NATIVE} format.
+     *
+     * @param stream The output to write to
+     * @throws IOException if writing fails
+     */
+    @ApiInternal
+    void save(DataOutput stream) throws IOException;
+
+    /**
+     * Creates a snapshot of this chunk's data that can be written to disk on
+     * another thread. This is called on the game thread for every chunk that
+     * {@link #needsSave()} when the world is saved, so it should be as cheap as
+     * possible.
+     *
+     * @return The snapshot
+     * @see ChunkSnapshot
+     */
+    @ApiInternal
+    ChunkSnapshot createSnapshot();
+
     @ApiInternal
     void update(IGameInstance game);
 
     byte getCombinedLightInner(int x, int y);
 
+    /**
+     * @return The amount of updates that are pending in this chunk
+     * @see ScheduledUpdateWheel#getPendingAmount(int, int)
+     */
     @ApiInternal
     int getScheduledUpdateAmount();
 
@@ -39,6 +39,7 @@ import de.ellpeck.rockbottom.api.world.layer.TileLayer;
 import java.util.List;
 import java.util.Random;
 import java.util.UUID;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 
 /**
@@ -255,7 +256,8 @@ public interface IChunkOrWorld extends IAdditionalDataProvider {
      * Gets a list of all of the {@link TileEntity} objects in the world that
      * were marked as {@link TileEntity#doesTick()} at the point of being added
      * to the world. Note that directly adding or removing to or from this list
-     * will throw an {@link UnsupportedOperationException}.
+     * will throw an {@link UnsupportedOperationException}. Tile entities in
+     * this list that are {@link TileEntity#isAsleep()} are not updated.
      *
      * @return All ticking tile entities
      * @see #addTileEntity(TileEntity)
@@ -273,6 +275,32 @@ public interface IChunkOrWorld extends IAdditionalDataProvider {
      */
     Entity getEntity(UUID id);
 
+    /**
+     * Calls the given consumer for all of the {@link Entity} objects that are
+     * currently in the given {@link BoundingBox}. Unlike {@link
+     * #getEntities(BoundingBox)}, this does not create a list. Entities should
+     * not be added or removed from inside the consumer.
+     *
+     * @param area     The area to check for entities
+     * @param consumer The consumer
+     */
+    void forEachEntity(BoundingBox area, Consumer<Entity> consumer);
+
+    /**
+     * Calls the given consumer for all of the {@link Entity} objects that are
+     * currently in the given {@link BoundingBox} that also are objects of or
+     * whose classes extend the given {@link Class}. Unlike {@link
+     * #getEntities(BoundingBox, Class)}, this does not create a list. Entities
+     * should not be added or removed from inside the consumer.
+     *
+     * @param area     The area to check for entities
+     * @param type     The type that they need to be
+     * @param consumer The consumer
+     * @param <T>      A generic type representing the type of entities that
+     *                 are being looked for
+     */
+    <T extends Entity> void forEachEntity(BoundingBox area, Class<T> type, Consumer<T> consumer);
+
     /**
      * Gets a list of all of the {@link Entity} objects that are currently in
      * the given {@link BoundingBox}.
@@ -611,7 +639,8 @@ public interface IChunkOrWorld extends IAdditionalDataProvider {
      * which biome would be at which position in a chunk that might not be
      * loaded or generated yet, you don't have to make it generate just to find
      * out the biome. Using this method over {@link #getBiome(int, int)} during
-     * world generation greatly increases performance.
+     * world generation greatly increases performance, and repeated queries for
+     * the same position are answered by the {@link IWorld#getExpectedValueCache()}.
      *
      * @param x The world x coordinate
      * @param y The world y coordinate
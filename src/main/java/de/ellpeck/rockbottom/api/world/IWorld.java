@@ -24,13 +24,19 @@ package de.ellpeck.rockbottom.api.world;
 import de.ellpeck.rockbottom.api.entity.Entity;
 import de.ellpeck.rockbottom.api.entity.player.AbstractPlayerEntity;
 import de.ellpeck.rockbottom.api.render.IPlayerDesign;
+import de.ellpeck.rockbottom.api.tile.entity.TileEntityTicker;
 import de.ellpeck.rockbottom.api.tile.state.TileState;
 import de.ellpeck.rockbottom.api.util.ApiInternal;
+import de.ellpeck.rockbottom.api.util.BoundingBox;
 import de.ellpeck.rockbottom.api.util.reg.NameToIndexInfo;
 import de.ellpeck.rockbottom.api.util.reg.ResourceName;
+import de.ellpeck.rockbottom.api.world.gen.ExpectedValueCache;
 import de.ellpeck.rockbottom.api.world.gen.IWorldGenerator;
 import de.ellpeck.rockbottom.api.world.gen.biome.Biome;
 import de.ellpeck.rockbottom.api.world.layer.TileLayer;
+import de.ellpeck.rockbottom.api.world.light.LightEngine;
+import de.ellpeck.rockbottom.api.world.storage.ChunkSaveQueue;
+import de.ellpeck.rockbottom.api.world.storage.RegionStorage;
 import io.netty.channel.Channel;
 
 import java.io.File;
@@ -106,8 +112,46 @@ public interface IWorld extends IChunkOrWorld {
 
     int getSpawnX();
 
+    /**
+     * Schedules the light at the given position to be recalculated. This is
+     * handled by the {@link #getLightEngine()} at the end of the tick, and
+     * causing multiple updates at the same position in one tick only
+     * recalculates it once.
+     *
+     * @param x The world x coordinate
+     * @param y The world y coordinate
+     */
     void causeLightUpdate(int x, int y);
 
+    /**
+     * Returns the engine that spreads sky light and artificial light through
+     * this world.
+     *
+     * @return The light engine
+     */
+    @ApiInternal
+    LightEngine getLightEngine();
+
+    /**
+     * Returns the timing wheel that holds all of the updates scheduled using
+     * {@link #scheduleUpdate(int, int, TileLayer, int, int)} in this world.
+     * Its pending amount and per-tick timings can be used for profiling.
+     *
+     * @return The scheduled updates
+     */
+    @ApiInternal
+    ScheduledUpdateWheel getScheduledUpdates();
+
+    /**
+     * Returns the ticker that updates all of the ticking tile entities in this
+     * world that are not asleep, and that can record how long the updates of
+     * each tile entity class take.
+     *
+     * @return The tile entity ticker
+     */
+    @ApiInternal
+    TileEntityTicker getTileEntityTicker();
+
     IWorldGenerator getGenerator(ResourceName name);
 
     @ApiInternal
@@ -127,6 +171,11 @@ public interface IWorld extends IChunkOrWorld {
     @ApiInternal
     List<IWorldGenerator> getSortedRetroactiveGenerators();
 
+    /**
+     * Saves this world. Only snapshots of the chunks that need saving are
+     * taken on the calling thread, while they are written to disk in the
+     * background by the {@link #getSaveQueue()}.
+     */
     @ApiInternal
     void save();
 
@@ -144,6 +193,39 @@ public interface IWorld extends IChunkOrWorld {
 
     File getChunksFolder();
 
+    /**
+     * @return The region storage that this world's chunks are saved into
+     */
+    @ApiInternal
+    RegionStorage getRegionStorage();
+
+    /**
+     * @return The queue that writes this world's chunk snapshots to the {@link
+     * #getRegionStorage()} in the background
+     */
+    @ApiInternal
+    ChunkSaveQueue getSaveQueue();
+
+    /**
+     * Returns the spatial index of all of the entities in this world, which
+     * answers the {@link #getEntities(BoundingBox)} and {@link
+     * #forEachEntity(BoundingBox, java.util.function.Consumer)} family of
+     * queries.
+     *
+     * @return The entity index
+     */
+    EntityIndex getEntityIndex();
+
+    /**
+     * Returns the cache that answers {@link #getExpectedSurfaceHeight(TileLayer,
+     * int)}, {@link #getExpectedBiome(int, int)} and the other expected value
+     * queries of this world. Its hit and miss counters can be used to tune its
+     * size.
+     *
+     * @return The expected value cache
+     */
+    ExpectedValueCache getExpectedValueCache();
+
     String getName();
 
     void playSound(AbstractPlayerEntity player, ResourceName name, double x, double y, double z, float pitch, float volume);
@@ -162,6 +244,17 @@ public interface IWorld extends IChunkOrWorld {
 
     boolean isStoryMode();
 
+    /**
+     * Returns the closest player to the given position. As there is no maximum
+     * distance and there are only ever a few players, this simply compares the
+     * distances of all of the {@link #getAllPlayers()} rather than searching
+     * the {@link #getEntityIndex()}.
+     *
+     * @param x         The x coordinate
+     * @param y         The y coordinate
+     * @param excluding A player to ignore, or null
+     * @return The closest player, or null if there is none
+     */
     AbstractPlayerEntity getClosestPlayer(double x, double y, AbstractPlayerEntity excluding);
 
     AbstractPlayerEntity getClosestPlayer(double x, double y);
@@ -187,6 +280,11 @@ public interface IWorld extends IChunkOrWorld {
     @ApiInternal
     void setSubName(ResourceName subName);
 
+    /**
+     * Unloads everything in this world. Before returning, this waits for all
+     * of the outstanding chunk writes of the {@link #getSaveQueue()} to
+     * finish so that no data is lost.
+     */
     @ApiInternal
     void unloadEverything();
 }
@@ -0,0 +1,526 @@
+/*
+ * This file ("ScheduledUpdateWheel.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/RockBottomGame/>.
+ * View information on the project at <https://rockbottom.ellpeck.de/>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * © 2018 Ellpeck
+ */
+
+package de.ellpeck.rockbottom.api.world;
+
+import de.ellpeck.rockbottom.api.Constants;
+import de.ellpeck.rockbottom.api.Registries;
+import de.ellpeck.rockbottom.api.data.set.DataSet;
+import de.ellpeck.rockbottom.api.data.set.part.PartString;
+import de.ellpeck.rockbottom.api.data.set.part.num.PartInt;
+import de.ellpeck.rockbottom.api.tile.Tile;
+import de.ellpeck.rockbottom.api.util.Pos2;
+import de.ellpeck.rockbottom.api.util.reg.ResourceName;
+import de.ellpeck.rockbottom.api.world.layer.TileLayer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps track of all of the updates scheduled in a world using {@link
+ * IChunkOrWorld#scheduleUpdate(int, int, TileLayer, int, int)}. This is a
+ * hierarchical timing wheel, so scheduling an update and finding the updates
+ * that are due in a tick both take constant time, no matter how many updates
+ * are pending. Updates are stored in parallel primitive arrays, and scheduling
+ * an update for a position, layer and metadata that already has an update
+ * pending doesn't do anything, so the earlier update is kept.
+ * <p>
+ * The updates of each chunk are additionally linked together, so that they
+ * can be saved with the chunk using {@link #save(int, int, DataSet)} and
+ * removed when the chunk is unloaded using {@link #removeChunk(int, int)}.
+ *
+ * @see Tile#onScheduledUpdate(IWorld, int, int, TileLayer, int)
+ */
+public final class ScheduledUpdateWheel {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    private static final int OVERFLOW_SLOT = LEVELS * SLOTS;
+    private static final long MAX_WHEEL_DELAY = 1L << SLOT_BITS * LEVELS;
+
+    private static final int FREE = -1;
+    private static final int EXPIRING = -2;
+
+    private final int[] slotHeads = new int[OVERFLOW_SLOT + 1];
+    private final Map<Pos2, ChunkList> chunks = new HashMap<>();
+    private final Pos2 lookupPos = new Pos2();
+
+    private int[] xs = new int[64];
+    private int[] ys = new int[64];
+    private int[] layers = new int[64];
+    private int[] metas = new int[64];
+    private long[] dueTicks = new long[64];
+    private int[] slots = new int[64];
+    private int[] prev = new int[64];
+    private int[] next = new int[64];
+    private int[] chunkPrev = new int[64];
+    private int[] chunkNext = new int[64];
+    private int usedIds;
+    private int freeHead = -1;
+
+    private int[] table = new int[128];
+    private int size;
+
+    private int[] expiring = new int[64];
+
+    private long currentTick;
+    private long lastTickNanos;
+    private int lastTickAmount;
+    private long totalAmount;
+
+    public ScheduledUpdateWheel() {
+        Arrays.fill(this.slotHeads, -1);
+        Arrays.fill(this.table, -1);
+    }
+
+    /**
+     * Schedules an update. If an update for the same position, layer and
+     * metadata is already pending, this does nothing.
+     *
+     * @param x     The world x coordinate
+     * @param y     The world y coordinate
+     * @param layer The layer
+     * @param meta  The metadata
+     * @param time  The amount of ticks until the update happens, which is
+     *              always at least one
+     * @return If the update was scheduled, or false if an identical one was
+     * already pending
+     */
+    public boolean schedule(int x, int y, TileLayer layer, int meta, int time) {
+        int layerIndex = layer.index();
+        if (this.find(x, y, layerIndex, meta) >= 0) {
+            return false;
+        }
+
+        int id = this.allocate();
+        this.xs[id] = x;
+        this.ys[id] = y;
+        this.layers[id] = layerIndex;
+        this.metas[id] = meta;
+        this.dueTicks[id] = this.currentTick + Math.max(1, time);
+
+        this.insertIntoTable(id);
+        this.insertIntoWheel(id);
+        this.linkChunk(id);
+        return true;
+    }
+
+    /**
+     * Advances the wheel by one tick and passes all of the updates that are
+     * due to the given consumer. The updates are removed before the consumer
+     * is called, so it can schedule the same update again.
+     *
+     * @param consumer The consumer
+     * @return The amount of updates that were due
+     */
+    public int tick(UpdateConsumer consumer) {
+        long start = System.nanoTime();
+        long tick = ++this.currentTick;
+
+        int index = (int) (tick & SLOT_MASK);
+        if (index == 0) {
+            boolean wrapped = true;
+            for (int level = 1; level < LEVELS; level++) {
+                int levelIndex = (int) (tick >>> level * SLOT_BITS & SLOT_MASK);
+                this.cascade(level * SLOTS + levelIndex);
+                if (levelIndex != 0) {
+                    wrapped = false;
+                    break;
+                }
+            }
+            if (wrapped) {
+                this.cascade(OVERFLOW_SLOT);
+            }
+        }
+
+        int amount = 0;
+        int id = this.slotHeads[index];
+        this.slotHeads[index] = -1;
+        while (id >= 0) {
+            if (amount >= this.expiring.length) {
+                this.expiring = Arrays.copyOf(this.expiring, amount * 2);
+            }
+            this.expiring[amount++] = id;
+            this.slots[id] = EXPIRING;
+            id = this.next[id];
+        }
+
+        List<TileLayer> allLayers = TileLayer.getAllLayers();
+        int handled = 0;
+        for (int i = 0; i < amount; i++) {
+            int expired = this.expiring[i];
+            if (this.slots[expired] == EXPIRING) {
+                int x = this.xs[expired];
+                int y = this.ys[expired];
+                int layer = this.layers[expired];
+                int meta = this.metas[expired];
+                this.remove(expired);
+
+                consumer.accept(x, y, allLayers.get(layer), meta);
+                handled++;
+            }
+        }
+
+        this.lastTickAmount = handled;
+        this.totalAmount += handled;
+        this.lastTickNanos = System.nanoTime() - start;
+        return handled;
+    }
+
+    /**
+     * Removes all of the pending updates of the given chunk, which should be
+     * done when it is unloaded.
+     *
+     * @param gridX The chunk's grid x
+     * @param gridY The chunk's grid y
+     */
+    public void removeChunk(int gridX, int gridY) {
+        ChunkList list = this.chunks.get(this.lookupPos.set(gridX, gridY));
+        if (list != null) {
+            while (list.head >= 0) {
+                this.remove(list.head);
+            }
+        }
+    }
+
+    /**
+     * Saves the pending updates of the given chunk with their remaining time,
+     * so that their timers continue when the chunk is loaded again.
+     *
+     * @param gridX The chunk's grid x
+     * @param gridY The chunk's grid y
+     * @param set   The set to save to
+     */
+    public void save(int gridX, int gridY, DataSet set) {
+        ChunkList list = this.chunks.get(this.lookupPos.set(gridX, gridY));
+        if (list == null) {
+            return;
+        }
+
+        List<TileLayer> allLayers = TileLayer.getAllLayers();
+        List<PartString> layerNames = new ArrayList<>();
+        int[] localLayers = new int[allLayers.size()];
+        Arrays.fill(localLayers, -1);
+
+        List<PartInt> updates = new ArrayList<>(list.size * 3);
+        for (int id = list.head; id >= 0; id = this.chunkNext[id]) {
+            int layer = this.layers[id];
+            if (localLayers[layer] < 0) {
+                localLayers[layer] = layerNames.size();
+                layerNames.add(new PartString(allLayers.get(layer).getName().toString()));
+            }
+
+            int innerX = Math.floorMod(this.xs[id], Constants.CHUNK_SIZE);
+            int innerY = Math.floorMod(this.ys[id], Constants.CHUNK_SIZE);
+            updates.add(new PartInt(localLayers[layer] << 10 | innerX * Constants.CHUNK_SIZE + innerY));
+            updates.add(new PartInt(this.metas[id]));
+            updates.add(new PartInt((int) Math.min(Integer.MAX_VALUE, this.dueTicks[id] - this.currentTick)));
+        }
+
+        set.addList("scheduled_layers", layerNames);
+        set.addList("scheduled_updates", updates);
+    }
+
+    /**
+     * Loads the pending updates of the given chunk that were saved using
+     * {@link #save(int, int, DataSet)}
+     *
+     * @param gridX The chunk's grid x
+     * @param gridY The chunk's grid y
+     * @param set   The set to load from
+     */
+    public void load(int gridX, int gridY, DataSet set) {
+        if (!set.hasKey("scheduled_updates")) {
+            return;
+        }
+
+        List<PartString> layerNames = set.getList("scheduled_layers");
+        TileLayer[] localLayers = new TileLayer[layerNames.size()];
+        for (int i = 0; i < localLayers.length; i++) {
+            localLayers[i] = Registries.TILE_LAYER_REGISTRY.get(ResourceName.of(layerNames.get(i).get()));
+        }
+
+        List<PartInt> updates = set.getList("scheduled_updates");
+        int startX = gridX * Constants.CHUNK_SIZE;
+        int startY = gridY * Constants.CHUNK_SIZE;
+        for (int i = 0; i + 2 < updates.size(); i += 3) {
+            int packed = updates.get(i).get();
+            TileLayer layer = localLayers[packed >>> 10];
+            if (layer != null) {
+                int index = packed & 1023;
+                this.schedule(startX + index / Constants.CHUNK_SIZE, startY + index % Constants.CHUNK_SIZE, layer, updates.get(i + 1).get(), updates.get(i + 2).get());
+            }
+        }
+    }
+
+    public long getCurrentTick() {
+        return this.currentTick;
+    }
+
+    /**
+     * @return The amount of updates that are pending in the whole world
+     */
+    public int getPendingAmount() {
+        return this.size;
+    }
+
+    /**
+     * @param gridX The chunk's grid x
+     * @param gridY The chunk's grid y
+     * @return The amount of updates that are pending in the given chunk
+     */
+    public int getPendingAmount(int gridX, int gridY) {
+        ChunkList list = this.chunks.get(this.lookupPos.set(gridX, gridY));
+        return list == null ? 0 : list.size;
+    }
+
+    /**
+     * @return The time that the last call to {@link #tick(UpdateConsumer)}
+     * took, including the time spent in the consumer, in nanoseconds
+     */
+    public long getLastTickNanos() {
+        return this.lastTickNanos;
+    }
+
+    /**
+     * @return The amount of updates that were due in the last tick
+     */
+    public int getLastTickAmount() {
+        return this.lastTickAmount;
+    }
+
+    /**
+     * @return The total amount of updates that were ever due
+     */
+    public long getTotalAmount() {
+        return this.totalAmount;
+    }
+
+    private void cascade(int slot) {
+        int id = this.slotHeads[slot];
+        this.slotHeads[slot] = -1;
+        while (id >= 0) {
+            int following = this.next[id];
+            this.insertIntoWheel(id);
+            id = following;
+        }
+    }
+
+    private void insertIntoWheel(int id) {
+        long due = this.dueTicks[id];
+        long delay = due - this.currentTick;
+
+        int slot;
+        if (delay >= MAX_WHEEL_DELAY) {
+            slot = OVERFLOW_SLOT;
+        } else {
+            int level = 0;
+            while (delay >= 1L << (level + 1) * SLOT_BITS) {
+                level++;
+            }
+            slot = level * SLOTS + (int) (due >>> level * SLOT_BITS & SLOT_MASK);
+        }
+
+        int head = this.slotHeads[slot];
+        this.slots[id] = slot;
+        this.prev[id] = -1;
+        this.next[id] = head;
+        if (head >= 0) {
+            this.prev[head] = id;
+        }
+        this.slotHeads[slot] = id;
+    }
+
+    private void remove(int id) {
+        int slot = this.slots[id];
+        if (slot >= 0) {
+            int before = this.prev[id];
+            int after = this.next[id];
+            if (before >= 0) {
+                this.next[before] = after;
+            } else {
+                this.slotHeads[slot] = after;
+            }
+            if (after >= 0) {
+                this.prev[after] = before;
+            }
+        }
+
+        this.removeFromTable(id);
+        this.unlinkChunk(id);
+
+        this.slots[id] = FREE;
+        this.next[id] = this.freeHead;
+        this.freeHead = id;
+    }
+
+    private int allocate() {
+        if (this.freeHead >= 0) {
+            int id = this.freeHead;
+            this.freeHead = this.next[id];
+            return id;
+        }
+
+        if (this.usedIds >= this.xs.length) {
+            int capacity = this.xs.length * 2;
+            this.xs = Arrays.copyOf(this.xs, capacity);
+            this.ys = Arrays.copyOf(this.ys, capacity);
+            this.layers = Arrays.copyOf(this.layers, capacity);
+            this.metas = Arrays.copyOf(this.metas, capacity);
+            this.dueTicks = Arrays.copyOf(this.dueTicks, capacity);
+            this.slots = Arrays.copyOf(this.slots, capacity);
+            this.prev = Arrays.copyOf(this.prev, capacity);
+            this.next = Arrays.copyOf(this.next, capacity);
+            this.chunkPrev = Arrays.copyOf(this.chunkPrev, capacity);
+            this.chunkNext = Arrays.copyOf(this.chunkNext, capacity);
+        }
+        return this.usedIds++;
+    }
+
+    private void linkChunk(int id) {
+        int gridX = Math.floorDiv(this.xs[id], Constants.CHUNK_SIZE);
+        int gridY = Math.floorDiv(this.ys[id], Constants.CHUNK_SIZE);
+
+        ChunkList list = this.chunks.get(this.lookupPos.set(gridX, gridY));
+        if (list == null) {
+            list = new ChunkList();
+            this.chunks.put(this.lookupPos.copy(), list);
+        }
+
+        this.chunkPrev[id] = -1;
+        this.chunkNext[id] = list.head;
+        if (list.head >= 0) {
+            this.chunkPrev[list.head] = id;
+        }
+        list.head = id;
+        list.size++;
+    }
+
+    private void unlinkChunk(int id) {
+        int gridX = Math.floorDiv(this.xs[id], Constants.CHUNK_SIZE);
+        int gridY = Math.floorDiv(this.ys[id], Constants.CHUNK_SIZE);
+        ChunkList list = this.chunks.get(this.lookupPos.set(gridX, gridY));
+
+        int before = this.chunkPrev[id];
+        int after = this.chunkNext[id];
+        if (before >= 0) {
+            this.chunkNext[before] = after;
+        } else {
+            list.head = after;
+        }
+        if (after >= 0) {
+            this.chunkPrev[after] = before;
+        }
+
+        list.size--;
+        if (list.size <= 0) {
+            this.chunks.remove(this.lookupPos);
+        }
+    }
+
+    private static int hash(int x, int y, int layer, int meta) {
+        int hash = x * 0x9E3779B1 ^ y * 0x85EBCA6B ^ layer * 0xC2B2AE35 ^ meta * 0x27D4EB2F;
+        return hash ^ hash >>> 16;
+    }
+
+    private int hash(int id) {
+        return hash(this.xs[id], this.ys[id], this.layers[id], this.metas[id]);
+    }
+
+    private int find(int x, int y, int layer, int meta) {
+        int mask = this.table.length - 1;
+        int index = hash(x, y, layer, meta) & mask;
+        while (true) {
+            int id = this.table[index];
+            if (id < 0) {
+                return -1;
+            }
+            if (this.xs[id] == x && this.ys[id] == y && this.layers[id] == layer && this.metas[id] == meta) {
+                return index;
+            }
+            index = index + 1 & mask;
+        }
+    }
+
+    private void insertIntoTable(int id) {
+        if ((this.size + 1) * 2 > this.table.length) {
+            int[] old = this.table;
+            this.table = new int[old.length * 2];
+            Arrays.fill(this.table, -1);
+            for (int existing : old) {
+                if (existing >= 0) {
+                    this.placeInTable(existing);
+                }
+            }
+        }
+        this.placeInTable(id);
+        this.size++;
+    }
+
+    private void placeInTable(int id) {
+        int mask = this.table.length - 1;
+        int index = this.hash(id) & mask;
+        while (this.table[index] >= 0) {
+            index = index + 1 & mask;
+        }
+        this.table[index] = id;
+    }
+
+    private void removeFromTable(int id) {
+        int mask = this.table.length - 1;
+        int hole = this.find(this.xs[id], this.ys[id], this.layers[id], this.metas[id]);
+        this.table[hole] = -1;
+        this.size--;
+
+        int index = hole;
+        while (true) {
+            index = index + 1 & mask;
+            int moved = this.table[index];
+            if (moved < 0) {
+                return;
+            }
+            int ideal = this.hash(moved) & mask;
+            boolean stays = hole <= index ? hole < ideal && ideal <= index : hole < ideal || ideal <= index;
+            if (!stays) {
+                this.table[hole] = moved;
+                this.table[index] = -1;
+                hole = index;
+            }
+        }
+    }
+
+    private static final class ChunkList {
+
+        private int head = -1;
+        private int size;
+    }
+
+    @FunctionalInterface
+    public interface UpdateConsumer {
+
+        void accept(int x, int y, TileLayer layer, int meta);
+    }
+}
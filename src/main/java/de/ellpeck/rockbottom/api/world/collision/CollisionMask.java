@@ -0,0 +1,193 @@
+/*
+ * This file ("CollisionMask.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/RockBottomGame/>.
+ * View information on the project at <https://rockbottom.ellpeck.de/>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * © 2018 Ellpeck
+ */
+
+package de.ellpeck.rockbottom.api.world.collision;
+
+import de.ellpeck.rockbottom.api.Constants;
+import de.ellpeck.rockbottom.api.entity.MovableWorldObject;
+import de.ellpeck.rockbottom.api.tile.Tile;
+import de.ellpeck.rockbottom.api.tile.state.TileState;
+import de.ellpeck.rockbottom.api.util.BoundingBox;
+import de.ellpeck.rockbottom.api.world.IChunk;
+import de.ellpeck.rockbottom.api.world.IWorld;
+import de.ellpeck.rockbottom.api.world.layer.TileLayer;
+
+/**
+ * A cached summary of the static collision geometry of a single {@link
+ * TileLayer} of a chunk. Every position is classified as either {@link
+ * #NONE}, meaning that nothing can collide with it, {@link #FULL}, meaning that
+ * it is a solid full tile whose bounds are {@link Tile#DEFAULT_BOUNDS}, or
+ * {@link #COMPLEX}, meaning that its bounds have to be asked for using {@link
+ * Tile#getBoundBoxes(IWorld, TileState, int, int, TileLayer,
+ * MovableWorldObject, BoundingBox, BoundingBox)}.
+ * <p>
+ * This allows the movement code to skip air and to handle full tiles without
+ * creating any bounding boxes. The chunk calls {@link #invalidate(int, int)}
+ * whenever a state is set, and positions are reclassified lazily the next time
+ * they are queried.
+ *
+ * @see IChunk#getCollisionMask(TileLayer)
+ */
+public final class CollisionMask {
+
+    public static final byte NONE = 0;
+    public static final byte FULL = 1;
+    public static final byte COMPLEX = 2;
+
+    private static final int WORDS = Constants.CHUNK_SIZE * Constants.CHUNK_SIZE / Long.SIZE;
+    private static final ClassValue<Boolean> CUSTOM_BOUNDS = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            try {
+                return type.getMethod("getBoundBoxes", IWorld.class, TileState.class, int.class, int.class, TileLayer.class, MovableWorldObject.class, BoundingBox.class, BoundingBox.class).getDeclaringClass() != Tile.class
+                        || type.getMethod("getBoundBoxes", IWorld.class, int.class, int.class, TileLayer.class, MovableWorldObject.class, BoundingBox.class, BoundingBox.class).getDeclaringClass() != Tile.class;
+            } catch (NoSuchMethodException e) {
+                return true;
+            }
+        }
+    };
+
+    private final IChunk chunk;
+    private final TileLayer layer;
+    private final long[] full = new long[WORDS];
+    private final long[] complex = new long[WORDS];
+    private final long[] dirty = new long[WORDS];
+    private boolean anyDirty;
+    private int solidAmount;
+
+    public CollisionMask(IChunk chunk, TileLayer layer) {
+        this.chunk = chunk;
+        this.layer = layer;
+        this.invalidateAll();
+    }
+
+    /**
+     * Classifies the given state at the given position
+     *
+     * @param world The world
+     * @param state The state
+     * @param x     The x coordinate in the world
+     * @param y     The y coordinate in the world
+     * @param layer The layer
+     * @return {@link #NONE}, {@link #FULL} or {@link #COMPLEX}
+     */
+    public static byte classify(IWorld world, TileState state, int x, int y, TileLayer layer) {
+        Tile tile = state.getTile();
+        if (tile.isAir()) {
+            return NONE;
+        }
+        if (CUSTOM_BOUNDS.get(tile.getClass()) || tile.isPlatform() || tile.isChiseled(world, x, y, layer, state)) {
+            return COMPLEX;
+        }
+
+        BoundingBox box = tile.getBoundBox(world, state, x, y, layer);
+        if (box == null || box.isEmpty()) {
+            return NONE;
+        }
+        return box.equals(Tile.DEFAULT_BOUNDS) ? FULL : COMPLEX;
+    }
+
+    /**
+     * Returns the classification of the given position, reclassifying it
+     * first if it was invalidated
+     *
+     * @param x The x coordinate inside the chunk
+     * @param y The y coordinate inside the chunk
+     * @return {@link #NONE}, {@link #FULL} or {@link #COMPLEX}
+     */
+    public byte get(int x, int y) {
+        if (this.anyDirty) {
+            this.rebuild();
+        }
+
+        int index = x * Constants.CHUNK_SIZE + y;
+        long mask = 1L << index;
+        if ((this.full[index >>> 6] & mask) != 0) {
+            return FULL;
+        } else if ((this.complex[index >>> 6] & mask) != 0) {
+            return COMPLEX;
+        } else {
+            return NONE;
+        }
+    }
+
+    /**
+     * Returns if nothing in this chunk and layer can be collided with, in
+     * which case it can be skipped entirely
+     *
+     * @return If the mask is empty
+     */
+    public boolean isEmpty() {
+        if (this.anyDirty) {
+            this.rebuild();
+        }
+        return this.solidAmount <= 0;
+    }
+
+    public void invalidate(int x, int y) {
+        int index = x * Constants.CHUNK_SIZE + y;
+        this.dirty[index >>> 6] |= 1L << index;
+        this.anyDirty = true;
+    }
+
+    public void invalidateAll() {
+        for (int i = 0; i < WORDS; i++) {
+            this.dirty[i] = -1L;
+        }
+        this.anyDirty = true;
+    }
+
+    public TileLayer getLayer() {
+        return this.layer;
+    }
+
+    private void rebuild() {
+        IWorld world = this.chunk.getWorld();
+        for (int word = 0; word < WORDS; word++) {
+            long bits = this.dirty[word];
+            while (bits != 0) {
+                int index = (word << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+
+                int x = index / Constants.CHUNK_SIZE;
+                int y = index % Constants.CHUNK_SIZE;
+                byte type = classify(world, this.chunk.getStateInner(this.layer, x, y), this.chunk.getX() + x, this.chunk.getY() + y, this.layer);
+
+                long mask = 1L << index;
+                boolean wasSolid = ((this.full[word] | this.complex[word]) & mask) != 0;
+                this.full[word] &= ~mask;
+                this.complex[word] &= ~mask;
+                if (type == FULL) {
+                    this.full[word] |= mask;
+                } else if (type == COMPLEX) {
+                    this.complex[word] |= mask;
+                }
+
+                boolean isSolid = type != NONE;
+                if (wasSolid != isSolid) {
+                    this.solidAmount += isSolid ? 1 : -1;
+                }
+            }
+            this.dirty[word] = 0;
+        }
+        this.anyDirty = false;
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * This file ("SweepAndPrune.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/RockBottomGame/>.
+ * View information on the project at <https://rockbottom.ellpeck.de/>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * © 2018 Ellpeck
+ */
+
+package de.ellpeck.rockbottom.api.world.collision;
+
+import de.ellpeck.rockbottom.api.entity.MovableWorldObject;
+import de.ellpeck.rockbottom.api.util.BoundingBox;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * A sweep-and-prune broad phase that finds all pairs of {@link
+ * MovableWorldObject}s whose bounds, expanded by their motion for the current
+ * tick, overlap. The objects are kept sorted by the minimum x coordinate of
+ * their swept bounds. As objects only move a little every tick, the order
+ * barely changes, so {@link #update()} only needs to do a few swaps of an
+ * insertion sort instead of sorting from scratch.
+ * <p>
+ * Objects that are added after the last call to {@link #update()} are only
+ * reported in pairs after the next one. This class is not thread-safe.
+ *
+ * @param <T> The type of object
+ */
+public final class SweepAndPrune<T extends MovableWorldObject> {
+
+    private final Map<T, Integer> slots = new IdentityHashMap<>();
+    private Object[] objects = new Object[64];
+    private double[] bounds = new double[64 * 4];
+    private int[] order = new int[64];
+    private int size;
+    private int removedAmount;
+
+    public void add(T object) {
+        if (!this.slots.containsKey(object)) {
+            if (this.size >= this.objects.length) {
+                int length = this.objects.length * 2;
+                this.objects = Arrays.copyOf(this.objects, length);
+                this.bounds = Arrays.copyOf(this.bounds, length * 4);
+                this.order = Arrays.copyOf(this.order, length);
+            }
+
+            this.objects[this.size] = object;
+            this.order[this.size] = this.size;
+            this.updateBounds(this.size, object);
+            this.slots.put(object, this.size);
+            this.size++;
+        }
+    }
+
+    public void remove(T object) {
+        Integer slot = this.slots.remove(object);
+        if (slot != null) {
+            this.objects[slot] = null;
+            this.removedAmount++;
+        }
+    }
+
+    public boolean contains(T object) {
+        return this.slots.containsKey(object);
+    }
+
+    public int getSize() {
+        return this.slots.size();
+    }
+
+    public void clear() {
+        Arrays.fill(this.objects, 0, this.size, null);
+        this.slots.clear();
+        this.size = 0;
+        this.removedAmount = 0;
+    }
+
+    /**
+     * Recalculates the swept bounds of every object from its current bounds
+     * and motion and sorts them again. This should be called once per tick,
+     * before {@link #forEachPair(BiConsumer)}.
+     */
+    public void update() {
+        if (this.removedAmount > 0) {
+            this.compact();
+        }
+
+        for (int i = 0; i < this.size; i++) {
+            this.updateBounds(i, (MovableWorldObject) this.objects[i]);
+        }
+
+        int[] order = this.order;
+        double[] bounds = this.bounds;
+        for (int i = 1; i < this.size; i++) {
+            int slot = order[i];
+            double minX = bounds[slot * 4];
+            int j = i - 1;
+            while (j >= 0 && bounds[order[j] * 4] > minX) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = slot;
+        }
+    }
+
+    /**
+     * Calls the given consumer for every pair of objects whose swept bounds
+     * overlap, as of the last call to {@link #update()}. Every pair is only
+     * reported once.
+     *
+     * @param consumer The consumer
+     */
+    public void forEachPair(BiConsumer<T, T> consumer) {
+        int[] order = this.order;
+        double[] bounds = this.bounds;
+        for (int i = 0; i < this.size; i++) {
+            int a = order[i];
+            T objectA = (T) this.objects[a];
+            if (objectA == null) {
+                continue;
+            }
+
+            double maxX = bounds[a * 4 + 2];
+            double minY = bounds[a * 4 + 1];
+            double maxY = bounds[a * 4 + 3];
+            for (int j = i + 1; j < this.size; j++) {
+                int b = order[j];
+                if (bounds[b * 4] > maxX) {
+                    break;
+                }
+
+                if (bounds[b * 4 + 1] <= maxY && bounds[b * 4 + 3] >= minY) {
+                    T objectB = (T) this.objects[b];
+                    if (objectB != null) {
+                        consumer.accept(objectA, objectB);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Calls the given consumer for every object whose swept bounds, as of the
+     * last call to {@link #update()}, intersect the given area.
+     *
+     * @param area     The area
+     * @param consumer The consumer
+     */
+    public void forEachOverlap(BoundingBox area, Consumer<T> consumer) {
+        int[] order = this.order;
+        double[] bounds = this.bounds;
+        for (int i = 0; i < this.size; i++) {
+            int slot = order[i];
+            if (bounds[slot * 4] > area.getMaxX()) {
+                break;
+            }
+
+            if (bounds[slot * 4 + 2] >= area.getMinX() && bounds[slot * 4 + 1] <= area.getMaxY() && bounds[slot * 4 + 3] >= area.getMinY()) {
+                T object = (T) this.objects[slot];
+                if (object != null) {
+                    consumer.accept(object);
+                }
+            }
+        }
+    }
+
+    private void updateBounds(int slot, MovableWorldObject object) {
+        BoundingBox box = object.currentBounds;
+        double motionX = object.motionX;
+        double motionY = object.motionY;
+        int i = slot * 4;
+        this.bounds[i] = box.getMinX() + Math.min(0, motionX);
+        this.bounds[i + 1] = box.getMinY() + Math.min(0, motionY);
+        this.bounds[i + 2] = box.getMaxX() + Math.max(0, motionX);
+        this.bounds[i + 3] = box.getMaxY() + Math.max(0, motionY);
+    }
+
+    private void compact() {
+        int[] newSlots = new int[this.size];
+        int newSize = 0;
+        for (int i = 0; i < this.size; i++) {
+            Object object = this.objects[i];
+            if (object != null) {
+                newSlots[i] = newSize;
+                if (newSize != i) {
+                    this.objects[newSize] = object;
+                    System.arraycopy(this.bounds, i * 4, this.bounds, newSize * 4, 4);
+                    this.slots.put((T) object, newSize);
+                }
+                newSize++;
+            } else {
+                newSlots[i] = -1;
+            }
+        }
+        Arrays.fill(this.objects, newSize, this.size, null);
+
+        int orderSize = 0;
+        for (int i = 0; i < this.size; i++) {
+            int slot = newSlots[this.order[i]];
+            if (slot >= 0) {
+                this.order[orderSize++] = slot;
+            }
+        }
+
+        this.size = newSize;
+        this.removedAmount = 0;
+    }
+}
@@ -87,6 +87,11 @@ public abstract class BiomeGen implements IWorldGenerator {
         return 10000;
     }
 
+    @Override
+    public GenerationStage getGenerationStage() {
+        return GenerationStage.BIOMES;
+    }
+
     public Biome getBiome(IWorld world, int x, int y, int height) {
         return RockBottomAPI.getApiHandler().getBiome(world, x, y, height, this.totalWeights, this.biomesPerLevel, this.biomeRandom, this.getBiomeBlobSize(world), this.layerSeeds, this.levelHeightNoise, this.getLevelTransition(world), this.getBiomeTransition(world));
     }
@@ -0,0 +1,374 @@
+/*
+ * This file ("ChunkGenerationPipeline.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/RockBottomGame/>.
+ * View information on the project at <https://rockbottom.ellpeck.de/>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * © 2018 Ellpeck
+ */
+
+package de.ellpeck.rockbottom.api.world.gen;
+
+import de.ellpeck.rockbottom.api.RockBottomAPI;
+import de.ellpeck.rockbottom.api.entity.player.AbstractPlayerEntity;
+import de.ellpeck.rockbottom.api.util.ApiInternal;
+import de.ellpeck.rockbottom.api.world.IChunk;
+import de.ellpeck.rockbottom.api.world.IWorld;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+
+/**
+ * Generates new chunks in the background. Every chunk goes through the
+ * {@link GenerationStage}s in order, and the generators of each stage run in
+ * the order of {@link IWorld#getSortedLoopingGenerators()}. Generators that
+ * are {@link IWorldGenerator#isThreadSafe()} run on a pool of worker threads,
+ * so that many chunks can be generated at once, while all other generators are
+ * handed to the game thread through the executor given in the constructor.
+ * <p>
+ * While a generator runs for a chunk, it holds a lock on all of the chunks in
+ * its {@link IWorldGenerator#getNeighborRadius()}, so that generators that
+ * reach across chunk borders never write into the same chunk at the same time.
+ * A chunk is marked as {@link IChunk#isGenerating()} until all of its stages
+ * are done, which keeps it from being visible to players.
+ * <p>
+ * A worker thread only ever writes into chunks that are still being generated
+ * by this pipeline, as those are neither ticked nor visible. If any chunk in a
+ * thread-safe generator's neighbor radius is already done generating or isn't
+ * part of the pipeline, that generator runs on the game thread instead, and a
+ * chunk isn't finished while a worker might still be writing into it. Whether
+ * players allow a generator to run is decided on the game thread when the
+ * chunk is submitted, so the player list is never accessed by the workers.
+ * <p>
+ * Before a generator with a neighbor radius runs in a stage, every chunk in
+ * that radius that is still being generated by this pipeline has to be done
+ * with all of the stages before it, so that writes into a neighbor can't be
+ * overwritten by that neighbor's earlier stages, like its terrain. Chunks that
+ * aren't part of the pipeline are already done generating. Since a generator
+ * only ever waits for earlier stages than its own, chunks can't wait for each
+ * other in a cycle.
+ */
+@ApiInternal
+public final class ChunkGenerationPipeline {
+
+    private static final int LOCK_STRIPES = 256;
+
+    private final IWorld world;
+    private final ExecutorService workers;
+    private final Executor gameThread;
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+    private final AtomicInteger pendingAmount = new AtomicInteger();
+    private final Map<Long, Ownership> ownedChunks = new HashMap<>();
+
+    /**
+     * Creates a new pipeline
+     *
+     * @param world      The world to generate chunks for
+     * @param threads    The amount of worker threads
+     * @param gameThread An executor that runs tasks on the game thread, for
+     *                   generators that aren't thread-safe and for finishing
+     *                   chunks
+     */
+    public ChunkGenerationPipeline(IWorld world, int threads, Executor gameThread) {
+        this.world = world;
+        this.gameThread = gameThread;
+
+        AtomicInteger threadId = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "ChunkGenerator-" + world.getName() + '-' + threadId.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            this.locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Starts generating the given chunk. This has to be called on the game
+     * thread.
+     *
+     * @param chunk The chunk
+     * @return A future that completes on the game thread once the chunk is done
+     * generating
+     */
+    public CompletableFuture<IChunk> generate(IChunk chunk) {
+        chunk.setGenerating(true);
+        this.pendingAmount.incrementAndGet();
+        long key = toKey(chunk.getGridX(), chunk.getGridY());
+        synchronized (this.ownedChunks) {
+            this.ownedChunks.put(key, new Ownership());
+        }
+
+        List<IWorldGenerator> generators = new ArrayList<>();
+        for (IWorldGenerator generator : this.world.getSortedLoopingGenerators()) {
+            if (generator.generatesPerChunk() && this.isAllowedByPlayers(generator, chunk)) {
+                generators.add(generator);
+            }
+        }
+        generators.sort(Comparator.comparing(IWorldGenerator::getGenerationStage));
+
+        CompletableFuture<Void> future = CompletableFuture.completedFuture(null);
+        GenerationStage currentStage = null;
+        for (IWorldGenerator generator : generators) {
+            int stage = generator.getGenerationStage().ordinal();
+            if (generator.getGenerationStage() != currentStage) {
+                currentStage = generator.getGenerationStage();
+                future = future.thenRun(() -> this.completeStages(key, stage - 1));
+            }
+
+            int radius = generator.getNeighborRadius();
+            if (radius > 0 && stage > 0) {
+                future = future.thenCompose(result -> {
+                    CompletableFuture<Void> barrier = new CompletableFuture<>();
+                    this.awaitStage(chunk.getGridX(), chunk.getGridY(), radius, stage - 1, barrier);
+                    return barrier;
+                });
+            }
+
+            if (generator.isThreadSafe()) {
+                future = future.thenComposeAsync(result -> this.runOnWorker(generator, chunk), this.workers);
+            } else {
+                future = future.thenRunAsync(() -> this.runGenerator(generator, chunk), this.gameThread);
+            }
+        }
+
+        return future.handleAsync((result, exception) -> {
+            if (exception != null) {
+                RockBottomAPI.logger().log(Level.SEVERE, "Couldn't generate chunk at " + chunk.getGridX() + ", " + chunk.getGridY(), exception);
+            }
+            return chunk;
+        }, this.gameThread).thenCompose(this::finish);
+    }
+
+    public int getPendingAmount() {
+        return this.pendingAmount.get();
+    }
+
+    public void shutdown() {
+        this.workers.shutdown();
+        try {
+            if (!this.workers.awaitTermination(30, TimeUnit.SECONDS)) {
+                RockBottomAPI.logger().warning("Chunk generation for world " + this.world.getName() + " didn't finish in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Runs the given generator on the current worker thread if all of the
+     * chunks that it might write into are owned by this pipeline, and hands it
+     * to the game thread otherwise.
+     */
+    private CompletableFuture<Void> runOnWorker(IWorldGenerator generator, IChunk chunk) {
+        int radius = generator.getNeighborRadius();
+        if (!this.claim(chunk.getGridX(), chunk.getGridY(), radius)) {
+            return CompletableFuture.runAsync(() -> this.runGenerator(generator, chunk), this.gameThread);
+        }
+
+        try {
+            this.runGenerator(generator, chunk);
+        } finally {
+            this.release(chunk.getGridX(), chunk.getGridY(), radius);
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Marks the given chunk as done generating once no worker is writing into
+     * it anymore. This runs on the game thread.
+     */
+    private CompletableFuture<IChunk> finish(IChunk chunk) {
+        long key = toKey(chunk.getGridX(), chunk.getGridY());
+        this.completeStages(key, Integer.MAX_VALUE);
+
+        synchronized (this.ownedChunks) {
+            Ownership ownership = this.ownedChunks.get(key);
+            ownership.finishing = true;
+
+            if (ownership.writers > 0) {
+                CompletableFuture<IChunk> released = new CompletableFuture<>();
+                ownership.onReleased = () -> released.complete(chunk);
+                return released.thenComposeAsync(this::finish, this.gameThread);
+            }
+            this.ownedChunks.remove(key);
+        }
+
+        chunk.setGenerating(false);
+        this.pendingAmount.decrementAndGet();
+        return CompletableFuture.completedFuture(chunk);
+    }
+
+    /**
+     * Marks all stages up to and including the given one as done for the
+     * chunk with the given key and rechecks everyone that was waiting for it
+     */
+    private void completeStages(long key, int stage) {
+        List<Runnable> waiters;
+        synchronized (this.ownedChunks) {
+            Ownership ownership = this.ownedChunks.get(key);
+            if (ownership == null || ownership.completedStage >= stage) {
+                return;
+            }
+            ownership.completedStage = stage;
+
+            waiters = new ArrayList<>(ownership.stageWaiters);
+            ownership.stageWaiters.clear();
+        }
+        waiters.forEach(Runnable::run);
+    }
+
+    /**
+     * Completes the given future once every chunk in the given radius that is
+     * being generated by this pipeline is done with the given stage
+     */
+    private void awaitStage(int gridX, int gridY, int radius, int stage, CompletableFuture<Void> barrier) {
+        synchronized (this.ownedChunks) {
+            for (int x = -radius; x <= radius; x++) {
+                for (int y = -radius; y <= radius; y++) {
+                    Ownership ownership = this.ownedChunks.get(toKey(gridX + x, gridY + y));
+                    if (ownership != null && ownership.completedStage < stage) {
+                        ownership.stageWaiters.add(() -> this.awaitStage(gridX, gridY, radius, stage, barrier));
+                        return;
+                    }
+                }
+            }
+        }
+        barrier.complete(null);
+    }
+
+    private boolean claim(int gridX, int gridY, int radius) {
+        synchronized (this.ownedChunks) {
+            for (int x = -radius; x <= radius; x++) {
+                for (int y = -radius; y <= radius; y++) {
+                    Ownership ownership = this.ownedChunks.get(toKey(gridX + x, gridY + y));
+                    if (ownership == null || ownership.finishing) {
+                        return false;
+                    }
+                }
+            }
+
+            for (int x = -radius; x <= radius; x++) {
+                for (int y = -radius; y <= radius; y++) {
+                    this.ownedChunks.get(toKey(gridX + x, gridY + y)).writers++;
+                }
+            }
+            return true;
+        }
+    }
+
+    private void release(int gridX, int gridY, int radius) {
+        List<Runnable> released = new ArrayList<>();
+        synchronized (this.ownedChunks) {
+            for (int x = -radius; x <= radius; x++) {
+                for (int y = -radius; y <= radius; y++) {
+                    Ownership ownership = this.ownedChunks.get(toKey(gridX + x, gridY + y));
+                    ownership.writers--;
+                    if (ownership.writers <= 0 && ownership.onReleased != null) {
+                        released.add(ownership.onReleased);
+                        ownership.onReleased = null;
+                    }
+                }
+            }
+        }
+        released.forEach(Runnable::run);
+    }
+
+    private void runGenerator(IWorldGenerator generator, IChunk chunk) {
+        if (!generator.shouldGenerate(this.world, chunk)) {
+            return;
+        }
+
+        int[] stripes = this.getStripes(chunk.getGridX(), chunk.getGridY(), generator.getNeighborRadius());
+        for (int stripe : stripes) {
+            this.locks[stripe].lock();
+        }
+        try {
+            generator.generate(this.world, chunk);
+        } finally {
+            for (int i = stripes.length - 1; i >= 0; i--) {
+                this.locks[stripes[i]].unlock();
+            }
+        }
+    }
+
+    private boolean isAllowedByPlayers(IWorldGenerator generator, IChunk chunk) {
+        if (generator.needsPlayerToAllowGeneration(this.world, chunk)) {
+            for (AbstractPlayerEntity player : this.world.getAllPlayers()) {
+                if (generator.doesPlayerAllowGeneration(this.world, chunk, player)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the sorted, distinct lock stripes of all of the chunks in the
+     * given radius. Always locking stripes in ascending order makes sure that
+     * two generators can't deadlock each other.
+     */
+    private int[] getStripes(int gridX, int gridY, int radius) {
+        int side = radius * 2 + 1;
+        int[] stripes = new int[side * side];
+        int amount = 0;
+        for (int x = -radius; x <= radius; x++) {
+            for (int y = -radius; y <= radius; y++) {
+                int hash = (gridX + x) * 31 + gridY + y;
+                stripes[amount++] = (hash ^ hash >>> 16) & LOCK_STRIPES - 1;
+            }
+        }
+        Arrays.sort(stripes);
+
+        int distinct = 0;
+        for (int i = 0; i < stripes.length; i++) {
+            if (i == 0 || stripes[i] != stripes[i - 1]) {
+                stripes[distinct++] = stripes[i];
+            }
+        }
+        return Arrays.copyOf(stripes, distinct);
+    }
+
+    private static long toKey(int gridX, int gridY) {
+        return (long) gridX << 32 | gridY & 0xFFFFFFFFL;
+    }
+
+    /**
+     * The state of a chunk that is being generated by this pipeline
+     */
+    private static final class Ownership {
+
+        private final List<Runnable> stageWaiters = new ArrayList<>();
+        private int completedStage = -1;
+        private int writers;
+        private boolean finishing;
+        private Runnable onReleased;
+    }
+}
@@ -0,0 +1,318 @@
+/*
+ * This file ("ExpectedValueCache.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/RockBottomGame/>.
+ * View information on the project at <https://rockbottom.ellpeck.de/>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * © 2018 Ellpeck
+ */
+
+package de.ellpeck.rockbottom.api.world.gen;
+
+import com.google.common.base.Preconditions;
+import de.ellpeck.rockbottom.api.Constants;
+import de.ellpeck.rockbottom.api.util.Pos2;
+import de.ellpeck.rockbottom.api.util.Util;
+import de.ellpeck.rockbottom.api.world.IChunkOrWorld;
+import de.ellpeck.rockbottom.api.world.gen.biome.Biome;
+import de.ellpeck.rockbottom.api.world.gen.biome.level.BiomeLevel;
+import de.ellpeck.rockbottom.api.world.layer.TileLayer;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded cache that sits in front of the expected value queries of {@link
+ * IChunkOrWorld}, like {@link IChunkOrWorld#getExpectedSurfaceHeight(TileLayer,
+ * int)} and {@link IChunkOrWorld#getExpectedBiome(int, int)}. Since these are
+ * calculated from noise, asking for the same position again always gives the
+ * same result for the same seed, which is why this cache stores the heights of
+ * whole chunk-wide columns and the biomes of whole chunks and drops the least
+ * recently used ones once it is full. All of the stored values are thrown away
+ * when the seed that they are requested for changes.
+ * <p>
+ * Biomes and biome levels are filled in lazily, one position at a time, so a
+ * single query doesn't cause a whole chunk's worth of noise to be calculated.
+ * Heights are always calculated for a whole chunk-wide column at once, since
+ * average heights and flatness are usually asked for over whole chunks.
+ * <p>
+ * This class is thread-safe. Only looking values up and storing them is done
+ * while holding its lock, while missing values are calculated outside of it,
+ * so that generators running on multiple threads can evaluate their noise at
+ * the same time. If two threads calculate the same missing value at once, the
+ * one that is stored first is kept and returned to both.
+ */
+public class ExpectedValueCache {
+
+    private final HeightFunction heightFunction;
+    private final BiomeFunction biomeFunction;
+    private final BiomeLevelFunction levelFunction;
+    private final int maxHeightColumns;
+    private final int maxBiomeChunks;
+
+    private final Map<Pos2, int[]> heights;
+    private final Map<Pos2, BiomeGrid> biomes;
+    private final Pos2 lookupPos = new Pos2();
+
+    private long seed;
+    private long hits;
+    private long misses;
+
+    /**
+     * Creates a new cache
+     *
+     * @param heightFunction   The function that calculates the expected
+     *                         surface height, without caching
+     * @param biomeFunction    The function that calculates the expected biome,
+     *                         without caching
+     * @param levelFunction    The function that calculates the expected biome
+     *                         level, without caching
+     * @param maxHeightColumns The maximum amount of chunk-wide height columns
+     *                         to store per layer
+     * @param maxBiomeChunks   The maximum amount of chunks to store biomes for
+     */
+    public ExpectedValueCache(HeightFunction heightFunction, BiomeFunction biomeFunction, BiomeLevelFunction levelFunction, int maxHeightColumns, int maxBiomeChunks) {
+        Preconditions.checkArgument(maxHeightColumns > 0 && maxBiomeChunks > 0, "Cache sizes need to be positive");
+        this.heightFunction = heightFunction;
+        this.biomeFunction = biomeFunction;
+        this.levelFunction = levelFunction;
+        this.maxHeightColumns = maxHeightColumns;
+        this.maxBiomeChunks = maxBiomeChunks;
+        this.heights = new LinkedHashMap<>(16, 0.75F, true);
+        this.biomes = new LinkedHashMap<>(16, 0.75F, true);
+    }
+
+    /**
+     * Returns the expected surface height at the given x coordinate, like
+     * {@link IChunkOrWorld#getExpectedSurfaceHeight(TileLayer, int)}
+     *
+     * @param seed  The seed of the world
+     * @param layer The layer
+     * @param x     The world x coordinate
+     * @return The expected height
+     */
+    public int getSurfaceHeight(long seed, TileLayer layer, int x) {
+        return this.getColumn(seed, layer, Util.toGridPos(x))[Math.floorMod(x, Constants.CHUNK_SIZE)];
+    }
+
+    /**
+     * Copies the expected surface heights for the given interval into the
+     * given array. This is meant for calculating things like {@link
+     * IChunkOrWorld#getExpectedAverageHeight(TileLayer, int, int)} and {@link
+     * IChunkOrWorld#getExpectedSurfaceFlatness(TileLayer, int, int)} without
+     * having to look up every column on its own.
+     *
+     * @param seed   The seed of the world
+     * @param layer  The layer
+     * @param startX The leftmost world x coordinate, inclusive
+     * @param endX   The rightmost world x coordinate, exclusive
+     * @param out    The array to fill, starting at index 0
+     */
+    public void getSurfaceHeights(long seed, TileLayer layer, int startX, int endX, int[] out) {
+        Preconditions.checkArgument(endX >= startX && out.length >= endX - startX, "Can't copy heights from %s to %s into an array of length %s", startX, endX, out.length);
+
+        int x = startX;
+        while (x < endX) {
+            int[] column = this.getColumn(seed, layer, Util.toGridPos(x));
+            int inner = Math.floorMod(x, Constants.CHUNK_SIZE);
+            int amount = Math.min(Constants.CHUNK_SIZE - inner, endX - x);
+            System.arraycopy(column, inner, out, x - startX, amount);
+            x += amount;
+        }
+    }
+
+    /**
+     * Returns the expected biome at the given position, like {@link
+     * IChunkOrWorld#getExpectedBiome(int, int)}
+     *
+     * @param seed The seed of the world
+     * @param x    The world x coordinate
+     * @param y    The world y coordinate
+     * @return The expected biome
+     */
+    public Biome getBiome(long seed, int x, int y) {
+        int index = getIndex(x, y);
+        synchronized (this) {
+            this.checkSeed(seed);
+            Biome biome = this.getGrid(x, y).biomes[index];
+            if (biome != null) {
+                this.hits++;
+                return biome;
+            }
+        }
+
+        Biome biome = this.biomeFunction.getBiome(x, y);
+        synchronized (this) {
+            this.misses++;
+            if (seed == this.seed) {
+                BiomeGrid grid = this.getGrid(x, y);
+                if (grid.biomes[index] == null) {
+                    grid.biomes[index] = biome;
+                } else {
+                    biome = grid.biomes[index];
+                }
+            }
+        }
+        return biome;
+    }
+
+    /**
+     * Returns the expected biome level at the given position, like {@link
+     * IChunkOrWorld#getExpectedBiomeLevel(int, int)}
+     *
+     * @param seed The seed of the world
+     * @param x    The world x coordinate
+     * @param y    The world y coordinate
+     * @return The expected biome level
+     */
+    public BiomeLevel getBiomeLevel(long seed, int x, int y) {
+        int index = getIndex(x, y);
+        synchronized (this) {
+            this.checkSeed(seed);
+            BiomeLevel level = this.getGrid(x, y).levels[index];
+            if (level != null) {
+                this.hits++;
+                return level;
+            }
+        }
+
+        BiomeLevel level = this.levelFunction.getBiomeLevel(x, y);
+        synchronized (this) {
+            this.misses++;
+            if (seed == this.seed) {
+                BiomeGrid grid = this.getGrid(x, y);
+                if (grid.levels[index] == null) {
+                    grid.levels[index] = level;
+                } else {
+                    level = grid.levels[index];
+                }
+            }
+        }
+        return level;
+    }
+
+    /**
+     * Removes all of the stored values. This happens automatically when the
+     * seed changes.
+     */
+    public synchronized void clear() {
+        this.heights.clear();
+        this.biomes.clear();
+    }
+
+    /**
+     * @return The amount of queries that were answered from the cache
+     */
+    public synchronized long getHits() {
+        return this.hits;
+    }
+
+    /**
+     * @return The amount of queries that had to be calculated
+     */
+    public synchronized long getMisses() {
+        return this.misses;
+    }
+
+    public synchronized void resetCounters() {
+        this.hits = 0;
+        this.misses = 0;
+    }
+
+    private void checkSeed(long seed) {
+        if (seed != this.seed) {
+            this.clear();
+            this.seed = seed;
+        }
+    }
+
+    private int[] getColumn(long seed, TileLayer layer, int gridX) {
+        synchronized (this) {
+            this.checkSeed(seed);
+            int[] column = this.heights.get(this.lookupPos.set(gridX, layer.index()));
+            if (column != null) {
+                this.hits++;
+                return column;
+            }
+        }
+
+        int[] column = new int[Constants.CHUNK_SIZE];
+        int startX = Util.toWorldPos(gridX);
+        for (int i = 0; i < column.length; i++) {
+            column[i] = this.heightFunction.getSurfaceHeight(layer, startX + i);
+        }
+
+        synchronized (this) {
+            this.misses++;
+            if (seed == this.seed) {
+                int[] existing = this.heights.get(this.lookupPos.set(gridX, layer.index()));
+                if (existing != null) {
+                    return existing;
+                }
+
+                this.heights.put(this.lookupPos.copy(), column);
+                evict(this.heights, this.maxHeightColumns * TileLayer.getAllLayers().size());
+            }
+        }
+        return column;
+    }
+
+    private BiomeGrid getGrid(int x, int y) {
+        BiomeGrid grid = this.biomes.get(this.lookupPos.set(Util.toGridPos(x), Util.toGridPos(y)));
+        if (grid == null) {
+            grid = new BiomeGrid();
+            this.biomes.put(this.lookupPos.copy(), grid);
+            evict(this.biomes, this.maxBiomeChunks);
+        }
+        return grid;
+    }
+
+    private static int getIndex(int x, int y) {
+        return Math.floorMod(x, Constants.CHUNK_SIZE) * Constants.CHUNK_SIZE + Math.floorMod(y, Constants.CHUNK_SIZE);
+    }
+
+    private static void evict(Map<Pos2, ?> map, int maxSize) {
+        if (map.size() > maxSize) {
+            Iterator<?> iterator = map.values().iterator();
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    private static final class BiomeGrid {
+
+        private final Biome[] biomes = new Biome[Constants.CHUNK_SIZE * Constants.CHUNK_SIZE];
+        private final BiomeLevel[] levels = new BiomeLevel[Constants.CHUNK_SIZE * Constants.CHUNK_SIZE];
+    }
+
+    @FunctionalInterface
+    public interface HeightFunction {
+
+        int getSurfaceHeight(TileLayer layer, int x);
+    }
+
+    @FunctionalInterface
+    public interface BiomeFunction {
+
+        Biome getBiome(int x, int y);
+    }
+
+    @FunctionalInterface
+    public interface BiomeLevelFunction {
+
+        BiomeLevel getBiomeLevel(int x, int y);
+    }
+}
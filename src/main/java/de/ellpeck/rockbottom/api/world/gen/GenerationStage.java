@@ -0,0 +1,47 @@
+/*
+ * This file ("GenerationStage.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/RockBottomGame/>.
+ * View information on the project at <https://rockbottom.ellpeck.de/>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * © 2018 Ellpeck
+ */
+
+package de.ellpeck.rockbottom.api.world.gen;
+
+/**
+ * The stages that the generation of a chunk goes through. All of the {@link
+ * IWorldGenerator}s of one stage are done with a chunk before the generators
+ * of the next stage start, and within a stage, generators still run in the
+ * order of their {@link IWorldGenerator#getPriority()}.
+ *
+ * @see IWorldGenerator#getGenerationStage()
+ * @see ChunkGenerationPipeline
+ */
+public enum GenerationStage {
+
+    /**
+     * Decides the biomes and heights of a chunk, like {@link BiomeGen}
+     */
+    BIOMES,
+    /**
+     * Fills a chunk with its basic terrain
+     */
+    TERRAIN,
+    /**
+     * Places everything else, like ores, plants and structures
+     */
+    DECORATION
+}
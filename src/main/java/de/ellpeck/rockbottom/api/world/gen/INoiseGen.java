@@ -21,6 +21,8 @@
 
 package de.ellpeck.rockbottom.api.world.gen;
 
+import com.google.common.base.Preconditions;
+
 public interface INoiseGen {
 
     double make2dNoise(double x, double y);
@@ -28,4 +30,70 @@ public interface INoiseGen {
     double make3dNoise(double x, double y, double z);
 
     double make4dNoise(double x, double y, double z, double w);
+
+    /**
+     * Fills the given array with 2d noise for a grid of coordinates, starting
+     * at the given position and moving by the given step in each direction.
+     * The value for grid position {@code (x, y)} is stored at {@code out[x *
+     * height + y]}, which is the same layout that chunks use for their tiles.
+     * This is a lot faster than calling {@link #make2dNoise(double, double)}
+     * for every position when the implementation overrides it, like {@link
+     * SimplexNoise} does.
+     *
+     * @param x0     The start x coordinate
+     * @param y0     The start y coordinate
+     * @param stepX  The distance between two values on the x axis
+     * @param stepY  The distance between two values on the y axis
+     * @param width  The amount of values on the x axis
+     * @param height The amount of values on the y axis
+     * @param out    The array to fill
+     */
+    default void fill2dNoise(double x0, double y0, double stepX, double stepY, int width, int height, double[] out) {
+        Preconditions.checkArgument(out.length >= width * height, "Output array of length %s can't hold %s x %s values", out.length, width, height);
+        for (int x = 0; x < width; x++) {
+            double noiseX = x0 + x * stepX;
+            int offset = x * height;
+            for (int y = 0; y < height; y++) {
+                out[offset + y] = this.make2dNoise(noiseX, y0 + y * stepY);
+            }
+        }
+    }
+
+    /**
+     * Fills the given array with 2d noise for a grid of coordinates, the same
+     * way that {@link #fill2dNoise(double, double, double, double, int, int,
+     * double[])} does, but stores the values as floats.
+     *
+     * @param x0     The start x coordinate
+     * @param y0     The start y coordinate
+     * @param stepX  The distance between two values on the x axis
+     * @param stepY  The distance between two values on the y axis
+     * @param width  The amount of values on the x axis
+     * @param height The amount of values on the y axis
+     * @param out    The array to fill
+     */
+    default void fill2dNoise(double x0, double y0, double stepX, double stepY, int width, int height, float[] out) {
+        Preconditions.checkArgument(out.length >= width * height, "Output array of length %s can't hold %s x %s values", out.length, width, height);
+        for (int x = 0; x < width; x++) {
+            double noiseX = x0 + x * stepX;
+            int offset = x * height;
+            for (int y = 0; y < height; y++) {
+                out[offset + y] = (float) this.make2dNoise(noiseX, y0 + y * stepY);
+            }
+        }
+    }
+
+    /**
+     * Fills the given array with 2d noise for a row of coordinates on the x
+     * axis, which is useful for things like height maps, where only one value
+     * per tile column is needed.
+     *
+     * @param x0    The start x coordinate
+     * @param y     The y coordinate
+     * @param stepX The distance between two values
+     * @param out   The array to fill, whose length is the amount of values
+     */
+    default void fill2dNoiseRow(double x0, double y, double stepX, double[] out) {
+        this.fill2dNoise(x0, y, stepX, 0D, out.length, 1, out);
+    }
 }
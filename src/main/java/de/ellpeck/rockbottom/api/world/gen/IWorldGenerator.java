@@ -57,6 +57,44 @@ public interface IWorldGenerator {
         return true;
     }
 
+    /**
+     * Returns the stage of chunk generation that this generator runs in. By
+     * default, this is {@link GenerationStage#DECORATION}, which keeps
+     * generators that don't override it in their original order.
+     *
+     * @return The generation stage
+     */
+    default GenerationStage getGenerationStage() {
+        return GenerationStage.DECORATION;
+    }
+
+    /**
+     * Returns if {@link #generate(IWorld, IChunk)} can be called on a worker
+     * thread, at the same time as it is being called for other chunks. A
+     * thread-safe generator may not change any state of its own while
+     * generating, and it may only change the chunk it generates and the
+     * chunks within its {@link #getNeighborRadius()}. Generators that are
+     * not thread-safe always run on the game thread.
+     *
+     * @return If this generator is thread-safe
+     * @see ChunkGenerationPipeline
+     */
+    default boolean isThreadSafe() {
+        return false;
+    }
+
+    /**
+     * Returns how many chunks around the chunk that is being generated this
+     * generator might change, for example if it places clusters or structures
+     * that reach across chunk borders. No other generator that touches any of
+     * these chunks will run at the same time.
+     *
+     * @return The radius in chunks
+     */
+    default int getNeighborRadius() {
+        return 0;
+    }
+
     interface IFactory {
 
         IWorldGenerator create();
@@ -0,0 +1,372 @@
+/*
+ * This file ("SimplexNoise.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/RockBottomGame/>.
+ * View information on the project at <https://rockbottom.ellpeck.de/>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * © 2018 Ellpeck
+ */
+
+package de.ellpeck.rockbottom.api.world.gen;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Random;
+
+/**
+ * A Simplex Noise implementation based on Stefan Gustavson's reference code.
+ * The permutation and gradient tables are built once per seed and shared
+ * between all calls, and the gradients are stored as one array per axis so
+ * that looking them up doesn't have to go through nested arrays. The bulk
+ * {@link #fill2dNoise(double, double, double, double, int, int, double[])}
+ * methods run the whole grid in one loop and remember the simplex cell of the
+ * previous sample: as neighboring samples of a grid usually fall into the same
+ * cell, its gradients are only looked up once for all of them. They produce
+ * exactly the same values as {@link #make2dNoise(double, double)}.
+ * <p>
+ * Use {@link de.ellpeck.rockbottom.api.IApiHandler#makeSimplexNoise(long)} to
+ * get the game's noise generator instead of creating this directly.
+ */
+public class SimplexNoise implements INoiseGen {
+
+    private static final double F2 = 0.5D * (Math.sqrt(3D) - 1D);
+    private static final double G2 = (3D - Math.sqrt(3D)) / 6D;
+    private static final double F3 = 1D / 3D;
+    private static final double G3 = 1D / 6D;
+    private static final double F4 = (Math.sqrt(5D) - 1D) / 4D;
+    private static final double G4 = (5D - Math.sqrt(5D)) / 20D;
+
+    private static final double[] GRAD3_X = {1, -1, 1, -1, 1, -1, 1, -1, 0, 0, 0, 0};
+    private static final double[] GRAD3_Y = {1, 1, -1, -1, 0, 0, 0, 0, 1, -1, 1, -1};
+    private static final double[] GRAD3_Z = {0, 0, 0, 0, 1, 1, -1, -1, 1, 1, -1, -1};
+
+    private static final double[] GRAD4_X = {0, 0, 0, 0, 0, 0, 0, 0, 1, 1, 1, 1, -1, -1, -1, -1, 1, 1, 1, 1, -1, -1, -1, -1, 1, 1, 1, 1, -1, -1, -1, -1};
+    private static final double[] GRAD4_Y = {1, 1, 1, 1, -1, -1, -1, -1, 0, 0, 0, 0, 0, 0, 0, 0, 1, 1, -1, -1, 1, 1, -1, -1, 1, 1, -1, -1, 1, 1, -1, -1};
+    private static final double[] GRAD4_Z = {1, 1, -1, -1, 1, 1, -1, -1, 1, 1, -1, -1, 1, 1, -1, -1, 0, 0, 0, 0, 0, 0, 0, 0, 1, -1, 1, -1, 1, -1, 1, -1};
+    private static final double[] GRAD4_W = {1, -1, 1, -1, 1, -1, 1, -1, 1, -1, 1, -1, 1, -1, 1, -1, 1, -1, 1, -1, 1, -1, 1, -1, 0, 0, 0, 0, 0, 0, 0, 0};
+
+    private final short[] perm = new short[512];
+    private final short[] permMod12 = new short[512];
+
+    public SimplexNoise(long seed) {
+        short[] source = new short[256];
+        for (short i = 0; i < source.length; i++) {
+            source[i] = i;
+        }
+
+        Random random = new Random(seed);
+        for (int i = source.length - 1; i > 0; i--) {
+            int swap = random.nextInt(i + 1);
+            short temp = source[i];
+            source[i] = source[swap];
+            source[swap] = temp;
+        }
+
+        for (int i = 0; i < this.perm.length; i++) {
+            this.perm[i] = source[i & 255];
+            this.permMod12[i] = (short) (this.perm[i] % 12);
+        }
+    }
+
+    private static int fastFloor(double x) {
+        int xi = (int) x;
+        return x < xi ? xi - 1 : xi;
+    }
+
+    private static double corner2d(double t, int gradient, double x, double y) {
+        double clamped = Math.max(t, 0D);
+        clamped *= clamped;
+        return clamped * clamped * (GRAD3_X[gradient] * x + GRAD3_Y[gradient] * y);
+    }
+
+    private double noise2d(double xin, double yin) {
+        double s = (xin + yin) * F2;
+        int i = fastFloor(xin + s);
+        int j = fastFloor(yin + s);
+        double t = (i + j) * G2;
+        double x0 = xin - (i - t);
+        double y0 = yin - (j - t);
+
+        int i1 = x0 > y0 ? 1 : 0;
+        int j1 = 1 - i1;
+
+        double x1 = x0 - i1 + G2;
+        double y1 = y0 - j1 + G2;
+        double x2 = x0 - 1D + 2D * G2;
+        double y2 = y0 - 1D + 2D * G2;
+
+        int ii = i & 255;
+        int jj = j & 255;
+        int gi0 = this.permMod12[ii + this.perm[jj]];
+        int gi1 = this.permMod12[ii + i1 + this.perm[jj + j1]];
+        int gi2 = this.permMod12[ii + 1 + this.perm[jj + 1]];
+
+        double n0 = corner2d(0.5D - x0 * x0 - y0 * y0, gi0, x0, y0);
+        double n1 = corner2d(0.5D - x1 * x1 - y1 * y1, gi1, x1, y1);
+        double n2 = corner2d(0.5D - x2 * x2 - y2 * y2, gi2, x2, y2);
+        return 70D * (n0 + n1 + n2);
+    }
+
+    @Override
+    public double make2dNoise(double x, double y) {
+        return this.noise2d(x, y);
+    }
+
+    @Override
+    public void fill2dNoise(double x0, double y0, double stepX, double stepY, int width, int height, double[] out) {
+        Preconditions.checkArgument(out.length >= width * height, "Output array of length %s can't hold %s x %s values", out.length, width, height);
+        this.fill2d(x0, y0, stepX, stepY, width, height, out, null);
+    }
+
+    @Override
+    public void fill2dNoise(double x0, double y0, double stepX, double stepY, int width, int height, float[] out) {
+        Preconditions.checkArgument(out.length >= width * height, "Output array of length %s can't hold %s x %s values", out.length, width, height);
+        this.fill2d(x0, y0, stepX, stepY, width, height, null, out);
+    }
+
+    /**
+     * The same calculation as {@link #noise2d(double, double)}, but the
+     * gradients of the current simplex cell are kept between samples and only
+     * looked up again once a sample falls into a different cell. Both
+     * candidates for the middle corner are looked up at that point, so which
+     * one a sample needs only decides between two locals.
+     */
+    private void fill2d(double x0, double y0, double stepX, double stepY, int width, int height, double[] doubles, float[] floats) {
+        short[] perm = this.perm;
+        short[] permMod12 = this.permMod12;
+
+        int cellI = Integer.MIN_VALUE;
+        int cellJ = Integer.MIN_VALUE;
+        int gi0 = 0;
+        int gi1X = 0;
+        int gi1Y = 0;
+        int gi2 = 0;
+
+        for (int x = 0; x < width; x++) {
+            double xin = x0 + x * stepX;
+            int offset = x * height;
+            for (int y = 0; y < height; y++) {
+                double yin = y0 + y * stepY;
+                double s = (xin + yin) * F2;
+                int i = fastFloor(xin + s);
+                int j = fastFloor(yin + s);
+                double t = (i + j) * G2;
+                double dx0 = xin - (i - t);
+                double dy0 = yin - (j - t);
+
+                if (i != cellI || j != cellJ) {
+                    int ii = i & 255;
+                    int jj = j & 255;
+                    gi0 = permMod12[ii + perm[jj]];
+                    gi1X = permMod12[ii + 1 + perm[jj]];
+                    gi1Y = permMod12[ii + perm[jj + 1]];
+                    gi2 = permMod12[ii + 1 + perm[jj + 1]];
+                    cellI = i;
+                    cellJ = j;
+                }
+
+                int gi1;
+                double dx1;
+                double dy1;
+                if (dx0 > dy0) {
+                    gi1 = gi1X;
+                    dx1 = dx0 - 1D + G2;
+                    dy1 = dy0 + G2;
+                } else {
+                    gi1 = gi1Y;
+                    dx1 = dx0 + G2;
+                    dy1 = dy0 - 1D + G2;
+                }
+                double dx2 = dx0 - 1D + 2D * G2;
+                double dy2 = dy0 - 1D + 2D * G2;
+
+                double n0 = corner2d(0.5D - dx0 * dx0 - dy0 * dy0, gi0, dx0, dy0);
+                double n1 = corner2d(0.5D - dx1 * dx1 - dy1 * dy1, gi1, dx1, dy1);
+                double n2 = corner2d(0.5D - dx2 * dx2 - dy2 * dy2, gi2, dx2, dy2);
+                double value = 70D * (n0 + n1 + n2);
+
+                if (doubles != null) {
+                    doubles[offset + y] = value;
+                } else {
+                    floats[offset + y] = (float) value;
+                }
+            }
+        }
+    }
+
+    @Override
+    public double make3dNoise(double xin, double yin, double zin) {
+        double s = (xin + yin + zin) * F3;
+        int i = fastFloor(xin + s);
+        int j = fastFloor(yin + s);
+        int k = fastFloor(zin + s);
+        double t = (i + j + k) * G3;
+        double x0 = xin - (i - t);
+        double y0 = yin - (j - t);
+        double z0 = zin - (k - t);
+
+        int i1, j1, k1;
+        int i2, j2, k2;
+        if (x0 >= y0) {
+            if (y0 >= z0) {
+                i1 = 1; j1 = 0; k1 = 0; i2 = 1; j2 = 1; k2 = 0;
+            } else if (x0 >= z0) {
+                i1 = 1; j1 = 0; k1 = 0; i2 = 1; j2 = 0; k2 = 1;
+            } else {
+                i1 = 0; j1 = 0; k1 = 1; i2 = 1; j2 = 0; k2 = 1;
+            }
+        } else {
+            if (y0 < z0) {
+                i1 = 0; j1 = 0; k1 = 1; i2 = 0; j2 = 1; k2 = 1;
+            } else if (x0 < z0) {
+                i1 = 0; j1 = 1; k1 = 0; i2 = 0; j2 = 1; k2 = 1;
+            } else {
+                i1 = 0; j1 = 1; k1 = 0; i2 = 1; j2 = 1; k2 = 0;
+            }
+        }
+
+        double x1 = x0 - i1 + G3;
+        double y1 = y0 - j1 + G3;
+        double z1 = z0 - k1 + G3;
+        double x2 = x0 - i2 + 2D * G3;
+        double y2 = y0 - j2 + 2D * G3;
+        double z2 = z0 - k2 + 2D * G3;
+        double x3 = x0 - 1D + 3D * G3;
+        double y3 = y0 - 1D + 3D * G3;
+        double z3 = z0 - 1D + 3D * G3;
+
+        int ii = i & 255;
+        int jj = j & 255;
+        int kk = k & 255;
+        int gi0 = this.permMod12[ii + this.perm[jj + this.perm[kk]]];
+        int gi1 = this.permMod12[ii + i1 + this.perm[jj + j1 + this.perm[kk + k1]]];
+        int gi2 = this.permMod12[ii + i2 + this.perm[jj + j2 + this.perm[kk + k2]]];
+        int gi3 = this.permMod12[ii + 1 + this.perm[jj + 1 + this.perm[kk + 1]]];
+
+        double n0 = corner3d(0.6D - x0 * x0 - y0 * y0 - z0 * z0, gi0, x0, y0, z0);
+        double n1 = corner3d(0.6D - x1 * x1 - y1 * y1 - z1 * z1, gi1, x1, y1, z1);
+        double n2 = corner3d(0.6D - x2 * x2 - y2 * y2 - z2 * z2, gi2, x2, y2, z2);
+        double n3 = corner3d(0.6D - x3 * x3 - y3 * y3 - z3 * z3, gi3, x3, y3, z3);
+        return 32D * (n0 + n1 + n2 + n3);
+    }
+
+    private static double corner3d(double t, int gradient, double x, double y, double z) {
+        double clamped = Math.max(t, 0D);
+        clamped *= clamped;
+        return clamped * clamped * (GRAD3_X[gradient] * x + GRAD3_Y[gradient] * y + GRAD3_Z[gradient] * z);
+    }
+
+    @Override
+    public double make4dNoise(double x, double y, double z, double w) {
+        double s = (x + y + z + w) * F4;
+        int i = fastFloor(x + s);
+        int j = fastFloor(y + s);
+        int k = fastFloor(z + s);
+        int l = fastFloor(w + s);
+        double t = (i + j + k + l) * G4;
+        double x0 = x - (i - t);
+        double y0 = y - (j - t);
+        double z0 = z - (k - t);
+        double w0 = w - (l - t);
+
+        int rankX = 0;
+        int rankY = 0;
+        int rankZ = 0;
+        int rankW = 0;
+        if (x0 > y0) {
+            rankX++;
+        } else {
+            rankY++;
+        }
+        if (x0 > z0) {
+            rankX++;
+        } else {
+            rankZ++;
+        }
+        if (x0 > w0) {
+            rankX++;
+        } else {
+            rankW++;
+        }
+        if (y0 > z0) {
+            rankY++;
+        } else {
+            rankZ++;
+        }
+        if (y0 > w0) {
+            rankY++;
+        } else {
+            rankW++;
+        }
+        if (z0 > w0) {
+            rankZ++;
+        } else {
+            rankW++;
+        }
+
+        int i1 = rankX >= 3 ? 1 : 0;
+        int j1 = rankY >= 3 ? 1 : 0;
+        int k1 = rankZ >= 3 ? 1 : 0;
+        int l1 = rankW >= 3 ? 1 : 0;
+        int i2 = rankX >= 2 ? 1 : 0;
+        int j2 = rankY >= 2 ? 1 : 0;
+        int k2 = rankZ >= 2 ? 1 : 0;
+        int l2 = rankW >= 2 ? 1 : 0;
+        int i3 = rankX >= 1 ? 1 : 0;
+        int j3 = rankY >= 1 ? 1 : 0;
+        int k3 = rankZ >= 1 ? 1 : 0;
+        int l3 = rankW >= 1 ? 1 : 0;
+
+        double x1 = x0 - i1 + G4;
+        double y1 = y0 - j1 + G4;
+        double z1 = z0 - k1 + G4;
+        double w1 = w0 - l1 + G4;
+        double x2 = x0 - i2 + 2D * G4;
+        double y2 = y0 - j2 + 2D * G4;
+        double z2 = z0 - k2 + 2D * G4;
+        double w2 = w0 - l2 + 2D * G4;
+        double x3 = x0 - i3 + 3D * G4;
+        double y3 = y0 - j3 + 3D * G4;
+        double z3 = z0 - k3 + 3D * G4;
+        double w3 = w0 - l3 + 3D * G4;
+        double x4 = x0 - 1D + 4D * G4;
+        double y4 = y0 - 1D + 4D * G4;
+        double z4 = z0 - 1D + 4D * G4;
+        double w4 = w0 - 1D + 4D * G4;
+
+        int ii = i & 255;
+        int jj = j & 255;
+        int kk = k & 255;
+        int ll = l & 255;
+        int gi0 = this.perm[ii + this.perm[jj + this.perm[kk + this.perm[ll]]]] % 32;
+        int gi1 = this.perm[ii + i1 + this.perm[jj + j1 + this.perm[kk + k1 + this.perm[ll + l1]]]] % 32;
+        int gi2 = this.perm[ii + i2 + this.perm[jj + j2 + this.perm[kk + k2 + this.perm[ll + l2]]]] % 32;
+        int gi3 = this.perm[ii + i3 + this.perm[jj + j3 + this.perm[kk + k3 + this.perm[ll + l3]]]] % 32;
+        int gi4 = this.perm[ii + 1 + this.perm[jj + 1 + this.perm[kk + 1 + this.perm[ll + 1]]]] % 32;
+
+        double n0 = corner4d(0.6D - x0 * x0 - y0 * y0 - z0 * z0 - w0 * w0, gi0, x0, y0, z0, w0);
+        double n1 = corner4d(0.6D - x1 * x1 - y1 * y1 - z1 * z1 - w1 * w1, gi1, x1, y1, z1, w1);
+        double n2 = corner4d(0.6D - x2 * x2 - y2 * y2 - z2 * z2 - w2 * w2, gi2, x2, y2, z2, w2);
+        double n3 = corner4d(0.6D - x3 * x3 - y3 * y3 - z3 * z3 - w3 * w3, gi3, x3, y3, z3, w3);
+        double n4 = corner4d(0.6D - x4 * x4 - y4 * y4 - z4 * z4 - w4 * w4, gi4, x4, y4, z4, w4);
+        return 27D * (n0 + n1 + n2 + n3 + n4);
+    }
+
+    private static double corner4d(double t, int gradient, double x, double y, double z, double w) {
+        double clamped = Math.max(t, 0D);
+        clamped *= clamped;
+        return clamped * clamped * (GRAD4_X[gradient] * x + GRAD4_Y[gradient] * y + GRAD4_Z[gradient] * z + GRAD4_W[gradient] * w);
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * This file ("ILightModel.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/RockBottomGame/>.
+ * View information on the project at <https://rockbottom.ellpeck.de/>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * © 2018 Ellpeck
+ */
+
+package de.ellpeck.rockbottom.api.world.light;
+
+import de.ellpeck.rockbottom.api.tile.Tile;
+import de.ellpeck.rockbottom.api.world.IChunk;
+import de.ellpeck.rockbottom.api.world.IWorld;
+import de.ellpeck.rockbottom.api.world.layer.TileLayer;
+
+/**
+ * Describes how light behaves in a world for the {@link LightEngine}, meaning
+ * how much light a position emits on its own and how much of the light of a
+ * neighboring position it lets through. All positions are world coordinates,
+ * and the given chunk is always the one that contains the position.
+ */
+public interface ILightModel {
+
+    /**
+     * Returns the sky light that the given position receives without any
+     * spreading, which is usually the maximum light for positions that can
+     * see the sky and 0 for all others.
+     *
+     * @param world The world
+     * @param chunk The chunk that the position is in
+     * @param x     The world x coordinate
+     * @param y     The world y coordinate
+     * @return The sky light emitted at the position
+     */
+    int getSkyEmission(IWorld world, IChunk chunk, int x, int y);
+
+    /**
+     * Returns the artificial light that the given position emits. By default,
+     * this is the highest {@link Tile#getLight(IWorld, int, int, TileLayer)}
+     * of all of the layers at the position.
+     *
+     * @param world The world
+     * @param chunk The chunk that the position is in
+     * @param x     The world x coordinate
+     * @param y     The world y coordinate
+     * @return The artificial light emitted at the position
+     */
+    default int getArtificialEmission(IWorld world, IChunk chunk, int x, int y) {
+        int innerX = x - chunk.getX();
+        int innerY = y - chunk.getY();
+
+        int light = 0;
+        for (TileLayer layer : TileLayer.getAllLayers()) {
+            Tile tile = chunk.getStateInner(layer, innerX, innerY).getTile();
+            light = Math.max(light, tile.getLight(world, x, y, layer));
+        }
+        return light;
+    }
+
+    /**
+     * Returns how much of the given light from a neighboring position reaches
+     * the given position. By default, the light is multiplied with the {@link
+     * Tile#getTranslucentModifier(IWorld, int, int, TileLayer, boolean)} of
+     * all of the layers at the position. The {@link LightEngine} makes sure
+     * that the returned value is always lower than the given light, so that
+     * light can't spread infinitely.
+     *
+     * @param world    The world
+     * @param chunk    The chunk that the position is in
+     * @param x        The world x coordinate
+     * @param y        The world y coordinate
+     * @param light    The light of the neighboring position
+     * @param skylight If the light is sky light or artificial light
+     * @return The light that reaches the position
+     */
+    default int propagate(IWorld world, IChunk chunk, int x, int y, int light, boolean skylight) {
+        int innerX = x - chunk.getX();
+        int innerY = y - chunk.getY();
+
+        float modifier = 1F;
+        for (TileLayer layer : TileLayer.getAllLayers()) {
+            Tile tile = chunk.getStateInner(layer, innerX, innerY).getTile();
+            modifier *= tile.getTranslucentModifier(world, x, y, layer, skylight);
+        }
+        return (int) (light * modifier);
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * This file ("IntQueue.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/RockBottomGame/>.
+ * View information on the project at <https://rockbottom.ellpeck.de/>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * © 2018 Ellpeck
+ */
+
+package de.ellpeck.rockbottom.api.world.light;
+
+/**
+ * A growable ring buffer of ints that the {@link LightEngine} stores its
+ * packed propagation entries in, so that queueing a position doesn't allocate.
+ */
+final class IntQueue {
+
+    private int[] values = new int[256];
+    private int head;
+    private int size;
+
+    public void add(int value) {
+        if (this.size == this.values.length) {
+            int[] grown = new int[this.values.length * 2];
+            int firstPart = this.values.length - this.head;
+            System.arraycopy(this.values, this.head, grown, 0, firstPart);
+            System.arraycopy(this.values, 0, grown, firstPart, this.head);
+            this.values = grown;
+            this.head = 0;
+        }
+        this.values[(this.head + this.size) & this.values.length - 1] = value;
+        this.size++;
+    }
+
+    public int poll() {
+        int value = this.values[this.head];
+        this.head = (this.head + 1) & this.values.length - 1;
+        this.size--;
+        return value;
+    }
+
+    public boolean isEmpty() {
+        return this.size <= 0;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public void clear() {
+        this.head = 0;
+        this.size = 0;
+    }
+}
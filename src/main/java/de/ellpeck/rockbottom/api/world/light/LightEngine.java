@@ -0,0 +1,416 @@
+/*
+ * This file ("LightEngine.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/RockBottomGame/>.
+ * View information on the project at <https://rockbottom.ellpeck.de/>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * © 2018 Ellpeck
+ */
+
+package de.ellpeck.rockbottom.api.world.light;
+
+import de.ellpeck.rockbottom.api.Constants;
+import de.ellpeck.rockbottom.api.util.Direction;
+import de.ellpeck.rockbottom.api.util.Pos2;
+import de.ellpeck.rockbottom.api.world.IChunk;
+import de.ellpeck.rockbottom.api.world.IWorld;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * An incremental light engine that spreads sky light and artificial light
+ * through a world using flood fills. Every light channel has its own decrease
+ * queue, which darkens all positions that might have received their light from
+ * a position that got darker, and its own increase queue, which spreads light
+ * out from positions that got brighter. Both queues store world coordinates
+ * as plain ints, so queueing a position doesn't allocate.
+ * <p>
+ * Light updates caused by {@link IWorld#causeLightUpdate(int, int)} are only
+ * collected by {@link #scheduleUpdate(int, int)}, grouped by the chunk that
+ * they are in, so that many changes to the same position in one tick are only
+ * handled once. They are then handled in {@link #update(long)}, which stops
+ * once the given time budget is used up and continues where it left off on the
+ * next call, so that a large amount of changes is spread out over multiple
+ * ticks instead of stalling a single one. Freshly generated or loaded chunks
+ * should use {@link #relightChunk(IChunk)}, which skips the decrease pass
+ * entirely.
+ * <p>
+ * Light only spreads through chunks that are loaded. This class is not
+ * thread-safe and should only be used on the game thread.
+ */
+public class LightEngine {
+
+    private static final int SKY = 0;
+    private static final int ARTIFICIAL = 1;
+    private static final int CHANNELS = 2;
+    private static final int TIME_CHECK_INTERVAL = 256;
+
+    private final IWorld world;
+    private final ILightModel model;
+    private final IntQueue[] increaseQueues = new IntQueue[CHANNELS];
+    private final IntQueue[] decreaseQueues = new IntQueue[CHANNELS];
+    private final Map<Pos2, long[]> pendingUpdates = new LinkedHashMap<>();
+    private final Pos2 lookupPos = new Pos2();
+
+    private IChunk cachedChunk;
+    private int cachedGridX;
+    private int cachedGridY;
+    private int pendingAmount;
+    private long processedAmount;
+
+    public LightEngine(IWorld world, ILightModel model) {
+        this.world = world;
+        this.model = model;
+
+        for (int i = 0; i < CHANNELS; i++) {
+            this.increaseQueues[i] = new IntQueue();
+            this.decreaseQueues[i] = new IntQueue();
+        }
+    }
+
+    /**
+     * Marks the given position as needing to have its light recalculated on
+     * the next {@link #update(long)}. Marking the same position multiple times
+     * before that only causes it to be recalculated once.
+     *
+     * @param x The world x coordinate
+     * @param y The world y coordinate
+     */
+    public void scheduleUpdate(int x, int y) {
+        int gridX = Math.floorDiv(x, Constants.CHUNK_SIZE);
+        int gridY = Math.floorDiv(y, Constants.CHUNK_SIZE);
+
+        long[] bits = this.pendingUpdates.get(this.lookupPos.set(gridX, gridY));
+        if (bits == null) {
+            bits = new long[Constants.CHUNK_SIZE * Constants.CHUNK_SIZE / Long.SIZE];
+            this.pendingUpdates.put(this.lookupPos.copy(), bits);
+        }
+
+        int index = Math.floorMod(x, Constants.CHUNK_SIZE) * Constants.CHUNK_SIZE + Math.floorMod(y, Constants.CHUNK_SIZE);
+        long mask = 1L << index;
+        if ((bits[index >> 6] & mask) == 0) {
+            bits[index >> 6] |= mask;
+            this.pendingAmount++;
+        }
+    }
+
+    /**
+     * Recalculates all of the light in the given chunk from scratch. Every
+     * position is reset to the light it emits, and the light is then spread
+     * out from those positions and from the borders of the neighboring loaded
+     * chunks. Since no light has to be removed, this is a lot faster than
+     * scheduling an update for every position in the chunk. The spreading is
+     * done during the next calls to {@link #update(long)}.
+     *
+     * @param chunk The chunk
+     */
+    public void relightChunk(IChunk chunk) {
+        long[] pending = this.pendingUpdates.remove(this.lookupPos.set(chunk.getGridX(), chunk.getGridY()));
+        if (pending != null) {
+            for (long word : pending) {
+                this.pendingAmount -= Long.bitCount(word);
+            }
+        }
+
+        int startX = chunk.getX();
+        int startY = chunk.getY();
+        for (int x = 0; x < Constants.CHUNK_SIZE; x++) {
+            for (int y = 0; y < Constants.CHUNK_SIZE; y++) {
+                for (int channel = 0; channel < CHANNELS; channel++) {
+                    int emission = this.getEmission(chunk, startX + x, startY + y, channel);
+                    setLightInner(chunk, x, y, channel, emission);
+                    if (emission > 0) {
+                        this.queueIncrease(channel, startX + x, startY + y);
+                    }
+                }
+            }
+        }
+
+        for (int i = -1; i <= Constants.CHUNK_SIZE; i++) {
+            this.queueBorder(startX + i, startY - 1);
+            this.queueBorder(startX + i, startY + Constants.CHUNK_SIZE);
+        }
+        for (int i = 0; i < Constants.CHUNK_SIZE; i++) {
+            this.queueBorder(startX - 1, startY + i);
+            this.queueBorder(startX + Constants.CHUNK_SIZE, startY + i);
+        }
+    }
+
+    /**
+     * Handles scheduled light updates and spreads light until either all of
+     * the work is done or the given time budget is used up. Work that doesn't
+     * fit into the budget is continued on the next call.
+     *
+     * @param budgetNanos The maximum amount of time to spend, in nanoseconds
+     * @return If all of the work has been done
+     */
+    public boolean update(long budgetNanos) {
+        long deadline = System.nanoTime() + budgetNanos;
+
+        if (!this.pendingUpdates.isEmpty()) {
+            this.seedPendingUpdates();
+        }
+
+        for (int channel = 0; channel < CHANNELS; channel++) {
+            if (!this.processDecrease(channel, deadline) || !this.processIncrease(channel, deadline)) {
+                this.cachedChunk = null;
+                return false;
+            }
+        }
+
+        this.cachedChunk = null;
+        return true;
+    }
+
+    /**
+     * @return If there are light updates that still need to be handled
+     */
+    public boolean hasPendingWork() {
+        if (this.pendingAmount > 0) {
+            return true;
+        }
+        for (int channel = 0; channel < CHANNELS; channel++) {
+            if (!this.increaseQueues[channel].isEmpty() || !this.decreaseQueues[channel].isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return The amount of positions that are scheduled but haven't been
+     * handled yet
+     */
+    public int getPendingAmount() {
+        return this.pendingAmount;
+    }
+
+    /**
+     * @return The total amount of queue entries that this engine has handled
+     */
+    public long getProcessedAmount() {
+        return this.processedAmount;
+    }
+
+    public void clear() {
+        this.pendingUpdates.clear();
+        this.pendingAmount = 0;
+        for (int channel = 0; channel < CHANNELS; channel++) {
+            this.increaseQueues[channel].clear();
+            this.decreaseQueues[channel].clear();
+        }
+        this.cachedChunk = null;
+    }
+
+    private void seedPendingUpdates() {
+        Iterator<Map.Entry<Pos2, long[]>> iterator = this.pendingUpdates.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Pos2, long[]> entry = iterator.next();
+            iterator.remove();
+
+            Pos2 pos = entry.getKey();
+            IChunk chunk = this.getChunk(pos.getX(), pos.getY());
+            long[] bits = entry.getValue();
+            for (int word = 0; word < bits.length; word++) {
+                long value = bits[word];
+                while (value != 0) {
+                    int index = (word << 6) + Long.numberOfTrailingZeros(value);
+                    value &= value - 1;
+                    this.pendingAmount--;
+
+                    if (chunk != null) {
+                        int x = chunk.getX() + index / Constants.CHUNK_SIZE;
+                        int y = chunk.getY() + index % Constants.CHUNK_SIZE;
+                        for (int channel = 0; channel < CHANNELS; channel++) {
+                            this.seed(chunk, x, y, channel);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private void seed(IChunk chunk, int x, int y, int channel) {
+        int current = getLightInner(chunk, x - chunk.getX(), y - chunk.getY(), channel);
+        int calculated = this.getEmission(chunk, x, y, channel);
+        for (Direction direction : Direction.SURROUNDING) {
+            int neighborX = x + direction.x;
+            int neighborY = y + direction.y;
+            IChunk neighborChunk = this.getChunkAt(neighborX, neighborY);
+            if (neighborChunk != null) {
+                int neighborLight = getLightInner(neighborChunk, neighborX - neighborChunk.getX(), neighborY - neighborChunk.getY(), channel);
+                calculated = Math.max(calculated, this.propagate(chunk, x, y, neighborLight, channel));
+            }
+        }
+
+        if (calculated > current) {
+            setLightInner(chunk, x - chunk.getX(), y - chunk.getY(), channel, calculated);
+            this.queueIncrease(channel, x, y);
+        } else if (calculated < current) {
+            this.darken(chunk, x, y, channel, current);
+        }
+    }
+
+    private boolean processDecrease(int channel, long deadline) {
+        IntQueue queue = this.decreaseQueues[channel];
+        int checkCounter = 0;
+        while (!queue.isEmpty()) {
+            if (++checkCounter >= TIME_CHECK_INTERVAL) {
+                checkCounter = 0;
+                if (System.nanoTime() >= deadline) {
+                    return false;
+                }
+            }
+
+            int x = queue.poll();
+            int y = queue.poll();
+            int oldLight = queue.poll();
+            this.processedAmount++;
+
+            for (Direction direction : Direction.SURROUNDING) {
+                int neighborX = x + direction.x;
+                int neighborY = y + direction.y;
+                IChunk chunk = this.getChunkAt(neighborX, neighborY);
+                if (chunk != null) {
+                    int neighborLight = getLightInner(chunk, neighborX - chunk.getX(), neighborY - chunk.getY(), channel);
+                    if (neighborLight > 0) {
+                        if (neighborLight < oldLight) {
+                            this.darken(chunk, neighborX, neighborY, channel, neighborLight);
+                        } else {
+                            this.queueIncrease(channel, neighborX, neighborY);
+                        }
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean processIncrease(int channel, long deadline) {
+        IntQueue queue = this.increaseQueues[channel];
+        int checkCounter = 0;
+        while (!queue.isEmpty()) {
+            if (++checkCounter >= TIME_CHECK_INTERVAL) {
+                checkCounter = 0;
+                if (System.nanoTime() >= deadline) {
+                    return false;
+                }
+            }
+
+            int x = queue.poll();
+            int y = queue.poll();
+            this.processedAmount++;
+
+            IChunk chunk = this.getChunkAt(x, y);
+            if (chunk == null) {
+                continue;
+            }
+            int light = getLightInner(chunk, x - chunk.getX(), y - chunk.getY(), channel);
+            if (light <= 0) {
+                continue;
+            }
+
+            for (Direction direction : Direction.SURROUNDING) {
+                int neighborX = x + direction.x;
+                int neighborY = y + direction.y;
+                IChunk neighborChunk = this.getChunkAt(neighborX, neighborY);
+                if (neighborChunk != null) {
+                    int innerX = neighborX - neighborChunk.getX();
+                    int innerY = neighborY - neighborChunk.getY();
+                    int spread = this.propagate(neighborChunk, neighborX, neighborY, light, channel);
+                    if (spread > getLightInner(neighborChunk, innerX, innerY, channel)) {
+                        setLightInner(neighborChunk, innerX, innerY, channel, spread);
+                        this.queueIncrease(channel, neighborX, neighborY);
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    private void darken(IChunk chunk, int x, int y, int channel, int oldLight) {
+        int emission = this.getEmission(chunk, x, y, channel);
+        setLightInner(chunk, x - chunk.getX(), y - chunk.getY(), channel, emission);
+
+        IntQueue queue = this.decreaseQueues[channel];
+        queue.add(x);
+        queue.add(y);
+        queue.add(oldLight);
+
+        if (emission > 0) {
+            this.queueIncrease(channel, x, y);
+        }
+    }
+
+    private void queueIncrease(int channel, int x, int y) {
+        IntQueue queue = this.increaseQueues[channel];
+        queue.add(x);
+        queue.add(y);
+    }
+
+    private void queueBorder(int x, int y) {
+        IChunk chunk = this.getChunkAt(x, y);
+        if (chunk != null) {
+            for (int channel = 0; channel < CHANNELS; channel++) {
+                if (getLightInner(chunk, x - chunk.getX(), y - chunk.getY(), channel) > 0) {
+                    this.queueIncrease(channel, x, y);
+                }
+            }
+        }
+    }
+
+    private int getEmission(IChunk chunk, int x, int y, int channel) {
+        int emission = channel == SKY ? this.model.getSkyEmission(this.world, chunk, x, y) : this.model.getArtificialEmission(this.world, chunk, x, y);
+        return Math.max(0, Math.min(Constants.MAX_LIGHT, emission));
+    }
+
+    private int propagate(IChunk chunk, int x, int y, int light, int channel) {
+        if (light <= 0) {
+            return 0;
+        }
+        int spread = this.model.propagate(this.world, chunk, x, y, light, channel == SKY);
+        return Math.max(0, Math.min(light - 1, spread));
+    }
+
+    private IChunk getChunkAt(int x, int y) {
+        return this.getChunk(Math.floorDiv(x, Constants.CHUNK_SIZE), Math.floorDiv(y, Constants.CHUNK_SIZE));
+    }
+
+    private IChunk getChunk(int gridX, int gridY) {
+        if (this.cachedChunk == null || this.cachedGridX != gridX || this.cachedGridY != gridY) {
+            if (!this.world.isChunkLoaded(gridX, gridY, false)) {
+                return null;
+            }
+            this.cachedChunk = this.world.getChunkFromGridCoords(gridX, gridY);
+            this.cachedGridX = gridX;
+            this.cachedGridY = gridY;
+        }
+        return this.cachedChunk;
+    }
+
+    private static int getLightInner(IChunk chunk, int x, int y, int channel) {
+        return channel == SKY ? chunk.getSkylightInner(x, y) : chunk.getArtificialLightInner(x, y);
+    }
+
+    private static void setLightInner(IChunk chunk, int x, int y, int channel, int light) {
+        if (channel == SKY) {
+            chunk.setSkylightInner(x, y, (byte) light);
+        } else {
+            chunk.setArtificialLightInner(x, y, (byte) light);
+        }
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ * This file ("ChunkSaveQueue.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/RockBottomGame/>.
+ * View information on the project at <https://rockbottom.ellpeck.de/>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * © 2018 Ellpeck
+ */
+
+package de.ellpeck.rockbottom.api.world.storage;
+
+import de.ellpeck.rockbottom.api.RockBottomAPI;
+import de.ellpeck.rockbottom.api.event.impl.WorldSaveEvent;
+import de.ellpeck.rockbottom.api.world.IWorld;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+/**
+ * Writes {@link ChunkSnapshot}s into a {@link RegionStorage} on a small pool of
+ * background threads so that saving a world doesn't stall the game thread.
+ * The amount of snapshots that can be waiting to be written is bounded:
+ * submitting a snapshot while the queue is full blocks until there is room
+ * again, so a game thread that creates snapshots faster than they can be
+ * written is slowed down rather than using up more and more memory.
+ * <p>
+ * Snapshots of the same chunk are always written in the order they were
+ * submitted in, so an older snapshot can never overwrite a newer one, even if
+ * more than one background thread is used.
+ * <p>
+ * If a snapshot can't be written, the future returned for it completes
+ * exceptionally, and so do the futures of {@link #submitAll(Collection)} and
+ * {@link #awaitCompletion()} that include it, so that a failed save is never
+ * reported as a successful one.
+ *
+ * @see IWorld#getSaveQueue()
+ */
+public final class ChunkSaveQueue {
+
+    private final IWorld world;
+    private final RegionStorage storage;
+    private final ExecutorService executor;
+    private final Semaphore capacity;
+    private final AtomicInteger pending = new AtomicInteger();
+    private final ThreadLocal<PayloadBuffer> buffers = ThreadLocal.withInitial(PayloadBuffer::new);
+    private final List<CompletableFuture<Void>> outstanding = new ArrayList<>();
+    private final Map<Long, CompletableFuture<Void>> lastWrites = new HashMap<>();
+
+    /**
+     * Creates a new save queue.
+     *
+     * @param world    The world whose chunks are saved
+     * @param storage  The storage to write to
+     * @param threads  The amount of background threads to write with
+     * @param capacity The maximum amount of snapshots that can be waiting to
+     *                 be written before submitting blocks
+     */
+    public ChunkSaveQueue(IWorld world, RegionStorage storage, int threads, int capacity) {
+        this.world = world;
+        this.storage = storage;
+        this.capacity = new Semaphore(capacity);
+
+        AtomicInteger threadId = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "ChunkSaver-" + world.getName() + "-" + threadId.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Submits a snapshot to be written, blocking if too many snapshots are
+     * already waiting. If a snapshot of the same chunk is still waiting to be
+     * or is currently being written, this snapshot is only written after it.
+     *
+     * @param snapshot The snapshot
+     * @return A future that completes once the snapshot has been written, or
+     * completes exceptionally if it couldn't be written
+     */
+    public CompletableFuture<Void> submit(ChunkSnapshot snapshot) {
+        this.capacity.acquireUninterruptibly();
+        this.pending.incrementAndGet();
+
+        Long key = (long) snapshot.getGridX() << 32 | snapshot.getGridY() & 0xFFFFFFFFL;
+        CompletableFuture<Void> future;
+        synchronized (this.lastWrites) {
+            CompletableFuture<Void> previous = this.lastWrites.get(key);
+            if (previous != null) {
+                future = previous.handle((result, throwable) -> null).thenRunAsync(() -> this.write(snapshot), this.executor);
+            } else {
+                future = CompletableFuture.runAsync(() -> this.write(snapshot), this.executor);
+            }
+            this.lastWrites.put(key, future);
+        }
+
+        future.whenComplete((result, throwable) -> {
+            synchronized (this.lastWrites) {
+                this.lastWrites.remove(key, future);
+            }
+            this.pending.decrementAndGet();
+            this.capacity.release();
+        });
+
+        synchronized (this.outstanding) {
+            this.outstanding.removeIf(CompletableFuture::isDone);
+            this.outstanding.add(future);
+        }
+        return future;
+    }
+
+    /**
+     * Submits all of the given snapshots and returns a future that completes
+     * once all of them have been written and the storage has been flushed to
+     * the disk. This is the future that is passed to the {@link
+     * WorldSaveEvent}. If any of the snapshots couldn't be written, the
+     * storage is still flushed, but the future completes exceptionally.
+     *
+     * @param snapshots The snapshots
+     * @return The future
+     */
+    public CompletableFuture<Void> submitAll(Collection<ChunkSnapshot> snapshots) {
+        List<CompletableFuture<Void>> futures = new ArrayList<>(snapshots.size());
+        for (ChunkSnapshot snapshot : snapshots) {
+            futures.add(this.submit(snapshot));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).handleAsync((result, throwable) -> {
+            this.storage.flush();
+            if (throwable != null) {
+                throw throwable instanceof CompletionException ? (CompletionException) throwable : new CompletionException(throwable);
+            }
+            return null;
+        }, this.executor);
+    }
+
+    private void write(ChunkSnapshot snapshot) {
+        PayloadBuffer buffer = this.buffers.get();
+        try {
+            buffer.reset();
+            buffer.output.writeByte(RegionStorage.FORMAT_NATIVE);
+            snapshot.write(buffer.output, this.world);
+            this.storage.writeChunk(snapshot.getGridX(), snapshot.getGridY(), buffer.getBuffer(), 0, buffer.size());
+        } catch (Exception e) {
+            RockBottomAPI.logger().log(Level.SEVERE, "Couldn't save chunk at " + snapshot.getGridX() + ", " + snapshot.getGridY(), e);
+            throw new CompletionException(e);
+        }
+    }
+
+    /**
+     * Blocks until every snapshot that has been submitted so far has been
+     * written, and then flushes the storage to the disk. This needs to be
+     * called before the world is unloaded so that no data is lost.
+     *
+     * @throws CompletionException If any of the snapshots couldn't be
+     *                             written, after all of the others have been
+     *                             written and flushed
+     */
+    public void awaitCompletion() {
+        List<CompletableFuture<Void>> futures;
+        synchronized (this.outstanding) {
+            futures = new ArrayList<>(this.outstanding);
+            this.outstanding.clear();
+        }
+
+        CompletionException failure = null;
+        for (CompletableFuture<Void> future : futures) {
+            try {
+                future.join();
+            } catch (CompletionException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        this.storage.flush();
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * @return The amount of snapshots that are waiting to be or are currently
+     * being written
+     */
+    public int getPendingAmount() {
+        return this.pending.get();
+    }
+
+    /**
+     * Waits for all outstanding writes using {@link #awaitCompletion()} and
+     * then stops the background threads. The threads are stopped even if a
+     * write failed, in which case the failure is thrown afterwards.
+     */
+    public void shutdown() {
+        try {
+            this.awaitCompletion();
+        } finally {
+            this.executor.shutdown();
+            try {
+                if (!this.executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                    RockBottomAPI.logger().warning("Chunk save queue for world " + this.world.getName() + " didn't shut down in time");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static final class PayloadBuffer extends ByteArrayOutputStream {
+
+        private final DataOutputStream output = new DataOutputStream(this);
+
+        public PayloadBuffer() {
+            super(RegionFile.SECTOR_SIZE * 4);
+        }
+
+        public byte[] getBuffer() {
+            return this.buf;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * This file ("ChunkSnapshot.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/RockBottomGame/>.
+ * View information on the project at <https://rockbottom.ellpeck.de/>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * © 2018 Ellpeck
+ */
+
+package de.ellpeck.rockbottom.api.world.storage;
+
+import com.google.common.base.Preconditions;
+import de.ellpeck.rockbottom.api.RockBottomAPI;
+import de.ellpeck.rockbottom.api.data.set.DataSet;
+import de.ellpeck.rockbottom.api.world.IChunk;
+import de.ellpeck.rockbottom.api.world.IWorld;
+import de.ellpeck.rockbottom.api.world.gen.biome.Biome;
+
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * An immutable snapshot of the data of an {@link IChunk} that needs saving. A
+ * snapshot is taken on the game thread using {@link IChunk#createSnapshot()},
+ * which only copies the light and biome arrays and creates a copy-on-write
+ * copy of the chunk's {@link ChunkTileStorage}. Anything else that needs
+ * saving, like entities and tile entities, is stored into an additional {@link
+ * DataSet} at that point. The snapshot can then be written to disk on another
+ * thread by the {@link ChunkSaveQueue}.
+ */
+public final class ChunkSnapshot {
+
+    private final int gridX;
+    private final int gridY;
+    private final ChunkTileStorage tiles;
+    private final byte[] skyLight;
+    private final byte[] artificialLight;
+    private final Biome[] biomes;
+    private final DataSet additionalData;
+
+    /**
+     * Creates a new snapshot. The arrays passed in are owned by the snapshot
+     * afterwards, so they need to be copies of the chunk's arrays. All of them
+     * are expected to be in the order described in {@link
+     * ITileStorageView#getIndex(int, int)}.
+     *
+     * @param gridX           The chunk's grid x
+     * @param gridY           The chunk's grid y
+     * @param tiles           A copy of the chunk's tile storage
+     * @param skyLight        A copy of the chunk's sky light
+     * @param artificialLight A copy of the chunk's artificial light
+     * @param biomes          A copy of the chunk's biomes
+     * @param additionalData  A data set holding entities, tile entities and
+     *                        anything else that needs saving
+     */
+    public ChunkSnapshot(int gridX, int gridY, ChunkTileStorage tiles, byte[] skyLight, byte[] artificialLight, Biome[] biomes, DataSet additionalData) {
+        Preconditions.checkArgument(skyLight.length == ITileStorageView.SIZE && artificialLight.length == ITileStorageView.SIZE && biomes.length == ITileStorageView.SIZE, "Chunk snapshot arrays need to have a length of " + ITileStorageView.SIZE);
+
+        this.gridX = gridX;
+        this.gridY = gridY;
+        this.tiles = tiles;
+        this.skyLight = skyLight;
+        this.artificialLight = artificialLight;
+        this.biomes = biomes;
+        this.additionalData = additionalData;
+    }
+
+    public int getGridX() {
+        return this.gridX;
+    }
+
+    public int getGridY() {
+        return this.gridY;
+    }
+
+    public ChunkTileStorage getTiles() {
+        return this.tiles;
+    }
+
+    public byte getSkyLight(int x, int y) {
+        return this.skyLight[ITileStorageView.getIndex(x, y)];
+    }
+
+    public byte getArtificialLight(int x, int y) {
+        return this.artificialLight[ITileStorageView.getIndex(x, y)];
+    }
+
+    public Biome getBiome(int x, int y) {
+        return this.biomes[ITileStorageView.getIndex(x, y)];
+    }
+
+    public DataSet getAdditionalData() {
+        return this.additionalData;
+    }
+
+    /**
+     * Writes this snapshot to the given output in the format that {@link
+     * IChunk#save(DataOutput)} uses.
+     *
+     * @param stream The output to write to
+     * @param world  The world whose state and biome ids to use
+     * @throws IOException if writing fails
+     */
+    public void write(DataOutput stream, IWorld world) throws IOException {
+        this.tiles.write(stream, world);
+        stream.write(this.skyLight);
+        stream.write(this.artificialLight);
+        for (Biome biome : this.biomes) {
+            stream.writeShort(world.getIdForBiome(biome));
+        }
+
+        try {
+            RockBottomAPI.getApiHandler().writeDataSet(stream, this.additionalData);
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Couldn't write additional data of chunk at " + this.gridX + ", " + this.gridY, e);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * This file ("ChunkTileStorage.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/RockBottomGame/>.
+ * View information on the project at <https://rockbottom.ellpeck.de/>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * © 2018 Ellpeck
+ */
+
+package de.ellpeck.rockbottom.api.world.storage;
+
+import de.ellpeck.rockbottom.api.Registries;
+import de.ellpeck.rockbottom.api.tile.state.TileState;
+import de.ellpeck.rockbottom.api.util.reg.ResourceName;
+import de.ellpeck.rockbottom.api.world.IChunk;
+import de.ellpeck.rockbottom.api.world.IWorld;
+import de.ellpeck.rockbottom.api.world.layer.TileLayer;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Holds a {@link PalettedTileStorage} for every {@link TileLayer} in {@link
+ * TileLayer#getAllLayers()}, indexed by {@link TileLayer#index()}. A layer's
+ * storage is only created once a state other than the default state is set
+ * into it, so layers that are entirely empty don't take up any memory.
+ *
+ * @see IChunk#getTileStorage(TileLayer)
+ */
+public final class ChunkTileStorage {
+
+    private final TileState defaultState;
+    private final PalettedTileStorage[] layers;
+
+    public ChunkTileStorage(TileState defaultState) {
+        this.defaultState = defaultState;
+        this.layers = new PalettedTileStorage[TileLayer.getAllLayers().size()];
+    }
+
+    private ChunkTileStorage(ChunkTileStorage other) {
+        this.defaultState = other.defaultState;
+        this.layers = new PalettedTileStorage[other.layers.length];
+        for (int i = 0; i < this.layers.length; i++) {
+            if (other.layers[i] != null) {
+                this.layers[i] = other.layers[i].copy();
+            }
+        }
+    }
+
+    public TileState get(TileLayer layer, int x, int y) {
+        PalettedTileStorage storage = this.layers[layer.index()];
+        return storage != null ? storage.get(x, y) : this.defaultState;
+    }
+
+    public void set(TileLayer layer, int x, int y, TileState state) {
+        PalettedTileStorage storage = this.layers[layer.index()];
+        if (storage == null) {
+            if (state == this.defaultState) {
+                return;
+            }
+            storage = new PalettedTileStorage(this.defaultState);
+            this.layers[layer.index()] = storage;
+        }
+        storage.set(x, y, state);
+    }
+
+    /**
+     * Gets a read-only view of the given layer.
+     *
+     * @param layer The layer
+     * @return The view, or null if nothing other than the default state has
+     * been set into the layer
+     */
+    public ITileStorageView getView(TileLayer layer) {
+        return this.layers[layer.index()];
+    }
+
+    /**
+     * Gets the storage of the given layer, creating it if it doesn't exist
+     * yet.
+     *
+     * @param layer The layer
+     * @return The storage
+     */
+    public PalettedTileStorage getOrCreate(TileLayer layer) {
+        PalettedTileStorage storage = this.layers[layer.index()];
+        if (storage == null) {
+            storage = new PalettedTileStorage(this.defaultState);
+            this.layers[layer.index()] = storage;
+        }
+        return storage;
+    }
+
+    /**
+     * @return A list of all of the layers that currently have a storage
+     */
+    public List<TileLayer> getLoadedLayers() {
+        List<TileLayer> loaded = new ArrayList<>();
+        for (TileLayer layer : TileLayer.getAllLayers()) {
+            if (this.layers[layer.index()] != null) {
+                loaded.add(layer);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Compacts every layer's storage and removes the storages of layers that
+     * only hold the default state.
+     *
+     * @see PalettedTileStorage#compact()
+     */
+    public void compact() {
+        for (int i = 0; i < this.layers.length; i++) {
+            PalettedTileStorage storage = this.layers[i];
+            if (storage != null) {
+                storage.compact();
+                if (storage.getPaletteSize() == 1 && storage.getPaletteState(0) == this.defaultState) {
+                    this.layers[i] = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes every layer that has a storage to the given output, identifying
+     * layers by their name so that the data stays valid if the layer indices
+     * change.
+     *
+     * @param stream The output to write to
+     * @param world  The world whose state ids to use
+     * @throws IOException if writing fails
+     * @see PalettedTileStorage#write(DataOutput, IWorld)
+     */
+    public void write(DataOutput stream, IWorld world) throws IOException {
+        List<TileLayer> loaded = this.getLoadedLayers();
+        stream.writeShort(loaded.size());
+        for (TileLayer layer : loaded) {
+            stream.writeUTF(layer.getName().toString());
+            this.layers[layer.index()].write(stream, world);
+        }
+    }
+
+    /**
+     * Reads the layers that were written using {@link #write(DataOutput,
+     * IWorld)} into this storage. Layers that don't exist anymore are skipped.
+     *
+     * @param stream The input to read from
+     * @param world  The world whose state ids to use
+     * @throws IOException if reading fails
+     */
+    public void read(DataInput stream, IWorld world) throws IOException {
+        int amount = stream.readUnsignedShort();
+        for (int i = 0; i < amount; i++) {
+            TileLayer layer = Registries.TILE_LAYER_REGISTRY.get(ResourceName.of(stream.readUTF()));
+            PalettedTileStorage storage = layer != null ? this.getOrCreate(layer) : new PalettedTileStorage(this.defaultState);
+            storage.read(stream, world);
+        }
+    }
+
+    public TileState getDefaultState() {
+        return this.defaultState;
+    }
+
+    /**
+     * Creates a copy-on-write copy of this storage.
+     *
+     * @return The copy
+     * @see PalettedTileStorage#copy()
+     */
+    public ChunkTileStorage copy() {
+        return new ChunkTileStorage(this);
+    }
+}
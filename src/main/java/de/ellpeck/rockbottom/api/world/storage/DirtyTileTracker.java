@@ -0,0 +1,153 @@
+/*
+ * This file ("DirtyTileTracker.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/RockBottomGame/>.
+ * View information on the project at <https://rockbottom.ellpeck.de/>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * © 2018 Ellpeck
+ */
+
+package de.ellpeck.rockbottom.api.world.storage;
+
+import de.ellpeck.rockbottom.api.world.IChunk;
+import de.ellpeck.rockbottom.api.world.layer.TileLayer;
+
+/**
+ * Keeps track of which positions of a chunk have changed on which {@link
+ * TileLayer} since the last time the chunk was synchronized to clients, using
+ * one bitset per layer. Marking the same position multiple times within a
+ * tick only records it once, so all of the changes can be sent together as a
+ * single delta.
+ *
+ * @see IChunk#getDirtyTiles()
+ */
+public final class DirtyTileTracker {
+
+    private static final int WORDS = ITileStorageView.SIZE / Long.SIZE;
+
+    private final long[][] bits;
+    private final int[] amounts;
+    private int totalAmount;
+
+    public DirtyTileTracker() {
+        int layers = TileLayer.getAllLayers().size();
+        this.bits = new long[layers][];
+        this.amounts = new int[layers];
+    }
+
+    /**
+     * Marks the given position as changed
+     *
+     * @param layer The layer
+     * @param x     The inner x coordinate
+     * @param y     The inner y coordinate
+     */
+    public void mark(TileLayer layer, int x, int y) {
+        int layerIndex = layer.index();
+        long[] words = this.bits[layerIndex];
+        if (words == null) {
+            words = new long[WORDS];
+            this.bits[layerIndex] = words;
+        }
+
+        int index = ITileStorageView.getIndex(x, y);
+        long mask = 1L << index;
+        if ((words[index >>> 6] & mask) == 0) {
+            words[index >>> 6] |= mask;
+            this.amounts[layerIndex]++;
+            this.totalAmount++;
+        }
+    }
+
+    public boolean isDirty(TileLayer layer, int x, int y) {
+        long[] words = this.bits[layer.index()];
+        int index = ITileStorageView.getIndex(x, y);
+        return words != null && (words[index >>> 6] & 1L << index) != 0;
+    }
+
+    public boolean isDirty() {
+        return this.totalAmount > 0;
+    }
+
+    public int getDirtyAmount() {
+        return this.totalAmount;
+    }
+
+    public int getDirtyAmount(TileLayer layer) {
+        return this.amounts[layer.index()];
+    }
+
+    /**
+     * Returns if more than the given fraction of the positions of any single
+     * layer have changed, meaning that sending the whole chunk is cheaper than
+     * sending a delta.
+     *
+     * @param fraction The fraction, between 0 and 1
+     * @return If the fraction is exceeded
+     */
+    public boolean exceeds(float fraction) {
+        int max = (int) (fraction * ITileStorageView.SIZE);
+        for (int amount : this.amounts) {
+            if (amount > max) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Copies the indices of all of the changed positions of the given layer
+     * into the given array, in the order described in {@link
+     * ITileStorageView#getIndex(int, int)}.
+     *
+     * @param layer The layer
+     * @param out   The array to copy into. Needs to be able to hold at least
+     *              {@link #getDirtyAmount(TileLayer)} entries.
+     * @return The amount of indices that were copied
+     */
+    public int copyDirtyIndices(TileLayer layer, int[] out) {
+        long[] words = this.bits[layer.index()];
+        int amount = 0;
+        if (words != null) {
+            for (int i = 0; i < WORDS; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    out[amount++] = (i << 6) + Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                }
+            }
+        }
+        return amount;
+    }
+
+    /**
+     * Clears all of the changes, which should be done once they have been
+     * sent.
+     */
+    public void clear() {
+        if (this.totalAmount > 0) {
+            for (int i = 0; i < this.bits.length; i++) {
+                if (this.amounts[i] > 0) {
+                    long[] words = this.bits[i];
+                    for (int w = 0; w < WORDS; w++) {
+                        words[w] = 0;
+                    }
+                    this.amounts[i] = 0;
+                }
+            }
+            this.totalAmount = 0;
+        }
+    }
+}
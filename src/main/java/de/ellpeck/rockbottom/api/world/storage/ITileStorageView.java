@@ -0,0 +1,112 @@
+/*
+ * This file ("ITileStorageView.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/RockBottomGame/>.
+ * View information on the project at <https://rockbottom.ellpeck.de/>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * © 2018 Ellpeck
+ */
+
+package de.ellpeck.rockbottom.api.world.storage;
+
+import de.ellpeck.rockbottom.api.Constants;
+import de.ellpeck.rockbottom.api.tile.state.TileState;
+import de.ellpeck.rockbottom.api.world.IChunk;
+import de.ellpeck.rockbottom.api.world.layer.TileLayer;
+
+/**
+ * A read-only view of the {@link TileState} objects of a single {@link
+ * TileLayer} of an {@link IChunk}. Every position is represented by an index
+ * into a small palette of states, which allows scanning a whole layer using
+ * {@link #copyPaletteIndices(int[])} and {@link #getPaletteState(int)} rather
+ * than querying every position separately.
+ * <p>
+ * All coordinates passed to this view are chunk-inner coordinates between 0
+ * (inclusive) and {@link Constants#CHUNK_SIZE} (exclusive).
+ *
+ * @see IChunk#getTileStorage(TileLayer)
+ */
+public interface ITileStorageView {
+
+    /**
+     * The amount of positions that a single layer of a chunk holds
+     */
+    int SIZE = Constants.CHUNK_SIZE * Constants.CHUNK_SIZE;
+
+    /**
+     * Converts a chunk-inner position into the index used by {@link
+     * #copyPaletteIndices(int[])}. Indices are ordered column by column, so the
+     * position {@code x, y} can be found at {@code x * CHUNK_SIZE + y}.
+     *
+     * @param x The inner x coordinate
+     * @param y The inner y coordinate
+     * @return The index
+     */
+    static int getIndex(int x, int y) {
+        return x * Constants.CHUNK_SIZE + y;
+    }
+
+    /**
+     * Gets the {@link TileState} at the given position.
+     *
+     * @param x The inner x coordinate
+     * @param y The inner y coordinate
+     * @return The state
+     */
+    TileState get(int x, int y);
+
+    /**
+     * Gets the palette index of the {@link TileState} at the given position.
+     *
+     * @param x The inner x coordinate
+     * @param y The inner y coordinate
+     * @return The palette index
+     * @see #getPaletteState(int)
+     */
+    int getPaletteIndex(int x, int y);
+
+    /**
+     * @return The amount of entries in the palette. Note that the palette can
+     * contain entries that aren't currently used at any position.
+     */
+    int getPaletteSize();
+
+    /**
+     * Gets the {@link TileState} that the given palette index refers to.
+     *
+     * @param index The palette index
+     * @return The state
+     */
+    TileState getPaletteState(int index);
+
+    /**
+     * Copies the palette index of every position into the given array in the
+     * order described in {@link #getIndex(int, int)}.
+     *
+     * @param out The array to copy into. Needs to have a length of at least
+     *            {@link #SIZE}.
+     */
+    void copyPaletteIndices(int[] out);
+
+    /**
+     * @return The amount of bits that every position currently takes up
+     */
+    int getBitsPerEntry();
+
+    /**
+     * @return If every position in this view holds the same {@link TileState}
+     */
+    boolean isUniform();
+}
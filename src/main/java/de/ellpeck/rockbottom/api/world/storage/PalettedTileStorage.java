@@ -0,0 +1,401 @@
+/*
+ * This file ("PalettedTileStorage.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/RockBottomGame/>.
+ * View information on the project at <https://rockbottom.ellpeck.de/>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * © 2018 Ellpeck
+ */
+
+package de.ellpeck.rockbottom.api.world.storage;
+
+import com.google.common.base.Preconditions;
+import de.ellpeck.rockbottom.api.tile.state.TileState;
+import de.ellpeck.rockbottom.api.world.IWorld;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * A palette-compressed storage for the {@link TileState} objects of a single
+ * chunk layer. Rather than storing a reference for every position, this keeps
+ * a small palette of states and a bit-packed array of palette indices that
+ * grows from 1 to 4, 8 and 16 bits per position as more different states are
+ * added. Unused palette entries are dropped before the storage grows.
+ */
+public final class PalettedTileStorage implements ITileStorageView {
+
+    private static final int[] BIT_STEPS = {1, 4, 8, 16};
+    private static final int LINEAR_LOOKUP_SIZE = 16;
+
+    private TileState[] palette;
+    private int paletteSize;
+    private Map<TileState, Integer> paletteLookup;
+
+    private int bits;
+    private long[] data;
+    private boolean shared;
+
+    public PalettedTileStorage(TileState defaultState) {
+        Preconditions.checkNotNull(defaultState, "Cannot create a tile storage without a default state");
+        this.palette = new TileState[1 << BIT_STEPS[0]];
+        this.palette[0] = defaultState;
+        this.paletteSize = 1;
+        this.bits = BIT_STEPS[0];
+        this.data = new long[dataLength(this.bits)];
+    }
+
+    private PalettedTileStorage(PalettedTileStorage other) {
+        this.palette = other.palette;
+        this.paletteSize = other.paletteSize;
+        this.paletteLookup = other.paletteLookup;
+        this.bits = other.bits;
+        this.data = other.data;
+
+        this.shared = true;
+        other.shared = true;
+    }
+
+    private static int dataLength(int bits) {
+        return SIZE / (Long.SIZE / bits);
+    }
+
+    @Override
+    public TileState get(int x, int y) {
+        return this.palette[this.getRaw(ITileStorageView.getIndex(x, y))];
+    }
+
+    @Override
+    public int getPaletteIndex(int x, int y) {
+        return this.getRaw(ITileStorageView.getIndex(x, y));
+    }
+
+    /**
+     * Sets the {@link TileState} at the given position, adding it to the
+     * palette and growing the storage if required.
+     *
+     * @param x     The inner x coordinate
+     * @param y     The inner y coordinate
+     * @param state The state to set
+     */
+    public void set(int x, int y, TileState state) {
+        this.ensureOwned();
+        this.setRaw(ITileStorageView.getIndex(x, y), this.getOrAddPaletteIndex(state));
+    }
+
+    /**
+     * Sets every position in this storage to the given {@link TileState},
+     * resetting the palette to only contain the given state.
+     *
+     * @param state The state to fill with
+     */
+    public void fill(TileState state) {
+        Preconditions.checkNotNull(state, "Cannot fill a tile storage with null");
+        this.palette = new TileState[1 << BIT_STEPS[0]];
+        this.palette[0] = state;
+        this.paletteSize = 1;
+        this.paletteLookup = null;
+        this.bits = BIT_STEPS[0];
+        this.data = new long[dataLength(this.bits)];
+        this.shared = false;
+    }
+
+    @Override
+    public int getPaletteSize() {
+        return this.paletteSize;
+    }
+
+    @Override
+    public TileState getPaletteState(int index) {
+        return this.palette[index];
+    }
+
+    @Override
+    public void copyPaletteIndices(int[] out) {
+        Preconditions.checkArgument(out.length >= SIZE, "Cannot copy palette indices into an array of length " + out.length);
+
+        int perLong = Long.SIZE / this.bits;
+        long mask = (1L << this.bits) - 1;
+        int index = 0;
+        for (long value : this.data) {
+            for (int i = 0; i < perLong; i++) {
+                out[index++] = (int) (value & mask);
+                value >>>= this.bits;
+            }
+        }
+    }
+
+    @Override
+    public int getBitsPerEntry() {
+        return this.bits;
+    }
+
+    @Override
+    public boolean isUniform() {
+        if (this.paletteSize > 1) {
+            int first = this.getRaw(0);
+            for (int i = 1; i < SIZE; i++) {
+                if (this.getRaw(i) != first) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Removes all of the palette entries that are not used at any position
+     * anymore and shrinks the storage to the least amount of bits per position
+     * that can hold the remaining palette.
+     */
+    public void compact() {
+        int[] indices = new int[SIZE];
+        this.copyPaletteIndices(indices);
+
+        int[] remap = new int[this.paletteSize];
+        Arrays.fill(remap, -1);
+
+        TileState[] newPalette = new TileState[this.paletteSize];
+        int newSize = 0;
+        for (int i = 0; i < SIZE; i++) {
+            int old = indices[i];
+            if (remap[old] < 0) {
+                remap[old] = newSize;
+                newPalette[newSize] = this.palette[old];
+                newSize++;
+            }
+            indices[i] = remap[old];
+        }
+
+        int newBits = bitsFor(newSize);
+        this.palette = Arrays.copyOf(newPalette, Math.max(newSize, 1 << BIT_STEPS[0]));
+        this.paletteSize = newSize;
+        this.bits = newBits;
+        this.data = new long[dataLength(newBits)];
+        this.shared = false;
+        this.rebuildLookup();
+
+        for (int i = 0; i < SIZE; i++) {
+            this.setRaw(i, indices[i]);
+        }
+    }
+
+    /**
+     * Creates a copy of this storage. The copy initially shares its data with
+     * this storage and whichever of the two is modified first copies the data
+     * before doing so. This makes copying cheap enough to be done on the game
+     * thread, and the copy can safely be read from another thread while this
+     * storage is being modified.
+     *
+     * @return The copy
+     */
+    public PalettedTileStorage copy() {
+        return new PalettedTileStorage(this);
+    }
+
+    private void ensureOwned() {
+        if (this.shared) {
+            this.palette = this.palette.clone();
+            this.data = this.data.clone();
+            if (this.paletteLookup != null) {
+                this.paletteLookup = new IdentityHashMap<>(this.paletteLookup);
+            }
+            this.shared = false;
+        }
+    }
+
+    /**
+     * @return An approximation of the amount of bytes of heap that the palette
+     * indices of this storage take up
+     */
+    public int getDataSize() {
+        return this.data.length * Long.BYTES;
+    }
+
+    /**
+     * Writes this storage to the given output. The palette is written using
+     * the world's {@link IWorld#getIdForState(TileState)}, followed by the raw
+     * bit-packed indices.
+     *
+     * @param stream The output to write to
+     * @param world  The world whose state ids to use
+     * @throws IOException if writing fails
+     * @see #read(DataInput, IWorld)
+     */
+    public void write(DataOutput stream, IWorld world) throws IOException {
+        stream.writeByte(this.bits);
+        stream.writeShort(this.paletteSize);
+        for (int i = 0; i < this.paletteSize; i++) {
+            stream.writeInt(world.getIdForState(this.palette[i]));
+        }
+        for (long value : this.data) {
+            stream.writeLong(value);
+        }
+    }
+
+    /**
+     * Replaces the contents of this storage with ones that were written using
+     * {@link #write(DataOutput, IWorld)}. Palette entries whose ids are unknown
+     * to the world are replaced with the default state that this storage was
+     * created with.
+     *
+     * @param stream The input to read from
+     * @param world  The world whose state ids to use
+     * @throws IOException if reading fails or the data is malformed, including
+     *                     indices that are outside of the palette
+     */
+    public void read(DataInput stream, IWorld world) throws IOException {
+        int bits = stream.readByte();
+        if (Arrays.binarySearch(BIT_STEPS, bits) < 0) {
+            throw new IOException("Invalid tile storage entry size of " + bits + " bits");
+        }
+
+        int size = stream.readUnsignedShort();
+        if (size <= 0 || size > getPaletteLimit(bits)) {
+            throw new IOException("Invalid tile storage palette size " + size + " for " + bits + " bits");
+        }
+
+        TileState fallback = this.palette[0];
+        TileState[] palette = new TileState[Math.max(size, 1 << BIT_STEPS[0])];
+        for (int i = 0; i < size; i++) {
+            TileState state = world.getStateForId(stream.readInt());
+            palette[i] = state != null ? state : fallback;
+        }
+
+        long[] data = new long[dataLength(bits)];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = stream.readLong();
+        }
+        if (size < 1 << bits) {
+            checkIndices(data, bits, size);
+        }
+
+        this.palette = palette;
+        this.paletteSize = size;
+        this.bits = bits;
+        this.data = data;
+        this.shared = false;
+        this.rebuildLookup();
+    }
+
+    private static void checkIndices(long[] data, int bits, int size) throws IOException {
+        int perLong = Long.SIZE / bits;
+        long mask = (1L << bits) - 1;
+        for (int i = 0; i < data.length; i++) {
+            long value = data[i];
+            for (int j = 0; j < perLong; j++) {
+                if ((value & mask) >= size) {
+                    throw new IOException("Invalid tile storage palette index " + (value & mask) + " at position " + (i * perLong + j) + " for a palette of size " + size);
+                }
+                value >>>= bits;
+            }
+        }
+    }
+
+    private int getOrAddPaletteIndex(TileState state) {
+        Preconditions.checkNotNull(state, "Cannot set a null state into a tile storage");
+
+        if (this.paletteLookup != null) {
+            Integer index = this.paletteLookup.get(state);
+            if (index != null) {
+                return index;
+            }
+        } else {
+            for (int i = 0; i < this.paletteSize; i++) {
+                if (this.palette[i] == state) {
+                    return i;
+                }
+            }
+        }
+
+        if (this.paletteSize >= getPaletteLimit(this.bits)) {
+            this.compact();
+            if (this.paletteSize >= getPaletteLimit(this.bits)) {
+                this.grow();
+            }
+        }
+        if (this.paletteSize >= this.palette.length) {
+            this.palette = Arrays.copyOf(this.palette, Math.min(this.palette.length * 2, getPaletteLimit(this.bits)));
+        }
+
+        int index = this.paletteSize;
+        this.palette[index] = state;
+        this.paletteSize++;
+        if (this.paletteLookup != null) {
+            this.paletteLookup.put(state, index);
+        } else if (this.paletteSize > LINEAR_LOOKUP_SIZE) {
+            this.rebuildLookup();
+        }
+        return index;
+    }
+
+    private void grow() {
+        int newBits = bitsFor(this.paletteSize + 1);
+        Preconditions.checkState(newBits > this.bits, "Tile storage palette cannot grow past " + this.bits + " bits");
+
+        int[] indices = new int[SIZE];
+        this.copyPaletteIndices(indices);
+
+        this.bits = newBits;
+        this.data = new long[dataLength(newBits)];
+
+        for (int i = 0; i < SIZE; i++) {
+            this.setRaw(i, indices[i]);
+        }
+    }
+
+    private void rebuildLookup() {
+        if (this.paletteSize > LINEAR_LOOKUP_SIZE) {
+            this.paletteLookup = new IdentityHashMap<>();
+            for (int i = 0; i < this.paletteSize; i++) {
+                this.paletteLookup.put(this.palette[i], i);
+            }
+        } else {
+            this.paletteLookup = null;
+        }
+    }
+
+    private static int getPaletteLimit(int bits) {
+        // a palette can never need more entries than there are positions, plus the one that is being added
+        return Math.min(1 << bits, SIZE + 1);
+    }
+
+    private static int bitsFor(int paletteSize) {
+        for (int bits : BIT_STEPS) {
+            if (paletteSize <= 1 << bits) {
+                return bits;
+            }
+        }
+        throw new IllegalArgumentException("Palette size " + paletteSize + " is too large for a tile storage");
+    }
+
+    private int getRaw(int index) {
+        int perLong = Long.SIZE / this.bits;
+        int shift = (index % perLong) * this.bits;
+        return (int) ((this.data[index / perLong] >>> shift) & ((1L << this.bits) - 1));
+    }
+
+    private void setRaw(int index, int value) {
+        int perLong = Long.SIZE / this.bits;
+        int shift = (index % perLong) * this.bits;
+        long mask = ((1L << this.bits) - 1) << shift;
+        int slot = index / perLong;
+        this.data[slot] = (this.data[slot] & ~mask) | (((long) value << shift) & mask);
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * This file ("RegionConverter.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/RockBottomGame/>.
+ * View information on the project at <https://rockbottom.ellpeck.de/>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * © 2018 Ellpeck
+ */
+
+package de.ellpeck.rockbottom.api.world.storage;
+
+import de.ellpeck.rockbottom.api.RockBottomAPI;
+import de.ellpeck.rockbottom.api.data.set.DataSet;
+import de.ellpeck.rockbottom.api.world.IWorld;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A one-shot converter that moves the chunks of a world that were saved as one
+ * {@link DataSet} file per chunk into a {@link RegionStorage}. Converted chunks
+ * are stored with the {@link RegionStorage#FORMAT_DATA_SET} format and are
+ * rewritten in the native format the next time they are saved.
+ */
+public final class RegionConverter {
+
+    /**
+     * The pattern that the names of the per-chunk files in {@link
+     * IWorld#getChunksFolder()} follow
+     */
+    public static final Pattern LEGACY_CHUNK_FILE = Pattern.compile("c_(-?\\d+)_(-?\\d+)\\.dat");
+
+    /**
+     * Converts all of the per-chunk files in the given folder and writes them
+     * into the given storage.
+     *
+     * @param chunksFolder The folder holding the per-chunk files
+     * @param storage      The storage to write into
+     * @param deleteOld    If the per-chunk files should be deleted once they
+     *                     have been converted successfully and the storage
+     *                     has been flushed to the disk
+     * @return The amount of chunks that were converted
+     */
+    public static int convert(File chunksFolder, RegionStorage storage, boolean deleteOld) {
+        File[] files = chunksFolder.listFiles();
+        if (files == null) {
+            return 0;
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(RegionFile.SECTOR_SIZE);
+        DataOutputStream output = new DataOutputStream(bytes);
+        List<File> converted = new ArrayList<>();
+
+        for (File file : files) {
+            Matcher matcher = LEGACY_CHUNK_FILE.matcher(file.getName());
+            if (matcher.matches()) {
+                int gridX = Integer.parseInt(matcher.group(1));
+                int gridY = Integer.parseInt(matcher.group(2));
+
+                try {
+                    DataSet set = new DataSet();
+                    set.read(file);
+
+                    bytes.reset();
+                    output.writeByte(RegionStorage.FORMAT_DATA_SET);
+                    RockBottomAPI.getApiHandler().writeDataSet(output, set);
+                    output.flush();
+
+                    byte[] data = bytes.toByteArray();
+                    storage.writeChunk(gridX, gridY, data, 0, data.length);
+                    converted.add(file);
+                } catch (Exception e) {
+                    RockBottomAPI.logger().log(Level.WARNING, "Couldn't convert chunk file " + file + " to region storage", e);
+                }
+            }
+        }
+
+        storage.flush();
+        if (deleteOld) {
+            for (File file : converted) {
+                if (!file.delete()) {
+                    RockBottomAPI.logger().warning("Couldn't delete converted chunk file " + file);
+                }
+            }
+        }
+
+        RockBottomAPI.logger().info("Converted " + converted.size() + " chunk files in " + chunksFolder + " to region storage");
+        return converted.size();
+    }
+}
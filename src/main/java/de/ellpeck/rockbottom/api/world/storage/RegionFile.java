@@ -0,0 +1,261 @@
+/*
+ * This file ("RegionFile.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/RockBottomGame/>.
+ * View information on the project at <https://rockbottom.ellpeck.de/>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * © 2018 Ellpeck
+ */
+
+package de.ellpeck.rockbottom.api.world.storage;
+
+import com.google.common.base.Preconditions;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+
+/**
+ * A single region file that stores the payloads of a fixed grid of {@link
+ * #REGION_SIZE} by {@link #REGION_SIZE} chunks. The file starts with a header
+ * sector that holds the sector offset and the byte length of every chunk's
+ * payload, followed by the payloads themselves, each one taking up a
+ * contiguous run of {@link #SECTOR_SIZE} byte sectors. The whole file is
+ * accessed through a memory-mapped {@link FileChannel}.
+ * <p>
+ * A payload is never overwritten in place. Every write goes into fresh
+ * sectors, and the sectors of the old payload are only reused after the next
+ * {@link #flush()}, so that a crash before that still leaves the old payload
+ * intact on the disk. Instead of growing the file, a write flushes it first
+ * if there are sectors waiting to be freed.
+ * <p>
+ * A region file is not thread-safe. Use {@link RegionStorage} to access a
+ * folder of region files.
+ */
+public final class RegionFile implements Closeable {
+
+    /**
+     * The amount of chunks that a region file holds, horizontally and
+     * vertically
+     */
+    public static final int REGION_SIZE = 16;
+    /**
+     * The size of a single sector in bytes
+     */
+    public static final int SECTOR_SIZE = 4096;
+
+    private static final int CHUNKS = REGION_SIZE * REGION_SIZE;
+    private static final int HEADER_SECTORS = 1;
+    private static final int GROW_SECTORS = 64;
+
+    private final File file;
+    private final FileChannel channel;
+    private final int[] offsets = new int[CHUNKS];
+    private final int[] lengths = new int[CHUNKS];
+    private final BitSet usedSectors = new BitSet();
+    private final BitSet freedSectors = new BitSet();
+    private MappedByteBuffer buffer;
+    private int totalSectors;
+
+    public RegionFile(File file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        long size = this.channel.size();
+        this.totalSectors = Math.max(HEADER_SECTORS, (int) ((size + SECTOR_SIZE - 1) / SECTOR_SIZE));
+        this.map(this.totalSectors);
+        this.usedSectors.set(0, HEADER_SECTORS);
+
+        for (int i = 0; i < CHUNKS; i++) {
+            int offset = this.buffer.getInt(i * 8);
+            int length = this.buffer.getInt(i * 8 + 4);
+
+            if (offset >= HEADER_SECTORS && length > 0 && offset + sectorsFor(length) <= this.totalSectors) {
+                this.offsets[i] = offset;
+                this.lengths[i] = length;
+                this.usedSectors.set(offset, offset + sectorsFor(length));
+            }
+        }
+    }
+
+    private static int sectorsFor(int length) {
+        return (length + SECTOR_SIZE - 1) / SECTOR_SIZE;
+    }
+
+    private static int getIndex(int innerX, int innerY) {
+        Preconditions.checkArgument(innerX >= 0 && innerX < REGION_SIZE && innerY >= 0 && innerY < REGION_SIZE, "Position " + innerX + ", " + innerY + " is outside of a region");
+        return innerX * REGION_SIZE + innerY;
+    }
+
+    private void map(int sectors) throws IOException {
+        if (this.buffer != null) {
+            this.buffer.force();
+        }
+        this.buffer = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) sectors * SECTOR_SIZE);
+        this.totalSectors = sectors;
+    }
+
+    /**
+     * Returns if the chunk at the given position in this region has a payload
+     *
+     * @param innerX The chunk's x position inside of this region
+     * @param innerY The chunk's y position inside of this region
+     * @return If there is a payload
+     */
+    public boolean hasChunk(int innerX, int innerY) {
+        return this.lengths[getIndex(innerX, innerY)] > 0;
+    }
+
+    /**
+     * Returns a read-only view of the payload of the chunk at the given
+     * position. The returned buffer directly accesses the mapped file, so it is
+     * only valid until the chunk is written to again or this file is closed.
+     *
+     * @param innerX The chunk's x position inside of this region
+     * @param innerY The chunk's y position inside of this region
+     * @return The payload, or null if there is none
+     */
+    public ByteBuffer read(int innerX, int innerY) {
+        int index = getIndex(innerX, innerY);
+        int length = this.lengths[index];
+        if (length <= 0) {
+            return null;
+        }
+
+        ByteBuffer view = this.buffer.asReadOnlyBuffer();
+        view.position(this.offsets[index] * SECTOR_SIZE);
+        view.limit(this.offsets[index] * SECTOR_SIZE + length);
+        return view.slice();
+    }
+
+    /**
+     * Writes the payload of the chunk at the given position into fresh
+     * sectors. The chunk's old sectors are freed once the file is flushed.
+     *
+     * @param innerX The chunk's x position inside of this region
+     * @param innerY The chunk's y position inside of this region
+     * @param data   The array holding the payload
+     * @param offset The offset of the payload in the array
+     * @param length The length of the payload
+     * @throws IOException if the file couldn't be grown
+     */
+    public void write(int innerX, int innerY, byte[] data, int offset, int length) throws IOException {
+        Preconditions.checkArgument(length > 0, "Cannot write an empty payload to region file " + this.file);
+        int index = getIndex(innerX, innerY);
+
+        int start = this.allocate(sectorsFor(length));
+        ByteBuffer view = this.buffer.duplicate();
+        view.position(start * SECTOR_SIZE);
+        view.put(data, offset, length);
+
+        this.free(index);
+        this.offsets[index] = start;
+        this.lengths[index] = length;
+        this.writeHeader(index);
+    }
+
+    /**
+     * Removes the payload of the chunk at the given position. Its sectors are
+     * freed once the file is flushed.
+     *
+     * @param innerX The chunk's x position inside of this region
+     * @param innerY The chunk's y position inside of this region
+     */
+    public void remove(int innerX, int innerY) {
+        int index = getIndex(innerX, innerY);
+        this.free(index);
+        this.writeHeader(index);
+    }
+
+    private void free(int index) {
+        if (this.lengths[index] > 0) {
+            this.freedSectors.set(this.offsets[index], this.offsets[index] + sectorsFor(this.lengths[index]));
+        }
+        this.offsets[index] = 0;
+        this.lengths[index] = 0;
+    }
+
+    private int allocate(int sectors) throws IOException {
+        int start = this.findFreeSectors(sectors);
+        if (start + sectors > this.totalSectors && !this.freedSectors.isEmpty()) {
+            // flushing makes the freed sectors safe to reuse, which is cheaper than growing the file
+            this.flush();
+            start = this.findFreeSectors(sectors);
+        }
+
+        if (start + sectors > this.totalSectors) {
+            this.map(start + sectors + GROW_SECTORS);
+        }
+        this.usedSectors.set(start, start + sectors);
+        return start;
+    }
+
+    private int findFreeSectors(int sectors) {
+        int start = HEADER_SECTORS;
+        while (true) {
+            start = this.usedSectors.nextClearBit(start);
+            int end = this.usedSectors.nextSetBit(start);
+            if (end < 0 || end - start >= sectors) {
+                break;
+            }
+            start = end;
+        }
+        return start;
+    }
+
+    private void writeHeader(int index) {
+        this.buffer.putInt(index * 8, this.offsets[index]);
+        this.buffer.putInt(index * 8 + 4, this.lengths[index]);
+    }
+
+    /**
+     * @return The amount of chunks that currently have a payload in this file
+     */
+    public int getChunkAmount() {
+        int amount = 0;
+        for (int length : this.lengths) {
+            if (length > 0) {
+                amount++;
+            }
+        }
+        return amount;
+    }
+
+    /**
+     * Forces all changes to this file to be written to the disk and makes the
+     * sectors of payloads that were replaced or removed since the last flush
+     * available again.
+     */
+    public void flush() {
+        this.buffer.force();
+        this.usedSectors.andNot(this.freedSectors);
+        this.freedSectors.clear();
+    }
+
+    public File getFile() {
+        return this.file;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.flush();
+        this.channel.close();
+    }
+}
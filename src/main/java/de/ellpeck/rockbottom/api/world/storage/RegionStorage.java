@@ -0,0 +1,244 @@
+/*
+ * This file ("RegionStorage.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/RockBottomGame/>.
+ * View information on the project at <https://rockbottom.ellpeck.de/>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * © 2018 Ellpeck
+ */
+
+package de.ellpeck.rockbottom.api.world.storage;
+
+import de.ellpeck.rockbottom.api.RockBottomAPI;
+import de.ellpeck.rockbottom.api.util.Pos2;
+import de.ellpeck.rockbottom.api.world.IChunk;
+import de.ellpeck.rockbottom.api.world.IWorld;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+
+/**
+ * Stores the chunks of an {@link IWorld} in a folder of {@link RegionFile}s
+ * rather than in one file per chunk. Every chunk payload starts with a format
+ * byte, which is either {@link #FORMAT_NATIVE} for payloads written directly
+ * from the chunk's storage using {@link IChunk#save(DataOutput)} or {@link
+ * #FORMAT_DATA_SET} for payloads that hold a data set, like the ones created
+ * by {@link RegionConverter}.
+ * <p>
+ * Only a limited amount of region files are kept open at once. The least
+ * recently used ones are closed when that limit is exceeded.
+ *
+ * @see IWorld#getRegionStorage()
+ */
+public final class RegionStorage implements Closeable {
+
+    /**
+     * The format of a chunk payload that was written using {@link
+     * IChunk#save(DataOutput)}
+     */
+    public static final byte FORMAT_NATIVE = 1;
+    /**
+     * The format of a chunk payload that holds a data set written using {@link
+     * de.ellpeck.rockbottom.api.IApiHandler#writeDataSet(DataOutput,
+     * de.ellpeck.rockbottom.api.data.set.AbstractDataSet)}
+     */
+    public static final byte FORMAT_DATA_SET = 0;
+
+    private static final int MAX_OPEN_FILES = 64;
+    private static final int PAYLOAD_BUFFER_SIZE = RegionFile.SECTOR_SIZE * 4;
+
+    private final File folder;
+    private final Map<Pos2, RegionFile> openFiles = new LinkedHashMap<>(16, 0.75F, true);
+    private final PayloadStream payload = new PayloadStream();
+    private final DataOutputStream payloadOutput = new DataOutputStream(this.payload);
+
+    public RegionStorage(File folder) {
+        this.folder = folder;
+    }
+
+    public static int toRegionPos(int gridPos) {
+        return Math.floorDiv(gridPos, RegionFile.REGION_SIZE);
+    }
+
+    public static int toInnerPos(int gridPos) {
+        return Math.floorMod(gridPos, RegionFile.REGION_SIZE);
+    }
+
+    public static String getFileName(int regionX, int regionY) {
+        return "r_" + regionX + "_" + regionY + ".rbr";
+    }
+
+    private RegionFile getFile(int gridX, int gridY, boolean create) throws IOException {
+        int regionX = toRegionPos(gridX);
+        int regionY = toRegionPos(gridY);
+        Pos2 pos = new Pos2(regionX, regionY);
+
+        RegionFile region = this.openFiles.get(pos);
+        if (region == null) {
+            File file = new File(this.folder, getFileName(regionX, regionY));
+            if (!create && !file.exists()) {
+                return null;
+            }
+            if (!this.folder.exists()) {
+                this.folder.mkdirs();
+            }
+
+            region = new RegionFile(file);
+            this.openFiles.put(pos, region);
+
+            if (this.openFiles.size() > MAX_OPEN_FILES) {
+                Iterator<RegionFile> iterator = this.openFiles.values().iterator();
+                RegionFile eldest = iterator.next();
+                iterator.remove();
+                eldest.close();
+            }
+        }
+        return region;
+    }
+
+    /**
+     * Returns if there is a payload for the chunk at the given grid position
+     *
+     * @param gridX The chunk's grid x
+     * @param gridY The chunk's grid y
+     * @return If the chunk has been stored
+     */
+    public synchronized boolean hasChunk(int gridX, int gridY) {
+        try {
+            RegionFile region = this.getFile(gridX, gridY, false);
+            return region != null && region.hasChunk(toInnerPos(gridX), toInnerPos(gridY));
+        } catch (IOException e) {
+            RockBottomAPI.logger().log(Level.WARNING, "Couldn't open region file for chunk at " + gridX + ", " + gridY, e);
+            return false;
+        }
+    }
+
+    /**
+     * Reads the payload of the chunk at the given grid position into a new
+     * array. The first byte of the returned array is the payload's format.
+     *
+     * @param gridX The chunk's grid x
+     * @param gridY The chunk's grid y
+     * @return The payload, or null if the chunk hasn't been stored
+     * @throws IOException if the region file couldn't be opened
+     */
+    public synchronized byte[] readChunk(int gridX, int gridY) throws IOException {
+        RegionFile region = this.getFile(gridX, gridY, false);
+        if (region != null) {
+            ByteBuffer buffer = region.read(toInnerPos(gridX), toInnerPos(gridY));
+            if (buffer != null) {
+                byte[] data = new byte[buffer.remaining()];
+                buffer.get(data);
+                return data;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Opens a {@link DataInputStream} to read the payload of the chunk at the
+     * given grid position, skipping the format byte.
+     *
+     * @param gridX The chunk's grid x
+     * @param gridY The chunk's grid y
+     * @param format The format that the payload is expected to be in
+     * @return The stream, or null if there is no payload or it is in a
+     * different format
+     * @throws IOException if the region file couldn't be opened
+     */
+    public DataInputStream openChunk(int gridX, int gridY, byte format) throws IOException {
+        byte[] data = this.readChunk(gridX, gridY);
+        if (data != null && data.length > 0 && data[0] == format) {
+            return new DataInputStream(new ByteArrayInputStream(data, 1, data.length - 1));
+        }
+        return null;
+    }
+
+    /**
+     * Writes the given chunk's payload directly from its storage using {@link
+     * IChunk#save(DataOutput)}.
+     *
+     * @param chunk The chunk to write
+     * @throws IOException if writing fails
+     */
+    public synchronized void writeChunk(IChunk chunk) throws IOException {
+        this.payload.reset();
+        this.payloadOutput.writeByte(FORMAT_NATIVE);
+        chunk.save(this.payloadOutput);
+        this.writeChunk(chunk.getGridX(), chunk.getGridY(), this.payload.getBuffer(), 0, this.payload.size());
+    }
+
+    /**
+     * Writes a raw payload for the chunk at the given grid position. The first
+     * byte of the payload needs to be its format.
+     *
+     * @param gridX  The chunk's grid x
+     * @param gridY  The chunk's grid y
+     * @param data   The array holding the payload
+     * @param offset The offset of the payload in the array
+     * @param length The length of the payload
+     * @throws IOException if writing fails
+     */
+    public synchronized void writeChunk(int gridX, int gridY, byte[] data, int offset, int length) throws IOException {
+        this.getFile(gridX, gridY, true).write(toInnerPos(gridX), toInnerPos(gridY), data, offset, length);
+    }
+
+    /**
+     * Forces all open region files to be written to the disk.
+     */
+    public synchronized void flush() {
+        for (RegionFile region : this.openFiles.values()) {
+            region.flush();
+        }
+    }
+
+    public File getFolder() {
+        return this.folder;
+    }
+
+    @Override
+    public synchronized void close() {
+        for (RegionFile region : this.openFiles.values()) {
+            try {
+                region.close();
+            } catch (IOException e) {
+                RockBottomAPI.logger().log(Level.WARNING, "Couldn't close region file " + region.getFile(), e);
+            }
+        }
+        this.openFiles.clear();
+    }
+
+    private static final class PayloadStream extends ByteArrayOutputStream {
+
+        public PayloadStream() {
+            super(PAYLOAD_BUFFER_SIZE);
+        }
+
+        public byte[] getBuffer() {
+            return this.buf;
+        }
+    }
+}